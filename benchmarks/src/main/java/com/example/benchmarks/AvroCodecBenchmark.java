@@ -0,0 +1,71 @@
+package com.example.benchmarks;
+
+import com.example.common.codec.SpecificRecordEncoder;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary encode/decode of every schema in {@code common/src/main/avro}, using the pooled
+ * {@link SpecificRecordEncoder} and a reused decoder as the services would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvroCodecBenchmark {
+
+    @Param({
+            "OrderLine",
+            "OrderCreated", "OrderCreatedV2",
+            "OrderCancelled", "OrderCancelledV2",
+            "PaymentAuthorized", "PaymentAuthorizedV2",
+            "PaymentFailed", "PaymentFailedV2",
+            "StockReserved", "StockReservedV2",
+            "StockRejected", "StockRejectedV2",
+            "OrderStatusChanged", "OrderStatusChangedV2",
+            "EventEnvelope", "EventEnvelopeV2"
+    })
+    private String schema;
+
+    private SpecificRecordBase record;
+    private byte[] encoded;
+    private DatumReader<SpecificRecordBase> reader;
+    private BinaryDecoder decoder;
+
+    @Setup
+    public void setUp() throws IOException {
+        record = SampleEvents.create(schema);
+        encoded = SpecificRecordEncoder.encodeToBytes(record);
+        reader = SampleEvents.readerFor(record);
+    }
+
+    @Benchmark
+    public ByteBuffer encode() throws IOException {
+        return SpecificRecordEncoder.encode(record);
+    }
+
+    @Benchmark
+    public SpecificRecordBase decode() throws IOException {
+        decoder = DecoderFactory.get().binaryDecoder(encoded, decoder);
+        return reader.read(null, decoder);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Accepts the usual JMH command line, but defaults to
+ * writing JSON results to {@code jmh-results/<timestamp>.json} so that two runs can be diffed
+ * (e.g. with jmh.morethan.io or {@code jq}). {@code -rf} and {@code -rff} still take precedence.
+ */
+public final class BenchmarkRunner {
+
+    private static final DateTimeFormatter RESULT_FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams()
+                || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (!cli.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cli.getResult().hasValue()) {
+            Path resultFile = Path.of("jmh-results",
+                    LocalDateTime.now().format(RESULT_FILE_TIMESTAMP) + ".json");
+            Files.createDirectories(resultFile.getParent());
+            options.result(resultFile.toString());
+        }
+
+        new Runner(options.build()).run();
+    }
+}
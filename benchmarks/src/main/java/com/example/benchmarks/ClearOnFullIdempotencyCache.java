@@ -1,20 +1,25 @@
-package com.example.inventory.service;
+package com.example.benchmarks;
 
-import org.springframework.stereotype.Component;
+import com.example.common.idempotency.EventIdIdempotencyStore;
 
 import java.util.concurrent.ConcurrentHashMap;
 
-@Component
-public class IdempotencyCache {
+/**
+ * The per-service {@code IdempotencyCache} that {@link com.example.common.idempotency.GenerationalIdempotencyStore}
+ * replaced, kept as a baseline: it forgets every ID at once when it reaches 10k entries.
+ */
+class ClearOnFullIdempotencyCache implements EventIdIdempotencyStore {
 
     private static final int MAX_SIZE = 10_000;
 
     private final ConcurrentHashMap<String, Boolean> processedEvents = new ConcurrentHashMap<>();
 
+    @Override
     public boolean contains(String eventId) {
         return processedEvents.containsKey(eventId);
     }
 
+    @Override
     public void mark(String eventId) {
         if (processedEvents.size() >= MAX_SIZE) {
             processedEvents.clear();
@@ -0,0 +1,108 @@
+package com.example.benchmarks;
+
+import com.example.common.EventEnvelopeBuilder;
+import com.example.common.avro.EventEnvelope;
+import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderLine;
+import com.example.common.codec.SpecificRecordEncoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original per-event encoding path of {@link EventEnvelopeBuilder} with the
+ * pooled {@link SpecificRecordEncoder}.
+ * <p>
+ * Throughput is reported as events/sec. Run with the GC profiler to get bytes allocated per
+ * event ({@code gc.alloc.rate.norm}):
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar EventEnvelopeEncodingBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventEnvelopeEncodingBenchmark {
+
+    private OrderCreated payload;
+
+    @Setup
+    public void setUp() {
+        payload = OrderCreated.newBuilder()
+                .setId(UUID.randomUUID().toString())
+                .setCustomerId("customer-42")
+                .setLines(List.of(new OrderLine("SKU-001", 2), new OrderLine("SKU-003", 1)))
+                .setTotal("249.95")
+                .setStatus("CREATED")
+                .setCreatedAt(Instant.now().toString())
+                .build();
+    }
+
+    @Benchmark
+    public EventEnvelope legacyWrap() throws IOException {
+        return EventEnvelope.newBuilder()
+                .setEventId(UUID.randomUUID().toString())
+                .setType(payload.getSchema().getFullName())
+                .setVersion(1)
+                .setOccurredAt(Instant.now().toString())
+                .setProducer("benchmark")
+                .setCorrelationId("corr-1")
+                .setPayload(legacySerializePayload(payload))
+                .build();
+    }
+
+    @Benchmark
+    public EventEnvelope pooledWrap() throws IOException {
+        return EventEnvelopeBuilder.wrap(payload, "benchmark", "corr-1");
+    }
+
+    @Benchmark
+    public ByteBuffer legacyEncodePayload() throws IOException {
+        return legacySerializePayload(payload);
+    }
+
+    @Benchmark
+    public ByteBuffer pooledEncodePayloadView() throws IOException {
+        return SpecificRecordEncoder.encode(payload);
+    }
+
+    @Benchmark
+    public byte[] pooledEncodePayloadCopy() throws IOException {
+        return SpecificRecordEncoder.encodeToBytes(payload);
+    }
+
+    /**
+     * The encoding path {@link EventEnvelopeBuilder} used before the pooled encoder.
+     */
+    private static ByteBuffer legacySerializePayload(SpecificRecordBase record) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        DatumWriter<SpecificRecordBase> writer = new SpecificDatumWriter<>(record.getSchema());
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+        writer.write(record, encoder);
+        encoder.flush();
+        return ByteBuffer.wrap(outputStream.toByteArray());
+    }
+}
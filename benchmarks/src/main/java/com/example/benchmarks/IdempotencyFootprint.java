@@ -0,0 +1,76 @@
+package com.example.benchmarks;
+
+import com.example.common.idempotency.EventIdIdempotencyStore;
+import com.example.common.idempotency.GenerationalIdempotencyStore;
+import com.example.common.idempotency.HashedIdempotencyStore;
+import com.example.common.idempotency.IdempotencyStore;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Retained heap per remembered event ID for each {@link IdempotencyStore}. JMH measures time,
+ * not footprint, so this is a plain program:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.example.benchmarks.IdempotencyFootprint [entries]
+ * </pre>
+ * IDs look like the payment-service keys ({@code <order UUID>-payment}) and are only referenced
+ * by the store, so the string-keyed stores are charged for the IDs they keep alive. Numbers
+ * come from used heap after {@code System.gc()} and are approximate.
+ */
+public final class IdempotencyFootprint {
+
+    private IdempotencyFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.printf("%-48s %12s %14s%n", "store", "entries", "bytes/entry");
+        measure("ConcurrentHashMap<String, Boolean> (old cache)", entries, () -> {
+            ConcurrentHashMap<String, Boolean> map = new ConcurrentHashMap<>();
+            return new EventIdIdempotencyStore() {
+                @Override
+                public boolean contains(String eventId) {
+                    return map.containsKey(eventId);
+                }
+
+                @Override
+                public void mark(String eventId) {
+                    map.put(eventId, Boolean.TRUE);
+                }
+            };
+        });
+        measure("GenerationalIdempotencyStore", entries,
+                () -> new GenerationalIdempotencyStore(Duration.ofHours(1), entries * 4));
+        // Current tables full and previous ones empty: the least favourable fill.
+        measure("HashedIdempotencyStore (64-bit)", entries,
+                () -> new HashedIdempotencyStore(entries * 2, 1e-9));
+        measure("HashedIdempotencyStore (128-bit)", entries,
+                () -> new HashedIdempotencyStore(entries * 2, 1e-18));
+    }
+
+    private static void measure(String name, int entries, Supplier<EventIdIdempotencyStore> factory) {
+        long before = usedHeap();
+        EventIdIdempotencyStore store = factory.get();
+        for (int i = 0; i < entries; i++) {
+            store.mark(UUID.randomUUID() + "-payment");
+        }
+        long after = usedHeap();
+        if (!store.contains("missing")) {
+            System.out.printf("%-48s %,12d %14.1f%n", name, entries, (after - before) / (double) entries);
+        }
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.benchmarks;
+
+import com.example.common.idempotency.JournaledIdempotencyStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link JournaledIdempotencyStore} costs that the in-heap stores do not have:
+ * <ul>
+ *     <li>{@code markMillion} – one million marks into an empty journal, including segment
+ *     rolls; divide by a million for the sustained per-mark cost</li>
+ *     <li>{@code recoverMillion} – restart-to-ready: opening a journal holding a million IDs and
+ *     rebuilding the index. Segment files are in the page cache, so this is the warm-restart
+ *     case; a cold disk adds the read time of about 40 MB</li>
+ * </ul>
+ * Both are single-shot, since every invocation has to start from a fresh or full journal.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class IdempotencyJournalBenchmark {
+
+    private static final int ENTRIES = 1_000_000;
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    @State(Scope.Benchmark)
+    public static class EmptyJournal {
+
+        String[] keys;
+        Path directory;
+        JournaledIdempotencyStore store;
+
+        @Setup(Level.Trial)
+        public void generateKeys() {
+            keys = randomKeys();
+        }
+
+        @Setup(Level.Iteration)
+        public void open() throws IOException {
+            directory = Files.createTempDirectory("idempotency-journal-bench");
+            store = new JournaledIdempotencyStore(directory, TTL, JournaledIdempotencyStore.DEFAULT_SEGMENT_BYTES);
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() throws IOException {
+            store.close();
+            delete(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FullJournal {
+
+        Path directory;
+
+        @Setup(Level.Trial)
+        public void fill() throws IOException {
+            directory = Files.createTempDirectory("idempotency-journal-bench");
+            try (JournaledIdempotencyStore store = new JournaledIdempotencyStore(directory, TTL,
+                    JournaledIdempotencyStore.DEFAULT_SEGMENT_BYTES)) {
+                for (String key : randomKeys()) {
+                    store.mark(key);
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            IdempotencyJournalBenchmark.delete(directory);
+        }
+    }
+
+    @Benchmark
+    public JournaledIdempotencyStore markMillion(EmptyJournal journal) {
+        for (String key : journal.keys) {
+            journal.store.mark(key);
+        }
+        return journal.store;
+    }
+
+    @Benchmark
+    public long recoverMillion(FullJournal journal) throws IOException {
+        try (JournaledIdempotencyStore store = new JournaledIdempotencyStore(journal.directory, TTL,
+                JournaledIdempotencyStore.DEFAULT_SEGMENT_BYTES)) {
+            return store.size();
+        }
+    }
+
+    private static String[] randomKeys() {
+        String[] keys = new String[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            keys[i] = UUID.randomUUID().toString();
+        }
+        return keys;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.benchmarks;
+
+import com.example.common.TopicNames;
+import com.example.common.idempotency.GenerationalIdempotencyStore;
+import com.example.common.idempotency.HashedIdempotencyStore;
+import com.example.common.idempotency.IdempotencyStore;
+import com.example.common.idempotency.OffsetWatermarkIdempotencyStore;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IdempotencyStore} implementations under contention: listener threads checking
+ * {@code contains} while others {@code mark} new event IDs. Both stores are capped at 10k IDs
+ * and the key space is larger, so the old cache's clear-on-full path, the generational store's
+ * rotation and the hashed store's table recycling are all exercised. Calls go through the
+ * record overloads so the offset-watermark store, which keys on partition and offset, can be
+ * compared too.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdempotencyStoreBenchmark {
+
+    private static final int KEY_SPACE = 1 << 15;
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private static final int PARTITIONS = 3;
+
+    @Param({"clearOnFull", "generational", "hashed", "offsetWatermark"})
+    private String store;
+
+    private IdempotencyStore cache;
+    private String[] keys;
+    private ConsumerRecord<?, ?>[] records;
+
+    @Setup
+    public void setUp() {
+        cache = switch (store) {
+            case "clearOnFull" -> new ClearOnFullIdempotencyCache();
+            case "generational" -> new GenerationalIdempotencyStore(Duration.ofMinutes(10), MAX_ENTRIES);
+            case "hashed" -> new HashedIdempotencyStore(MAX_ENTRIES, 1e-9);
+            case "offsetWatermark" -> new OffsetWatermarkIdempotencyStore();
+            default -> throw new IllegalArgumentException("Unknown store: " + store);
+        };
+        keys = new String[KEY_SPACE];
+        records = new ConsumerRecord[KEY_SPACE];
+        for (int i = 0; i < KEY_SPACE; i++) {
+            keys[i] = UUID.randomUUID().toString();
+            records[i] = new ConsumerRecord<>(TopicNames.ORDERS, i % PARTITIONS, i / PARTITIONS, keys[i], null);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next() {
+            return next++ & (KEY_SPACE - 1);
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public boolean contains(Cursor cursor) {
+        int i = cursor.next();
+        return cache.contains(records[i], keys[i]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mark(Cursor cursor) {
+        int i = cursor.next();
+        cache.mark(records[i], keys[i]);
+    }
+
+    @Benchmark
+    @Group("markOnly")
+    @GroupThreads(4)
+    public void markContended(Cursor cursor) {
+        int i = cursor.next();
+        cache.mark(records[i], keys[i]);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.benchmarks;
+
+import com.example.order.controller.dto.CreateOrderRequest;
+import com.example.order.controller.dto.OrderLineDto;
+import com.example.order.converter.AvroOrderRequestConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU per order of reading a {@code POST /orders} body into a {@link CreateOrderRequest}, through
+ * the same message converters the order service uses: Jackson for {@code application/json} and
+ * {@link AvroOrderRequestConverter} for {@code application/avro}. Everything after the request
+ * is built is shared by both. Body sizes are printed once per trial.
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar OrderIngestionBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderIngestionBenchmark {
+
+    @Param({"1", "10"})
+    private int lines;
+
+    private final JacksonJsonHttpMessageConverter jsonConverter =
+            new JacksonJsonHttpMessageConverter(JsonMapper.builder().build());
+    private final AvroOrderRequestConverter avroConverter = new AvroOrderRequestConverter();
+
+    private byte[] jsonBody;
+    private byte[] avroBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<OrderLineDto> orderLines = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            orderLines.add(new OrderLineDto("SKU-%03d".formatted(i + 1), i + 1));
+        }
+        var request = new CreateOrderRequest("customer-42", orderLines, new BigDecimal("249.95"));
+
+        jsonBody = JsonMapper.builder().build().writeValueAsBytes(request);
+        ByteBuffer avro = request.toAvro().toByteBuffer();
+        avroBody = new byte[avro.remaining()];
+        avro.get(avroBody);
+
+        System.out.printf("%n%d line(s) body size: json=%d bytes, avro=%d bytes%n",
+                lines, jsonBody.length, avroBody.length);
+    }
+
+    @Benchmark
+    public CreateOrderRequest json() throws IOException {
+        return (CreateOrderRequest) jsonConverter.read(CreateOrderRequest.class, new Body(jsonBody, MediaType.APPLICATION_JSON));
+    }
+
+    @Benchmark
+    public CreateOrderRequest avro() throws IOException {
+        return avroConverter.read(CreateOrderRequest.class, new Body(avroBody, AvroOrderRequestConverter.MEDIA_TYPE));
+    }
+
+    private static final class Body implements HttpInputMessage {
+
+        private final byte[] bytes;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private Body(byte[] bytes, MediaType contentType) {
+            this.bytes = bytes;
+            headers.setContentType(contentType);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
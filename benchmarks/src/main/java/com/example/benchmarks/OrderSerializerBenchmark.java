@@ -0,0 +1,119 @@
+package com.example.benchmarks;
+
+import com.example.common.TopicNames;
+import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderLine;
+import com.example.common.codec.SpecificRecordEncoder;
+import com.example.order.codec.OrderSerializer;
+import com.example.order.model.Order;
+import com.example.order.model.OrderLineItem;
+import com.example.order.model.OrderStatus;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.serializers.AbstractKafkaSchemaSerDeConfig;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing an {@link Order} for {@code orders.v1}: building an {@link OrderCreated} and
+ * handing it to {@link KafkaAvroSerializer}, as the publisher used to, against
+ * {@link OrderSerializer} writing the wire format straight from the order. {@code viaRecordPooled}
+ * builds the record but encodes it with {@link SpecificRecordEncoder}, separating the cost of
+ * the record graph from that of the serializer. All share one schema registry client.
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar OrderSerializerBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderSerializerBenchmark {
+
+    @Param({"1", "10"})
+    private int lines;
+
+    private Order order;
+    private KafkaAvroSerializer avroSerializer;
+    private OrderSerializer orderSerializer;
+    private int schemaId;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<OrderLineItem> orderLines = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            orderLines.add(new OrderLineItem("SKU-%03d".formatted(i + 1), i + 1));
+        }
+        order = Order.builder()
+                .id(UUID.randomUUID().toString())
+                .customerId("customer-42")
+                .lines(orderLines)
+                .total(new BigDecimal("249.95"))
+                .status(OrderStatus.CREATED)
+                .createdAt(Instant.now())
+                .build();
+
+        SchemaRegistryClient schemaRegistry = new MockSchemaRegistryClient();
+        Map<String, Object> config = Map.of(AbstractKafkaSchemaSerDeConfig.SCHEMA_REGISTRY_URL_CONFIG, "mock://benchmark");
+        avroSerializer = new KafkaAvroSerializer(schemaRegistry);
+        avroSerializer.configure(config, false);
+        orderSerializer = new OrderSerializer(schemaRegistry);
+        orderSerializer.configure(config, false);
+        schemaId = schemaRegistry.register(TopicNames.ORDERS + "-value", new AvroSchema(OrderCreated.getClassSchema()));
+    }
+
+    @Benchmark
+    public byte[] viaRecord() {
+        return avroSerializer.serialize(TopicNames.ORDERS, buildEvent());
+    }
+
+    /** Record graph still built, but encoded with the pooled encoder: what only skipping the graph saves. */
+    @Benchmark
+    public byte[] viaRecordPooled() throws IOException {
+        ByteBuffer payload = SpecificRecordEncoder.encode(buildEvent());
+        byte[] wire = new byte[5 + payload.remaining()];
+        ByteBuffer.wrap(wire).put((byte) 0).putInt(schemaId).put(payload);
+        return wire;
+    }
+
+    @Benchmark
+    public byte[] direct() {
+        return orderSerializer.serialize(TopicNames.ORDERS, order);
+    }
+
+    private OrderCreated buildEvent() {
+        return OrderCreated.newBuilder()
+                .setId(order.getId())
+                .setCustomerId(order.getCustomerId())
+                .setLines(order.getLines().stream()
+                        .map(l -> new OrderLine(l.sku(), l.qty()))
+                        .toList())
+                .setTotal(order.getTotal().toPlainString())
+                .setStatus(order.getStatus().name())
+                .setCreatedAt(order.getCreatedAt().toString())
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.benchmarks;
+
+import com.example.common.avro.OrderStatusChanged;
+import com.example.status.service.OrderStatusAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderStatusAggregator} with payment and inventory outcomes interleaved the way two
+ * partitions would deliver them: each operation records the payment outcome of one order and
+ * the inventory outcome of an order {@link #IN_FLIGHT} positions earlier, so a bounded number
+ * of aggregations is always pending.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class OrderStatusAggregatorBenchmark {
+
+    private static final int ORDERS_PER_THREAD = 1 << 14;
+    private static final int IN_FLIGHT = 64;
+
+    private OrderStatusAggregator aggregator;
+
+    @Setup
+    public void setUp() {
+        aggregator = new OrderStatusAggregator();
+    }
+
+    @State(Scope.Thread)
+    public static class Orders {
+        private final String[] ids = new String[ORDERS_PER_THREAD];
+        private int next;
+
+        @Setup
+        public void setUp() {
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = UUID.randomUUID().toString();
+            }
+        }
+    }
+
+    @Benchmark
+    public void interleavedOutcomes(Orders orders, Blackhole bh) {
+        int i = orders.next++;
+        String paid = orders.ids[i & (ORDERS_PER_THREAD - 1)];
+        String reserved = orders.ids[(i - IN_FLIGHT) & (ORDERS_PER_THREAD - 1)];
+
+        OrderStatusChanged fromPayment = aggregator.handlePaymentOutcome(paid, "AUTHORIZED", "corr-1");
+        OrderStatusChanged fromInventory = aggregator.handleInventoryOutcome(reserved, "RESERVED", "corr-1");
+        bh.consume(fromPayment);
+        bh.consume(fromInventory);
+    }
+}
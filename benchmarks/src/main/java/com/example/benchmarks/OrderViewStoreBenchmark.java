@@ -0,0 +1,87 @@
+package com.example.benchmarks;
+
+import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderLine;
+import com.example.common.avro.OrderStatusChanged;
+import com.example.query.model.OrderView;
+import com.example.query.service.OrderViewStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderViewStore} create/update/find over a pre-populated store, driven from several
+ * threads. Events are built up front so only the store itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class OrderViewStoreBenchmark {
+
+    private static final int ORDERS = 1 << 16;
+
+    private OrderViewStore store;
+    private String[] ids;
+    private OrderCreated[] created;
+    private OrderStatusChanged[] statusChanges;
+
+    @Setup
+    public void setUp() {
+        store = new OrderViewStore();
+        ids = new String[ORDERS];
+        created = new OrderCreated[ORDERS];
+        statusChanges = new OrderStatusChanged[ORDERS];
+
+        String now = Instant.now().toString();
+        for (int i = 0; i < ORDERS; i++) {
+            ids[i] = UUID.randomUUID().toString();
+            created[i] = new OrderCreated(ids[i], "customer-42",
+                    List.of(new OrderLine("SKU-001", 2), new OrderLine("SKU-003", 1)),
+                    "249.95", "CREATED", now);
+            statusChanges[i] = new OrderStatusChanged(ids[i], "AUTHORIZED", "RESERVED", "CONFIRMED", now);
+            store.createFromOrderCreated(created[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next() {
+            return next++ & (ORDERS - 1);
+        }
+    }
+
+    @Benchmark
+    public void create(Cursor cursor) {
+        store.createFromOrderCreated(created[cursor.next()]);
+    }
+
+    @Benchmark
+    public void update(Cursor cursor) {
+        store.updateFromStatusChanged(statusChanges[cursor.next()]);
+    }
+
+    @Benchmark
+    public Optional<OrderView> find(Cursor cursor) {
+        return store.findById(ids[cursor.next()]);
+    }
+}
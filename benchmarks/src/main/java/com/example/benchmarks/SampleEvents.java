@@ -0,0 +1,86 @@
+package com.example.benchmarks;
+
+import com.example.common.avro.EventEnvelope;
+import com.example.common.avro.EventEnvelopeV2;
+import com.example.common.avro.OrderCancelled;
+import com.example.common.avro.OrderCancelledV2;
+import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderCreatedV2;
+import com.example.common.avro.OrderLine;
+import com.example.common.avro.OrderStatusChanged;
+import com.example.common.avro.OrderStatusChangedV2;
+import com.example.common.avro.PaymentAuthorized;
+import com.example.common.avro.PaymentAuthorizedV2;
+import com.example.common.avro.PaymentFailed;
+import com.example.common.avro.PaymentFailedV2;
+import com.example.common.avro.StockRejected;
+import com.example.common.avro.StockRejectedV2;
+import com.example.common.avro.StockReserved;
+import com.example.common.avro.StockReservedV2;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificRecordBase;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Representative instances of every record generated from {@code common/src/main/avro}, keyed by
+ * simple schema name so they can be selected with a JMH {@code @Param}.
+ */
+final class SampleEvents {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("249.95");
+    private static final List<OrderLine> LINES =
+            List.of(new OrderLine("SKU-001", 2), new OrderLine("SKU-003", 1));
+
+    private SampleEvents() {
+    }
+
+    static SpecificRecordBase create(String schemaName) {
+        UUID id = UUID.randomUUID();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+        return switch (schemaName) {
+            case "OrderLine" -> new OrderLine("SKU-001", 2);
+            case "OrderCreated" -> new OrderCreated(id.toString(), "customer-42", LINES,
+                    AMOUNT.toPlainString(), "CREATED", now.toString());
+            case "OrderCreatedV2" -> new OrderCreatedV2(id, "customer-42", LINES, AMOUNT, "CREATED", now);
+            case "OrderCancelled" -> new OrderCancelled(id.toString(), "Customer request", now.toString());
+            case "OrderCancelledV2" -> new OrderCancelledV2(id, "Customer request", now);
+            case "PaymentAuthorized" -> new PaymentAuthorized(id.toString(), AMOUNT.toPlainString(),
+                    now.toString());
+            case "PaymentAuthorizedV2" -> new PaymentAuthorizedV2(id, AMOUNT, now);
+            case "PaymentFailed" -> new PaymentFailed(id.toString(),
+                    "Amount 5000 exceeds approval threshold of 1000", now.toString());
+            case "PaymentFailedV2" -> new PaymentFailedV2(id,
+                    "Amount 5000 exceeds approval threshold of 1000", now);
+            case "StockReserved" -> new StockReserved(id.toString(), LINES, now.toString());
+            case "StockReservedV2" -> new StockReservedV2(id, LINES, now);
+            case "StockRejected" -> new StockRejected(id.toString(),
+                    "Insufficient stock for SKU SKU-004: available=0, requested=1", now.toString());
+            case "StockRejectedV2" -> new StockRejectedV2(id,
+                    "Insufficient stock for SKU SKU-004: available=0, requested=1", now);
+            case "OrderStatusChanged" -> new OrderStatusChanged(id.toString(), "AUTHORIZED", "RESERVED",
+                    "CONFIRMED", now.toString());
+            case "OrderStatusChangedV2" -> new OrderStatusChangedV2(id, "AUTHORIZED", "RESERVED",
+                    "CONFIRMED", now);
+            case "EventEnvelope" -> new EventEnvelope(UUID.randomUUID().toString(),
+                    OrderCreated.getClassSchema().getFullName(), 1, now.toString(), "order-service",
+                    UUID.randomUUID().toString(), ByteBuffer.wrap(new byte[64]));
+            case "EventEnvelopeV2" -> new EventEnvelopeV2(UUID.randomUUID(),
+                    OrderCreatedV2.getClassSchema().getFullName(), 2, now, "order-service",
+                    UUID.randomUUID().toString(), ByteBuffer.wrap(new byte[64]));
+            default -> throw new IllegalArgumentException("Unknown schema: " + schemaName);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    static DatumReader<SpecificRecordBase> readerFor(SpecificRecordBase record) {
+        return new SpecificDatumReader<>((Class<SpecificRecordBase>) record.getClass());
+    }
+}
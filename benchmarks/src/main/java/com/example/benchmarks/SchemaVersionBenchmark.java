@@ -0,0 +1,85 @@
+package com.example.benchmarks;
+
+import com.example.common.codec.SpecificRecordEncoder;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of the v1 (string-typed) and v2 (binary UUID, decimal, epoch-millis)
+ * schemas for the same logical event. Encoded payload sizes are printed once per trial.
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar SchemaVersionBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaVersionBenchmark {
+
+    @Param({"OrderCreated", "PaymentAuthorized", "OrderStatusChanged", "EventEnvelope"})
+    private String event;
+
+    private SpecificRecordBase v1;
+    private SpecificRecordBase v2;
+    private byte[] v1Bytes;
+    private byte[] v2Bytes;
+    private DatumReader<SpecificRecordBase> v1Reader;
+    private DatumReader<SpecificRecordBase> v2Reader;
+    private BinaryDecoder decoder;
+
+    @Setup
+    public void setUp() throws IOException {
+        v1 = SampleEvents.create(event);
+        v2 = SampleEvents.create(event + "V2");
+
+        v1Bytes = SpecificRecordEncoder.encodeToBytes(v1);
+        v2Bytes = SpecificRecordEncoder.encodeToBytes(v2);
+        v1Reader = SampleEvents.readerFor(v1);
+        v2Reader = SampleEvents.readerFor(v2);
+
+        System.out.printf("%n%s payload size: v1=%d bytes, v2=%d bytes%n",
+                event, v1Bytes.length, v2Bytes.length);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeV1() throws IOException {
+        return SpecificRecordEncoder.encode(v1);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeV2() throws IOException {
+        return SpecificRecordEncoder.encode(v2);
+    }
+
+    @Benchmark
+    public SpecificRecordBase decodeV1() throws IOException {
+        decoder = DecoderFactory.get().binaryDecoder(v1Bytes, decoder);
+        return v1Reader.read(null, decoder);
+    }
+
+    @Benchmark
+    public SpecificRecordBase decodeV2() throws IOException {
+        decoder = DecoderFactory.get().binaryDecoder(v2Bytes, decoder);
+        return v2Reader.read(null, decoder);
+    }
+}
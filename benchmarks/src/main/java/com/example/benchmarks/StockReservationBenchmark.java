@@ -0,0 +1,72 @@
+package com.example.benchmarks;
+
+import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderLine;
+import com.example.inventory.service.StockReservationService;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StockReservationService#reserve} called from many threads at once.
+ * <p>
+ * The service seeds a few hundred units per SKU, which a benchmark would exhaust within
+ * microseconds and then only measure rejections. {@code reserved} therefore uses zero-quantity
+ * lines: they take the full reservation path (check, decrement, build {@code StockReserved})
+ * without depleting stock. {@code rejected} uses the out-of-stock SKU-004.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class StockReservationBenchmark {
+
+    private StockReservationService service;
+    private OrderCreated reservable;
+    private OrderCreated unavailable;
+
+    @Setup
+    public void setUp() {
+        service = new StockReservationService();
+        reservable = order(List.of(
+                new OrderLine("SKU-001", 0), new OrderLine("SKU-002", 0), new OrderLine("SKU-003", 0)));
+        unavailable = order(List.of(new OrderLine("SKU-001", 0), new OrderLine("SKU-004", 1)));
+    }
+
+    @Benchmark
+    public SpecificRecordBase reserved() {
+        return service.reserve(reservable);
+    }
+
+    @Benchmark
+    public SpecificRecordBase rejected() {
+        return service.reserve(unavailable);
+    }
+
+    private static OrderCreated order(List<OrderLine> lines) {
+        return OrderCreated.newBuilder()
+                .setId(UUID.randomUUID().toString())
+                .setCustomerId("customer-42")
+                .setLines(lines)
+                .setTotal("100.00")
+                .setStatus("CREATED")
+                .setCreatedAt("2025-01-01T00:00:00Z")
+                .build();
+    }
+}
@@ -1,12 +1,12 @@
 package com.example.common;
 
+import com.example.common.id.TimeOrderedIdGenerator;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.header.Header;
 import org.slf4j.MDC;
 
 import java.nio.charset.StandardCharsets;
-import java.util.UUID;
 
 public final class CorrelationIdUtils {
 
@@ -17,7 +17,7 @@ public final class CorrelationIdUtils {
     public static final String MDC_KEY = "correlationId";
 
     public static String generate() {
-        return UUID.randomUUID().toString();
+        return TimeOrderedIdGenerator.nextId();
     }
 
     public static String getFromHeaders(ConsumerRecord<?, ?> record) {
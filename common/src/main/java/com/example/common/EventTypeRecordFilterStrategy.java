@@ -0,0 +1,50 @@
+package com.example.common;
+
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.adapter.RecordFilterStrategy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Discards records whose {@link EventTypeUtils#HEADER_NAME} header names an event type the
+ * listener does not handle, comparing the header bytes so neither the value nor the header is
+ * decoded. Records without the header are passed on for the listener to judge.
+ * <p>
+ * Register as a bean and name it in {@code @KafkaListener(filter = ...)}.
+ */
+public class EventTypeRecordFilterStrategy<K, V> implements RecordFilterStrategy<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(EventTypeRecordFilterStrategy.class);
+
+    private final List<byte[]> handled;
+
+    @SafeVarargs
+    public EventTypeRecordFilterStrategy(Class<? extends SpecificRecord>... handledTypes) {
+        this.handled = Arrays.stream(handledTypes)
+                .map(type -> SpecificData.get().getSchema(type).getFullName().getBytes(StandardCharsets.UTF_8))
+                .toList();
+    }
+
+    @Override
+    public boolean filter(ConsumerRecord<K, V> record) {
+        Header header = record.headers().lastHeader(EventTypeUtils.HEADER_NAME);
+        if (header == null || header.value() == null) {
+            return false;
+        }
+        for (byte[] type : handled) {
+            if (Arrays.equals(type, header.value())) {
+                return false;
+            }
+        }
+        log.debug("Skipping {} on {}-{}@{}", EventTypeUtils.getFromHeaders(record),
+                record.topic(), record.partition(), record.offset());
+        return true;
+    }
+}
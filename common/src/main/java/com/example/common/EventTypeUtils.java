@@ -0,0 +1,40 @@
+package com.example.common;
+
+import org.apache.avro.Schema;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Names the event a record carries in a header, the full name of its Avro schema as in
+ * {@code EventEnvelope.type}, so consumers of topics that carry several event types can route or
+ * skip a record without deserializing it.
+ */
+public final class EventTypeUtils {
+
+    private EventTypeUtils() {
+    }
+
+    public static final String HEADER_NAME = "eventType";
+
+    public static void setToHeaders(ProducerRecord<?, ?> record, SpecificRecord event) {
+        setToHeaders(record, event.getSchema());
+    }
+
+    /** For a record whose value is serialized as {@code schema} without being built as one. */
+    public static void setToHeaders(ProducerRecord<?, ?> record, Schema schema) {
+        record.headers().add(HEADER_NAME, schema.getFullName().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return the full schema name, or {@code null} if the producer did not set the header */
+    public static String getFromHeaders(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(HEADER_NAME);
+        if (header == null || header.value() == null) {
+            return null;
+        }
+        return new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
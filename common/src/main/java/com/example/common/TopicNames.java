@@ -6,6 +6,7 @@ public final class TopicNames {
     }
 
     public static final String ORDERS = "orders.v1";
+    public static final String ORDERS_V2 = "orders.v2";
     public static final String PAYMENTS = "payments.v1";
     public static final String INVENTORY = "inventory.v1";
     public static final String ORDER_STATUS = "order-status.v1";
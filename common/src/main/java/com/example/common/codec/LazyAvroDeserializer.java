@@ -0,0 +1,67 @@
+package com.example.common.codec;
+
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads only the Confluent wire-format prefix, a zero magic byte and a four-byte schema ID, and
+ * returns a {@link LazyAvroValue} that knows its event type and decodes the body on demand, so
+ * listeners that branch on the type and read nothing but the key pay for neither the Avro decode
+ * nor the objects it allocates.
+ * <p>
+ * Schema IDs are mapped to types by decoding the first value seen with each ID, through a
+ * {@link KafkaAvroDeserializer} that receives this deserializer's configuration and must be
+ * configured as a specific reader. That first value keeps its decoded body. Every later value
+ * with the same ID costs a map lookup.
+ */
+public class LazyAvroDeserializer implements Deserializer<LazyAvroValue> {
+
+    private static final byte MAGIC_BYTE = 0;
+    private static final int PREFIX_LENGTH = 5;
+
+    private final Deserializer<Object> decoder;
+    private final Map<Integer, Class<? extends SpecificRecord>> types = new ConcurrentHashMap<>();
+
+    public LazyAvroDeserializer() {
+        this(new KafkaAvroDeserializer());
+    }
+
+    public LazyAvroDeserializer(Deserializer<Object> decoder) {
+        this.decoder = decoder;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        decoder.configure(configs, isKey);
+    }
+
+    @Override
+    public LazyAvroValue deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length < PREFIX_LENGTH || data[0] != MAGIC_BYTE) {
+            throw new SerializationException("Unknown magic byte!");
+        }
+        int schemaId = (data[1] & 0xff) << 24 | (data[2] & 0xff) << 16 | (data[3] & 0xff) << 8 | (data[4] & 0xff);
+        Class<? extends SpecificRecord> type = types.get(schemaId);
+        if (type != null) {
+            return new LazyAvroValue(schemaId, type, topic, data, decoder, null);
+        }
+        if (!(decoder.deserialize(topic, data) instanceof SpecificRecord decoded)) {
+            throw new SerializationException("Schema " + schemaId + " does not decode to a specific record");
+        }
+        types.putIfAbsent(schemaId, decoded.getClass());
+        return new LazyAvroValue(schemaId, decoded.getClass(), topic, data, decoder, decoded);
+    }
+
+    @Override
+    public void close() {
+        decoder.close();
+    }
+}
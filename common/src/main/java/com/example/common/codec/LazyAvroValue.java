@@ -0,0 +1,71 @@
+package com.example.common.codec;
+
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * A Confluent-framed Avro value whose event type is known from its schema ID, and whose body is
+ * only decoded when {@link #decode()} is called. Produced by {@link LazyAvroDeserializer}.
+ */
+public final class LazyAvroValue {
+
+    private final int schemaId;
+    private final Class<? extends SpecificRecord> type;
+    private final String topic;
+    private final byte[] data;
+    private final Deserializer<Object> decoder;
+    private volatile SpecificRecord decoded;
+
+    LazyAvroValue(int schemaId, Class<? extends SpecificRecord> type, String topic, byte[] data,
+                  Deserializer<Object> decoder, SpecificRecord decoded) {
+        this.schemaId = schemaId;
+        this.type = type;
+        this.topic = topic;
+        this.data = data;
+        this.decoder = decoder;
+        this.decoded = decoded;
+    }
+
+    /** Wraps an event that is already decoded, e.g. to hand it to a listener in a test. */
+    public static LazyAvroValue of(SpecificRecord event) {
+        return new LazyAvroValue(-1, event.getClass(), null, null, null, event);
+    }
+
+    /**
+     * @return the event type of a consumed value, whether it was deserialized lazily or not, or
+     * {@code null} for a tombstone
+     */
+    public static Class<?> typeOf(Object value) {
+        if (value instanceof LazyAvroValue lazy) {
+            return lazy.type();
+        }
+        return value == null ? null : value.getClass();
+    }
+
+    public int schemaId() {
+        return schemaId;
+    }
+
+    public Class<? extends SpecificRecord> type() {
+        return type;
+    }
+
+    /** Decodes the body on first use; later calls return the same instance. */
+    public SpecificRecord decode() {
+        SpecificRecord result = decoded;
+        if (result == null) {
+            result = (SpecificRecord) decoder.deserialize(topic, data);
+            decoded = result;
+        }
+        return result;
+    }
+
+    public <T extends SpecificRecord> T decode(Class<T> expected) {
+        return expected.cast(decode());
+    }
+
+    @Override
+    public String toString() {
+        return type.getSimpleName() + "[schemaId=" + schemaId + (decoded != null ? ", " + decoded : "") + "]";
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.common.codec;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Map;
+
+/**
+ * Deserializes with a delegate and keeps the bytes it decoded from in the record's
+ * {@value #RAW_VALUE_HEADER} header, so a failed record can be forwarded to a retry or dead letter
+ * topic exactly as it was received instead of being encoded again. The header refers to the
+ * array the consumer already allocated for the value; nothing is copied.
+ * <p>
+ * Configure the delegate with {@value #DELEGATE_CLASS}; it receives the same configuration. To
+ * keep the bytes of values that fail to deserialize too, wrap this class in an
+ * {@code ErrorHandlingDeserializer}. The header only lives on the consumed record:
+ * {@link com.example.common.retry.RawValueDeadLetterPublishingRecoverer} removes it when forwarding.
+ */
+public class RawValueRetainingDeserializer<T> implements Deserializer<T> {
+
+    public static final String RAW_VALUE_HEADER = "rawValue";
+    public static final String DELEGATE_CLASS = "raw.value.retaining.delegate.class";
+
+    private Deserializer<T> delegate;
+
+    public RawValueRetainingDeserializer() {
+    }
+
+    public RawValueRetainingDeserializer(Deserializer<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    /** @return the bytes the record's value was decoded from, or {@code null} if not retained */
+    public static byte[] rawValue(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(RAW_VALUE_HEADER);
+        return header == null ? null : header.value();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (delegate == null) {
+            Object delegateClass = configs.get(DELEGATE_CLASS);
+            if (delegateClass == null) {
+                throw new ConfigException("Missing " + DELEGATE_CLASS);
+            }
+            try {
+                delegate = delegateClass instanceof Class<?> type
+                        ? Utils.newInstance(type.asSubclass(Deserializer.class))
+                        : Utils.newInstance(delegateClass.toString(), Deserializer.class);
+            } catch (ClassNotFoundException e) {
+                throw new ConfigException(DELEGATE_CLASS, delegateClass, "Class not found");
+            }
+        }
+        delegate.configure(configs, isKey);
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        return delegate.deserialize(topic, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        T value = delegate.deserialize(topic, headers, data);
+        if (data != null) {
+            headers.add(RAW_VALUE_HEADER, data);
+        }
+        return value;
+    }
+
+    @Override
+    public void close() {
+        if (delegate != null) {
+            delegate.close();
+        }
+    }
+}
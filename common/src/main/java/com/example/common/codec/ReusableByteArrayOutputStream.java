@@ -0,0 +1,39 @@
+package com.example.common.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link ByteArrayOutputStream} that exposes its backing array instead of copying it,
+ * so a single instance can be reset and reused across encodes.
+ */
+public class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+
+    public ReusableByteArrayOutputStream(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    /**
+     * Returns a view over the bytes written so far. The view shares the backing array and
+     * is only valid until the next {@link #reset()} or write.
+     */
+    public ByteBuffer view() {
+        return ByteBuffer.wrap(buf, 0, count);
+    }
+
+    /**
+     * Returns an exact-size copy of the bytes written so far.
+     */
+    public byte[] copy() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    /**
+     * Current size of the backing array, used to decide whether a pooled instance has grown
+     * too large to keep around.
+     */
+    public int capacity() {
+        return buf.length;
+    }
+}
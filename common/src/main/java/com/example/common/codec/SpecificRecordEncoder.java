@@ -0,0 +1,79 @@
+package com.example.common.codec;
+
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Allocation-light Avro binary encoder for generated {@link SpecificRecord} classes.
+ * <p>
+ * One {@link DatumWriter} is cached per record class, and each thread reuses its own
+ * {@link BinaryEncoder} and growable output buffer. Callers pick between a borrowed view
+ * ({@link #encode}) and an owned copy ({@link #encodeToBytes}).
+ */
+public final class SpecificRecordEncoder {
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ClassValue<DatumWriter<SpecificRecord>> WRITERS = new ClassValue<>() {
+        @Override
+        protected DatumWriter<SpecificRecord> computeValue(Class<?> type) {
+            return new SpecificDatumWriter<>(type.asSubclass(SpecificRecord.class));
+        }
+    };
+
+    private static final ThreadLocal<EncodeContext> CONTEXT = ThreadLocal.withInitial(EncodeContext::new);
+
+    private SpecificRecordEncoder() {
+    }
+
+    /**
+     * Encodes the record into the calling thread's buffer and returns a view over it.
+     * The view is only valid until the next encode on the same thread; use
+     * {@link #encodeToBytes} when the result has to outlive the call.
+     */
+    public static ByteBuffer encode(SpecificRecord record) throws IOException {
+        return write(record).view();
+    }
+
+    /**
+     * Encodes the record and returns an exact-size array owned by the caller.
+     */
+    public static byte[] encodeToBytes(SpecificRecord record) throws IOException {
+        return write(record).copy();
+    }
+
+    private static ReusableByteArrayOutputStream write(SpecificRecord record) throws IOException {
+        EncodeContext context = CONTEXT.get();
+        context.reset();
+        context.encoder = EncoderFactory.get().binaryEncoder(context.out, context.encoder);
+        WRITERS.get(record.getClass()).write(record, context.encoder);
+        context.encoder.flush();
+        return context.out;
+    }
+
+    private static final class EncodeContext {
+
+        private ReusableByteArrayOutputStream out = new ReusableByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        private BinaryEncoder encoder;
+
+        /**
+         * Rewinds the buffer for the next encode, dropping it instead if a previous oversized
+         * event grew it past the retention cap, so pooled threads do not pin that memory.
+         */
+        private void reset() {
+            if (out.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                out = new ReusableByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+                encoder = null;
+            } else {
+                out.reset();
+            }
+        }
+    }
+}
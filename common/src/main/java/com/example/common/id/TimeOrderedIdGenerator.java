@@ -0,0 +1,63 @@
+package com.example.common.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates time-ordered 128-bit identifiers in the UUIDv7 layout (RFC 9562):
+ * a 48-bit Unix millisecond timestamp, a 12-bit per-thread sequence counter and
+ * 62 random bits.
+ * <p>
+ * Each thread keeps its own clock and counter and draws randomness from
+ * {@link ThreadLocalRandom}, so generation never contends on a shared lock or
+ * {@code SecureRandom}. IDs from one thread are strictly increasing; IDs from different
+ * threads are ordered by millisecond and disambiguated by the random bits.
+ * The random bits are not cryptographically strong, so these IDs must not be used as secrets.
+ */
+public final class TimeOrderedIdGenerator {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int MAX_SEQUENCE = (1 << SEQUENCE_BITS) - 1;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+    private static final long VARIANT_RFC_4122 = 0x8000_0000_0000_0000L;
+
+    private static final ThreadLocal<ThreadState> STATE = ThreadLocal.withInitial(ThreadState::new);
+
+    private TimeOrderedIdGenerator() {
+    }
+
+    public static UUID nextUuid() {
+        ThreadState state = STATE.get();
+        long now = System.currentTimeMillis();
+        if (now > state.lastMillis) {
+            state.lastMillis = now;
+            state.sequence = 0;
+        } else if (++state.sequence > MAX_SEQUENCE) {
+            // Counter exhausted within one millisecond (or the clock went backwards):
+            // borrow the next millisecond so IDs stay monotonic for this thread.
+            state.lastMillis++;
+            state.sequence = 0;
+        }
+
+        long msb = (state.lastMillis << 16) | VERSION_7 | state.sequence;
+        long lsb = (ThreadLocalRandom.current().nextLong() & VARIANT_MASK) | VARIANT_RFC_4122;
+        return new UUID(msb, lsb);
+    }
+
+    public static String nextId() {
+        return nextUuid().toString();
+    }
+
+    /**
+     * Extracts the Unix millisecond timestamp embedded in an ID produced by this generator.
+     */
+    public static long timestampMillis(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    private static final class ThreadState {
+        private long lastMillis;
+        private int sequence;
+    }
+}
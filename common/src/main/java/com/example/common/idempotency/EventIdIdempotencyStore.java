@@ -0,0 +1,24 @@
+package com.example.common.idempotency;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * An {@link IdempotencyStore} keyed on the event ID alone, so it can also be used where there
+ * is no consumed record; the record overloads ignore the record.
+ */
+public interface EventIdIdempotencyStore extends IdempotencyStore {
+
+    boolean contains(String eventId);
+
+    void mark(String eventId);
+
+    @Override
+    default boolean contains(ConsumerRecord<?, ?> record, String eventId) {
+        return contains(eventId);
+    }
+
+    @Override
+    default void mark(ConsumerRecord<?, ?> record, String eventId) {
+        mark(eventId);
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.common.idempotency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Idempotency store whose entries are grouped into a few time-bucketed generations. Each ID
+ * maps to the generation it was marked in, so a lookup is a single hash probe. The newest
+ * generation is retired once it holds {@code maxEntries / generations} IDs or is older than
+ * {@code ttl / generations}; only the oldest generation's IDs are evicted at that point, so the
+ * store never forgets everything at once and never holds much more than {@code maxEntries} IDs.
+ * <p>
+ * An ID is remembered for at least {@code ttl * (generations - 1) / generations} unless the
+ * memory cap forces generations to turn over faster, which the {@code evictions} counter shows.
+ * To keep the clock off the hot path, age is only checked every {@value #CLOCK_CHECK_INTERVAL}
+ * marks; with sparse traffic IDs are remembered for longer than the TTL, never shorter.
+ */
+public class GenerationalIdempotencyStore implements EventIdIdempotencyStore, MeterBinder {
+
+    public static final int DEFAULT_GENERATIONS = 4;
+
+    private static final int CLOCK_CHECK_INTERVAL = 64;
+
+    private final int generationCount;
+    private final long generationNanos;
+    private final long ttlNanos;
+    private final int generationCapacity;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<String, Long> ids;
+    private final ReentrantLock rotationLock = new ReentrantLock();
+    /** Oldest first; guarded by {@link #rotationLock}. */
+    private final ArrayDeque<Generation> live = new ArrayDeque<>();
+    private volatile Generation head;
+    /** IDs mapped to an older generation are already evicted, even if not yet removed. */
+    private volatile long oldestLive;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static final class Generation {
+
+        /** Boxed once so every mark into this generation shares the same map value. */
+        private final Long number;
+        private final long createdNanos;
+        private final ConcurrentLinkedQueue<String> ids = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger added = new AtomicInteger();
+
+        private Generation(long number, long createdNanos) {
+            this.number = number;
+            this.createdNanos = createdNanos;
+        }
+    }
+
+    public GenerationalIdempotencyStore(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, DEFAULT_GENERATIONS, System::nanoTime);
+    }
+
+    GenerationalIdempotencyStore(Duration ttl, int maxEntries, int generationCount, LongSupplier nanoClock) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive: " + ttl);
+        }
+        if (generationCount < 2) {
+            throw new IllegalArgumentException("generationCount must be at least 2: " + generationCount);
+        }
+        if (maxEntries < generationCount) {
+            throw new IllegalArgumentException("maxEntries must be at least " + generationCount + ": " + maxEntries);
+        }
+        this.generationCount = generationCount;
+        this.ttlNanos = ttl.toNanos();
+        this.generationNanos = ttlNanos / generationCount;
+        this.generationCapacity = maxEntries / generationCount;
+        this.nanoClock = nanoClock;
+        this.ids = new ConcurrentHashMap<>(maxEntries);
+        this.head = new Generation(0, nanoClock.getAsLong());
+        live.addLast(head);
+    }
+
+    @Override
+    public boolean contains(String eventId) {
+        Long generation = ids.get(eventId);
+        if (generation != null && generation >= oldestLive) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    @Override
+    public void mark(String eventId) {
+        while (true) {
+            Generation generation = head;
+            Long previous = ids.put(eventId, generation.number);
+            if (generation.number < oldestLive) {
+                // Retired while we were writing; its IDs may already have been swept.
+                ids.remove(eventId, generation.number);
+                continue;
+            }
+            if (previous == generation.number) {
+                // Same boxed instance: already marked in this generation.
+                return;
+            }
+            generation.ids.add(eventId);
+            int added = generation.added.incrementAndGet();
+            if (added >= generationCapacity
+                    || (added % CLOCK_CHECK_INTERVAL == 0
+                    && nanoClock.getAsLong() - generation.createdNanos >= generationNanos)) {
+                rotate(generation);
+            }
+            return;
+        }
+    }
+
+    public long size() {
+        return ids.mappingCount();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("idempotency.store.size", this, GenerationalIdempotencyStore::size)
+                .description("Event IDs currently remembered")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.lookups", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.lookups", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.evictions", evictions, LongAdder::sum)
+                .description("Event IDs forgotten when their generation was retired")
+                .register(registry);
+    }
+
+    /**
+     * Starts a new generation unless another thread already retired {@code expectedHead}, then
+     * evicts generations beyond the count limit or older than the TTL. Threads that lose the
+     * race keep writing to the previous head, which stays live.
+     */
+    private void rotate(Generation expectedHead) {
+        if (!rotationLock.tryLock()) {
+            return;
+        }
+        try {
+            if (head != expectedHead) {
+                return;
+            }
+            long now = nanoClock.getAsLong();
+            Generation next = new Generation(expectedHead.number + 1, now);
+            live.addLast(next);
+            head = next;
+
+            // The previous head is never expired by age: after an idle spell it may be old but
+            // still hold IDs marked moments ago.
+            while (live.size() > generationCount
+                    || (live.peekFirst() != expectedHead && now - live.peekFirst().createdNanos >= ttlNanos)) {
+                Generation retired = live.pollFirst();
+                oldestLive = live.peekFirst().number;
+                for (String id : retired.ids) {
+                    if (ids.remove(id, retired.number)) {
+                        evictions.increment();
+                    }
+                }
+            }
+        } finally {
+            rotationLock.unlock();
+        }
+    }
+}
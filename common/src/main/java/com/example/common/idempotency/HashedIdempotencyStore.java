@@ -0,0 +1,346 @@
+package com.example.common.idempotency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Idempotency store that keeps 64- or 128-bit MurmurHash3 fingerprints of event IDs in
+ * open-addressed {@code long[]} tables instead of the IDs themselves, which takes an entry from
+ * well over 100 bytes in a {@code ConcurrentHashMap<String, Boolean>} to roughly 11-23 bytes
+ * (64-bit) or 23-46 bytes (128-bit) depending on fill.
+ * <p>
+ * The price is a false-positive chance: an unseen ID can collide with a stored fingerprint and
+ * be skipped as a duplicate. With {@code n} stored IDs and {@code b}-bit fingerprints that chance
+ * is at most {@code n / 2^b} per lookup; the constructor picks the narrowest width that keeps
+ * {@code maxEntries / 2^b} under the requested probability.
+ * <p>
+ * Entries are spread over striped tables guarded by a {@link StampedLock} each, so lookups are
+ * usually lock-free optimistic reads. Each stripe holds a current and a previous table; when the
+ * current one fills up, the previous one is cleared and reused, so at most half the entries are
+ * evicted at once and the store holds between {@code maxEntries / 2} and {@code maxEntries} IDs.
+ */
+public class HashedIdempotencyStore implements EventIdIdempotencyStore, MeterBinder {
+
+    public static final int DEFAULT_STRIPES = 64;
+
+    private static final double MAX_LOAD_FACTOR = 0.7;
+    private static final long EMPTY = 0L;
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final VarHandle LITTLE_ENDIAN_LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final boolean wide;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public HashedIdempotencyStore(int maxEntries, double falsePositiveProbability) {
+        this(maxEntries, falsePositiveProbability, DEFAULT_STRIPES);
+    }
+
+    HashedIdempotencyStore(int maxEntries, double falsePositiveProbability, int stripeCount) {
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("stripeCount must be a power of two: " + stripeCount);
+        }
+        if (maxEntries < 2 * stripeCount) {
+            throw new IllegalArgumentException("maxEntries must be at least " + 2 * stripeCount + ": " + maxEntries);
+        }
+        this.wide = fingerprintBits(maxEntries, falsePositiveProbability) > Long.SIZE;
+        this.stripeMask = stripeCount - 1;
+
+        int entriesPerTable = maxEntries / stripeCount / 2;
+        int capacity = (int) Math.ceil(entriesPerTable / MAX_LOAD_FACTOR) + 1;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(capacity, entriesPerTable);
+        }
+    }
+
+    /**
+     * Bits needed so that {@code maxEntries} stored fingerprints collide with a new ID with at
+     * most the given probability: 64 or 128.
+     */
+    static int fingerprintBits(int maxEntries, double falsePositiveProbability) {
+        if (!(falsePositiveProbability > 0 && falsePositiveProbability < 1)) {
+            throw new IllegalArgumentException(
+                    "falsePositiveProbability must be between 0 and 1: " + falsePositiveProbability);
+        }
+        double bits = Math.log(maxEntries / falsePositiveProbability) / Math.log(2);
+        if (bits > 2 * Long.SIZE) {
+            throw new IllegalArgumentException("falsePositiveProbability " + falsePositiveProbability
+                    + " needs more than 128-bit fingerprints for " + maxEntries + " entries");
+        }
+        return bits <= Long.SIZE ? Long.SIZE : 2 * Long.SIZE;
+    }
+
+    @Override
+    public boolean contains(String eventId) {
+        Fingerprint fingerprint = fingerprint(eventId);
+        boolean found = stripeFor(fingerprint).contains(fingerprint);
+        (found ? hits : misses).increment();
+        return found;
+    }
+
+    @Override
+    public void mark(String eventId) {
+        Fingerprint fingerprint = fingerprint(eventId);
+        stripeFor(fingerprint).add(fingerprint);
+    }
+
+    public boolean isWide() {
+        return wide;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /** Bytes held by the fingerprint tables, which is all this store allocates per entry. */
+    public long tableBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            bytes += 2L * stripe.current.length * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("idempotency.store.size", this, HashedIdempotencyStore::size)
+                .description("Event IDs currently remembered")
+                .register(registry);
+        Gauge.builder("idempotency.store.memory", this, HashedIdempotencyStore::tableBytes)
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.lookups", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.lookups", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.evictions", evictions, LongAdder::sum)
+                .description("Event IDs forgotten when a stripe's previous table was recycled")
+                .register(registry);
+    }
+
+    private Stripe stripeFor(Fingerprint fingerprint) {
+        return stripes[(int) (fingerprint.position() >>> 32) & stripeMask];
+    }
+
+    private Fingerprint fingerprint(String eventId) {
+        Fingerprint hash = murmur3(eventId);
+        // A zero first word marks an empty slot.
+        long high = hash.high() == EMPTY ? 1 : hash.high();
+        return new Fingerprint(high, wide ? hash.low() : EMPTY, hash.low());
+    }
+
+    /**
+     * @param high     stored in every slot; never {@link #EMPTY}
+     * @param low      second stored word in wide mode, {@link #EMPTY} otherwise
+     * @param position picks the stripe (high word) and the first probe (low word)
+     */
+    private record Fingerprint(long high, long low, long position) {
+    }
+
+    private final class Stripe {
+
+        private final StampedLock lock = new StampedLock();
+        private final int threshold;
+        private final int slotWidth = wide ? 2 : 1;
+        private long[] current;
+        private long[] previous;
+        private int currentSize;
+        private int previousSize;
+
+        private Stripe(int capacity, int threshold) {
+            this.threshold = threshold;
+            this.current = new long[capacity * slotWidth];
+            this.previous = new long[capacity * slotWidth];
+        }
+
+        boolean contains(Fingerprint fingerprint) {
+            long high = fingerprint.high();
+            long low = fingerprint.low();
+            long position = fingerprint.position();
+            long stamp = lock.tryOptimisticRead();
+            boolean found = find(current, high, low, position) >= 0 || find(previous, high, low, position) >= 0;
+            if (lock.validate(stamp)) {
+                return found;
+            }
+            stamp = lock.readLock();
+            try {
+                return find(current, high, low, position) >= 0 || find(previous, high, low, position) >= 0;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void add(Fingerprint fingerprint) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = find(current, fingerprint.high(), fingerprint.low(), fingerprint.position());
+                if (slot >= 0) {
+                    return;
+                }
+                // Re-marking an ID only present in the previous table copies it forward, so
+                // recently seen IDs survive the next recycle.
+                slot = -slot - 1;
+                current[slot] = fingerprint.high();
+                if (wide) {
+                    current[slot + 1] = fingerprint.low();
+                }
+                if (++currentSize >= threshold) {
+                    recycle();
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        long size() {
+            long stamp = lock.readLock();
+            try {
+                return currentSize + previousSize;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private void recycle() {
+            evictions.add(previousSize);
+            long[] recycled = previous;
+            Arrays.fill(recycled, EMPTY);
+            previous = current;
+            previousSize = currentSize;
+            current = recycled;
+            currentSize = 0;
+        }
+
+        /**
+         * Linear probe for the fingerprint. Returns its slot, or {@code -(insertion slot) - 1}
+         * if absent. Bounded by the table size so an optimistic read racing a recycle always
+         * terminates; the caller then retries under the read lock.
+         */
+        private int find(long[] table, long high, long low, long position) {
+            int slots = table.length / slotWidth;
+            // Maps the low 32 bits onto [0, slots) without needing a power-of-two table.
+            int index = (int) (((position & 0xFFFF_FFFFL) * slots) >>> 32);
+            for (int probes = 0; probes < slots; probes++) {
+                int slot = index * slotWidth;
+                long stored = table[slot];
+                if (stored == EMPTY) {
+                    return -slot - 1;
+                }
+                if (stored == high && (!wide || table[slot + 1] == low)) {
+                    return slot;
+                }
+                index = index + 1 == slots ? 0 : index + 1;
+            }
+            return -1 - table.length;
+        }
+    }
+
+    /** MurmurHash3 x64/128 over the UTF-8 bytes of {@code value}, seed 0. */
+    private static Fingerprint murmur3(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        long h1 = 0;
+        long h2 = 0;
+        int blocks = length / 16;
+        for (int block = 0; block < blocks; block++) {
+            long k1 = (long) LITTLE_ENDIAN_LONGS.get(bytes, block * 16);
+            long k2 = (long) LITTLE_ENDIAN_LONGS.get(bytes, block * 16 + 8);
+
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tail = blocks * 16;
+        int remaining = length - tail;
+        if (remaining > 8) {
+            long k2 = tailBytes(bytes, tail + 8, remaining - 8);
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+        }
+        if (remaining > 0) {
+            long k1 = tailBytes(bytes, tail, Math.min(remaining, 8));
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new Fingerprint(h1, h2, h2);
+    }
+
+    private static long tailBytes(byte[] bytes, int from, int count) {
+        long packed = 0;
+        for (int i = count - 1; i >= 0; i--) {
+            packed = (packed << 8) | (bytes[from + i] & 0xFF);
+        }
+        return packed;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
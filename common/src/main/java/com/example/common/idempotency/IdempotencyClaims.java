@@ -0,0 +1,83 @@
+package com.example.common.idempotency;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Claims event IDs before processing, on top of an {@link IdempotencyStore}. Checking the store
+ * and marking it after processing leaves a window in which two copies of an event consumed by
+ * different containers, e.g. an order dual-published to {@code orders.v1} and {@code orders.v2},
+ * both pass the check. A claim closes it: the copy that arrives while another holds the claim
+ * is skipped, as it would be once the other has marked the ID.
+ * <p>
+ * Claims are held per instance, so listeners that must not process the same event twice share
+ * one. Copies consumed by different replicas are only caught by the store itself.
+ */
+public class IdempotencyClaims {
+
+    private final IdempotencyStore store;
+    private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+
+    public IdempotencyClaims(IdempotencyStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Runs {@code processing} if the event can be claimed, then marks it. A failure releases the
+     * claim and propagates, leaving the event unmarked for redelivery.
+     *
+     * @return {@code false} if the event was skipped as already processed or in progress
+     */
+    public boolean runOnce(ConsumerRecord<?, ?> record, String eventId, Runnable processing) {
+        if (!tryClaim(record, eventId)) {
+            return false;
+        }
+        try {
+            processing.run();
+        } catch (Throwable t) {
+            release(eventId);
+            throw t;
+        }
+        complete(record, eventId);
+        return true;
+    }
+
+    /**
+     * Claims the event for processing. Returns {@code false}, without a claim, if the event was
+     * already processed or another consumer holds the claim.
+     */
+    public boolean tryClaim(ConsumerRecord<?, ?> record, String eventId) {
+        if (!claimed.add(eventId)) {
+            return false;
+        }
+        if (store.contains(record, eventId)) {
+            claimed.remove(eventId);
+            return false;
+        }
+        return true;
+    }
+
+    /** Marks the claimed event as processed and releases the claim. */
+    public void complete(ConsumerRecord<?, ?> record, String eventId) {
+        try {
+            store.mark(record, eventId);
+        } finally {
+            claimed.remove(eventId);
+        }
+    }
+
+    /** Releases a claim without marking the event, so a retry can process it. */
+    public void release(String eventId) {
+        claimed.remove(eventId);
+    }
+
+    /**
+     * Marks a repeat of an event that was processed through another record, e.g. a second copy
+     * within the same batch, without claiming it.
+     */
+    public void mark(ConsumerRecord<?, ?> record, String eventId) {
+        store.mark(record, eventId);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.common.idempotency;
+
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * The {@link IdempotencyStore} picked by {@code idempotency.type}, shared by every consuming
+ * service. Imported by each service's application class; the services only supply
+ * {@code spring.application.name} and their {@code idempotency.*} properties.
+ * <p>
+ * The services commit offsets every {@code spring.kafka.listener.ack-count} records or
+ * {@code ack-time}, so a crash replays up to that many records per partition. Only the
+ * {@code partitioned} and {@code journal} stores still hold those IDs after a restart, short of
+ * marks not yet written out when it crashed. The services' application.yml runs
+ * {@code partitioned}, which needs no local disk; with the in-memory stores the replayed records
+ * are processed again.
+ */
+@Configuration(proxyBeanMethods = false)
+public class IdempotencyConfiguration {
+
+    private static final String DEDUP_TOPIC_SUFFIX = ".dedup";
+
+    @Bean
+    @ConditionalOnProperty(name = "idempotency.type", havingValue = "generational", matchIfMissing = true)
+    public GenerationalIdempotencyStore idempotencyStore(
+            @Value("${idempotency.ttl:10m}") Duration ttl,
+            @Value("${idempotency.max-entries:100000}") int maxEntries) {
+        return new GenerationalIdempotencyStore(ttl, maxEntries);
+    }
+
+    /** Fingerprints instead of full IDs: millions of entries for tens of MB, no TTL. */
+    @Bean
+    @ConditionalOnProperty(name = "idempotency.type", havingValue = "hashed")
+    public HashedIdempotencyStore hashedIdempotencyStore(
+            @Value("${idempotency.max-entries:100000}") int maxEntries,
+            @Value("${idempotency.false-positive-probability:1e-9}") double falsePositiveProbability) {
+        return new HashedIdempotencyStore(maxEntries, falsePositiveProbability);
+    }
+
+    /** Survives restarts: IDs are journaled to memory-mapped segment files and reloaded on startup. */
+    @Bean
+    @ConditionalOnProperty(name = "idempotency.type", havingValue = "journal")
+    public JournaledIdempotencyStore journaledIdempotencyStore(
+            @Value("${idempotency.journal.directory}") Path directory,
+            @Value("${idempotency.ttl:10m}") Duration ttl,
+            @Value("${idempotency.journal.segment-size:16MB}") DataSize segmentSize) {
+        return new JournaledIdempotencyStore(directory, ttl, Math.toIntExact(segmentSize.toBytes()));
+    }
+
+    /**
+     * Offset watermark per partition instead of per-event IDs: catches redelivered records, not
+     * the same event published twice (e.g. to both orders topics). Refused with
+     * {@code key-ordered.enabled}, whose workers reach the store out of offset order.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "idempotency.type", havingValue = "offset-watermark")
+    public OffsetWatermarkIdempotencyStore offsetWatermarkIdempotencyStore(
+            @Value("${idempotency.offset-watermark.max-pending:1000}") int maxPending,
+            @Value("${key-ordered.enabled:false}") boolean keyOrdered) {
+        if (keyOrdered) {
+            throw new IllegalStateException("idempotency.type=offset-watermark cannot be used with "
+                    + "key-ordered.enabled=true: records checked out of offset order would be skipped as "
+                    + "already processed");
+        }
+        return new OffsetWatermarkIdempotencyStore(maxPending);
+    }
+
+    /**
+     * Holds IDs only for assigned partitions and restores them from {@code <application>.dedup}
+     * when partitions move; each service registers it as its containers' rebalance listener.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "idempotency.type", havingValue = "partitioned")
+    public PartitionedIdempotencyStore partitionedIdempotencyStore(
+            @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers,
+            @Value("${spring.application.name}") String applicationName,
+            @Value("${idempotency.ttl:10m}") Duration ttl,
+            @Value("${idempotency.max-entries:100000}") int maxEntriesPerPartition) {
+        return new PartitionedIdempotencyStore(applicationName + DEDUP_TOPIC_SUFFIX, ttl, maxEntriesPerPartition,
+                Map.of(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers));
+    }
+
+    /**
+     * One set of claims per service, shared by its listeners so that an order consumed from both
+     * orders topics at once is processed by only one of them.
+     */
+    @Bean
+    public IdempotencyClaims idempotencyClaims(IdempotencyStore idempotencyStore) {
+        return new IdempotencyClaims(idempotencyStore);
+    }
+
+    /** Compacted so each ID is kept once, and deleted after the TTL so the topic stays bounded. */
+    @Bean
+    @ConditionalOnProperty(name = "idempotency.type", havingValue = "partitioned")
+    public NewTopic dedupTopic(
+            @Value("${spring.application.name}") String applicationName,
+            @Value("${idempotency.ttl:10m}") Duration ttl,
+            @Value("${idempotency.dedup-topic.partitions:3}") int partitions) {
+        return TopicBuilder.name(applicationName + DEDUP_TOPIC_SUFFIX)
+                .partitions(partitions)
+                .config(TopicConfig.CLEANUP_POLICY_CONFIG,
+                        TopicConfig.CLEANUP_POLICY_COMPACT + "," + TopicConfig.CLEANUP_POLICY_DELETE)
+                .config(TopicConfig.RETENTION_MS_CONFIG, Long.toString(ttl.toMillis()))
+                .build();
+    }
+}
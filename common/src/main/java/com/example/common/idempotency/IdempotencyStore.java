@@ -0,0 +1,19 @@
+package com.example.common.idempotency;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Remembers which events a consumer has already processed so redeliveries can be skipped.
+ * Implementations are bounded and may forget old IDs; callers only rely on an ID being
+ * remembered for the store's configured retention window.
+ * <p>
+ * Lookups take the consumed record as well as the event ID: stores that shard their state by
+ * partition, or key it on offsets, need it. Stores keyed on the event ID alone implement
+ * {@link EventIdIdempotencyStore}, which also accepts an ID without a record.
+ */
+public interface IdempotencyStore {
+
+    boolean contains(ConsumerRecord<?, ?> record, String eventId);
+
+    void mark(ConsumerRecord<?, ?> record, String eventId);
+}
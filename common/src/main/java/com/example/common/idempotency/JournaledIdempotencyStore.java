@@ -0,0 +1,383 @@
+package com.example.common.idempotency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Idempotency store that survives restarts. Every marked ID is appended to a memory-mapped
+ * segment file and indexed in a heap map; on startup the segments are scanned to rebuild the
+ * index, so records redelivered from the last committed offset are still recognised.
+ * <p>
+ * A new segment is started when the current one is full or older than {@code ttl / 4}. A
+ * segment is deleted, and its IDs forgotten, once the segment after it is older than the TTL,
+ * i.e. once nothing in it can be younger than the TTL. Age is checked every
+ * {@value #CLOCK_CHECK_INTERVAL} marks, so with sparse traffic IDs are kept for longer.
+ * <p>
+ * Records are written to the mapping before their length, so a record cut short by a crash is
+ * never read back. Writes sit in the page cache until the kernel flushes them, which is enough
+ * to survive the process dying; segments are only forced to disk when they roll and on
+ * {@link #close()}, so a host crash can lose the most recent marks.
+ * <p>
+ * Layout: each segment starts with a magic number and its creation time in epoch millis,
+ * followed by {@code [int length][UTF-8 ID]} records; a zero length marks the end.
+ */
+public class JournaledIdempotencyStore implements EventIdIdempotencyStore, MeterBinder, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournaledIdempotencyStore.class);
+
+    public static final int DEFAULT_SEGMENT_BYTES = 16 * 1024 * 1024;
+
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final int HEADER_BYTES = 16;
+
+    private static final int MAGIC = 0x49444A31;
+    private static final int ROLLS_PER_TTL = 4;
+    private static final int CLOCK_CHECK_INTERVAL = 64;
+    private static final String LOCK_FILE = "journal.lock";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long ttlMillis;
+    private final long rollMillis;
+    private final LongSupplier millisClock;
+
+    private final ConcurrentHashMap<String, Segment> ids = new ConcurrentHashMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    /** Oldest first; guarded by {@link #appendLock}. */
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private volatile Segment head;
+    private volatile int segmentCount;
+
+    private final FileChannel lockChannel;
+    private final FileLock directoryLock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final long recoveredEntries;
+    private final Duration recoveryTime;
+
+    private static final class Segment {
+
+        private final long sequence;
+        private final long createdMillis;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int position = HEADER_BYTES;
+        private int entries;
+
+        private Segment(long sequence, long createdMillis, Path path, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.createdMillis = createdMillis;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        /** Reads records from the header up to the first empty or incomplete one. */
+        private void scan(Consumer<String> action) {
+            int count = 0;
+            int offset = HEADER_BYTES;
+            while (offset + Integer.BYTES <= buffer.limit()) {
+                int length = buffer.getInt(offset);
+                if (length <= 0 || length > buffer.limit() - offset - Integer.BYTES) {
+                    break;
+                }
+                byte[] bytes = new byte[length];
+                buffer.get(offset + Integer.BYTES, bytes);
+                action.accept(new String(bytes, StandardCharsets.UTF_8));
+                offset += Integer.BYTES + length;
+                count++;
+            }
+            position = offset;
+            entries = count;
+        }
+
+        private boolean fits(int recordBytes) {
+            return position + recordBytes <= buffer.limit();
+        }
+
+        private void append(byte[] bytes) {
+            buffer.put(position + Integer.BYTES, bytes);
+            buffer.putInt(position, bytes.length);
+            position += Integer.BYTES + bytes.length;
+            entries++;
+        }
+    }
+
+    public JournaledIdempotencyStore(Path directory, Duration ttl, int segmentBytes) {
+        this(directory, ttl, segmentBytes, System::currentTimeMillis);
+    }
+
+    JournaledIdempotencyStore(Path directory, Duration ttl, int segmentBytes, LongSupplier millisClock) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive: " + ttl);
+        }
+        if (segmentBytes <= HEADER_BYTES + Integer.BYTES) {
+            throw new IllegalArgumentException("segmentBytes must be greater than "
+                    + (HEADER_BYTES + Integer.BYTES) + ": " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.ttlMillis = ttl.toMillis();
+        this.rollMillis = Math.max(ttlMillis / ROLLS_PER_TTL, 1);
+        this.millisClock = millisClock;
+
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            directoryLock = tryLock(lockChannel);
+            if (directoryLock == null) {
+                lockChannel.close();
+                throw new IllegalStateException("Idempotency journal " + directory + " is in use by another store");
+            }
+            recoveredEntries = recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open idempotency journal " + directory, e);
+        }
+        recoveryTime = Duration.ofNanos(System.nanoTime() - start);
+        log.info("Recovered {} event IDs from {} journal segments in {} ms",
+                recoveredEntries, segmentCount, recoveryTime.toMillis());
+    }
+
+    @Override
+    public boolean contains(String eventId) {
+        if (ids.containsKey(eventId)) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    @Override
+    public void mark(String eventId) {
+        if (ids.get(eventId) == head) {
+            return;
+        }
+        byte[] bytes = eventId.getBytes(StandardCharsets.UTF_8);
+        int recordBytes = Integer.BYTES + bytes.length;
+        if (recordBytes > segmentBytes - HEADER_BYTES) {
+            throw new IllegalArgumentException("Event ID of " + bytes.length + " bytes does not fit a segment");
+        }
+        appendLock.lock();
+        try {
+            Segment segment = head;
+            if (!segment.fits(recordBytes)
+                    || (segment.entries % CLOCK_CHECK_INTERVAL == 0
+                    && millisClock.getAsLong() - segment.createdMillis >= rollMillis)) {
+                segment = roll();
+            }
+            segment.append(bytes);
+            ids.put(eventId, segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot roll idempotency journal " + directory, e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long size() {
+        return ids.mappingCount();
+    }
+
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /** Event IDs read back from disk when this store was opened. */
+    public long recoveredEntries() {
+        return recoveredEntries;
+    }
+
+    /** Time taken to open the journal and rebuild the index. */
+    public Duration recoveryTime() {
+        return recoveryTime;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("idempotency.store.size", this, JournaledIdempotencyStore::size)
+                .description("Event IDs currently remembered")
+                .register(registry);
+        Gauge.builder("idempotency.store.journal.segments", this, JournaledIdempotencyStore::segmentCount)
+                .description("Segment files in the idempotency journal")
+                .register(registry);
+        TimeGauge.builder("idempotency.store.journal.recovery", recoveryTime, TimeUnit.MILLISECONDS,
+                        Duration::toMillis)
+                .description("Time taken to rebuild the index from the journal at startup")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.lookups", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.lookups", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.evictions", evictions, LongAdder::sum)
+                .description("Event IDs forgotten when their journal segment expired")
+                .register(registry);
+    }
+
+    /** Forces the current segment to disk and releases the directory lock. */
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (head != null) {
+                head.buffer.force();
+            }
+            directoryLock.release();
+            lockChannel.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Drops segments that expired while the service was down, indexes the rest oldest first so
+     * re-marked IDs point at their newest segment, and keeps appending to the newest one.
+     */
+    private long recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        long nextSequence = 0;
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            long sequence;
+            try {
+                sequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring unexpected file {} in idempotency journal", path);
+                continue;
+            }
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            Segment segment = map(sequence, path);
+            if (segment != null) {
+                segments.addLast(segment);
+            }
+        }
+        long now = millisClock.getAsLong();
+        while (segments.size() > 1 && expired(now)) {
+            Files.deleteIfExists(segments.pollFirst().path);
+        }
+
+        for (Segment segment : segments) {
+            segment.scan(id -> ids.put(id, segment));
+        }
+        head = segments.isEmpty() ? create(nextSequence, now) : segments.peekLast();
+        segmentCount = segments.size();
+        return ids.mappingCount();
+    }
+
+    /** Starts a new segment and deletes those whose successor is older than the TTL. */
+    private Segment roll() throws IOException {
+        long now = millisClock.getAsLong();
+        head.buffer.force();
+        head = create(head.sequence + 1, now);
+        while (expired(now)) {
+            Segment retired = segments.pollFirst();
+            retired.scan(id -> {
+                if (ids.remove(id, retired)) {
+                    evictions.increment();
+                }
+            });
+            Files.deleteIfExists(retired.path);
+        }
+        segmentCount = segments.size();
+        return head;
+    }
+
+    private boolean expired(long now) {
+        if (segments.size() < 2) {
+            return false;
+        }
+        Iterator<Segment> oldestFirst = segments.iterator();
+        oldestFirst.next();
+        return now - oldestFirst.next().createdMillis >= ttlMillis;
+    }
+
+    private Segment create(long sequence, long now) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putLong(8, now);
+        Segment segment = new Segment(sequence, now, path, buffer);
+        segments.addLast(segment);
+        return segment;
+    }
+
+    /** Another store in this JVM holding the lock is reported the same way as another process. */
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    /** @return the mapped segment, or {@code null} if the file is not a journal segment */
+    private Segment map(long sequence, Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_BYTES) {
+                log.warn("Ignoring truncated idempotency journal segment {}", path);
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            log.warn("Ignoring idempotency journal segment {} with unknown format", path);
+            return null;
+        }
+        return new Segment(sequence, buffer.getLong(8), path, buffer);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.common.idempotency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deduplicates by offset instead of event ID. Each topic-partition keeps a watermark below which
+ * every offset has been processed, plus a sparse set of offsets completed above it, so a replay
+ * from an older offset is recognised with one comparison and memory grows with partitions, not
+ * events.
+ * <p>
+ * The watermark starts at the first offset seen for a partition, since anything below it was
+ * committed before this consumer started, and advances while the offsets right above it are
+ * marked. Reprocessing after a manual offset reset therefore needs a restart. Both rely on each
+ * partition's records being looked up in offset order, so the store cannot be used with
+ * {@link com.example.common.ordering.KeyOrderedProcessor}.
+ * <p>
+ * Offsets that are never marked, such as records sent to the dead letter topic or gaps left by
+ * compaction, would hold the watermark back forever; once more than {@code maxPending} offsets
+ * are waiting above one, it jumps to the lowest completed offset and the skipped offsets are
+ * counted.
+ * <p>
+ * Only redeliveries of the same record are caught: the same event published twice, e.g. an
+ * order dual-published to {@code orders.v1} and {@code orders.v2}, has two offsets and is
+ * processed twice. State is lost on restart, which is safe since consumption resumes from the
+ * committed offset.
+ */
+public class OffsetWatermarkIdempotencyStore implements IdempotencyStore, MeterBinder {
+
+    public static final int DEFAULT_MAX_PENDING = 1_000;
+
+    private final int maxPending;
+    private final ConcurrentHashMap<TopicPartition, Watermark> watermarks = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    /** Guarded by its own monitor; {@link #next} is also read without it on the fast path. */
+    private final class Watermark {
+
+        private volatile long next;
+        private final TreeSet<Long> completed = new TreeSet<>();
+
+        private Watermark(long first) {
+            this.next = first;
+        }
+
+        boolean contains(long offset) {
+            if (offset < next) {
+                return true;
+            }
+            synchronized (this) {
+                return offset < next || completed.contains(offset);
+            }
+        }
+
+        synchronized void mark(long offset) {
+            if (offset < next) {
+                return;
+            }
+            if (offset == next && completed.isEmpty()) {
+                next = offset + 1;
+                return;
+            }
+            completed.add(offset);
+            long advanced = next;
+            if (completed.size() > maxPending) {
+                skipped.add(completed.first() - advanced);
+                advanced = completed.first();
+            }
+            while (!completed.isEmpty() && completed.first() == advanced) {
+                completed.pollFirst();
+                advanced++;
+            }
+            next = advanced;
+        }
+
+        synchronized int pending() {
+            return completed.size();
+        }
+    }
+
+    public OffsetWatermarkIdempotencyStore() {
+        this(DEFAULT_MAX_PENDING);
+    }
+
+    public OffsetWatermarkIdempotencyStore(int maxPending) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("maxPending must be positive: " + maxPending);
+        }
+        this.maxPending = maxPending;
+    }
+
+    @Override
+    public boolean contains(ConsumerRecord<?, ?> record, String eventId) {
+        if (watermark(record).contains(record.offset())) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    @Override
+    public void mark(ConsumerRecord<?, ?> record, String eventId) {
+        watermark(record).mark(record.offset());
+    }
+
+    /** @return the lowest offset not yet known to be processed, or {@code -1} if none was seen */
+    public long watermark(TopicPartition partition) {
+        Watermark watermark = watermarks.get(partition);
+        return watermark == null ? -1 : watermark.next;
+    }
+
+    /** Offsets completed above their partition's watermark, across all partitions. */
+    public long pending() {
+        return watermarks.values().stream().mapToLong(Watermark::pending).sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** Offsets stepped over without being marked when a partition had too many pending. */
+    public long skipped() {
+        return skipped.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("idempotency.store.partitions", watermarks, ConcurrentHashMap::size)
+                .description("Partitions with an offset watermark")
+                .register(registry);
+        Gauge.builder("idempotency.store.pending", this, OffsetWatermarkIdempotencyStore::pending)
+                .description("Offsets completed out of order above their partition's watermark")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.lookups", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.lookups", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.watermark.skipped", skipped, LongAdder::sum)
+                .description("Offsets the watermark moved past without them being marked")
+                .register(registry);
+    }
+
+    private Watermark watermark(ConsumerRecord<?, ?> record) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        Watermark watermark = watermarks.get(partition);
+        return watermark != null ? watermark
+                : watermarks.computeIfAbsent(partition, key -> new Watermark(record.offset()));
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.common.idempotency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Idempotency store sharded by partition, so a replica only holds IDs for the partitions it
+ * currently consumes and dedup survives partitions moving between pods.
+ * <p>
+ * Every mark is also written to a compacted dedup topic, to the partition with the same number
+ * as the consumed record. Registered as the containers' rebalance listener, the store starts
+ * loading a partition's shard from that topic when the partition is assigned, and drops the
+ * shard once no assigned topic has that partition number any more. Shards load in parallel off
+ * the consumer thread, so the rebalance callback returns at once; the first lookup for a
+ * partition waits for its shard, for at most {@value #LOAD_TIMEOUT_SECONDS} seconds.
+ * <p>
+ * Shards are keyed by partition number rather than topic-partition: the pipeline topics share
+ * a partition count and are keyed by order ID, so the same order lands on the same number in
+ * {@code orders.v1} and {@code orders.v2}, and listeners that dedup across both keep doing so.
+ * The dedup topic needs at least as many partitions as the consumed topics.
+ * <p>
+ * Each shard is a {@link GenerationalIdempotencyStore}; IDs loaded from the dedup topic start a
+ * fresh TTL, and entries older than the TTL are skipped while loading. The topic itself should
+ * use {@code cleanup.policy=compact,delete} with {@code retention.ms} set to the TTL.
+ * <p>
+ * The store owns the Kafka clients it reads and writes the dedup topic with, and closes them
+ * in {@link #close()}.
+ */
+public class PartitionedIdempotencyStore implements IdempotencyStore, ConsumerAwareRebalanceListener,
+        MeterBinder, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionedIdempotencyStore.class);
+
+    private static final byte[] MARKED = new byte[0];
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final long LOAD_TIMEOUT_SECONDS = 30;
+    private static final Duration LOAD_TIMEOUT = Duration.ofSeconds(LOAD_TIMEOUT_SECONDS);
+
+    private final String dedupTopic;
+    private final Duration ttl;
+    private final int maxEntriesPerPartition;
+    private final ProducerFactory<String, byte[]> producerFactory;
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final Producer<String, byte[]> producer;
+    private final LongSupplier millisClock;
+    private final ExecutorService loader =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("idempotency-load-", 0).factory());
+
+    private final ConcurrentHashMap<Integer, CompletableFuture<GenerationalIdempotencyStore>> shards =
+            new ConcurrentHashMap<>();
+    /** Topic-partitions assigned to any of the containers sharing this store. */
+    private final Set<TopicPartition> assigned = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder restored = new LongAdder();
+    private final LongAdder publishFailures = new LongAdder();
+
+    /**
+     * @param kafkaProperties client settings, e.g. {@code bootstrap.servers}, shared by the
+     *                        producer and the consumers this store creates; serializers and
+     *                        offset commits are set by the store
+     */
+    public PartitionedIdempotencyStore(String dedupTopic, Duration ttl, int maxEntriesPerPartition,
+                                       Map<String, Object> kafkaProperties) {
+        this(dedupTopic, ttl, maxEntriesPerPartition, producerFactory(kafkaProperties),
+                consumerFactory(kafkaProperties), System::currentTimeMillis);
+    }
+
+    PartitionedIdempotencyStore(String dedupTopic, Duration ttl, int maxEntriesPerPartition,
+                                ProducerFactory<String, byte[]> producerFactory,
+                                ConsumerFactory<String, byte[]> consumerFactory, LongSupplier millisClock) {
+        this.dedupTopic = dedupTopic;
+        this.ttl = ttl;
+        this.maxEntriesPerPartition = maxEntriesPerPartition;
+        this.producerFactory = producerFactory;
+        this.consumerFactory = consumerFactory;
+        this.producer = producerFactory.createProducer();
+        this.millisClock = millisClock;
+    }
+
+    @Override
+    public boolean contains(ConsumerRecord<?, ?> record, String eventId) {
+        if (shard(record.partition()).contains(eventId)) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    @Override
+    public void mark(ConsumerRecord<?, ?> record, String eventId) {
+        shard(record.partition()).mark(eventId);
+        producer.send(new ProducerRecord<>(dedupTopic, record.partition(), eventId, MARKED), (metadata, e) -> {
+            if (e != null) {
+                publishFailures.increment();
+                log.warn("Failed to write event {} to {}; it will not be deduplicated after a rebalance",
+                        eventId, dedupTopic, e);
+            }
+        });
+    }
+
+    /** Starts loading the shards; records of a partition wait for its shard when delivered. */
+    @Override
+    public synchronized void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        assigned.addAll(partitions);
+        for (TopicPartition partition : partitions) {
+            shards.computeIfAbsent(partition.partition(), this::startLoad);
+        }
+    }
+
+    /** Flushes pending marks so whichever pod is assigned the partition next can load them. */
+    @Override
+    public synchronized void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer,
+                                                             Collection<TopicPartition> partitions) {
+        producer.flush();
+        release(partitions);
+    }
+
+    @Override
+    public synchronized void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        release(partitions);
+    }
+
+    /** Partition numbers with a shard loaded. */
+    public Set<Integer> partitions() {
+        return Set.copyOf(shards.keySet());
+    }
+
+    public long size() {
+        return shards.values().stream()
+                .map(shard -> shard.getNow(null))
+                .filter(Objects::nonNull)
+                .mapToLong(GenerationalIdempotencyStore::size)
+                .sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** Event IDs read back from the dedup topic when partitions were assigned. */
+    public long restored() {
+        return restored.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("idempotency.store.size", this, PartitionedIdempotencyStore::size)
+                .description("Event IDs currently remembered")
+                .register(registry);
+        Gauge.builder("idempotency.store.partitions", shards, ConcurrentHashMap::size)
+                .description("Partitions whose dedup state is held by this replica")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.lookups", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.lookups", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.restored", restored, LongAdder::sum)
+                .description("Event IDs loaded from the dedup topic on partition assignment")
+                .register(registry);
+        FunctionCounter.builder("idempotency.store.publish.failures", publishFailures, LongAdder::sum)
+                .description("Marks that could not be written to the dedup topic")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        loader.shutdownNow();
+        producer.close();
+        producerFactory.reset();
+    }
+
+    private void release(Collection<TopicPartition> partitions) {
+        assigned.removeAll(partitions);
+        for (TopicPartition partition : partitions) {
+            int number = partition.partition();
+            if (assigned.stream().noneMatch(other -> other.partition() == number)) {
+                shards.remove(number);
+            }
+        }
+    }
+
+    /**
+     * Normally loading started on assignment; starting it here as well covers records delivered
+     * without a rebalance callback, e.g. containers using manual assignment.
+     */
+    private GenerationalIdempotencyStore shard(int partition) {
+        return shards.computeIfAbsent(partition, this::startLoad).join();
+    }
+
+    private CompletableFuture<GenerationalIdempotencyStore> startLoad(int partition) {
+        return CompletableFuture.supplyAsync(() -> load(partition), loader);
+    }
+
+    /**
+     * Replays the partition's dedup topic up to its current end, skipping expired entries. If
+     * the topic cannot be read, the shard starts with whatever was loaded so far.
+     */
+    private GenerationalIdempotencyStore load(int partition) {
+        GenerationalIdempotencyStore shard = new GenerationalIdempotencyStore(ttl, maxEntriesPerPartition);
+        TopicPartition topicPartition = new TopicPartition(dedupTopic, partition);
+        long start = System.nanoTime();
+        long cutoff = millisClock.getAsLong() - ttl.toMillis();
+        long loaded = 0;
+        try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer()) {
+            consumer.assign(List.of(topicPartition));
+            consumer.seekToBeginning(List.of(topicPartition));
+            long end = consumer.endOffsets(List.of(topicPartition)).get(topicPartition);
+            long deadline = start + LOAD_TIMEOUT.toNanos();
+            while (consumer.position(topicPartition) < end) {
+                if (System.nanoTime() > deadline) {
+                    log.warn("Gave up loading {} after {}; duplicates from before the rebalance may be reprocessed",
+                            topicPartition, LOAD_TIMEOUT);
+                    break;
+                }
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (record.value() != null && record.timestamp() >= cutoff) {
+                        shard.mark(record.key());
+                        loaded++;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to load {}; duplicates from before the rebalance may be reprocessed",
+                    topicPartition, e);
+        }
+        restored.add(loaded);
+        log.info("Loaded {} event IDs for partition {} from {} in {} ms", loaded, partition, dedupTopic,
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return shard;
+    }
+
+    private static ProducerFactory<String, byte[]> producerFactory(Map<String, Object> kafkaProperties) {
+        Map<String, Object> config = new HashMap<>(kafkaProperties);
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return new DefaultKafkaProducerFactory<>(config);
+    }
+
+    private static ConsumerFactory<String, byte[]> consumerFactory(Map<String, Object> kafkaProperties) {
+        Map<String, Object> config = new HashMap<>(kafkaProperties);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return new DefaultKafkaConsumerFactory<>(config);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.common.latency;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.slf4j.MDC;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Timestamps carried alongside the correlation ID so every consumer can tell how long ago the
+ * order entered the pipeline and how long the record waited since the previous hop sent it.
+ * <p>
+ * The origin time travels from a consumed record to the records it causes through the MDC,
+ * the same way {@link com.example.common.CorrelationIdUtils} threads the correlation ID.
+ * Timestamps are epoch milliseconds from each service's wall clock, so cross-host values are
+ * only as accurate as clock synchronisation.
+ */
+public final class LatencyHeaders {
+
+    private LatencyHeaders() {
+    }
+
+    public static final String ORIGIN_TIMESTAMP_HEADER = "originTimestamp";
+    public static final String HOP_TIMESTAMP_HEADER = "hopTimestamp";
+    public static final String HOP_HEADER = "hop";
+    public static final String ORIGIN_MDC_KEY = "originTimestamp";
+
+    /**
+     * Stamps the producing service and send time, and the origin time of the record being
+     * processed on this thread, or now if this record starts the pipeline.
+     */
+    public static void stamp(ProducerRecord<?, ?> record, String hop) {
+        stamp(record, hop, originFromMdc());
+    }
+
+    /**
+     * Same as {@link #stamp(ProducerRecord, String)} with the origin time given, for records
+     * published away from the thread that consumed their cause, e.g. from a batch listener.
+     */
+    public static void stamp(ProducerRecord<?, ?> record, String hop, long origin) {
+        long now = System.currentTimeMillis();
+        Headers headers = record.headers();
+        headers.add(ORIGIN_TIMESTAMP_HEADER, toBytes(origin > 0 ? origin : now));
+        headers.add(HOP_TIMESTAMP_HEADER, toBytes(now));
+        headers.add(HOP_HEADER, hop.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return the origin epoch millis, or {@code -1} if the record carries none */
+    public static long getOrigin(ConsumerRecord<?, ?> record) {
+        return getLong(record, ORIGIN_TIMESTAMP_HEADER);
+    }
+
+    /** @return when the previous hop sent the record, falling back to the record timestamp */
+    public static long getHopTimestamp(ConsumerRecord<?, ?> record) {
+        long sent = getLong(record, HOP_TIMESTAMP_HEADER);
+        return sent > 0 ? sent : record.timestamp();
+    }
+
+    /** @return the service that produced the record, or {@code "unknown"} */
+    public static String getHop(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(HOP_HEADER);
+        if (header == null || header.value() == null) {
+            return "unknown";
+        }
+        return new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    public static void setOriginInMdc(long origin) {
+        if (origin > 0) {
+            MDC.put(ORIGIN_MDC_KEY, Long.toString(origin));
+        }
+    }
+
+    public static void clearMdc() {
+        MDC.remove(ORIGIN_MDC_KEY);
+    }
+
+    private static long originFromMdc() {
+        String origin = MDC.get(ORIGIN_MDC_KEY);
+        if (origin == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(origin);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long getLong(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        if (header == null || header.value() == null || header.value().length != Long.BYTES) {
+            return -1;
+        }
+        return ByteBuffer.wrap(header.value()).getLong();
+    }
+
+    private static byte[] toBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+}
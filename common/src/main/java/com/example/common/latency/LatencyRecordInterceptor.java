@@ -0,0 +1,166 @@
+package com.example.common.latency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records per-hop latency for every record a listener container delivers:
+ * <ul>
+ *     <li>{@code pipeline.hop.queue} – from the previous hop's send to delivery here</li>
+ *     <li>{@code pipeline.hop.processing} – time spent in the listener, tagged by outcome</li>
+ *     <li>{@code pipeline.origin.latency} – from order creation to delivery here; at the
+ *     query service this is the full order-to-view latency</li>
+ *     <li>{@code pipeline.record.age} – per-partition age of the last delivered record</li>
+ * </ul>
+ * Timers are tagged with {@code topic}, {@code hop} (the producing service) and
+ * {@code consumer}. The interceptor also puts the record's origin time in the MDC so events
+ * published while handling it keep the original timestamp.
+ * <p>
+ * Also usable as a batch listener's interceptor: queue, origin and age are recorded for every
+ * record in the batch, and the batch's processing time once for each topic and hop it contains.
+ * Records in a batch do not share an origin, so none is put in the MDC; batch listeners pass
+ * each record's origin to {@link LatencyHeaders} explicitly when stamping what they publish.
+ */
+public class LatencyRecordInterceptor<K, V> implements RecordInterceptor<K, V>, BatchInterceptor<K, V> {
+
+    private final MeterRegistry meterRegistry;
+    private final String consumer;
+    private final ThreadLocal<Long> processingStart = new ThreadLocal<>();
+    private final ConcurrentHashMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<PartitionKey, AtomicLong> recordAges = new ConcurrentHashMap<>();
+
+    private record TimerKey(String name, String topic, String hop, String outcome) {
+    }
+
+    private record PartitionKey(String topic, int partition) {
+    }
+
+    public LatencyRecordInterceptor(MeterRegistry meterRegistry, String consumer) {
+        this.meterRegistry = meterRegistry;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public ConsumerRecord<K, V> intercept(ConsumerRecord<K, V> record, Consumer<K, V> kafkaConsumer) {
+        long origin = recordDelivery(record, System.currentTimeMillis());
+        LatencyHeaders.setOriginInMdc(origin);
+        processingStart.set(System.nanoTime());
+        return record;
+    }
+
+    @Override
+    public ConsumerRecords<K, V> intercept(ConsumerRecords<K, V> records, Consumer<K, V> kafkaConsumer) {
+        long now = System.currentTimeMillis();
+        for (ConsumerRecord<K, V> record : records) {
+            recordDelivery(record, now);
+        }
+        processingStart.set(System.nanoTime());
+        return records;
+    }
+
+    @Override
+    public void success(ConsumerRecords<K, V> records, Consumer<K, V> kafkaConsumer) {
+        recordProcessing(records, "success");
+    }
+
+    @Override
+    public void failure(ConsumerRecords<K, V> records, Exception exception, Consumer<K, V> kafkaConsumer) {
+        recordProcessing(records, "failure");
+    }
+
+    @Override
+    public void success(ConsumerRecord<K, V> record, Consumer<K, V> kafkaConsumer) {
+        recordProcessing(record, "success");
+    }
+
+    @Override
+    public void failure(ConsumerRecord<K, V> record, Exception exception, Consumer<K, V> kafkaConsumer) {
+        recordProcessing(record, "failure");
+    }
+
+    @Override
+    public void afterRecord(ConsumerRecord<K, V> record, Consumer<K, V> kafkaConsumer) {
+        processingStart.remove();
+        LatencyHeaders.clearMdc();
+    }
+
+    /** @return the record's origin time, or {@code -1} if it carries none */
+    private long recordDelivery(ConsumerRecord<K, V> record, long now) {
+        String hop = LatencyHeaders.getHop(record);
+        record("pipeline.hop.queue", record.topic(), hop, null, now - LatencyHeaders.getHopTimestamp(record));
+        long origin = LatencyHeaders.getOrigin(record);
+        if (origin > 0) {
+            record("pipeline.origin.latency", record.topic(), hop, null, now - origin);
+        }
+        recordAge(record.topic(), record.partition()).set(Math.max(now - record.timestamp(), 0));
+        return origin;
+    }
+
+    private void recordProcessing(ConsumerRecords<K, V> records, String outcome) {
+        Long start = processingStart.get();
+        processingStart.remove();
+        if (start == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        Set<TimerKey> recorded = new HashSet<>();
+        for (ConsumerRecord<K, V> record : records) {
+            String hop = LatencyHeaders.getHop(record);
+            if (recorded.add(new TimerKey("pipeline.hop.processing", record.topic(), hop, outcome))) {
+                timer("pipeline.hop.processing", record.topic(), hop, outcome).record(elapsed, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void recordProcessing(ConsumerRecord<K, V> record, String outcome) {
+        Long start = processingStart.get();
+        if (start == null) {
+            return;
+        }
+        timer("pipeline.hop.processing", record.topic(), LatencyHeaders.getHop(record), outcome)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void record(String name, String topic, String hop, String outcome, long millis) {
+        // Wall clocks of different hosts can disagree by a few milliseconds.
+        timer(name, topic, hop, outcome).record(Math.max(millis, 0), TimeUnit.MILLISECONDS);
+    }
+
+    private Timer timer(String name, String topic, String hop, String outcome) {
+        return timers.computeIfAbsent(new TimerKey(name, topic, hop, outcome), key -> {
+            Tags tags = Tags.of("topic", topic, "hop", hop, "consumer", consumer);
+            if (outcome != null) {
+                tags = tags.and("outcome", outcome);
+            }
+            return Timer.builder(name)
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        });
+    }
+
+    private AtomicLong recordAge(String topic, int partition) {
+        return recordAges.computeIfAbsent(new PartitionKey(topic, partition), key -> {
+            AtomicLong age = new AtomicLong();
+            Gauge.builder("pipeline.record.age", age, AtomicLong::get)
+                    .tags("topic", topic, "partition", Integer.toString(partition), "consumer", consumer)
+                    .baseUnit(BaseUnits.MILLISECONDS)
+                    .register(meterRegistry);
+            return age;
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.common.ordering;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+
+/**
+ * Hands each record the container delivers to a {@link KeyOrderedProcessor} and returns, so the
+ * consumer thread can move on to the next record while the listener runs on a worker thread.
+ * <p>
+ * The delegate, normally the adapter around a {@code @KafkaListener} method, is called without
+ * the acknowledgment or consumer: the processor acknowledges, and the consumer may only be used
+ * from its own thread.
+ */
+class KeyOrderedMessageListener<K, V> implements AcknowledgingConsumerAwareMessageListener<K, V> {
+
+    private final KeyOrderedProcessor processor;
+    private final AcknowledgingConsumerAwareMessageListener<K, V> delegate;
+
+    KeyOrderedMessageListener(KeyOrderedProcessor processor, AcknowledgingConsumerAwareMessageListener<K, V> delegate) {
+        this.processor = processor;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void onMessage(ConsumerRecord<K, V> record, Acknowledgment acknowledgment, Consumer<?, ?> consumer) {
+        processor.submit(record, acknowledgment, () -> delegate.onMessage(record, null, null));
+    }
+}
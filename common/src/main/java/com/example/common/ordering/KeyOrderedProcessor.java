@@ -0,0 +1,427 @@
+package com.example.common.ordering;
+
+import com.example.common.latency.LatencyHeaders;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Processes the records of a partition on a thread pool instead of the consumer thread, so a
+ * listener is no longer limited to one record at a time per partition. The pipeline topics only
+ * have a few partitions, which otherwise caps each consumer group at that many threads.
+ * <p>
+ * Records with the same key, the order ID on every pipeline topic, run one after another in
+ * offset order; records with different keys run in parallel. Records without a key are ordered
+ * by partition. At most {@code maxInFlight} records are submitted but not finished; beyond that
+ * the consumer thread blocks until one completes.
+ * <p>
+ * Offsets are acknowledged only up to the lowest offset still in flight, so a crash never
+ * commits past a record that has not been processed. Offsets that are never submitted, such as
+ * undeserializable records handled by the container's error handler, do not hold the commit
+ * back. When partitions are revoked, their in-flight records are given up to
+ * {@link #DRAIN_TIMEOUT} to finish so their offsets are committed before the partition moves.
+ * <p>
+ * A failing record is retried on its worker thread according to {@code backOff}, holding back
+ * later records with the same key, and is then passed to the recoverer, normally the dead
+ * letter publisher. If the recoverer fails too, the offset stays in flight: the partition stops
+ * committing until the record is redelivered after a restart or rebalance. The same holds for a
+ * record whose task threw an {@link Error}, or that never ran because the executor was shut
+ * down; later records with its key still run.
+ * <p>
+ * Install with {@link #applyTo(ConcurrentKafkaListenerContainerFactory)}. The listeners must be
+ * safe to call concurrently for different keys, and the idempotency store must accept lookups
+ * and marks out of offset order. Every store in this project does except
+ * {@link com.example.common.idempotency.OffsetWatermarkIdempotencyStore}, which takes any offset
+ * below the highest it has settled as processed; the services refuse to start with both.
+ */
+public class KeyOrderedProcessor implements ConsumerAwareRebalanceListener, MeterBinder, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyOrderedProcessor.class);
+
+    public static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1_000;
+
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final BackOff backOff;
+    private final ConsumerRecordRecoverer recoverer;
+
+    /** Last task submitted for each key; removed once it completes with nothing queued behind it. */
+    private final ConcurrentHashMap<Object, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<TopicPartition, OffsetTracker> trackers = new ConcurrentHashMap<>();
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder recoveryFailures = new LongAdder();
+
+    /**
+     * Offsets of one partition that were submitted and have not finished, and the
+     * acknowledgments of finished records above the lowest of them. Guarded by its own monitor.
+     */
+    private static final class OffsetTracker {
+
+        private final TreeSet<Long> inFlight = new TreeSet<>();
+        private final TreeMap<Long, Acknowledgment> completed = new TreeMap<>();
+        /** Lowest offset given up on without running; nothing at or above it is acknowledged. */
+        private long abandonedFrom = Long.MAX_VALUE;
+        private boolean revoked;
+
+        synchronized void submitted(long offset) {
+            inFlight.add(offset);
+        }
+
+        /** Acknowledges the highest finished offset below everything still in flight. */
+        synchronized void completed(long offset, Acknowledgment acknowledgment) {
+            inFlight.remove(offset);
+            if (revoked) {
+                notifyAll();
+                return;
+            }
+            completed.put(offset, acknowledgment);
+            long limit = inFlight.isEmpty() ? abandonedFrom : Math.min(inFlight.first(), abandonedFrom);
+            NavigableMap<Long, Acknowledgment> committable = completed.headMap(limit, false);
+            if (!committable.isEmpty()) {
+                committable.lastEntry().getValue().acknowledge();
+                committable.clear();
+            }
+            if (inFlight.isEmpty()) {
+                notifyAll();
+            }
+        }
+
+        /** Stops waiting for a record that will not run, without committing past it. */
+        synchronized void abandoned(long offset) {
+            inFlight.remove(offset);
+            abandonedFrom = Math.min(abandonedFrom, offset);
+            if (inFlight.isEmpty()) {
+                notifyAll();
+            }
+        }
+
+        synchronized boolean awaitDrained(long deadlineNanos) throws InterruptedException {
+            long remaining;
+            while (!inFlight.isEmpty() && (remaining = deadlineNanos - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return inFlight.isEmpty();
+        }
+
+        synchronized void revoke() {
+            revoked = true;
+            completed.clear();
+        }
+
+        synchronized int size() {
+            return inFlight.size();
+        }
+    }
+
+    public KeyOrderedProcessor(ExecutorService executor, int maxInFlight, BackOff backOff,
+                               ConsumerRecordRecoverer recoverer) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.backOff = backOff;
+        this.recoverer = recoverer;
+    }
+
+    /** Virtual threads, one per record in flight, or a fixed pool of platform threads. */
+    public static ExecutorService newExecutor(boolean virtualThreads, int poolSize) {
+        return virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("key-ordered-", 0).factory())
+                : Executors.newFixedThreadPool(poolSize, Thread.ofPlatform().name("key-ordered-", 0).factory());
+    }
+
+    /**
+     * Runs {@code task} for {@code record} after every earlier task with the same key, and
+     * acknowledges the record's offset once it and every lower submitted offset have finished.
+     * Blocks while {@code maxInFlight} records are in flight.
+     *
+     * @throws RejectedExecutionException if the processor has been closed
+     */
+    public void submit(ConsumerRecord<?, ?> record, Acknowledgment acknowledgment, Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting to submit " + record.topic() + "-"
+                    + record.partition() + "@" + record.offset(), e);
+        }
+        OffsetTracker tracker = trackers.computeIfAbsent(
+                new TopicPartition(record.topic(), record.partition()), partition -> new OffsetTracker());
+        tracker.submitted(record.offset());
+
+        Object key = record.key() != null ? record.key() : new TopicPartition(record.topic(), record.partition());
+        AtomicBoolean started = new AtomicBoolean();
+        Runnable work = () -> {
+            started.set(true);
+            try {
+                if (process(record, task)) {
+                    tracker.completed(record.offset(), acknowledgment);
+                }
+            } finally {
+                permits.release();
+            }
+        };
+        CompletableFuture<Void> next;
+        try {
+            // Chained on the outcome rather than the success of the previous task, so a task that
+            // fails, or is rejected, does not skip the ones queued behind it.
+            next = tails.compute(key, (k, tail) -> tail == null
+                    ? CompletableFuture.runAsync(work, executor)
+                    : tail.handle((result, failure) -> null).thenRunAsync(work, executor));
+        } catch (RejectedExecutionException e) {
+            abandon(record, tracker);
+            throw e;
+        }
+        next.whenComplete((ignored, failure) -> {
+            tails.remove(key, next);
+            if (failure == null) {
+                return;
+            }
+            if (started.get()) {
+                log.error("Worker failed on {}-{}@{}; the partition will not commit past it until it is redelivered",
+                        record.topic(), record.partition(), record.offset(), failure);
+            } else {
+                log.warn("Dropped {}-{}@{} without running it: {}", record.topic(), record.partition(),
+                        record.offset(), failure.getMessage());
+                abandon(record, tracker);
+            }
+        });
+    }
+
+    /**
+     * Replaces the factory's record listeners with ones that submit to this processor, switches
+     * it to manual acknowledgment, and registers this processor for rebalance callbacks ahead
+     * of any rebalance listener already set.
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> void applyTo(ConcurrentKafkaListenerContainerFactory<K, V> factory) {
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        ConsumerRebalanceListener existing = containerProperties.getConsumerRebalanceListener();
+        if (existing == null) {
+            containerProperties.setConsumerRebalanceListener(this);
+        } else if (existing instanceof ConsumerAwareRebalanceListener next) {
+            containerProperties.setConsumerRebalanceListener(new ChainedRebalanceListener(this, next));
+        } else {
+            throw new IllegalStateException("Cannot chain rebalance listener " + existing.getClass().getName());
+        }
+        factory.setContainerCustomizer(container -> {
+            Object listener = container.getContainerProperties().getMessageListener();
+            if (!(listener instanceof AcknowledgingConsumerAwareMessageListener<?, ?> delegate)) {
+                throw new IllegalStateException("Key-ordered processing needs a record listener, not "
+                        + listener.getClass().getName());
+            }
+            container.setupMessageListener(new KeyOrderedMessageListener<>(this,
+                    (AcknowledgingConsumerAwareMessageListener<K, V>) delegate));
+        });
+    }
+
+    /** Waits for the revoked partitions' in-flight records so their offsets are committed now. */
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        try {
+            for (TopicPartition partition : partitions) {
+                OffsetTracker tracker = trackers.get(partition);
+                if (tracker != null && !tracker.awaitDrained(deadline)) {
+                    log.warn("{} records of {} still in flight after {}; they will be redelivered to the next owner",
+                            tracker.size(), partition, DRAIN_TIMEOUT);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        release(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        release(partitions);
+    }
+
+    /** Records submitted and not yet finished, across all partitions. */
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /** Keys with a record running or queued. */
+    public int activeKeys() {
+        return tails.size();
+    }
+
+    public long processed() {
+        return processed.sum();
+    }
+
+    public long retries() {
+        return retries.sum();
+    }
+
+    public long recovered() {
+        return recovered.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("listener.keyordered.inflight", this, KeyOrderedProcessor::inFlight)
+                .description("Records submitted to worker threads and not yet finished")
+                .register(registry);
+        Gauge.builder("listener.keyordered.keys", this, KeyOrderedProcessor::activeKeys)
+                .description("Keys with a record running or waiting behind another")
+                .register(registry);
+        FunctionCounter.builder("listener.keyordered.processed", processed, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("listener.keyordered.retries", retries, LongAdder::sum)
+                .description("Failed attempts that were retried")
+                .register(registry);
+        FunctionCounter.builder("listener.keyordered.recovered", recovered, LongAdder::sum)
+                .description("Records handed to the recoverer after exhausting retries")
+                .register(registry);
+        FunctionCounter.builder("listener.keyordered.recovery.failures", recoveryFailures, LongAdder::sum)
+                .description("Records the recoverer failed on; their partition stops committing")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(DRAIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("{} records still in flight at shutdown; they will be redelivered", inFlight());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void abandon(ConsumerRecord<?, ?> record, OffsetTracker tracker) {
+        tracker.abandoned(record.offset());
+        permits.release();
+    }
+
+    private void release(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            OffsetTracker tracker = trackers.remove(partition);
+            if (tracker != null) {
+                tracker.revoke();
+            }
+        }
+    }
+
+    /** @return whether the record is done with, processed or recovered */
+    private boolean process(ConsumerRecord<?, ?> record, Runnable task) {
+        BackOffExecution execution = null;
+        while (true) {
+            try {
+                LatencyHeaders.setOriginInMdc(LatencyHeaders.getOrigin(record));
+                task.run();
+                processed.increment();
+                return true;
+            } catch (RuntimeException e) {
+                if (execution == null) {
+                    execution = backOff.start();
+                }
+                long wait = execution.nextBackOff();
+                if (wait == BackOffExecution.STOP || !sleep(wait)) {
+                    return recover(record, e);
+                }
+                retries.increment();
+                log.warn("Retrying {}-{}@{} in {} ms after: {}", record.topic(), record.partition(),
+                        record.offset(), wait, e.getMessage());
+            } finally {
+                LatencyHeaders.clearMdc();
+            }
+        }
+    }
+
+    private boolean recover(ConsumerRecord<?, ?> record, RuntimeException failure) {
+        try {
+            recoverer.accept(record, failure);
+            recovered.increment();
+            return true;
+        } catch (RuntimeException e) {
+            recoveryFailures.increment();
+            log.error("Could not recover {}-{}@{}; the partition will not commit past it until it is redelivered",
+                    record.topic(), record.partition(), record.offset(), e);
+            return false;
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Lets the processor drain revoked partitions before another listener, e.g. a dedup store, sees them. */
+    private record ChainedRebalanceListener(ConsumerAwareRebalanceListener first,
+                                            ConsumerAwareRebalanceListener second)
+            implements ConsumerAwareRebalanceListener {
+
+        @Override
+        public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+            first.onPartitionsRevokedBeforeCommit(consumer, partitions);
+            second.onPartitionsRevokedBeforeCommit(consumer, partitions);
+        }
+
+        @Override
+        public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+            first.onPartitionsRevokedAfterCommit(consumer, partitions);
+            second.onPartitionsRevokedAfterCommit(consumer, partitions);
+        }
+
+        @Override
+        public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+            first.onPartitionsLost(consumer, partitions);
+            second.onPartitionsLost(consumer, partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+            first.onPartitionsAssigned(consumer, partitions);
+            second.onPartitionsAssigned(consumer, partitions);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.common.retry;
+
+import org.springframework.kafka.config.KafkaListenerEndpoint;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
+import org.springframework.kafka.retrytopic.DestinationTopicResolver;
+import org.springframework.kafka.retrytopic.RetryTopicComponentFactory;
+import org.springframework.kafka.retrytopic.RetryTopicNamesProviderFactory;
+import org.springframework.kafka.retrytopic.SuffixingRetryTopicNamesProviderFactory;
+
+/**
+ * Names retry topics the default way, {@code <topic>-retry-<delay>}, but sends every record that
+ * exhausts its retries, or fails with an exception that is never retried, to one shared dead
+ * letter topic instead of a {@code <topic>-dlt} per source topic. The source topic stays
+ * available in the {@code kafka_original-topic} header.
+ * <p>
+ * Register as a bean and Spring Kafka's retry topic support picks it up. Endpoint and group IDs
+ * of the dead letter endpoints keep their suffixes, so several source topics can share the
+ * destination. Records are forwarded to the retry and dead letter topics with
+ * {@link RawValueDeadLetterPublishingRecoverer}, so consumers must retain the raw value.
+ */
+public class DeadLetterTopicComponentFactory extends RetryTopicComponentFactory {
+
+    private final String deadLetterTopic;
+
+    public DeadLetterTopicComponentFactory(String deadLetterTopic) {
+        this.deadLetterTopic = deadLetterTopic;
+    }
+
+    @Override
+    public RetryTopicNamesProviderFactory retryTopicNamesProviderFactory() {
+        SuffixingRetryTopicNamesProviderFactory suffixing = new SuffixingRetryTopicNamesProviderFactory();
+        return properties -> {
+            RetryTopicNamesProviderFactory.RetryTopicNamesProvider names =
+                    suffixing.createRetryTopicNamesProvider(properties);
+            return properties.isDltTopic() ? new DeadLetterTopicNames(names, deadLetterTopic) : names;
+        };
+    }
+
+    @Override
+    public DeadLetterPublishingRecovererFactory deadLetterPublishingRecovererFactory(
+            DestinationTopicResolver destinationTopicResolver) {
+        DeadLetterPublishingRecovererFactory factory =
+                super.deadLetterPublishingRecovererFactory(destinationTopicResolver);
+        factory.setDeadLetterPublisherCreator(RawValueDeadLetterPublishingRecoverer::new);
+        return factory;
+    }
+
+    private record DeadLetterTopicNames(RetryTopicNamesProviderFactory.RetryTopicNamesProvider delegate,
+                                        String topic)
+            implements RetryTopicNamesProviderFactory.RetryTopicNamesProvider {
+
+        @Override
+        public String getEndpointId(KafkaListenerEndpoint endpoint) {
+            return delegate.getEndpointId(endpoint);
+        }
+
+        @Override
+        public String getGroupId(KafkaListenerEndpoint endpoint) {
+            return delegate.getGroupId(endpoint);
+        }
+
+        @Override
+        public String getClientIdPrefix(KafkaListenerEndpoint endpoint) {
+            return delegate.getClientIdPrefix(endpoint);
+        }
+
+        @Override
+        public String getGroup(KafkaListenerEndpoint endpoint) {
+            return delegate.getGroup(endpoint);
+        }
+
+        @Override
+        public String getTopicName(String topic) {
+            return this.topic;
+        }
+    }
+}
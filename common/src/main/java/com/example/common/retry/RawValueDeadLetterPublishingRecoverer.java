@@ -0,0 +1,41 @@
+package com.example.common.retry;
+
+import com.example.common.codec.RawValueRetainingDeserializer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Publishes the bytes a failed record was decoded from, as retained by
+ * {@link RawValueRetainingDeserializer}, rather than its deserialized value, so the template only
+ * needs a {@code ByteArraySerializer} and the record reaches the retry or dead letter topic byte
+ * for byte as it was consumed. Values that failed to deserialize are forwarded from the
+ * deserialization exception as usual.
+ */
+public class RawValueDeadLetterPublishingRecoverer extends DeadLetterPublishingRecoverer {
+
+    public RawValueDeadLetterPublishingRecoverer(KafkaOperations<?, ?> template,
+            BiFunction<ConsumerRecord<?, ?>, Exception, TopicPartition> destinationResolver) {
+        super(template, destinationResolver);
+    }
+
+    public RawValueDeadLetterPublishingRecoverer(
+            Function<ProducerRecord<?, ?>, ? extends KafkaOperations<?, ?>> templateResolver,
+            BiFunction<ConsumerRecord<?, ?>, Exception, TopicPartition> destinationResolver) {
+        super(templateResolver, destinationResolver);
+    }
+
+    @Override
+    protected ProducerRecord<Object, Object> createProducerRecord(ConsumerRecord<?, ?> record,
+            TopicPartition topicPartition, Headers headers, byte[] key, byte[] value) {
+        headers.remove(RawValueRetainingDeserializer.RAW_VALUE_HEADER);
+        return super.createProducerRecord(record, topicPartition, headers, key,
+                value != null ? value : RawValueRetainingDeserializer.rawValue(record));
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.common.retry;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsSpec;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.retrytopic.DestinationTopic;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reports how many records wait in each retry tier, as the gauge {@code retry.queue.depth}
+ * tagged with the tier's delay, e.g. {@code tier=10s}. The depth of a tier is the lag of its
+ * consumer group, {@code <group>-retry-<delay>}, summed over the tier's topics for every retried
+ * source topic; partitions the group has not committed yet count from their earliest offset.
+ * <p>
+ * The offsets are fetched with the admin client when a gauge is read and the last fetch is older
+ * than the refresh interval, so a scrape costs at most four admin requests. A failed fetch keeps
+ * the previous depths; before the first successful one the gauges read {@code NaN}. Retry topics
+ * that do not exist yet count as empty.
+ */
+public class RetryQueueDepthMonitor implements MeterBinder, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryQueueDepthMonitor.class);
+
+    private static final Duration ADMIN_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Admin admin;
+    private final List<Tier> tiers;
+    private final long refreshIntervalNanos;
+
+    private volatile Map<String, Long> depths = Map.of();
+    private long refreshedAt;
+    private boolean refreshed;
+
+    record Tier(String name, String groupId, List<String> topics) {
+    }
+
+    /**
+     * @param groupId     consumer group of the source topic listeners; the retry tiers use it
+     *                    with the tier's suffix
+     * @param topics      source topics the configuration retries
+     * @param retryTopics the configuration the retry topics were created from
+     */
+    public RetryQueueDepthMonitor(Admin admin, String groupId, Collection<String> topics,
+                                  RetryTopicConfiguration retryTopics, Duration refreshInterval) {
+        this.admin = admin;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        Map<String, Tier> bySuffix = new LinkedHashMap<>();
+        for (DestinationTopic.Properties properties : retryTopics.getDestinationTopicProperties()) {
+            if (properties.isRetryTopic()) {
+                String suffix = properties.suffix();
+                bySuffix.putIfAbsent(suffix, new Tier(tierName(properties.delay()), groupId + suffix,
+                        topics.stream().map(topic -> topic + suffix).toList()));
+            }
+        }
+        this.tiers = List.copyOf(bySuffix.values());
+    }
+
+    /** @return the records waiting in the named tier, e.g. {@code "10s"}, or {@code NaN} if unknown */
+    public double depth(String tier) {
+        refreshIfStale();
+        Long depth = depths.get(tier);
+        return depth == null ? Double.NaN : depth;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Tier tier : tiers) {
+            Gauge.builder("retry.queue.depth", this, monitor -> monitor.depth(tier.name()))
+                    .description("Records waiting in a retry tier, summed over its topics")
+                    .tag("tier", tier.name())
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() {
+        admin.close(ADMIN_TIMEOUT);
+    }
+
+    private synchronized void refreshIfStale() {
+        long now = System.nanoTime();
+        if (refreshed && now - refreshedAt < refreshIntervalNanos) {
+            return;
+        }
+        refreshedAt = now;
+        try {
+            depths = fetchDepths();
+            refreshed = true;
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Could not fetch retry queue depths: {}", e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<String, Long> fetchDepths() throws ExecutionException, InterruptedException, TimeoutException {
+        Map<Tier, List<TopicPartition>> partitions = partitionsByTier();
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        Map<TopicPartition, OffsetSpec> earliest = new HashMap<>();
+        Map<String, ListConsumerGroupOffsetsSpec> groups = new HashMap<>();
+        partitions.forEach((tier, tierPartitions) -> {
+            tierPartitions.forEach(partition -> {
+                latest.put(partition, OffsetSpec.latest());
+                earliest.put(partition, OffsetSpec.earliest());
+            });
+            groups.put(tier.groupId(), new ListConsumerGroupOffsetsSpec().topicPartitions(tierPartitions));
+        });
+        Map<String, Long> result = new HashMap<>();
+        tiers.forEach(tier -> result.put(tier.name(), 0L));
+        if (groups.isEmpty()) {
+            return result;
+        }
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = get(admin.listOffsets(latest).all());
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> starts = get(admin.listOffsets(earliest).all());
+        ListConsumerGroupOffsetsResult committed = admin.listConsumerGroupOffsets(groups);
+
+        for (Map.Entry<Tier, List<TopicPartition>> entry : partitions.entrySet()) {
+            Map<TopicPartition, OffsetAndMetadata> offsets =
+                    get(committed.partitionsToOffsetAndMetadata(entry.getKey().groupId()));
+            long depth = 0;
+            for (TopicPartition partition : entry.getValue()) {
+                OffsetAndMetadata position = offsets.get(partition);
+                long from = position != null ? position.offset() : starts.get(partition).offset();
+                depth += Math.max(0, ends.get(partition).offset() - from);
+            }
+            result.put(entry.getKey().name(), depth);
+        }
+        return result;
+    }
+
+    private Map<Tier, List<TopicPartition>> partitionsByTier()
+            throws ExecutionException, InterruptedException, TimeoutException {
+        Map<String, KafkaFuture<TopicDescription>> descriptions = admin.describeTopics(
+                tiers.stream().flatMap(tier -> tier.topics().stream()).toList()).topicNameValues();
+        Map<Tier, List<TopicPartition>> partitions = new LinkedHashMap<>();
+        for (Tier tier : tiers) {
+            List<TopicPartition> tierPartitions = new ArrayList<>();
+            for (String topic : tier.topics()) {
+                try {
+                    get(descriptions.get(topic)).partitions().forEach(info ->
+                            tierPartitions.add(new TopicPartition(topic, info.partition())));
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof UnknownTopicOrPartitionException)) {
+                        throw e;
+                    }
+                }
+            }
+            if (!tierPartitions.isEmpty()) {
+                partitions.put(tier, tierPartitions);
+            }
+        }
+        return partitions;
+    }
+
+    private static <T> T get(KafkaFuture<T> future)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        return future.get(ADMIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /** Delays of whole seconds read as {@code 10s}, anything else as {@code 1500ms}. */
+    static String tierName(long delayMillis) {
+        return delayMillis % 1_000 == 0 ? delayMillis / 1_000 + "s" : delayMillis + "ms";
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.common;
+
+import com.example.common.avro.PaymentAuthorized;
+import com.example.common.avro.PaymentFailed;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventTypeRecordFilterStrategyTest {
+
+    private final EventTypeRecordFilterStrategy<String, Object> filter =
+            new EventTypeRecordFilterStrategy<>(PaymentAuthorized.class);
+
+    private static ConsumerRecord<String, Object> record(String eventType) {
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>("payments.v1", 0, 0L, "order-1", new Object());
+        if (eventType != null) {
+            record.headers().add(EventTypeUtils.HEADER_NAME, eventType.getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    @Test
+    void filter_handledType_shouldKeep() {
+        assertThat(filter.filter(record(PaymentAuthorized.getClassSchema().getFullName()))).isFalse();
+    }
+
+    @Test
+    void filter_otherType_shouldDiscard() {
+        assertThat(filter.filter(record(PaymentFailed.getClassSchema().getFullName()))).isTrue();
+    }
+
+    @Test
+    void filter_withoutHeader_shouldKeep() {
+        assertThat(filter.filter(record(null))).isFalse();
+    }
+
+    @Test
+    void setToHeaders_shouldWriteTheFullSchemaName() {
+        PaymentFailed event = PaymentFailed.newBuilder()
+                .setOrderId("order-1").setReason("Too high").setFailedAt("now").build();
+        ProducerRecord<String, Object> produced = new ProducerRecord<>("payments.v1", "order-1", event);
+
+        EventTypeUtils.setToHeaders(produced, event);
+
+        ConsumerRecord<String, Object> consumed = record(null);
+        produced.headers().forEach(header -> consumed.headers().add(header));
+        assertThat(EventTypeUtils.getFromHeaders(consumed)).isEqualTo("com.example.common.avro.PaymentFailed");
+        assertThat(filter.filter(consumed)).isTrue();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.common.avro;
+
+import com.example.common.codec.SpecificRecordEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderCreatedV2Test {
+
+    private static final UUID ID = UUID.randomUUID();
+    private static final Instant CREATED_AT = Instant.parse("2025-01-01T12:34:56.789Z");
+    private static final List<OrderLine> LINES = List.of(new OrderLine("SKU-001", 2));
+
+    @Test
+    void encode_shouldRoundTripLogicalTypes() throws IOException {
+        OrderCreatedV2 event = new OrderCreatedV2(ID, "cust-1", LINES,
+                new BigDecimal("249.95"), "CREATED", CREATED_AT);
+
+        byte[] bytes = SpecificRecordEncoder.encodeToBytes(event);
+
+        OrderCreatedV2 decoded = new SpecificDatumReader<>(OrderCreatedV2.class)
+                .read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+        assertThat(decoded.getId()).isEqualTo(ID);
+        assertThat(decoded.getTotal()).isEqualTo(new BigDecimal("249.95"));
+        assertThat(decoded.getCreatedAt()).isEqualTo(CREATED_AT);
+    }
+
+    @Test
+    void encode_shouldBeSmallerThanV1() throws IOException {
+        OrderCreated v1 = new OrderCreated(ID.toString(), "cust-1", LINES,
+                "249.95", "CREATED", CREATED_AT.toString());
+        OrderCreatedV2 v2 = new OrderCreatedV2(ID, "cust-1", LINES,
+                new BigDecimal("249.95"), "CREATED", CREATED_AT);
+
+        int v1Size = SpecificRecordEncoder.encodeToBytes(v1).length;
+        int v2Size = SpecificRecordEncoder.encodeToBytes(v2).length;
+
+        assertThat(v2Size).isLessThan(v1Size - 40);
+    }
+}
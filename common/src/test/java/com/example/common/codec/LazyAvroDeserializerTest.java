@@ -0,0 +1,86 @@
+package com.example.common.codec;
+
+import com.example.common.avro.PaymentAuthorized;
+import com.example.common.avro.PaymentFailed;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LazyAvroDeserializerTest {
+
+    private static final PaymentAuthorized AUTHORIZED = PaymentAuthorized.newBuilder()
+            .setOrderId("order-1").setAmount("100").setAuthorizedAt("now").build();
+    private static final PaymentFailed FAILED = PaymentFailed.newBuilder()
+            .setOrderId("order-2").setReason("Too high").setFailedAt("now").build();
+
+    private final AtomicInteger decodes = new AtomicInteger();
+
+    /** Stands in for the Avro decoder: schema 1 is PaymentAuthorized, schema 2 PaymentFailed. */
+    private final Deserializer<Object> decoder = (topic, data) -> {
+        decodes.incrementAndGet();
+        return ByteBuffer.wrap(data, 1, 4).getInt() == 1 ? AUTHORIZED : FAILED;
+    };
+
+    private static byte[] framed(int schemaId) {
+        return ByteBuffer.allocate(8).put((byte) 0).putInt(schemaId).put(new byte[] {2, 4, 6}).array();
+    }
+
+    @Test
+    void deserialize_firstValueOfASchema_shouldLearnTheTypeAndKeepTheDecodedBody() {
+        LazyAvroValue value = new LazyAvroDeserializer(decoder).deserialize("payments.v1", framed(1));
+
+        assertThat(value.schemaId()).isEqualTo(1);
+        assertThat(value.type()).isEqualTo(PaymentAuthorized.class);
+        assertThat(value.decode()).isSameAs(AUTHORIZED);
+        assertThat(decodes).hasValue(1);
+    }
+
+    @Test
+    void deserialize_knownSchema_shouldNotDecodeUntilAsked() {
+        LazyAvroDeserializer deserializer = new LazyAvroDeserializer(decoder);
+        deserializer.deserialize("payments.v1", framed(1));
+        deserializer.deserialize("payments.v1", framed(2));
+
+        LazyAvroValue authorized = deserializer.deserialize("payments.v1", framed(1));
+        LazyAvroValue failed = deserializer.deserialize("payments.v1", framed(2));
+
+        assertThat(LazyAvroValue.typeOf(authorized)).isEqualTo(PaymentAuthorized.class);
+        assertThat(LazyAvroValue.typeOf(failed)).isEqualTo(PaymentFailed.class);
+        assertThat(decodes).hasValue(2);
+    }
+
+    @Test
+    void decode_shouldDecodeOnce() {
+        LazyAvroDeserializer deserializer = new LazyAvroDeserializer(decoder);
+        deserializer.deserialize("payments.v1", framed(2));
+        LazyAvroValue value = deserializer.deserialize("payments.v1", framed(2));
+
+        SpecificRecord first = value.decode();
+
+        assertThat(value.decode(PaymentFailed.class)).isSameAs(first).isSameAs(FAILED);
+        assertThat(decodes).hasValue(2);
+    }
+
+    @Test
+    void deserialize_unknownMagicByte_shouldThrow() {
+        LazyAvroDeserializer deserializer = new LazyAvroDeserializer(decoder);
+
+        assertThatThrownBy(() -> deserializer.deserialize("payments.v1", new byte[] {1, 0, 0, 0, 1}))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> deserializer.deserialize("payments.v1", new byte[] {0, 0}))
+                .isInstanceOf(SerializationException.class);
+        assertThat(decodes).hasValue(0);
+    }
+
+    @Test
+    void deserialize_tombstone_shouldReturnNull() {
+        assertThat(new LazyAvroDeserializer(decoder).deserialize("payments.v1", (byte[]) null)).isNull();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.common.codec;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RawValueRetainingDeserializerTest {
+
+    @Test
+    void deserialize_shouldDecodeAndRetainTheSameArray() {
+        RawValueRetainingDeserializer<String> deserializer = new RawValueRetainingDeserializer<>();
+        deserializer.configure(Map.of(RawValueRetainingDeserializer.DELEGATE_CLASS, StringDeserializer.class), false);
+        RecordHeaders headers = new RecordHeaders();
+        byte[] data = "order-1".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(deserializer.deserialize("orders.v1", headers, data)).isEqualTo("order-1");
+        assertThat(headers.lastHeader(RawValueRetainingDeserializer.RAW_VALUE_HEADER).value()).isSameAs(data);
+    }
+
+    @Test
+    void deserialize_tombstone_shouldNotAddHeader() {
+        RawValueRetainingDeserializer<String> deserializer =
+                new RawValueRetainingDeserializer<>(new StringDeserializer());
+        RecordHeaders headers = new RecordHeaders();
+
+        assertThat(deserializer.deserialize("orders.v1", headers, (byte[]) null)).isNull();
+        assertThat(headers.lastHeader(RawValueRetainingDeserializer.RAW_VALUE_HEADER)).isNull();
+    }
+
+    @Test
+    void deserialize_failure_shouldNotAddHeader() {
+        ErrorHandlingDeserializer<Object> deserializer = new ErrorHandlingDeserializer<>(
+                new RawValueRetainingDeserializer<>((topic, data) -> {
+                    throw new IllegalStateException("Unknown magic byte!");
+                }));
+        RecordHeaders headers = new RecordHeaders();
+
+        assertThat(deserializer.deserialize("orders.v1", headers, new byte[] {1, 2})).isNull();
+        assertThat(headers.lastHeader(RawValueRetainingDeserializer.RAW_VALUE_HEADER)).isNull();
+    }
+
+    @Test
+    void configure_withoutDelegate_shouldThrow() {
+        assertThatThrownBy(() -> new RawValueRetainingDeserializer<>().configure(Map.of(), false))
+                .hasMessageContaining(RawValueRetainingDeserializer.DELEGATE_CLASS);
+    }
+}
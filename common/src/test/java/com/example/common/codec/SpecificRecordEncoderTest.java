@@ -0,0 +1,49 @@
+package com.example.common.codec;
+
+import com.example.common.avro.OrderLine;
+import com.example.common.avro.PaymentAuthorized;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpecificRecordEncoderTest {
+
+    @Test
+    void encodeToBytes_shouldRoundTrip() throws IOException {
+        PaymentAuthorized event = PaymentAuthorized.newBuilder()
+                .setOrderId("order-1").setAmount("99.99").setAuthorizedAt("2025-01-01T00:00:00Z").build();
+
+        byte[] bytes = SpecificRecordEncoder.encodeToBytes(event);
+
+        PaymentAuthorized decoded = new SpecificDatumReader<>(PaymentAuthorized.class)
+                .read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void encode_shouldReturnViewMatchingOwnedCopy() throws IOException {
+        OrderLine line = new OrderLine("SKU-001", 3);
+
+        byte[] copy = SpecificRecordEncoder.encodeToBytes(line);
+        ByteBuffer view = SpecificRecordEncoder.encode(line);
+
+        byte[] viewBytes = new byte[view.remaining()];
+        view.get(viewBytes);
+        assertThat(viewBytes).isEqualTo(copy);
+    }
+
+    @Test
+    void encodeToBytes_shouldNotBeAffectedBySubsequentEncodes() throws IOException {
+        byte[] first = SpecificRecordEncoder.encodeToBytes(new OrderLine("SKU-001", 1));
+        byte[] expected = first.clone();
+
+        SpecificRecordEncoder.encodeToBytes(new OrderLine("SKU-999", 42));
+
+        assertThat(first).isEqualTo(expected);
+    }
+}
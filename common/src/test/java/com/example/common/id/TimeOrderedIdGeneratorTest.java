@@ -0,0 +1,67 @@
+package com.example.common.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void nextUuid_shouldUseVersion7AndRfcVariant() {
+        UUID id = TimeOrderedIdGenerator.nextUuid();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void nextUuid_shouldEmbedCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedIdGenerator.nextUuid();
+        long after = System.currentTimeMillis();
+
+        assertThat(TimeOrderedIdGenerator.timestampMillis(id)).isBetween(before, after + 1);
+    }
+
+    @Test
+    void nextId_shouldBeStrictlyIncreasingWithinThread() {
+        String previous = TimeOrderedIdGenerator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            String next = TimeOrderedIdGenerator.nextId();
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void nextId_shouldBeUniqueAcrossThreads() throws Exception {
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 20_000;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(TimeOrderedIdGenerator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(ids).hasSize(threads * perThread);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.common.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GenerationalIdempotencyStoreTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private GenerationalIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new GenerationalIdempotencyStore(Duration.ofSeconds(4), 8, 4, clock::get);
+    }
+
+    @Test
+    void contains_shouldReturnFalseForUnknownEvent() {
+        assertThat(store.contains("event-1")).isFalse();
+    }
+
+    @Test
+    void mark_shouldMakeContainsReturnTrue() {
+        store.mark("event-1");
+
+        assertThat(store.contains("event-1")).isTrue();
+    }
+
+    @Test
+    void mark_whenCapacityReached_shouldEvictOnlyOldestGeneration() {
+        for (int i = 0; i < 8; i++) {
+            store.mark("event-" + i);
+        }
+
+        assertThat(store.contains("event-0")).isFalse();
+        assertThat(store.contains("event-1")).isFalse();
+        for (int i = 2; i < 8; i++) {
+            assertThat(store.contains("event-" + i)).as("event-" + i).isTrue();
+        }
+        assertThat(store.evictions()).isEqualTo(2);
+        assertThat(store.size()).isEqualTo(6);
+    }
+
+    @Test
+    void mark_afterTtl_shouldEvictExpiredGenerations() {
+        GenerationalIdempotencyStore timed =
+                new GenerationalIdempotencyStore(Duration.ofSeconds(4), 4_000, 4, clock::get);
+        timed.mark("event-1");
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_100));
+        markMany(timed, "early-", 64);
+        assertThat(timed.contains("event-1")).isTrue();
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(4));
+        markMany(timed, "late-", 64);
+        assertThat(timed.contains("event-1")).isFalse();
+        assertThat(timed.contains("late-0")).isTrue();
+        // event-1 and the early IDs marked before the first rotation shared the expired generation.
+        assertThat(timed.evictions()).isEqualTo(64);
+    }
+
+    @Test
+    void mark_sameEventTwice_shouldCountOnce() {
+        store.mark("event-1");
+        store.mark("event-1");
+
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void bindTo_shouldExposeSizeLookupsAndEvictions() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        store.bindTo(registry);
+
+        store.mark("event-1");
+        store.contains("event-1");
+        store.contains("event-2");
+
+        assertThat(registry.get("idempotency.store.size").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("idempotency.store.lookups").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("idempotency.store.lookups").tag("result", "miss").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("idempotency.store.evictions").functionCounter().count()).isZero();
+    }
+
+    @Test
+    void mark_fromManyThreads_shouldRememberEveryEvent() {
+        GenerationalIdempotencyStore shared = new GenerationalIdempotencyStore(Duration.ofMinutes(10), 400_000);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 8).forEach(t -> executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    shared.mark(t + "-" + i);
+                }
+            }));
+        }
+
+        assertThat(shared.size()).isEqualTo(80_000);
+        assertThat(shared.contains("7-9999")).isTrue();
+        assertThat(shared.evictions()).isZero();
+    }
+
+    @Test
+    void constructor_withTooFewEntries_shouldReject() {
+        assertThatThrownBy(() -> new GenerationalIdempotencyStore(Duration.ofSeconds(1), 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void markMany(GenerationalIdempotencyStore target, String prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            target.mark(prefix + i);
+        }
+    }
+}
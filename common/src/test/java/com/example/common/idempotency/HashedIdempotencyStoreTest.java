@@ -0,0 +1,141 @@
+package com.example.common.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HashedIdempotencyStoreTest {
+
+    @Test
+    void contains_shouldReturnFalseForUnknownEvent() {
+        HashedIdempotencyStore store = new HashedIdempotencyStore(1_000, 1e-9);
+
+        assertThat(store.contains("event-1")).isFalse();
+    }
+
+    @Test
+    void mark_shouldMakeContainsReturnTrue() {
+        HashedIdempotencyStore store = new HashedIdempotencyStore(1_000, 1e-9);
+
+        store.mark("order-1-payment");
+
+        assertThat(store.contains("order-1-payment")).isTrue();
+        assertThat(store.contains("order-1-inventory")).isFalse();
+    }
+
+    @Test
+    void mark_sameEventTwice_shouldCountOnce() {
+        HashedIdempotencyStore store = new HashedIdempotencyStore(1_000, 1e-9);
+
+        store.mark("event-1");
+        store.mark("event-1");
+
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void mark_beyondCapacity_shouldEvictOldestHalfOnly() {
+        HashedIdempotencyStore store = new HashedIdempotencyStore(200, 1e-9, 1);
+
+        for (int i = 0; i < 250; i++) {
+            store.mark("event-" + i);
+        }
+
+        // Tables hold 100 each: the first 100 were recycled, the next 150 are still known.
+        assertThat(store.evictions()).isEqualTo(100);
+        assertThat(IntStream.range(0, 100).filter(i -> store.contains("event-" + i)).count()).isZero();
+        assertThat(IntStream.range(100, 250).allMatch(i -> store.contains("event-" + i))).isTrue();
+    }
+
+    @Test
+    void mark_reMarkedEvent_shouldSurviveRecycle() {
+        HashedIdempotencyStore store = new HashedIdempotencyStore(200, 1e-9, 1);
+        for (int i = 0; i < 100; i++) {
+            store.mark("event-" + i);
+        }
+
+        store.mark("event-0");
+        for (int i = 100; i < 199; i++) {
+            store.mark("event-" + i);
+        }
+
+        assertThat(store.contains("event-0")).isTrue();
+        assertThat(store.contains("event-1")).isFalse();
+    }
+
+    @Test
+    void fingerprintBits_shouldWidenWhenProbabilityNeedsIt() {
+        assertThat(HashedIdempotencyStore.fingerprintBits(10_000_000, 1e-9)).isEqualTo(64);
+        assertThat(HashedIdempotencyStore.fingerprintBits(10_000_000, 1e-15)).isEqualTo(128);
+        assertThat(new HashedIdempotencyStore(1_000_000, 1e-15).isWide()).isTrue();
+        assertThatThrownBy(() -> HashedIdempotencyStore.fingerprintBits(1_000, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void contains_wideFingerprints_shouldBehaveLikeNarrow() {
+        HashedIdempotencyStore store = new HashedIdempotencyStore(10_000, 1e-20);
+        for (int i = 0; i < 1_000; i++) {
+            store.mark("event-" + i);
+        }
+
+        assertThat(store.isWide()).isTrue();
+        assertThat(IntStream.range(0, 1_000).allMatch(i -> store.contains("event-" + i))).isTrue();
+        assertThat(IntStream.range(1_000, 2_000).noneMatch(i -> store.contains("event-" + i))).isTrue();
+    }
+
+    @Test
+    void contains_withManyUnseenIds_shouldReportNoFalsePositives() {
+        HashedIdempotencyStore store = new HashedIdempotencyStore(200_000, 1e-9);
+        for (int i = 0; i < 100_000; i++) {
+            store.mark(UUID.randomUUID().toString());
+        }
+
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> store.contains(UUID.randomUUID().toString()))
+                .count();
+
+        assertThat(falsePositives).isZero();
+    }
+
+    @Test
+    void mark_fromManyThreads_shouldRememberEveryEvent() {
+        HashedIdempotencyStore store = new HashedIdempotencyStore(400_000, 1e-9);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 8).forEach(t -> executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    store.mark(t + "-" + i);
+                }
+            }));
+        }
+
+        assertThat(store.size()).isEqualTo(80_000);
+        assertThat(IntStream.range(0, 8).allMatch(t -> store.contains(t + "-9999"))).isTrue();
+    }
+
+    @Test
+    void bindTo_shouldExposeSizeMemoryAndLookups() {
+        HashedIdempotencyStore store = new HashedIdempotencyStore(1_000, 1e-9);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        store.bindTo(registry);
+
+        store.mark("event-1");
+        store.contains("event-1");
+        store.contains("event-2");
+
+        assertThat(registry.get("idempotency.store.size").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("idempotency.store.memory").gauge().value()).isEqualTo(store.tableBytes());
+        assertThat(registry.get("idempotency.store.lookups").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("idempotency.store.lookups").tag("result", "miss").functionCounter().count())
+                .isEqualTo(1);
+    }
+}
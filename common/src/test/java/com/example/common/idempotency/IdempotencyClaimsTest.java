@@ -0,0 +1,68 @@
+package com.example.common.idempotency;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyClaimsTest {
+
+    private static final ConsumerRecord<String, String> V1 = new ConsumerRecord<>("orders.v1", 0, 0L, "o-1", "v1");
+    private static final ConsumerRecord<String, String> V2 = new ConsumerRecord<>("orders.v2", 0, 0L, "o-1", "v2");
+
+    private final GenerationalIdempotencyStore store = new GenerationalIdempotencyStore(Duration.ofMinutes(1), 100);
+    private final IdempotencyClaims claims = new IdempotencyClaims(store);
+
+    @Test
+    void tryClaim_whileClaimedElsewhere_shouldReturnFalse() {
+        assertThat(claims.tryClaim(V1, "order-1")).isTrue();
+
+        assertThat(claims.tryClaim(V2, "order-1")).isFalse();
+        assertThat(store.contains("order-1")).isFalse();
+    }
+
+    @Test
+    void tryClaim_afterComplete_shouldReturnFalse() {
+        claims.tryClaim(V1, "order-1");
+        claims.complete(V1, "order-1");
+
+        assertThat(store.contains("order-1")).isTrue();
+        assertThat(claims.tryClaim(V2, "order-1")).isFalse();
+    }
+
+    @Test
+    void tryClaim_afterRelease_shouldReturnTrue() {
+        claims.tryClaim(V1, "order-1");
+        claims.release("order-1");
+
+        assertThat(claims.tryClaim(V2, "order-1")).isTrue();
+    }
+
+    @Test
+    void runOnce_copyArrivingDuringProcessing_shouldBeSkipped() {
+        AtomicInteger runs = new AtomicInteger();
+
+        boolean processed = claims.runOnce(V1, "order-1", () -> {
+            runs.incrementAndGet();
+            assertThat(claims.runOnce(V2, "order-1", runs::incrementAndGet)).isFalse();
+        });
+
+        assertThat(processed).isTrue();
+        assertThat(runs).hasValue(1);
+        assertThat(store.contains("order-1")).isTrue();
+    }
+
+    @Test
+    void runOnce_processingFails_shouldReleaseWithoutMarking() {
+        assertThatThrownBy(() -> claims.runOnce(V1, "order-1", () -> {
+            throw new IllegalStateException("down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(store.contains("order-1")).isFalse();
+        assertThat(claims.runOnce(V1, "order-1", () -> { })).isTrue();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.common.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyConfigurationTest {
+
+    private final IdempotencyConfiguration configuration = new IdempotencyConfiguration();
+
+    @Test
+    void offsetWatermarkIdempotencyStore_withKeyOrderedProcessing_shouldRefuseToStart() {
+        assertThatThrownBy(() -> configuration.offsetWatermarkIdempotencyStore(1000, true))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("key-ordered.enabled");
+    }
+
+    @Test
+    void offsetWatermarkIdempotencyStore_withoutKeyOrderedProcessing_shouldBeCreated() {
+        assertThat(configuration.offsetWatermarkIdempotencyStore(1000, false)).isNotNull();
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.common.idempotency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JournaledIdempotencyStoreTest {
+
+    private static final Duration TTL = Duration.ofSeconds(4);
+    private static final int RECORD_BYTES = Integer.BYTES + "event-0".length();
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<JournaledIdempotencyStore> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (JournaledIdempotencyStore store : opened) {
+            store.close();
+        }
+    }
+
+    @Test
+    void mark_shouldMakeContainsReturnTrue() {
+        JournaledIdempotencyStore store = open(4096);
+
+        store.mark("event-1");
+
+        assertThat(store.contains("event-1")).isTrue();
+        assertThat(store.contains("event-2")).isFalse();
+        assertThat(store.hits()).isEqualTo(1);
+        assertThat(store.misses()).isEqualTo(1);
+    }
+
+    @Test
+    void open_afterClose_shouldRecoverMarkedEvents() throws IOException {
+        JournaledIdempotencyStore store = open(4096);
+        store.mark("event-1");
+        store.mark("event-2");
+        close(store);
+
+        JournaledIdempotencyStore reopened = open(4096);
+
+        assertThat(reopened.contains("event-1")).isTrue();
+        assertThat(reopened.contains("event-2")).isTrue();
+        assertThat(reopened.recoveredEntries()).isEqualTo(2);
+        assertThat(reopened.size()).isEqualTo(2);
+    }
+
+    @Test
+    void mark_whenSegmentFull_shouldRollToNewSegment() throws IOException {
+        JournaledIdempotencyStore store = open(JournaledIdempotencyStore.HEADER_BYTES + 3 * RECORD_BYTES);
+
+        for (int i = 0; i < 7; i++) {
+            store.mark("event-" + i);
+        }
+
+        assertThat(store.segmentCount()).isEqualTo(3);
+        assertThat(segmentFiles()).hasSize(3);
+        for (int i = 0; i < 7; i++) {
+            assertThat(store.contains("event-" + i)).as("event-" + i).isTrue();
+        }
+        assertThat(store.evictions()).isZero();
+    }
+
+    @Test
+    void mark_afterTtl_shouldDeleteSegmentsOlderThanTtl() throws IOException {
+        JournaledIdempotencyStore store = open(4096);
+        markAll(store, "a");
+        clock.set(1_100);
+        markAll(store, "b");
+
+        clock.set(5_200);
+        store.mark("c-0");
+
+        assertThat(store.contains("a-0")).isFalse();
+        assertThat(store.contains("a-63")).isFalse();
+        assertThat(store.contains("b-0")).isTrue();
+        assertThat(store.contains("c-0")).isTrue();
+        assertThat(store.evictions()).isEqualTo(64);
+        assertThat(segmentFiles()).hasSize(2);
+    }
+
+    @Test
+    void open_afterTtl_shouldDropSegmentsThatExpiredWhileClosed() throws IOException {
+        JournaledIdempotencyStore store = open(4096);
+        markAll(store, "a");
+        clock.set(1_100);
+        store.mark("b-0");
+        close(store);
+
+        clock.set(5_200);
+        JournaledIdempotencyStore reopened = open(4096);
+
+        assertThat(reopened.contains("a-0")).isFalse();
+        assertThat(reopened.contains("b-0")).isTrue();
+        assertThat(reopened.recoveredEntries()).isEqualTo(1);
+        assertThat(segmentFiles()).hasSize(1);
+    }
+
+    @Test
+    void open_withRecordCutShortByCrash_shouldIgnoreItAndAppendOverIt() throws IOException {
+        JournaledIdempotencyStore store = open(4096);
+        store.mark("event-1");
+        store.mark("event-2");
+        close(store);
+        // Payload written but not its length, as if the process died between the two writes.
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap("event-3".getBytes(StandardCharsets.UTF_8)),
+                    JournaledIdempotencyStore.HEADER_BYTES + 2L * RECORD_BYTES + Integer.BYTES);
+        }
+
+        JournaledIdempotencyStore reopened = open(4096);
+        assertThat(reopened.contains("event-3")).isFalse();
+        assertThat(reopened.size()).isEqualTo(2);
+
+        reopened.mark("event-4");
+        close(reopened);
+        JournaledIdempotencyStore again = open(4096);
+        assertThat(again.contains("event-1")).isTrue();
+        assertThat(again.contains("event-4")).isTrue();
+        assertThat(again.size()).isEqualTo(3);
+    }
+
+    @Test
+    void open_whenDirectoryInUse_shouldThrow() {
+        open(4096);
+
+        assertThatThrownBy(() -> open(4096))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("in use");
+    }
+
+    @Test
+    void mark_withIdLargerThanSegment_shouldThrow() {
+        JournaledIdempotencyStore store = open(JournaledIdempotencyStore.HEADER_BYTES + RECORD_BYTES);
+
+        assertThatThrownBy(() -> store.mark("event-too-long"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private JournaledIdempotencyStore open(int segmentBytes) {
+        JournaledIdempotencyStore store = new JournaledIdempotencyStore(directory, TTL, segmentBytes, clock::get);
+        opened.add(store);
+        return store;
+    }
+
+    private void close(JournaledIdempotencyStore store) throws IOException {
+        store.close();
+        opened.remove(store);
+    }
+
+    /** Fills the current segment up to the next age check. */
+    private static void markAll(JournaledIdempotencyStore store, String prefix) {
+        for (int i = 0; i < 64; i++) {
+            store.mark(prefix + "-" + i);
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(JournaledIdempotencyStore.SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.common.idempotency;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffsetWatermarkIdempotencyStoreTest {
+
+    private static final TopicPartition ORDERS_0 = new TopicPartition("orders.v1", 0);
+
+    private final OffsetWatermarkIdempotencyStore store = new OffsetWatermarkIdempotencyStore(3);
+
+    @Test
+    void contains_shouldReturnFalseForFirstRecordOfPartition() {
+        assertThat(store.contains(record(0, 100), "order-1")).isFalse();
+        assertThat(store.watermark(ORDERS_0)).isEqualTo(100);
+    }
+
+    @Test
+    void mark_inOrder_shouldAdvanceWatermarkWithoutPendingOffsets() {
+        for (long offset = 100; offset < 105; offset++) {
+            store.contains(record(0, offset), "order-" + offset);
+            store.mark(record(0, offset), "order-" + offset);
+        }
+
+        assertThat(store.watermark(ORDERS_0)).isEqualTo(105);
+        assertThat(store.pending()).isZero();
+        assertThat(store.contains(record(0, 102), "order-102")).isTrue();
+        assertThat(store.contains(record(0, 105), "order-105")).isFalse();
+    }
+
+    @Test
+    void mark_outOfOrder_shouldHoldCompletionsUntilGapCloses() {
+        store.contains(record(0, 100), "order-100");
+        store.mark(record(0, 101), "order-101");
+        store.mark(record(0, 102), "order-102");
+
+        assertThat(store.watermark(ORDERS_0)).isEqualTo(100);
+        assertThat(store.contains(record(0, 101), "order-101")).isTrue();
+        assertThat(store.contains(record(0, 100), "order-100")).isFalse();
+        assertThat(store.pending()).isEqualTo(2);
+
+        store.mark(record(0, 100), "order-100");
+
+        assertThat(store.watermark(ORDERS_0)).isEqualTo(103);
+        assertThat(store.pending()).isZero();
+    }
+
+    @Test
+    void mark_whenTooManyPending_shouldSkipUnmarkedOffset() {
+        store.contains(record(0, 100), "order-100");
+        for (long offset = 101; offset <= 104; offset++) {
+            store.mark(record(0, offset), "order-" + offset);
+        }
+
+        assertThat(store.watermark(ORDERS_0)).isEqualTo(105);
+        assertThat(store.skipped()).isEqualTo(1);
+        assertThat(store.pending()).isZero();
+    }
+
+    @Test
+    void contains_shouldTrackPartitionsIndependently() {
+        store.contains(record(0, 100), "order-100");
+        store.mark(record(0, 100), "order-100");
+
+        assertThat(store.contains(record(1, 50), "order-50")).isFalse();
+        assertThat(store.contains(record(0, 100), "order-100")).isTrue();
+        assertThat(store.hits()).isEqualTo(1);
+        assertThat(store.misses()).isEqualTo(2);
+    }
+
+    @Test
+    void contains_sameEventIdAtAnotherOffset_shouldNotBeADuplicate() {
+        store.mark(record(0, 0), "order-1");
+
+        assertThat(store.contains(record(0, 0), "order-1")).isTrue();
+        assertThat(store.contains(record(0, 1), "order-1")).isFalse();
+    }
+
+    private static ConsumerRecord<String, String> record(int partition, long offset) {
+        return new ConsumerRecord<>("orders.v1", partition, offset, "key", "value");
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.common.idempotency;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionedIdempotencyStoreTest {
+
+    private static final String DEDUP_TOPIC = "payment-service.dedup";
+    private static final Duration TTL = Duration.ofMinutes(10);
+    private static final long NOW = 1_000_000_000L;
+
+    @Mock
+    private ProducerFactory<String, byte[]> producerFactory;
+    @Mock
+    private ConsumerFactory<String, byte[]> consumerFactory;
+
+    private final MockProducer<String, byte[]> producer =
+            new MockProducer<>(false, null, new StringSerializer(), new ByteArraySerializer());
+    /** Contents of the dedup topic, by partition. */
+    private final Map<Integer, List<ConsumerRecord<String, byte[]>>> dedupLog = new HashMap<>();
+
+    private PartitionedIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        when(producerFactory.createProducer()).thenReturn(producer);
+        store = new PartitionedIdempotencyStore(DEDUP_TOPIC, TTL, 1_000, producerFactory, consumerFactory, () -> NOW);
+    }
+
+    @Test
+    void onPartitionsAssigned_shouldRestoreShardFromDedupTopic() {
+        stubDedupConsumer();
+        dedupEntry(1, "order-1", NOW - 1_000);
+
+        store.onPartitionsAssigned(null, List.of(new TopicPartition("orders.v1", 1)));
+
+        assertThat(store.partitions()).containsExactly(1);
+        assertThat(store.contains(record("orders.v1", 1), "order-1")).isTrue();
+        assertThat(store.contains(record("orders.v1", 1), "order-2")).isFalse();
+        assertThat(store.restored()).isEqualTo(1);
+    }
+
+    @Test
+    void onPartitionsAssigned_shouldSkipEntriesOlderThanTtl() {
+        stubDedupConsumer();
+        dedupEntry(0, "order-old", NOW - TTL.toMillis() - 1);
+        dedupEntry(0, "order-new", NOW - TTL.toMillis() + 1);
+
+        store.onPartitionsAssigned(null, List.of(new TopicPartition("orders.v1", 0)));
+
+        assertThat(store.contains(record("orders.v1", 0), "order-old")).isFalse();
+        assertThat(store.contains(record("orders.v1", 0), "order-new")).isTrue();
+        assertThat(store.restored()).isEqualTo(1);
+    }
+
+    @Test
+    void mark_shouldWriteToDedupPartitionOfConsumedRecord() {
+        stubDedupConsumer();
+        ConsumerRecord<String, String> consumed = record("orders.v1", 2);
+
+        store.mark(consumed, "order-2");
+
+        assertThat(store.contains(consumed, "order-2")).isTrue();
+        assertThat(producer.history()).hasSize(1);
+        ProducerRecord<String, byte[]> written = producer.history().get(0);
+        assertThat(written.topic()).isEqualTo(DEDUP_TOPIC);
+        assertThat(written.partition()).isEqualTo(2);
+        assertThat(written.key()).isEqualTo("order-2");
+    }
+
+    @Test
+    void mark_shouldShareShardAcrossTopicsWithSamePartitionNumber() {
+        stubDedupConsumer();
+        store.mark(record("orders.v1", 0), "order-1");
+
+        assertThat(store.contains(record("orders.v2", 0), "order-1")).isTrue();
+        assertThat(store.contains(record("orders.v2", 1), "order-1")).isFalse();
+    }
+
+    @Test
+    void onPartitionsRevoked_shouldDropShardOnceNoTopicKeepsPartitionNumber() {
+        stubDedupConsumer();
+        store.onPartitionsAssigned(null, List.of(new TopicPartition("orders.v1", 0),
+                new TopicPartition("orders.v2", 0), new TopicPartition("orders.v1", 1)));
+
+        store.onPartitionsRevokedBeforeCommit(null, List.of(new TopicPartition("orders.v1", 0)));
+        assertThat(store.partitions()).containsExactlyInAnyOrder(0, 1);
+
+        store.onPartitionsRevokedBeforeCommit(null, List.of(new TopicPartition("orders.v2", 0)));
+        assertThat(store.partitions()).containsExactly(1);
+    }
+
+    @Test
+    void onPartitionsRevoked_shouldFlushPendingMarks() {
+        stubDedupConsumer();
+        store.mark(record("orders.v1", 0), "order-1");
+        assertThat(producer.flushed()).isFalse();
+
+        store.onPartitionsRevokedBeforeCommit(null, List.of(new TopicPartition("orders.v1", 0)));
+
+        assertThat(producer.flushed()).isTrue();
+    }
+
+    @Test
+    void onPartitionsAssigned_shouldNotWaitForShardsToLoad() throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        when(consumerFactory.createConsumer()).thenAnswer(invocation -> {
+            loading.await();
+            return emptyDedupConsumer();
+        });
+
+        store.onPartitionsAssigned(null, List.of(new TopicPartition("orders.v1", 0),
+                new TopicPartition("orders.v1", 1)));
+
+        assertThat(store.partitions()).containsExactlyInAnyOrder(0, 1);
+        loading.countDown();
+        assertThat(store.contains(record("orders.v1", 0), "order-1")).isFalse();
+    }
+
+    @Test
+    void contains_dedupTopicUnreadable_shouldStartWithAnEmptyShard() {
+        when(consumerFactory.createConsumer()).thenThrow(new IllegalStateException("broker unavailable"));
+
+        store.onPartitionsAssigned(null, List.of(new TopicPartition("orders.v1", 0)));
+
+        assertThat(store.contains(record("orders.v1", 0), "order-1")).isFalse();
+        store.mark(record("orders.v1", 0), "order-1");
+        assertThat(store.contains(record("orders.v1", 0), "order-1")).isTrue();
+    }
+
+    private void dedupEntry(int partition, String eventId, long timestamp) {
+        List<ConsumerRecord<String, byte[]>> entries = dedupLog.computeIfAbsent(partition, p -> new ArrayList<>());
+        entries.add(new ConsumerRecord<>(DEDUP_TOPIC, partition, entries.size(), timestamp,
+                TimestampType.CREATE_TIME, 0, 0, eventId, new byte[0], new RecordHeaders(),
+                Optional.empty()));
+    }
+
+    private MockConsumer<String, byte[]> emptyDedupConsumer() {
+        MockConsumer<String, byte[]> consumer = new MockConsumer<>("earliest");
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (int partition = 0; partition < 3; partition++) {
+            offsets.put(new TopicPartition(DEDUP_TOPIC, partition), 0L);
+        }
+        consumer.updateBeginningOffsets(offsets);
+        consumer.updateEndOffsets(offsets);
+        return consumer;
+    }
+
+    /** Every load gets a fresh consumer that serves whatever {@link #dedupLog} holds for its partition. */
+    private void stubDedupConsumer() {
+        when(consumerFactory.createConsumer()).thenAnswer(invocation -> {
+            MockConsumer<String, byte[]> consumer = new MockConsumer<>("earliest");
+            Map<TopicPartition, Long> beginning = new HashMap<>();
+            Map<TopicPartition, Long> end = new HashMap<>();
+            for (int partition = 0; partition < 3; partition++) {
+                TopicPartition topicPartition = new TopicPartition(DEDUP_TOPIC, partition);
+                beginning.put(topicPartition, 0L);
+                end.put(topicPartition, (long) dedupLog.getOrDefault(partition, List.of()).size());
+            }
+            consumer.updateBeginningOffsets(beginning);
+            consumer.updateEndOffsets(end);
+            consumer.schedulePollTask(() -> consumer.assignment().forEach(topicPartition ->
+                    dedupLog.getOrDefault(topicPartition.partition(), List.of()).forEach(consumer::addRecord)));
+            return consumer;
+        });
+    }
+
+    private static ConsumerRecord<String, String> record(String topic, int partition) {
+        return new ConsumerRecord<>(topic, partition, 0, "key", "value");
+    }
+}
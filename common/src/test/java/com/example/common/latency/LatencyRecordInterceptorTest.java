@@ -0,0 +1,129 @@
+package com.example.common.latency;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyRecordInterceptorTest {
+
+    private SimpleMeterRegistry registry;
+    private LatencyRecordInterceptor<String, Object> interceptor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        interceptor = new LatencyRecordInterceptor<>(registry, "status-service");
+    }
+
+    @AfterEach
+    void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    void intercept_withStampedRecord_shouldRecordQueueAndOriginLatency() {
+        long now = System.currentTimeMillis();
+        ConsumerRecord<String, Object> record = consumerRecord("payments.v1", now - 500, now - 200, now - 200);
+
+        interceptor.intercept(record, null);
+
+        Timer queue = registry.get("pipeline.hop.queue")
+                .tags("topic", "payments.v1", "hop", "payment-service", "consumer", "status-service").timer();
+        Timer origin = registry.get("pipeline.origin.latency").tag("topic", "payments.v1").timer();
+        assertThat(queue.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(200);
+        assertThat(origin.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(500);
+        assertThat(registry.get("pipeline.record.age").tags("topic", "payments.v1", "partition", "1").gauge().value())
+                .isGreaterThanOrEqualTo(200);
+    }
+
+    @Test
+    void intercept_shouldCarryOriginToRecordsPublishedWhileProcessing() {
+        long origin = System.currentTimeMillis() - 1_000;
+        ConsumerRecord<String, Object> record = consumerRecord("payments.v1", origin, origin, origin);
+
+        interceptor.intercept(record, null);
+        ProducerRecord<String, String> published = new ProducerRecord<>("order-status.v1", "order-1", "event");
+        LatencyHeaders.stamp(published, "status-service");
+        interceptor.afterRecord(record, null);
+
+        ConsumerRecord<String, Object> downstream = new ConsumerRecord<>("order-status.v1", 0, 0L,
+                System.currentTimeMillis(), TimestampType.CREATE_TIME, 0, 0, "order-1", null,
+                published.headers(), Optional.empty());
+        assertThat(LatencyHeaders.getOrigin(downstream)).isEqualTo(origin);
+        assertThat(LatencyHeaders.getHop(downstream)).isEqualTo("status-service");
+        assertThat(MDC.get(LatencyHeaders.ORIGIN_MDC_KEY)).isNull();
+    }
+
+    @Test
+    void successAndFailure_shouldRecordProcessingTimeByOutcome() {
+        long now = System.currentTimeMillis();
+        ConsumerRecord<String, Object> record = consumerRecord("payments.v1", now, now, now);
+
+        interceptor.intercept(record, null);
+        interceptor.success(record, null);
+        interceptor.afterRecord(record, null);
+        interceptor.intercept(record, null);
+        interceptor.failure(record, new IllegalStateException("boom"), null);
+        interceptor.afterRecord(record, null);
+
+        assertThat(registry.get("pipeline.hop.processing").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("pipeline.hop.processing").tag("outcome", "failure").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void interceptBatch_shouldRecordEveryRecordAndProcessingOncePerTopic() {
+        long now = System.currentTimeMillis();
+        ConsumerRecords<String, Object> records = new ConsumerRecords<>(Map.of(
+                new TopicPartition("payments.v1", 1), List.of(
+                        consumerRecord("payments.v1", now - 500, now - 200, now - 200),
+                        consumerRecord("payments.v1", now - 500, now - 200, now - 200))));
+
+        interceptor.intercept(records, null);
+        interceptor.success(records, null);
+
+        assertThat(registry.get("pipeline.hop.queue").tag("topic", "payments.v1").timer().count()).isEqualTo(2);
+        assertThat(registry.get("pipeline.origin.latency").tag("topic", "payments.v1").timer().count()).isEqualTo(2);
+        assertThat(registry.get("pipeline.hop.processing").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(MDC.get(LatencyHeaders.ORIGIN_MDC_KEY)).isNull();
+    }
+
+    @Test
+    void intercept_withoutLatencyHeaders_shouldFallBackToRecordTimestamp() {
+        long timestamp = System.currentTimeMillis() - 100;
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>("orders.v1", 0, 0L, timestamp,
+                TimestampType.CREATE_TIME, 0, 0, "order-1", null, new RecordHeaders(), Optional.empty());
+
+        interceptor.intercept(record, null);
+
+        assertThat(registry.get("pipeline.hop.queue").tag("hop", "unknown").timer()
+                .totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(100);
+        assertThat(registry.find("pipeline.origin.latency").timer()).isNull();
+    }
+
+    private static ConsumerRecord<String, Object> consumerRecord(String topic, long origin, long sent, long timestamp) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(LatencyHeaders.ORIGIN_TIMESTAMP_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(origin).array());
+        headers.add(LatencyHeaders.HOP_TIMESTAMP_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(sent).array());
+        headers.add(LatencyHeaders.HOP_HEADER, "payment-service".getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>(topic, 1, 0L, timestamp, TimestampType.CREATE_TIME, 0, 0, "order-1", null,
+                headers, Optional.empty());
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.common.ordering;
+
+import com.example.common.idempotency.GenerationalIdempotencyStore;
+import com.example.common.idempotency.IdempotencyStore;
+import com.example.common.idempotency.OffsetWatermarkIdempotencyStore;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeyOrderedProcessorTest {
+
+    private static final TopicPartition ORDERS_0 = new TopicPartition("orders.v1", 0);
+
+    private final List<Long> acknowledged = new CopyOnWriteArrayList<>();
+    private final List<ConsumerRecord<?, ?>> recovered = new CopyOnWriteArrayList<>();
+    private final KeyOrderedProcessor processor = new KeyOrderedProcessor(Executors.newCachedThreadPool(), 10,
+            new FixedBackOff(0, 2), (record, e) -> recovered.add(record));
+
+    @AfterEach
+    void tearDown() {
+        processor.close();
+    }
+
+    @Test
+    void submit_sameKey_shouldRunInOffsetOrder() {
+        List<Long> executed = new CopyOnWriteArrayList<>();
+        for (long offset = 0; offset < 20; offset++) {
+            long current = offset;
+            processor.submit(record(current, "order-1"), ack(current), () -> {
+                sleep(current % 3);
+                executed.add(current);
+            });
+        }
+
+        waitUntil(() -> executed.size() == 20);
+        assertThat(executed).isSorted();
+    }
+
+    @Test
+    void submit_differentKeys_shouldRunInParallel() throws InterruptedException {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        for (long offset = 0; offset < 2; offset++) {
+            processor.submit(record(offset, "order-" + offset), ack(offset), () -> {
+                bothRunning.countDown();
+                await(bothRunning);
+            });
+        }
+
+        assertThat(bothRunning.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void completed_outOfOrder_shouldAcknowledgeOnlyUpToLowestInFlight() {
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        processor.submit(record(0, "order-0"), ack(0), () -> await(releaseFirst));
+        processor.submit(record(1, "order-1"), ack(1), () -> { });
+        processor.submit(record(2, "order-2"), ack(2), () -> { });
+
+        waitUntil(() -> processor.inFlight() == 1);
+        assertThat(acknowledged).isEmpty();
+
+        releaseFirst.countDown();
+
+        waitUntil(() -> !acknowledged.isEmpty());
+        assertThat(acknowledged).containsExactly(2L);
+    }
+
+    @Test
+    void submit_failingTask_shouldRetryThenRecoverAndAcknowledge() {
+        AtomicInteger attempts = new AtomicInteger();
+        processor.submit(record(0, "order-1"), ack(0), () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("boom");
+        });
+
+        waitUntil(() -> acknowledged.contains(0L));
+        assertThat(attempts).hasValue(3);
+        assertThat(recovered).hasSize(1);
+        assertThat(processor.retries()).isEqualTo(2);
+    }
+
+    @Test
+    void submit_atMaxInFlight_shouldBlockUntilRecordCompletes() throws Exception {
+        KeyOrderedProcessor bounded = new KeyOrderedProcessor(Executors.newCachedThreadPool(), 1,
+                new FixedBackOff(0, 0), (record, e) -> { });
+        CountDownLatch release = new CountDownLatch(1);
+        bounded.submit(record(0, "order-0"), ack(0), () -> await(release));
+
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() ->
+                bounded.submit(record(1, "order-1"), ack(1), () -> { }));
+
+        Thread.sleep(100);
+        assertThat(second).isNotDone();
+        release.countDown();
+        second.get(5, TimeUnit.SECONDS);
+        bounded.close();
+    }
+
+    @Test
+    void onPartitionsRevoked_shouldWaitForInFlightRecordsOfPartition() {
+        processor.submit(record(0, "order-0"), ack(0), () -> sleep(100));
+
+        processor.onPartitionsRevokedBeforeCommit(null, List.of(ORDERS_0));
+
+        assertThat(acknowledged).containsExactly(0L);
+    }
+
+    @Test
+    void onPartitionsLost_shouldNotAcknowledgeLateCompletions() {
+        CountDownLatch release = new CountDownLatch(1);
+        processor.submit(record(0, "order-0"), ack(0), () -> await(release));
+
+        processor.onPartitionsLost(null, List.of(ORDERS_0));
+        release.countDown();
+
+        waitUntil(() -> processor.inFlight() == 0);
+        assertThat(acknowledged).isEmpty();
+    }
+
+    @Test
+    void submit_taskThrowingError_shouldStillRunLaterTasksForTheKeyWithoutCommittingPastIt() {
+        List<Long> executed = new CopyOnWriteArrayList<>();
+        processor.submit(record(0, "order-1"), ack(0), () -> {
+            throw new LinkageError("boom");
+        });
+        processor.submit(record(1, "order-1"), ack(1), () -> executed.add(1L));
+
+        waitUntil(() -> executed.contains(1L) && processor.inFlight() == 0);
+        assertThat(acknowledged).isEmpty();
+    }
+
+    @Test
+    void submit_queuedWhenExecutorShutsDown_shouldReleaseItsPermitAndNotCommitPastIt() {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        KeyOrderedProcessor closing = new KeyOrderedProcessor(executor, 10, new FixedBackOff(0, 0), (record, e) -> { });
+        CountDownLatch release = new CountDownLatch(1);
+        closing.submit(record(0, "order-1"), ack(0), () -> await(release));
+        closing.submit(record(1, "order-1"), ack(1), () -> { });
+        closing.submit(record(2, "order-2"), ack(2), () -> await(release));
+
+        executor.shutdown();
+        release.countDown();
+
+        waitUntil(() -> closing.inFlight() == 0 && closing.activeKeys() == 0);
+        assertThat(acknowledged).containsExactly(0L);
+    }
+
+    @Test
+    void submit_afterClose_shouldRejectWithoutHoldingAPermit() {
+        processor.close();
+
+        assertThatThrownBy(() -> processor.submit(record(0, "order-1"), ack(0), () -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(processor.inFlight()).isZero();
+    }
+
+    @Test
+    void submit_withAnIdStore_shouldProcessRecordsQueuedBehindASlowKey() {
+        List<Long> processed = runDeduplicated(new GenerationalIdempotencyStore(Duration.ofMinutes(1), 100));
+
+        assertThat(processed).containsExactlyInAnyOrder(0L, 1L, 2L, 3L, 4L, 5L);
+    }
+
+    /** Why IdempotencyConfiguration refuses the offset-watermark store with key-ordered processing. */
+    @Test
+    void submit_withTheOffsetWatermarkStore_shouldSkipRecordsQueuedBehindASlowKey() {
+        List<Long> processed = runDeduplicated(new OffsetWatermarkIdempotencyStore(2));
+
+        assertThat(processed).containsExactlyInAnyOrder(0L, 2L, 3L, 4L, 5L);
+    }
+
+    /**
+     * Offset 0 holds up order-1, with offset 1 queued behind it, while order-2 finishes offsets
+     * 2 to 5; each record is checked and marked the way the listeners do.
+     */
+    private List<Long> runDeduplicated(IdempotencyStore store) {
+        List<Long> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch firstChecked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        for (long offset = 0; offset < 6; offset++) {
+            ConsumerRecord<String, String> record = record(offset, offset < 2 ? "order-1" : "order-2");
+            String eventId = "event-" + offset;
+            processor.submit(record, ack(offset), () -> {
+                if (store.contains(record, eventId)) {
+                    return;
+                }
+                if (record.offset() == 0) {
+                    firstChecked.countDown();
+                    await(release);
+                }
+                processed.add(record.offset());
+                store.mark(record, eventId);
+            });
+            if (offset == 0) {
+                await(firstChecked);
+            }
+        }
+        waitUntil(() -> processed.size() == 4);
+        release.countDown();
+        waitUntil(() -> processor.inFlight() == 0);
+        return processed;
+    }
+
+    private Acknowledgment ack(long offset) {
+        return () -> acknowledged.add(offset);
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String key) {
+        return new ConsumerRecord<>(ORDERS_0.topic(), ORDERS_0.partition(), offset, key, "value");
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.common.retry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.retrytopic.DestinationTopic;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicNamesProviderFactory;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class DeadLetterTopicComponentFactoryTest {
+
+    private final RetryTopicNamesProviderFactory names =
+            new DeadLetterTopicComponentFactory("dead-letter.v1").retryTopicNamesProviderFactory();
+
+    @Test
+    void getTopicName_shouldSuffixRetryTiersAndShareDeadLetterTopic() {
+        List<DestinationTopic.Properties> destinations = RetryTopicConfigurationBuilder.newInstance()
+                .exponentialBackoff(1_000, 10, 60_000)
+                .maxAttempts(4)
+                .create(mock(KafkaOperations.class))
+                .getDestinationTopicProperties();
+
+        assertThat(destinations)
+                .extracting(properties -> names.createRetryTopicNamesProvider(properties).getTopicName("orders.v1"))
+                .containsExactly("orders.v1", "orders.v1-retry-1000", "orders.v1-retry-10000",
+                        "orders.v1-retry-60000", "dead-letter.v1");
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.common.retry;
+
+import com.example.common.codec.RawValueRetainingDeserializer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RawValueDeadLetterPublishingRecovererTest {
+
+    @Mock
+    private KafkaOperations<Object, Object> template;
+
+    @Test
+    void accept_shouldPublishRetainedBytesWithoutTheRawValueHeader() {
+        byte[] raw = "avro-bytes".getBytes(StandardCharsets.UTF_8);
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>("orders.v1", 0, 7L, "order-1", new Object());
+        record.headers().add(RawValueRetainingDeserializer.RAW_VALUE_HEADER, raw);
+        when(template.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        new RawValueDeadLetterPublishingRecoverer(template, (r, e) -> new TopicPartition("dead-letter.v1", -1))
+                .accept(record, new IllegalStateException("boom"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<ProducerRecord<Object, Object>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(template).send(sent.capture());
+        assertThat(sent.getValue().topic()).isEqualTo("dead-letter.v1");
+        assertThat(sent.getValue().key()).isEqualTo("order-1");
+        assertThat(sent.getValue().value()).isSameAs(raw);
+        assertThat(sent.getValue().headers().lastHeader(RawValueRetainingDeserializer.RAW_VALUE_HEADER)).isNull();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.common.retry;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.MockAdminClient;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RetryQueueDepthMonitorTest {
+
+    private static final Node NODE = new Node(0, "localhost", 9092);
+    private static final RetryTopicConfiguration RETRY_TOPICS = RetryTopicConfigurationBuilder.newInstance()
+            .exponentialBackoff(1_000, 10, 60_000)
+            .maxAttempts(4)
+            .create(mock(KafkaOperations.class));
+
+    private final MockAdminClient admin = new MockAdminClient(List.of(NODE), NODE);
+    private final RetryQueueDepthMonitor monitor = new RetryQueueDepthMonitor(admin, "payment-service",
+            List.of("orders.v1", "orders.v2"), RETRY_TOPICS, Duration.ZERO);
+
+    @AfterEach
+    void tearDown() {
+        monitor.close();
+    }
+
+    @Test
+    void depth_shouldSumGroupLagOverTheTierTopics() {
+        TopicPartition v1 = addTopic("orders.v1-retry-1000");
+        TopicPartition v2 = addTopic("orders.v2-retry-1000");
+        admin.updateBeginningOffsets(Map.of(v1, 0L, v2, 0L));
+        admin.updateEndOffsets(Map.of(v1, 10L, v2, 5L));
+        admin.updateConsumerGroupOffsets(Map.of(v1, 7L, v2, 5L));
+
+        assertThat(monitor.depth("1s")).isEqualTo(3);
+    }
+
+    @Test
+    void depth_withoutCommittedOffset_shouldCountFromEarliestOffset() {
+        TopicPartition partition = addTopic("orders.v1-retry-10000");
+        admin.updateBeginningOffsets(Map.of(partition, 20L));
+        admin.updateEndOffsets(Map.of(partition, 50L));
+
+        assertThat(monitor.depth("10s")).isEqualTo(30);
+    }
+
+    @Test
+    void depth_withoutRetryTopics_shouldBeZero() {
+        assertThat(monitor.depth("60s")).isZero();
+        assertThat(monitor.depth("5m")).isNaN();
+    }
+
+    @Test
+    void bindTo_shouldRegisterOneGaugePerTier() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        monitor.bindTo(registry);
+
+        assertThat(registry.find("retry.queue.depth").gauges())
+                .extracting(gauge -> gauge.getId().getTag("tier"))
+                .containsExactlyInAnyOrder("1s", "10s", "60s");
+        assertThat(registry.get("retry.queue.depth").tag("tier", "10s").gauge())
+                .extracting(Gauge::value)
+                .isEqualTo(0.0);
+    }
+
+    private TopicPartition addTopic(String topic) {
+        admin.addTopic(false, topic, List.of(new TopicPartitionInfo(0, NODE, List.of(NODE), List.of(NODE))), Map.of());
+        return new TopicPartition(topic, 0);
+    }
+}
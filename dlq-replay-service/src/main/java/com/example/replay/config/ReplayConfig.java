@@ -0,0 +1,81 @@
+package com.example.replay.config;
+
+import com.example.replay.index.DeadLetterScanner;
+import com.example.replay.replay.TokenBucket;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class ReplayConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayConfig.class);
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    /** Reads the dead letter topic as raw bytes; readers assign partitions and never commit. */
+    @Bean
+    public ConsumerFactory<byte[], byte[]> replayConsumerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return new DefaultKafkaConsumerFactory<>(config);
+    }
+
+    @Bean
+    public ProducerFactory<byte[], byte[]> replayProducerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        return new DefaultKafkaProducerFactory<>(config);
+    }
+
+    @Bean
+    public KafkaTemplate<byte[], byte[]> replayKafkaTemplate(ProducerFactory<byte[], byte[]> replayProducerFactory) {
+        return new KafkaTemplate<>(replayProducerFactory);
+    }
+
+    @Bean
+    public TokenBucket replayTokenBucket(@Value("${replay.rate-per-second:200}") double ratePerSecond,
+                                         @Value("${replay.burst:50}") int burst) {
+        return new TokenBucket(ratePerSecond, burst);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "replay.index-on-startup", havingValue = "true", matchIfMissing = true)
+    public ApplicationListener<ApplicationReadyEvent> indexOnStartup(DeadLetterScanner scanner) {
+        return event -> {
+            try {
+                scanner.rebuild();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("Could not index the dead letter topic on startup: {}", e.toString());
+            }
+        };
+    }
+}
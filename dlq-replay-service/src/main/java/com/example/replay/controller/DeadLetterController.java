@@ -0,0 +1,72 @@
+package com.example.replay.controller;
+
+import com.example.replay.controller.dto.DeadLetterSummary;
+import com.example.replay.controller.dto.ReplayRequest;
+import com.example.replay.index.DeadLetterEntry;
+import com.example.replay.index.DeadLetterIndex;
+import com.example.replay.index.DeadLetterQuery;
+import com.example.replay.index.DeadLetterScanner;
+import com.example.replay.replay.ReplayJob;
+import com.example.replay.replay.ReplayProgress;
+import com.example.replay.replay.ReplayService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/dead-letters")
+public class DeadLetterController {
+
+    private final DeadLetterScanner scanner;
+    private final ReplayService replayService;
+
+    public DeadLetterController(DeadLetterScanner scanner, ReplayService replayService) {
+        this.scanner = scanner;
+        this.replayService = replayService;
+    }
+
+    @GetMapping
+    public DeadLetterSummary find(@RequestParam(required = false) String originTopic,
+                                  @RequestParam(required = false) String exceptionClass,
+                                  @RequestParam(required = false) Instant from,
+                                  @RequestParam(required = false) Instant to,
+                                  @RequestParam(defaultValue = "100") int limit) {
+        DeadLetterIndex index = scanner.index();
+        List<DeadLetterEntry> matched = index.query(new DeadLetterQuery(originTopic, exceptionClass, from, to));
+        return new DeadLetterSummary(index.size(), matched.size(), index.countsByOriginTopic(),
+                index.countsByException(), matched.subList(0, Math.min(limit, matched.size())));
+    }
+
+    @PostMapping("/index")
+    public DeadLetterSummary rebuildIndex() throws InterruptedException {
+        DeadLetterIndex index = scanner.rebuild();
+        return new DeadLetterSummary(index.size(), 0, index.countsByOriginTopic(), index.countsByException(),
+                List.of());
+    }
+
+    @PostMapping("/replays")
+    public ResponseEntity<ReplayProgress> startReplay(@RequestBody ReplayRequest request) {
+        DeadLetterQuery query = new DeadLetterQuery(
+                request.originTopic(), request.exceptionClass(), request.from(), request.to());
+        return replayService.start(query)
+                .map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job.progress()))
+                .orElse(ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @GetMapping("/replays/{id}")
+    public ResponseEntity<ReplayProgress> getReplay(@PathVariable String id) {
+        return replayService.find(id)
+                .map(ReplayJob::progress)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
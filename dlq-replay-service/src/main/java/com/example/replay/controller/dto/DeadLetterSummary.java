@@ -0,0 +1,14 @@
+package com.example.replay.controller.dto;
+
+import com.example.replay.index.DeadLetterEntry;
+
+import java.util.List;
+import java.util.Map;
+
+public record DeadLetterSummary(
+        int indexed,
+        int matched,
+        Map<String, Integer> byOriginTopic,
+        Map<String, Integer> byException,
+        List<DeadLetterEntry> entries
+) {}
@@ -0,0 +1,5 @@
+package com.example.replay.controller.dto;
+
+import java.time.Instant;
+
+public record ReplayRequest(String originTopic, String exceptionClass, Instant from, Instant to) {}
@@ -0,0 +1,48 @@
+package com.example.replay.index;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.regex.Pattern;
+
+/**
+ * Where a dead letter record sits in the dead letter topic and why it got there. Only the
+ * headers are kept; the payload is read again when the record is replayed.
+ *
+ * @param partition      partition of the dead letter topic
+ * @param offset         offset in that partition
+ * @param originTopic    topic the record failed on, with any retry tier suffix removed, or
+ *                       {@code null} if the record has no {@code kafka_original-topic} header
+ * @param exceptionClass class of the root exception, falling back to the thrown one
+ * @param timestamp      when the record was dead-lettered
+ */
+public record DeadLetterEntry(int partition, long offset, String originTopic, String exceptionClass,
+                              Instant timestamp, String key) {
+
+    private static final Pattern RETRY_SUFFIX = Pattern.compile("-retry-\\d+$");
+
+    public static DeadLetterEntry from(ConsumerRecord<byte[], byte[]> record) {
+        Headers headers = record.headers();
+        String originTopic = header(headers, KafkaHeaders.ORIGINAL_TOPIC);
+        String exceptionClass = header(headers, KafkaHeaders.EXCEPTION_CAUSE_FQCN);
+        if (exceptionClass == null) {
+            exceptionClass = header(headers, KafkaHeaders.EXCEPTION_FQCN);
+        }
+        return new DeadLetterEntry(
+                record.partition(),
+                record.offset(),
+                originTopic == null ? null : RETRY_SUFFIX.matcher(originTopic).replaceFirst(""),
+                exceptionClass,
+                Instant.ofEpochMilli(record.timestamp()),
+                record.key() == null ? null : new String(record.key(), StandardCharsets.UTF_8));
+    }
+
+    private static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
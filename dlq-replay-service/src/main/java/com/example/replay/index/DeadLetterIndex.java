@@ -0,0 +1,94 @@
+package com.example.replay.index;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable index over the dead letter topic, by origin topic, by exception class and by time.
+ * A query starts from the smallest of the candidate lists its criteria select and filters that,
+ * so a narrow filter on a large topic does not walk every entry. Results are in time order.
+ */
+public final class DeadLetterIndex {
+
+    public static final DeadLetterIndex EMPTY = new DeadLetterIndex(List.of());
+
+    private static final Comparator<DeadLetterEntry> BY_TIME = Comparator.comparing(DeadLetterEntry::timestamp)
+            .thenComparingInt(DeadLetterEntry::partition)
+            .thenComparingLong(DeadLetterEntry::offset);
+
+    private final List<DeadLetterEntry> byTime;
+    private final Map<String, List<DeadLetterEntry>> byOriginTopic = new HashMap<>();
+    private final Map<String, List<DeadLetterEntry>> byException = new HashMap<>();
+
+    public DeadLetterIndex(Collection<DeadLetterEntry> entries) {
+        List<DeadLetterEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(BY_TIME);
+        this.byTime = List.copyOf(sorted);
+        for (DeadLetterEntry entry : byTime) {
+            if (entry.originTopic() != null) {
+                byOriginTopic.computeIfAbsent(entry.originTopic(), k -> new ArrayList<>()).add(entry);
+            }
+            if (entry.exceptionClass() != null) {
+                byException.computeIfAbsent(entry.exceptionClass(), k -> new ArrayList<>()).add(entry);
+            }
+        }
+    }
+
+    public int size() {
+        return byTime.size();
+    }
+
+    public List<DeadLetterEntry> query(DeadLetterQuery query) {
+        int start = query.from() == null ? 0 : lowerBound(query.from());
+        int end = query.to() == null ? byTime.size() : lowerBound(query.to());
+        List<DeadLetterEntry> candidates = byTime.subList(start, Math.max(start, end));
+        if (query.originTopic() != null) {
+            candidates = smaller(candidates, byOriginTopic.getOrDefault(query.originTopic(), List.of()));
+        }
+        if (query.exceptionClass() != null) {
+            candidates = smaller(candidates, byException.getOrDefault(query.exceptionClass(), List.of()));
+        }
+        return candidates.stream().filter(query::matches).toList();
+    }
+
+    /** @return entry counts per origin topic, sorted by topic */
+    public Map<String, Integer> countsByOriginTopic() {
+        return counts(byOriginTopic);
+    }
+
+    /** @return entry counts per exception class, sorted by class name */
+    public Map<String, Integer> countsByException() {
+        return counts(byException);
+    }
+
+    /** @return index of the first entry at or after {@code time} */
+    private int lowerBound(Instant time) {
+        int low = 0;
+        int high = byTime.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (byTime.get(mid).timestamp().isBefore(time)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static List<DeadLetterEntry> smaller(List<DeadLetterEntry> a, List<DeadLetterEntry> b) {
+        return a.size() <= b.size() ? a : b;
+    }
+
+    private static Map<String, Integer> counts(Map<String, List<DeadLetterEntry>> entries) {
+        Map<String, Integer> counts = new TreeMap<>();
+        entries.forEach((name, list) -> counts.put(name, list.size()));
+        return counts;
+    }
+}
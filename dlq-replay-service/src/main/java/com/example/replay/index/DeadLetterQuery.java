@@ -0,0 +1,21 @@
+package com.example.replay.index;
+
+import java.time.Instant;
+
+/**
+ * Selects dead letter entries. Every criterion is optional; {@code null} matches anything.
+ *
+ * @param from inclusive lower bound of the dead-lettering time
+ * @param to   exclusive upper bound of the dead-lettering time
+ */
+public record DeadLetterQuery(String originTopic, String exceptionClass, Instant from, Instant to) {
+
+    public static final DeadLetterQuery ALL = new DeadLetterQuery(null, null, null, null);
+
+    public boolean matches(DeadLetterEntry entry) {
+        return (originTopic == null || originTopic.equals(entry.originTopic()))
+                && (exceptionClass == null || exceptionClass.equals(entry.exceptionClass()))
+                && (from == null || !entry.timestamp().isBefore(from))
+                && (to == null || entry.timestamp().isBefore(to));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.replay.index;
+
+import com.example.common.TopicNames;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the dead letter topic from the beginning up to its current end and builds a
+ * {@link DeadLetterIndex}. Each partition is read by its own consumer, {@code replay.readers}
+ * at a time; consumers are assigned their partition, so no group is joined and no offsets are
+ * committed. The previous index stays in place until the new one is complete.
+ */
+@Component
+public class DeadLetterScanner {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterScanner.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final ConsumerFactory<byte[], byte[]> consumerFactory;
+    private final int readers;
+    private volatile DeadLetterIndex index = DeadLetterIndex.EMPTY;
+
+    public DeadLetterScanner(ConsumerFactory<byte[], byte[]> replayConsumerFactory,
+                             @Value("${replay.readers:3}") int readers,
+                             MeterRegistry meterRegistry) {
+        this.consumerFactory = replayConsumerFactory;
+        this.readers = readers;
+        Gauge.builder("dlq.index.size", this, scanner -> scanner.index().size())
+                .description("Dead letter records in the last built index")
+                .register(meterRegistry);
+    }
+
+    public DeadLetterIndex index() {
+        return index;
+    }
+
+    /**
+     * Rescans the dead letter topic.
+     *
+     * @return the new index
+     */
+    public synchronized DeadLetterIndex rebuild() throws InterruptedException {
+        long start = System.nanoTime();
+        Map<TopicPartition, Long> endOffsets;
+        try (Consumer<byte[], byte[]> consumer = consumerFactory.createConsumer()) {
+            List<TopicPartition> partitions = consumer.partitionsFor(TopicNames.DEAD_LETTER).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            endOffsets = consumer.endOffsets(partitions);
+        }
+
+        List<Callable<List<DeadLetterEntry>>> tasks = new ArrayList<>();
+        endOffsets.forEach((partition, end) -> tasks.add(() -> scan(partition, end)));
+        List<DeadLetterEntry> entries = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(readers, tasks.size())),
+                Thread.ofPlatform().name("dlq-index-reader-", 0).factory())) {
+            for (Future<List<DeadLetterEntry>> future : pool.invokeAll(tasks)) {
+                entries.addAll(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not read " + TopicNames.DEAD_LETTER, e.getCause());
+        }
+
+        index = new DeadLetterIndex(entries);
+        log.info("Indexed {} dead letter records from {} partitions in {} ms",
+                entries.size(), endOffsets.size(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return index;
+    }
+
+    private List<DeadLetterEntry> scan(TopicPartition partition, long end) {
+        List<DeadLetterEntry> entries = new ArrayList<>();
+        try (Consumer<byte[], byte[]> consumer = consumerFactory.createConsumer()) {
+            consumer.assign(List.of(partition));
+            consumer.seekToBeginning(List.of(partition));
+            while (consumer.position(partition) < end) {
+                for (ConsumerRecord<byte[], byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (record.offset() < end) {
+                        entries.add(DeadLetterEntry.from(record));
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.replay.replay;
+
+import com.example.replay.index.DeadLetterQuery;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Progress of one replay, updated by the readers as sends complete. */
+public class ReplayJob {
+
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final DeadLetterQuery query;
+    private final int total;
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile State state = State.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    ReplayJob(String id, DeadLetterQuery query, int total) {
+        this.id = id;
+        this.query = query;
+        this.total = total;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public long pending() {
+        return total - replayed.get() - failed.get();
+    }
+
+    void recordReplayed() {
+        replayed.incrementAndGet();
+    }
+
+    void recordFailed(long records) {
+        failed.addAndGet(records);
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        state = State.COMPLETED;
+    }
+
+    void fail(Throwable cause) {
+        error = cause.toString();
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    public ReplayProgress progress() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long elapsedMillis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        long done = replayed.get();
+        return new ReplayProgress(id, state, query, total, done, failed.get(), pending(),
+                done * 1_000.0 / elapsedMillis, startedAt, finishedAt, error);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.replay.replay;
+
+import com.example.replay.index.DeadLetterQuery;
+
+import java.time.Instant;
+
+/**
+ * @param failed           records that could not be sent, or were selected but are gone from the
+ *                         dead letter topic or lack the original topic header
+ * @param recordsPerSecond replayed records per second since the start
+ */
+public record ReplayProgress(
+        String id,
+        ReplayJob.State state,
+        DeadLetterQuery query,
+        int total,
+        long replayed,
+        long failed,
+        long pending,
+        double recordsPerSecond,
+        Instant startedAt,
+        Instant finishedAt,
+        String error
+) {}
@@ -0,0 +1,216 @@
+package com.example.replay.replay;
+
+import com.example.common.TopicNames;
+import com.example.replay.index.DeadLetterEntry;
+import com.example.replay.index.DeadLetterQuery;
+import com.example.replay.index.DeadLetterScanner;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sends dead letter records back to the topic they failed on. The records a query selects are
+ * grouped by dead letter partition and each partition is read by its own consumer,
+ * {@code replay.readers} at a time, seeking past long runs of records that were not selected.
+ * All readers draw from one {@link TokenBucket}, so the consumers of the original topics see at
+ * most {@code replay.rate-per-second} replayed records however many readers run.
+ * <p>
+ * Key, value and headers are sent unchanged, except the headers the dead letter publishing and
+ * the retry topics added, so a replayed record starts over with a full set of retries. One replay
+ * runs at a time.
+ */
+@Service
+public class ReplayService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayService.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final List<String> STRIPPED_HEADER_PREFIXES = List.of(
+            "kafka_original-", "kafka_exception-", "kafka_key-exception-", "kafka_dlt-", "retry_topic-",
+            KafkaUtils.DESERIALIZER_EXCEPTION_HEADER_PREFIX);
+
+    private final DeadLetterScanner scanner;
+    private final ConsumerFactory<byte[], byte[]> consumerFactory;
+    private final KafkaTemplate<byte[], byte[]> kafkaTemplate;
+    private final TokenBucket tokenBucket;
+    private final int readers;
+    private final long seekGap;
+    private final Counter replayedCounter;
+    private final Counter failedCounter;
+
+    private final Map<String, ReplayJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicReference<ReplayJob> running = new AtomicReference<>();
+
+    public ReplayService(DeadLetterScanner scanner,
+                         ConsumerFactory<byte[], byte[]> replayConsumerFactory,
+                         KafkaTemplate<byte[], byte[]> replayKafkaTemplate,
+                         TokenBucket tokenBucket,
+                         @Value("${replay.readers:3}") int readers,
+                         @Value("${replay.seek-gap:500}") long seekGap,
+                         MeterRegistry meterRegistry) {
+        this.scanner = scanner;
+        this.consumerFactory = replayConsumerFactory;
+        this.kafkaTemplate = replayKafkaTemplate;
+        this.tokenBucket = tokenBucket;
+        this.readers = readers;
+        this.seekGap = seekGap;
+        this.replayedCounter = Counter.builder("dlq.replay.records")
+                .description("Dead letter records sent back to their original topic, or not")
+                .tag("result", "replayed")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("dlq.replay.records")
+                .description("Dead letter records sent back to their original topic, or not")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        Gauge.builder("dlq.replay.pending", running, job -> job.get() == null ? 0 : job.get().pending())
+                .description("Records the running replay has yet to send")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts replaying the records of the current index that match {@code query}.
+     *
+     * @return the new job, or empty if a replay is already running
+     */
+    public Optional<ReplayJob> start(DeadLetterQuery query) {
+        List<DeadLetterEntry> selected = scanner.index().query(query);
+        ReplayJob job = new ReplayJob(UUID.randomUUID().toString(), query, selected.size());
+        if (!running.compareAndSet(null, job)) {
+            return Optional.empty();
+        }
+        jobs.put(job.id(), job);
+        Thread.ofPlatform().name("dlq-replay-" + job.id()).daemon(true).start(() -> run(job, selected));
+        return Optional.of(job);
+    }
+
+    public Optional<ReplayJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void run(ReplayJob job, List<DeadLetterEntry> selected) {
+        try {
+            Map<Integer, List<DeadLetterEntry>> byPartition = new TreeMap<>();
+            for (DeadLetterEntry entry : selected) {
+                if (entry.originTopic() == null) {
+                    failed(job, 1);
+                } else {
+                    byPartition.computeIfAbsent(entry.partition(), p -> new ArrayList<>()).add(entry);
+                }
+            }
+            List<Callable<Void>> tasks = new ArrayList<>();
+            byPartition.forEach((partition, entries) -> {
+                entries.sort(Comparator.comparingLong(DeadLetterEntry::offset));
+                tasks.add(() -> {
+                    replay(job, new TopicPartition(TopicNames.DEAD_LETTER, partition), entries);
+                    return null;
+                });
+            });
+            try (ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(readers, tasks.size())),
+                    Thread.ofPlatform().name("dlq-replay-reader-", 0).factory())) {
+                for (Future<Void> future : pool.invokeAll(tasks)) {
+                    future.get();
+                }
+            }
+            job.complete();
+            log.info("Replay {} completed: {}", job.id(), job.progress());
+        } catch (ExecutionException e) {
+            job.fail(e.getCause());
+            log.error("Replay {} failed", job.id(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail(e);
+        } finally {
+            running.set(null);
+        }
+    }
+
+    private void replay(ReplayJob job, TopicPartition partition, List<DeadLetterEntry> entries)
+            throws InterruptedException {
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        int next = 0;
+        try (Consumer<byte[], byte[]> consumer = consumerFactory.createConsumer()) {
+            consumer.assign(List.of(partition));
+            long end = consumer.endOffsets(List.of(partition)).get(partition);
+            consumer.seek(partition, entries.get(0).offset());
+            while (next < entries.size() && consumer.position(partition) < end) {
+                for (ConsumerRecord<byte[], byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                    while (next < entries.size() && entries.get(next).offset() < record.offset()) {
+                        // Removed by retention or compaction since the index was built
+                        failed(job, 1);
+                        next++;
+                    }
+                    if (next == entries.size()) {
+                        break;
+                    }
+                    if (entries.get(next).offset() == record.offset()) {
+                        tokenBucket.acquire();
+                        sends.add(send(job, entries.get(next).originTopic(), record));
+                        next++;
+                    }
+                }
+                if (next < entries.size() && entries.get(next).offset() - consumer.position(partition) > seekGap) {
+                    consumer.seek(partition, entries.get(next).offset());
+                }
+            }
+        }
+        failed(job, entries.size() - next);
+        kafkaTemplate.flush();
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+    }
+
+    private CompletableFuture<?> send(ReplayJob job, String topic, ConsumerRecord<byte[], byte[]> record) {
+        List<Header> headers = new ArrayList<>();
+        for (Header header : record.headers()) {
+            if (STRIPPED_HEADER_PREFIXES.stream().noneMatch(header.key()::startsWith)) {
+                headers.add(header);
+            }
+        }
+        return kafkaTemplate.send(new ProducerRecord<>(topic, null, record.key(), record.value(), headers))
+                .whenComplete((result, e) -> {
+                    if (e == null) {
+                        job.recordReplayed();
+                        replayedCounter.increment();
+                    } else {
+                        log.warn("Could not replay {}-{}@{} to {}: {}", record.topic(), record.partition(),
+                                record.offset(), topic, e.toString());
+                        failed(job, 1);
+                    }
+                });
+    }
+
+    private void failed(ReplayJob job, long records) {
+        if (records > 0) {
+            job.recordFailed(records);
+            failedCounter.increment(records);
+        }
+    }
+}
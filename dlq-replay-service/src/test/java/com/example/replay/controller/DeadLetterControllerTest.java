@@ -0,0 +1,73 @@
+package com.example.replay.controller;
+
+import com.example.replay.index.DeadLetterEntry;
+import com.example.replay.index.DeadLetterIndex;
+import com.example.replay.index.DeadLetterQuery;
+import com.example.replay.index.DeadLetterScanner;
+import com.example.replay.replay.ReplayService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(DeadLetterController.class)
+class DeadLetterControllerTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private DeadLetterScanner scanner;
+
+    @MockitoBean
+    private ReplayService replayService;
+
+    @Test
+    void find_shouldReturnCountsAndMatchingEntries() throws Exception {
+        when(scanner.index()).thenReturn(new DeadLetterIndex(List.of(
+                new DeadLetterEntry(0, 5, "orders.v1", "java.lang.IllegalStateException", T0, "order-1"),
+                new DeadLetterEntry(1, 9, "payments.v1", "java.lang.IllegalStateException", T0, "order-2"))));
+
+        mockMvc.perform(get("/dead-letters").param("originTopic", "orders.v1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.indexed").value(2))
+                .andExpect(jsonPath("$.matched").value(1))
+                .andExpect(jsonPath("$.byOriginTopic['payments.v1']").value(1))
+                .andExpect(jsonPath("$.entries[0].offset").value(5))
+                .andExpect(jsonPath("$.entries[0].key").value("order-1"));
+    }
+
+    @Test
+    void startReplay_whileAnotherRuns_shouldReturn409() throws Exception {
+        when(replayService.start(new DeadLetterQuery("orders.v1", null, null, null))).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/dead-letters/replays")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"originTopic\":\"orders.v1\"}"))
+                .andExpect(status().isConflict());
+
+        verify(replayService).start(new DeadLetterQuery("orders.v1", null, null, null));
+    }
+
+    @Test
+    void getReplay_unknownId_shouldReturn404() throws Exception {
+        when(replayService.find("unknown")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/dead-letters/replays/unknown"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.replay.index;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadLetterIndexTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final DeadLetterEntry first = entry(0, 0, "orders.v1", "java.lang.IllegalStateException", 0);
+    private final DeadLetterEntry second = entry(1, 0, "payments.v1", "java.lang.IllegalStateException", 10);
+    private final DeadLetterEntry third = entry(0, 1, "orders.v1", "org.apache.kafka.common.errors.SerializationException", 20);
+    private final DeadLetterIndex index = new DeadLetterIndex(List.of(third, first, second));
+
+    @Test
+    void query_all_shouldReturnEntriesInTimeOrder() {
+        assertThat(index.query(DeadLetterQuery.ALL)).containsExactly(first, second, third);
+    }
+
+    @Test
+    void query_byOriginTopicAndException_shouldReturnEntriesMatchingBoth() {
+        assertThat(index.query(new DeadLetterQuery("orders.v1", "java.lang.IllegalStateException", null, null)))
+                .containsExactly(first);
+    }
+
+    @Test
+    void query_byTimeRange_shouldIncludeFromAndExcludeTo() {
+        assertThat(index.query(new DeadLetterQuery(null, null, T0.plusSeconds(10), T0.plusSeconds(20))))
+                .containsExactly(second);
+        assertThat(index.query(new DeadLetterQuery(null, null, T0.plusSeconds(20), T0.plusSeconds(10))))
+                .isEmpty();
+    }
+
+    @Test
+    void query_unknownOriginTopic_shouldReturnNothing() {
+        assertThat(index.query(new DeadLetterQuery("inventory.v1", null, null, null))).isEmpty();
+    }
+
+    @Test
+    void counts_shouldGroupByOriginTopicAndException() {
+        assertThat(index.countsByOriginTopic()).isEqualTo(Map.of("orders.v1", 2, "payments.v1", 1));
+        assertThat(index.countsByException()).isEqualTo(Map.of(
+                "java.lang.IllegalStateException", 2,
+                "org.apache.kafka.common.errors.SerializationException", 1));
+    }
+
+    @Test
+    void from_shouldReadDeadLetterHeadersAndStripRetrySuffix() {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(KafkaHeaders.ORIGINAL_TOPIC, bytes("orders.v1-retry-10000"));
+        headers.add(KafkaHeaders.EXCEPTION_FQCN, bytes("org.springframework.kafka.listener.ListenerExecutionFailedException"));
+        headers.add(KafkaHeaders.EXCEPTION_CAUSE_FQCN, bytes("java.lang.IllegalStateException"));
+        ConsumerRecord<byte[], byte[]> record = new ConsumerRecord<>("dead-letter.v1", 2, 42L,
+                T0.toEpochMilli(), TimestampType.CREATE_TIME, 7, 3, bytes("order-1"), new byte[3], headers,
+                Optional.empty());
+
+        assertThat(DeadLetterEntry.from(record)).isEqualTo(
+                new DeadLetterEntry(2, 42L, "orders.v1", "java.lang.IllegalStateException", T0, "order-1"));
+    }
+
+    private static DeadLetterEntry entry(int partition, long offset, String topic, String exception, long second) {
+        return new DeadLetterEntry(partition, offset, topic, exception, T0.plusSeconds(second), "key-" + offset);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
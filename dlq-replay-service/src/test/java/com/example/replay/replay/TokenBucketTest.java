@@ -0,0 +1,51 @@
+package com.example.replay.replay;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final TokenBucket bucket = new TokenBucket(100, 5, now::get);
+
+    @Test
+    void reserve_withinBurst_shouldNotWait() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.reserve()).isZero();
+        }
+    }
+
+    @Test
+    void reserve_beyondBurst_shouldWaitForEachTokenInTurn() {
+        for (int i = 0; i < 5; i++) {
+            bucket.reserve();
+        }
+
+        assertThat(bucket.reserve()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+        assertThat(bucket.reserve()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    void reserve_afterIdling_shouldRefillUpToBurstOnly() {
+        for (int i = 0; i < 5; i++) {
+            bucket.reserve();
+        }
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.reserve()).isZero();
+        }
+        assertThat(bucket.reserve()).isPositive();
+    }
+
+    @Test
+    void constructor_withoutRate_shouldThrow() {
+        assertThatThrownBy(() -> new TokenBucket(0, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,14 +1,28 @@
 package com.example.inventory.config;
 
+import com.example.common.TopicNames;
+import com.example.common.codec.RawValueRetainingDeserializer;
+import com.example.common.idempotency.PartitionedIdempotencyStore;
+import com.example.common.latency.LatencyRecordInterceptor;
+import com.example.common.ordering.KeyOrderedProcessor;
+import com.example.common.retry.DeadLetterTopicComponentFactory;
+import com.example.common.retry.RawValueDeadLetterPublishingRecoverer;
+import com.example.common.retry.RetryQueueDepthMonitor;
 import io.confluent.kafka.serializers.KafkaAvroDeserializer;
 import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
 import io.confluent.kafka.serializers.subject.TopicNameStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
@@ -17,21 +31,30 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.MicrometerConsumerListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.listener.CommonErrorHandler;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.retrytopic.RetryTopicComponentFactory;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
 import org.springframework.util.backoff.FixedBackOff;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @EnableKafka
 @Configuration
 public class KafkaConsumerConfig {
 
+    private static final List<String> RETRIED_TOPICS = List.of(TopicNames.ORDERS, TopicNames.ORDERS_V2);
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
@@ -39,21 +62,29 @@ public class KafkaConsumerConfig {
     private String schemaRegistryUrl;
 
     @Bean
-    public ConsumerFactory<String, Object> consumerFactory() {
+    public ConsumerFactory<String, Object> consumerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> config = new HashMap<>();
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         config.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
-        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, KafkaAvroDeserializer.class);
+        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, RawValueRetainingDeserializer.class);
+        config.put(RawValueRetainingDeserializer.DELEGATE_CLASS, KafkaAvroDeserializer.class);
         config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
         config.put(KafkaAvroDeserializerConfig.SCHEMA_REGISTRY_URL_CONFIG, schemaRegistryUrl);
         config.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, true);
         config.put(KafkaAvroDeserializerConfig.VALUE_SUBJECT_NAME_STRATEGY, TopicNameStrategy.class);
-        return new DefaultKafkaConsumerFactory<>(config);
+        DefaultKafkaConsumerFactory<String, Object> factory = new DefaultKafkaConsumerFactory<>(config);
+        // Client metrics, including kafka.consumer.coordinator.commit.rate and commit.latency.avg/max.
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
+    /**
+     * Publishes failed records to the retry and dead letter topics byte for byte as they were
+     * consumed, from the value {@link RawValueRetainingDeserializer} retained; nothing is encoded again.
+     */
     @Bean
     public ProducerFactory<String, byte[]> dlqProducerFactory() {
         Map<String, Object> config = new HashMap<>();
@@ -70,21 +101,115 @@ public class KafkaConsumerConfig {
     }
 
     @Bean
-    public CommonErrorHandler errorHandler(KafkaTemplate<String, byte[]> dlqKafkaTemplate) {
-        DeadLetterPublishingRecoverer recoverer =
-                new DeadLetterPublishingRecoverer(dlqKafkaTemplate);
-        return new DefaultErrorHandler(recoverer, new FixedBackOff(1000L, 3));
+    public DeadLetterPublishingRecoverer deadLetterRecoverer(KafkaTemplate<String, byte[]> dlqKafkaTemplate) {
+        return new RawValueDeadLetterPublishingRecoverer(dlqKafkaTemplate,
+                (record, e) -> new TopicPartition(TopicNames.DEAD_LETTER, -1));
+    }
+
+    /**
+     * Retries in place, holding up the partition. The listener containers on the topics
+     * {@link #retryTopicConfiguration} covers get the retry topics' error handler instead.
+     */
+    @Bean
+    public CommonErrorHandler errorHandler(DeadLetterPublishingRecoverer deadLetterRecoverer) {
+        return new DefaultErrorHandler(deadLetterRecoverer, new FixedBackOff(1000L, 3));
+    }
+
+    /**
+     * Creates the retry topics, and any other {@code NewTopic} beans, at startup; Spring Boot's
+     * Kafka auto-configuration, which would otherwise provide it, is not on the classpath.
+     */
+    @Bean
+    public KafkaAdmin kafkaAdmin() {
+        return new KafkaAdmin(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers));
+    }
+
+    /**
+     * A failing record is republished to a retry topic and the partition moves on. Each delay,
+     * by default 1s, 10s and 60s, has its own topic, e.g. {@code orders.v1-retry-10000}, consumed by its
+     * own container in group {@code inventory-service-retry-10000}, which pauses a partition until its
+     * next record is due. Records that fail every attempt, and exceptions that cannot succeed on
+     * retry, such as deserialization failures, go to {@link TopicNames#DEAD_LETTER}.
+     */
+    @Bean
+    public RetryTopicConfiguration retryTopicConfiguration(
+            KafkaTemplate<String, byte[]> dlqKafkaTemplate,
+            @Value("${retry.initial-delay:1s}") Duration initialDelay,
+            @Value("${retry.multiplier:10}") double multiplier,
+            @Value("${retry.max-delay:60s}") Duration maxDelay,
+            @Value("${retry.max-attempts:4}") int maxAttempts,
+            @Value("${retry.partitions:3}") int partitions) {
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopics(RETRIED_TOPICS)
+                .exponentialBackoff(initialDelay.toMillis(), multiplier, maxDelay.toMillis())
+                .maxAttempts(maxAttempts)
+                .notRetryOn(IllegalArgumentException.class)
+                .traversingCauses()
+                .autoCreateTopicsWith(partitions, (short) -1)
+                .autoStartDltHandler(false)
+                .create(dlqKafkaTemplate);
+    }
+
+    @Bean
+    public RetryTopicComponentFactory retryTopicComponentFactory() {
+        return new DeadLetterTopicComponentFactory(TopicNames.DEAD_LETTER);
+    }
+
+    @Bean
+    public RetryQueueDepthMonitor retryQueueDepthMonitor(
+            KafkaAdmin kafkaAdmin,
+            RetryTopicConfiguration retryTopicConfiguration,
+            @Value("${spring.application.name}") String applicationName,
+            @Value("${retry.depth-refresh:10s}") Duration refreshInterval) {
+        return new RetryQueueDepthMonitor(Admin.create(kafkaAdmin.getConfigurationProperties()), applicationName,
+                RETRIED_TOPICS, retryTopicConfiguration, refreshInterval);
+    }
+
+    /**
+     * Opt-in: runs record listeners on worker threads, in order per order ID, so a consumer is
+     * no longer limited to one record at a time per partition. Retries then happen in place on the
+     * worker threads, holding back only the failing order, instead of through the retry topics.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "key-ordered.enabled", havingValue = "true")
+    public KeyOrderedProcessor keyOrderedProcessor(
+            DeadLetterPublishingRecoverer deadLetterRecoverer,
+            @Value("${key-ordered.max-in-flight:1000}") int maxInFlight,
+            @Value("${key-ordered.virtual-threads:true}") boolean virtualThreads,
+            @Value("${key-ordered.pool-size:16}") int poolSize) {
+        return new KeyOrderedProcessor(KeyOrderedProcessor.newExecutor(virtualThreads, poolSize), maxInFlight,
+                new FixedBackOff(1000L, 3), deadLetterRecoverer);
     }
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
             ConsumerFactory<String, Object> consumerFactory,
-            CommonErrorHandler errorHandler) {
+            CommonErrorHandler errorHandler,
+            MeterRegistry meterRegistry,
+            @Value("${spring.application.name}") String applicationName,
+            @Value("${spring.kafka.listener.ack-mode:COUNT_TIME}") ContainerProperties.AckMode ackMode,
+            @Value("${spring.kafka.listener.ack-count:500}") int ackCount,
+            @Value("${spring.kafka.listener.ack-time:100ms}") Duration ackTime,
+            ObjectProvider<PartitionedIdempotencyStore> partitionedIdempotencyStore,
+            ObjectProvider<KeyOrderedProcessor> keyOrderedProcessor) {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory);
-        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.RECORD);
+        // Commits every ackCount records or ackTime, whichever comes first, and synchronously when
+        // partitions are revoked or the container stops. See IdempotencyConfiguration for what a
+        // crash in between replays.
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setAckMode(ackMode);
+        containerProperties.setAckCount(ackCount);
+        containerProperties.setAckTime(ackTime.toMillis());
+        containerProperties.setSyncCommits(true);
         factory.setCommonErrorHandler(errorHandler);
+        factory.setRecordInterceptor(new LatencyRecordInterceptor<>(meterRegistry, applicationName));
+        partitionedIdempotencyStore.ifAvailable(store ->
+                factory.getContainerProperties().setConsumerRebalanceListener(store));
+        // Switches to manual acks, committed up to the lowest record still in flight, and
+        // the latency interceptor's processing time then only covers the hand-off.
+        keyOrderedProcessor.ifAvailable(processor -> processor.applyTo(factory));
         return factory;
     }
 }
@@ -3,7 +3,8 @@ package com.example.inventory.listener;
 import com.example.common.CorrelationIdUtils;
 import com.example.common.TopicNames;
 import com.example.common.avro.OrderCreated;
-import com.example.inventory.service.IdempotencyCache;
+import com.example.common.avro.OrderCreatedV2;
+import com.example.common.idempotency.IdempotencyClaims;
 import com.example.inventory.service.InventoryEventPublisher;
 import com.example.inventory.service.StockReservationService;
 import org.apache.avro.specific.SpecificRecordBase;
@@ -13,6 +14,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.function.Supplier;
+
 @Component
 public class OrderCreatedListener {
 
@@ -20,36 +23,49 @@ public class OrderCreatedListener {
 
     private final StockReservationService reservationService;
     private final InventoryEventPublisher eventPublisher;
-    private final IdempotencyCache idempotencyCache;
+    private final IdempotencyClaims idempotencyClaims;
 
     public OrderCreatedListener(StockReservationService reservationService,
                                 InventoryEventPublisher eventPublisher,
-                                IdempotencyCache idempotencyCache) {
+                                IdempotencyClaims idempotencyClaims) {
         this.reservationService = reservationService;
         this.eventPublisher = eventPublisher;
-        this.idempotencyCache = idempotencyCache;
+        this.idempotencyClaims = idempotencyClaims;
     }
 
-    @KafkaListener(topics = TopicNames.ORDERS, groupId = "inventory-service")
+    @KafkaListener(topics = TopicNames.ORDERS, groupId = "inventory-service",
+            autoStartup = "${orders.consume.v1-enabled:true}")
     public void onOrderCreated(ConsumerRecord<String, OrderCreated> record) {
         OrderCreated event = record.value();
-        String eventId = event.getId();
+        process(record, event.getId(), () -> reservationService.reserve(event));
+    }
+
+    /**
+     * Same handling for the compact {@code orders.v2} schema; idempotency is keyed on the order
+     * ID, so a dual-published order reserves stock once.
+     */
+    @KafkaListener(topics = TopicNames.ORDERS_V2, groupId = "inventory-service",
+            autoStartup = "${orders.consume.v2-enabled:false}")
+    public void onOrderCreatedV2(ConsumerRecord<String, OrderCreatedV2> record) {
+        OrderCreatedV2 event = record.value();
+        process(record, event.getId().toString(), () -> reservationService.reserve(event));
+    }
 
+    private void process(ConsumerRecord<String, ?> record, String eventId,
+                         Supplier<SpecificRecordBase> reservation) {
         try {
             String correlationId = CorrelationIdUtils.getFromHeaders(record);
             CorrelationIdUtils.setInMdc(correlationId);
 
-            if (idempotencyCache.contains(eventId)) {
+            boolean processed = idempotencyClaims.runOnce(record, eventId, () -> {
+                log.info("Processing OrderCreated event for order {}", eventId);
+
+                SpecificRecordBase result = reservation.get();
+                eventPublisher.publish(eventId, result);
+            });
+            if (!processed) {
                 log.info("Skipping duplicate event: {}", eventId);
-                return;
             }
-
-            log.info("Processing OrderCreated event for order {}", eventId);
-
-            SpecificRecordBase result = reservationService.reserve(event);
-            eventPublisher.publish(eventId, result);
-
-            idempotencyCache.mark(eventId);
         } finally {
             CorrelationIdUtils.clearMdc();
         }
@@ -1,7 +1,9 @@
 package com.example.inventory.service;
 
 import com.example.common.CorrelationIdUtils;
+import com.example.common.EventTypeUtils;
 import com.example.common.TopicNames;
+import com.example.common.latency.LatencyHeaders;
 import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
@@ -14,6 +16,8 @@ public class InventoryEventPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(InventoryEventPublisher.class);
 
+    private static final String HOP = "inventory-service";
+
     private final KafkaTemplate<String, SpecificRecordBase> kafkaTemplate;
 
     public InventoryEventPublisher(KafkaTemplate<String, SpecificRecordBase> kafkaTemplate) {
@@ -26,6 +30,8 @@ public class InventoryEventPublisher {
 
         String correlationId = CorrelationIdUtils.getFromMdc();
         CorrelationIdUtils.setToHeaders(record, correlationId);
+        EventTypeUtils.setToHeaders(record, event);
+        LatencyHeaders.stamp(record, HOP);
 
         kafkaTemplate.send(record)
                 .whenComplete((result, ex) -> {
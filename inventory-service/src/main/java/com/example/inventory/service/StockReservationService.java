@@ -1,6 +1,7 @@
 package com.example.inventory.service;
 
 import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderCreatedV2;
 import com.example.common.avro.OrderLine;
 import com.example.common.avro.StockRejected;
 import com.example.common.avro.StockReserved;
@@ -28,10 +29,15 @@ public class StockReservationService {
         stockLevels.put("SKU-005", 10);
     }
 
-    public synchronized SpecificRecordBase reserve(OrderCreated event) {
-        String orderId = event.getId();
-        List<OrderLine> lines = event.getLines();
+    public SpecificRecordBase reserve(OrderCreated event) {
+        return reserve(event.getId(), event.getLines());
+    }
+
+    public SpecificRecordBase reserve(OrderCreatedV2 event) {
+        return reserve(event.getId().toString(), event.getLines());
+    }
 
+    private synchronized SpecificRecordBase reserve(String orderId, List<OrderLine> lines) {
         for (OrderLine line : lines) {
             String sku = line.getSku();
             int requested = line.getQty();
@@ -3,7 +3,8 @@ package com.example.inventory.listener;
 import com.example.common.avro.OrderCreated;
 import com.example.common.avro.OrderLine;
 import com.example.common.avro.StockReserved;
-import com.example.inventory.service.IdempotencyCache;
+import com.example.common.idempotency.IdempotencyClaims;
+import com.example.common.idempotency.IdempotencyStore;
 import com.example.inventory.service.InventoryEventPublisher;
 import com.example.inventory.service.StockReservationService;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -31,13 +32,13 @@ class OrderCreatedListenerTest {
     @Mock
     private InventoryEventPublisher eventPublisher;
     @Mock
-    private IdempotencyCache idempotencyCache;
+    private IdempotencyStore idempotencyStore;
 
     private OrderCreatedListener listener;
 
     @BeforeEach
     void setUp() {
-        listener = new OrderCreatedListener(reservationService, eventPublisher, idempotencyCache);
+        listener = new OrderCreatedListener(reservationService, eventPublisher, new IdempotencyClaims(idempotencyStore));
     }
 
     private ConsumerRecord<String, OrderCreated> buildRecord(String orderId) {
@@ -65,32 +66,32 @@ class OrderCreatedListenerTest {
                 .setReservedAt("now")
                 .build();
 
-        when(idempotencyCache.contains("order-1")).thenReturn(false);
-        when(reservationService.reserve(any())).thenReturn(result);
+        when(idempotencyStore.contains(record, "order-1")).thenReturn(false);
+        when(reservationService.reserve(any(OrderCreated.class))).thenReturn(result);
 
         listener.onOrderCreated(record);
 
         verify(reservationService).reserve(any(OrderCreated.class));
         verify(eventPublisher).publish(eq("order-1"), eq(result));
-        verify(idempotencyCache).mark("order-1");
+        verify(idempotencyStore).mark(record, "order-1");
     }
 
     @Test
     void onOrderCreated_duplicate_shouldSkip() {
         ConsumerRecord<String, OrderCreated> record = buildRecord("order-1");
-        when(idempotencyCache.contains("order-1")).thenReturn(true);
+        when(idempotencyStore.contains(record, "order-1")).thenReturn(true);
 
         listener.onOrderCreated(record);
 
-        verify(reservationService, never()).reserve(any());
+        verify(reservationService, never()).reserve(any(OrderCreated.class));
         verify(eventPublisher, never()).publish(any(), any());
     }
 
     @Test
     void onOrderCreated_shouldClearMdc() {
         ConsumerRecord<String, OrderCreated> record = buildRecord("order-1");
-        when(idempotencyCache.contains("order-1")).thenReturn(false);
-        when(reservationService.reserve(any())).thenReturn(
+        when(idempotencyStore.contains(record, "order-1")).thenReturn(false);
+        when(reservationService.reserve(any(OrderCreated.class))).thenReturn(
                 StockReserved.newBuilder()
                         .setOrderId("order-1")
                         .setLines(List.of(new OrderLine("SKU-001", 1)))
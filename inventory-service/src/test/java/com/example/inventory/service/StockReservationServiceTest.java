@@ -1,6 +1,7 @@
 package com.example.inventory.service;
 
 import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderCreatedV2;
 import com.example.common.avro.OrderLine;
 import com.example.common.avro.StockRejected;
 import com.example.common.avro.StockReserved;
@@ -8,7 +9,10 @@ import org.apache.avro.specific.SpecificRecordBase;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -128,4 +132,22 @@ class StockReservationServiceTest {
         StockReserved reserved = (StockReserved) result;
         assertThat(reserved.getLines()).hasSize(3);
     }
+
+    @Test
+    void reserve_v2AvailableStock_shouldReturnStockReservedWithStringOrderId() {
+        UUID orderId = UUID.randomUUID();
+        OrderCreatedV2 order = OrderCreatedV2.newBuilder()
+                .setId(orderId)
+                .setCustomerId("cust-1")
+                .setLines(List.of(new OrderLine("SKU-003", 5)))
+                .setTotal(new BigDecimal("100.00"))
+                .setStatus("CREATED")
+                .setCreatedAt(Instant.parse("2025-01-01T00:00:00Z"))
+                .build();
+
+        SpecificRecordBase result = service.reserve(order);
+
+        assertThat(result).isInstanceOf(StockReserved.class);
+        assertThat(((StockReserved) result).getOrderId()).isEqualTo(orderId.toString());
+    }
 }
@@ -0,0 +1,16 @@
+package com.example.loadgen;
+
+import com.example.loadgen.config.LoadGeneratorProperties;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+@SpringBootApplication
+@EnableConfigurationProperties(LoadGeneratorProperties.class)
+public class LoadGeneratorApplication {
+
+    public static void main(String[] args) {
+        // Kafka listener threads keep the JVM alive; exit once the run has been reported.
+        System.exit(SpringApplication.exit(SpringApplication.run(LoadGeneratorApplication.class, args)));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.loadgen.client;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Body of {@code POST /orders}, mirroring order-service's {@code CreateOrderRequest}.
+ */
+public record CreateOrderRequest(
+        String customerId,
+        List<OrderLine> lines,
+        BigDecimal total
+) {
+
+    public record OrderLine(String sku, int qty) {
+    }
+}
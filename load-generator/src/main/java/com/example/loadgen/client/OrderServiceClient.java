@@ -0,0 +1,37 @@
+package com.example.loadgen.client;
+
+import com.example.loadgen.config.LoadGeneratorProperties;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.Optional;
+
+@Component
+public class OrderServiceClient {
+
+    private static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
+
+    private final RestClient restClient;
+    private final String createMode;
+
+    public OrderServiceClient(RestClient.Builder builder, LoadGeneratorProperties properties) {
+        this.restClient = builder.baseUrl(properties.orderServiceUrl()).build();
+        this.createMode = properties.createMode();
+    }
+
+    public CreateOrderResponse createOrder(CreateOrderRequest request, String correlationId) {
+        return restClient.post()
+                .uri(uri -> uri.path("/orders")
+                        .queryParamIfPresent("mode", Optional.ofNullable(createMode))
+                        .build())
+                .header(CORRELATION_ID_HEADER, correlationId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(request)
+                .retrieve()
+                .body(CreateOrderResponse.class);
+    }
+
+    public record CreateOrderResponse(String orderId, String status) {
+    }
+}
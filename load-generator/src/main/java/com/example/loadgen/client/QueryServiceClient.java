@@ -0,0 +1,34 @@
+package com.example.loadgen.client;
+
+import com.example.loadgen.config.LoadGeneratorProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.Optional;
+
+@Component
+public class QueryServiceClient {
+
+    private final RestClient restClient;
+
+    public QueryServiceClient(RestClient.Builder builder, LoadGeneratorProperties properties) {
+        this.restClient = builder.baseUrl(properties.queryServiceUrl()).build();
+    }
+
+    /**
+     * Returns the materialized final status, or empty while the order is unknown to
+     * query-service or still being aggregated.
+     */
+    public Optional<String> findFinalStatus(String orderId) {
+        OrderViewResponse view = restClient.get()
+                .uri("/orders/{id}", orderId)
+                .retrieve()
+                .onStatus(status -> status.isSameCodeAs(HttpStatus.NOT_FOUND), (request, response) -> { })
+                .body(OrderViewResponse.class);
+        return Optional.ofNullable(view).map(OrderViewResponse::finalStatus);
+    }
+
+    public record OrderViewResponse(String id, String finalStatus) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.loadgen.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@code createMode}, when set, is sent as order-service's {@code mode} parameter, e.g.
+ * {@code BROKER_ACK}, so create latency can be compared across modes; otherwise order-service
+ * uses its configured default.
+ */
+@ConfigurationProperties("loadgen")
+public record LoadGeneratorProperties(
+        @DefaultValue("http://localhost:8081") String orderServiceUrl,
+        @DefaultValue("http://localhost:8085") String queryServiceUrl,
+        @DefaultValue("50") double ratePerSecond,
+        @DefaultValue("60s") Duration duration,
+        @DefaultValue("30s") Duration drainTimeout,
+        @DefaultValue("5s") Duration reportInterval,
+        @DefaultValue("30s") Duration assignmentTimeout,
+        @DefaultValue("STREAM") FinalStatusMode finalStatusMode,
+        @DefaultValue("250ms") Duration pollInterval,
+        String createMode,
+        @DefaultValue Customers customers,
+        @DefaultValue Skus skus,
+        @DefaultValue Totals totals
+) {
+
+    public enum FinalStatusMode {
+        /** Consume {@code OrderStatusChanged} from {@code order-status.v1}. */
+        STREAM,
+        /** Poll {@code GET /orders/{id}} on query-service until a final status is materialized. */
+        POLL
+    }
+
+    public enum DistributionType {
+        UNIFORM,
+        ZIPF
+    }
+
+    public record Customers(
+            @DefaultValue("1000") int count,
+            @DefaultValue("ZIPF") DistributionType distribution,
+            @DefaultValue("1.1") double zipfExponent
+    ) {
+    }
+
+    public record Skus(
+            @DefaultValue({"SKU-001", "SKU-002", "SKU-003", "SKU-004", "SKU-005"}) List<String> ids,
+            @DefaultValue("ZIPF") DistributionType distribution,
+            @DefaultValue("1.1") double zipfExponent,
+            @DefaultValue("3") int maxLines,
+            @DefaultValue("3") int maxQty
+    ) {
+    }
+
+    /**
+     * Order totals are drawn within {@code spread} (as a fraction) of the payment service's
+     * approval threshold; {@code aboveThresholdRatio} of them land at or above it.
+     */
+    public record Totals(
+            @DefaultValue("1000") BigDecimal approvalThreshold,
+            @DefaultValue("0.5") double spread,
+            @DefaultValue("0.1") double aboveThresholdRatio
+    ) {
+    }
+}
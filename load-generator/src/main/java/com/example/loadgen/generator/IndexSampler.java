@@ -0,0 +1,65 @@
+package com.example.loadgen.generator;
+
+import com.example.loadgen.config.LoadGeneratorProperties.DistributionType;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Samples an index in {@code [0, size)} either uniformly or from a Zipf distribution in which
+ * index 0 is the most popular. The Zipf CDF is precomputed, so a sample is one binary search.
+ */
+public final class IndexSampler {
+
+    private final int size;
+    private final double[] cdf;
+
+    private IndexSampler(int size, double[] cdf) {
+        this.size = size;
+        this.cdf = cdf;
+    }
+
+    public static IndexSampler uniform(int size) {
+        requirePositive(size);
+        return new IndexSampler(size, null);
+    }
+
+    public static IndexSampler zipf(int size, double exponent) {
+        requirePositive(size);
+        double[] cdf = new double[size];
+        double sum = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            sum += 1.0 / Math.pow(rank, exponent);
+            cdf[rank - 1] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= sum;
+        }
+        return new IndexSampler(size, cdf);
+    }
+
+    public static IndexSampler of(DistributionType type, int size, double zipfExponent) {
+        return switch (type) {
+            case UNIFORM -> uniform(size);
+            case ZIPF -> zipf(size, zipfExponent);
+        };
+    }
+
+    public int next(RandomGenerator random) {
+        if (cdf == null) {
+            return random.nextInt(size);
+        }
+        int i = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, size - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static void requirePositive(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Sampler size must be positive: " + size);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.loadgen.generator;
+
+import com.example.loadgen.client.CreateOrderRequest;
+import com.example.loadgen.config.LoadGeneratorProperties;
+import com.example.loadgen.config.LoadGeneratorProperties.Customers;
+import com.example.loadgen.config.LoadGeneratorProperties.Skus;
+import com.example.loadgen.config.LoadGeneratorProperties.Totals;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Builds randomized {@link CreateOrderRequest}s: customers and SKUs follow the configured
+ * distributions, and totals straddle the payment approval threshold so both the authorized and
+ * the failed payment paths carry traffic.
+ */
+@Component
+public class OrderRequestFactory {
+
+    private final IndexSampler customers;
+    private final IndexSampler skus;
+    private final List<String> skuIds;
+    private final int maxLines;
+    private final int maxQty;
+    private final long thresholdCents;
+    private final long lowestCents;
+    private final long highestCents;
+    private final double aboveThresholdRatio;
+
+    public OrderRequestFactory(LoadGeneratorProperties properties) {
+        Customers customerConfig = properties.customers();
+        Skus skuConfig = properties.skus();
+        Totals totals = properties.totals();
+
+        this.customers = IndexSampler.of(customerConfig.distribution(), customerConfig.count(),
+                customerConfig.zipfExponent());
+        this.skus = IndexSampler.of(skuConfig.distribution(), skuConfig.ids().size(),
+                skuConfig.zipfExponent());
+        this.skuIds = List.copyOf(skuConfig.ids());
+        this.maxLines = Math.min(skuConfig.maxLines(), skuIds.size());
+        this.maxQty = skuConfig.maxQty();
+
+        this.thresholdCents = totals.approvalThreshold().movePointRight(2).longValueExact();
+        long spreadCents = Math.max(1, Math.round(thresholdCents * totals.spread()));
+        this.lowestCents = Math.max(1, thresholdCents - spreadCents);
+        this.highestCents = thresholdCents + spreadCents;
+        this.aboveThresholdRatio = totals.aboveThresholdRatio();
+    }
+
+    public CreateOrderRequest next(RandomGenerator random) {
+        String customerId = "customer-" + customers.next(random);
+
+        int lineCount = 1 + random.nextInt(maxLines);
+        List<CreateOrderRequest.OrderLine> lines = new ArrayList<>(lineCount);
+        List<String> used = new ArrayList<>(lineCount);
+        // Bounded retries keep a heavily skewed SKU distribution from spinning on duplicates.
+        for (int attempt = 0; lines.size() < lineCount && attempt < lineCount * 8; attempt++) {
+            String sku = skuIds.get(skus.next(random));
+            if (!used.contains(sku)) {
+                used.add(sku);
+                lines.add(new CreateOrderRequest.OrderLine(sku, 1 + random.nextInt(maxQty)));
+            }
+        }
+
+        return new CreateOrderRequest(customerId, lines, nextTotal(random));
+    }
+
+    private BigDecimal nextTotal(RandomGenerator random) {
+        long cents = random.nextDouble() < aboveThresholdRatio
+                ? random.nextLong(thresholdCents, highestCents + 1)
+                : random.nextLong(lowestCents, thresholdCents);
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
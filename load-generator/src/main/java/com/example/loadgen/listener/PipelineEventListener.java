@@ -0,0 +1,66 @@
+package com.example.loadgen.listener;
+
+import com.example.common.CorrelationIdUtils;
+import com.example.common.TopicNames;
+import com.example.common.avro.OrderStatusChanged;
+import com.example.common.avro.PaymentAuthorized;
+import com.example.common.avro.PaymentFailed;
+import com.example.common.avro.StockRejected;
+import com.example.common.avro.StockReserved;
+import com.example.loadgen.metrics.LatencyTracker;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Observes the pipeline's outcome topics. Arrival is timestamped on receipt, so latencies
+ * include the hop to this consumer, just as they would for any downstream reader. Events for
+ * orders this run did not send are ignored.
+ */
+@Component
+public class PipelineEventListener {
+
+    private final LatencyTracker tracker;
+
+    public PipelineEventListener(LatencyTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @KafkaListener(topics = TopicNames.PAYMENTS, groupId = "${loadgen.consumer-group}")
+    public void onPaymentOutcome(ConsumerRecord<String, Object> record) {
+        long arrived = System.nanoTime();
+        if (!tracker.isOwn(CorrelationIdUtils.getFromHeaders(record))) {
+            return;
+        }
+        if (record.value() instanceof PaymentAuthorized event) {
+            tracker.paymentOutcome(event.getOrderId(), true, arrived);
+        } else if (record.value() instanceof PaymentFailed event) {
+            tracker.paymentOutcome(event.getOrderId(), false, arrived);
+        }
+    }
+
+    @KafkaListener(topics = TopicNames.INVENTORY, groupId = "${loadgen.consumer-group}")
+    public void onInventoryOutcome(ConsumerRecord<String, Object> record) {
+        long arrived = System.nanoTime();
+        if (!tracker.isOwn(CorrelationIdUtils.getFromHeaders(record))) {
+            return;
+        }
+        if (record.value() instanceof StockReserved event) {
+            tracker.inventoryOutcome(event.getOrderId(), true, arrived);
+        } else if (record.value() instanceof StockRejected event) {
+            tracker.inventoryOutcome(event.getOrderId(), false, arrived);
+        }
+    }
+
+    @KafkaListener(topics = TopicNames.ORDER_STATUS, groupId = "${loadgen.consumer-group}",
+            autoStartup = "#{'${loadgen.final-status-mode:STREAM}' == 'STREAM'}")
+    public void onOrderStatusChanged(ConsumerRecord<String, Object> record) {
+        long arrived = System.nanoTime();
+        if (!tracker.isOwn(CorrelationIdUtils.getFromHeaders(record))) {
+            return;
+        }
+        if (record.value() instanceof OrderStatusChanged event) {
+            tracker.finalStatus(event.getOrderId(), event.getFinalStatus(), arrived);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.loadgen.metrics;
+
+import com.example.loadgen.metrics.LatencyTracker.Outcome;
+import com.example.loadgen.metrics.LatencyTracker.Stage;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+@Component
+public class LatencyReporter {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyReporter.class);
+
+    /** HdrHistogram values are in microseconds; report them in milliseconds. */
+    private static final double OUTPUT_SCALING_RATIO = 1000.0;
+
+    private final LatencyTracker tracker;
+
+    public LatencyReporter(LatencyTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    public void reportInterval() {
+        Map<Stage, Histogram> interval = tracker.drainInterval();
+        StringBuilder line = new StringBuilder("interval:");
+        interval.forEach((stage, histogram) -> line.append(' ').append(summary(stage, histogram)));
+        line.append(" inFlight=").append(tracker.inFlight());
+        log.info(line.toString());
+    }
+
+    public void reportTotals() {
+        tracker.drainInterval();
+        Map<Stage, Histogram> totals = tracker.totals();
+
+        StringBuilder report = new StringBuilder("\n=== Load generator results (latency in ms) ===\n");
+        report.append(String.format("%-20s %10s %10s %10s %10s %10s %10s%n",
+                "stage", "count", "p50", "p90", "p99", "p99.9", "max"));
+        totals.forEach((stage, h) -> report.append(String.format(
+                "%-20s %10d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                stage, h.getTotalCount(),
+                millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(90)),
+                millis(h.getValueAtPercentile(99)), millis(h.getValueAtPercentile(99.9)),
+                millis(h.getMaxValue()))));
+
+        report.append("\noutcomes:");
+        for (Outcome outcome : Outcome.values()) {
+            report.append(' ').append(outcome).append('=').append(tracker.count(outcome));
+        }
+        report.append(" unfinished=").append(tracker.inFlight()).append('\n');
+
+        for (Map.Entry<Stage, Histogram> entry : totals.entrySet()) {
+            report.append("\n--- ").append(entry.getKey()).append(" percentile distribution ---\n");
+            report.append(percentileDistribution(entry.getValue()));
+        }
+        log.info(report.toString());
+    }
+
+    private static String summary(Stage stage, Histogram histogram) {
+        return String.format("%s[n=%d p50=%.1f p99=%.1f max=%.1f]", stage, histogram.getTotalCount(),
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static String percentileDistribution(Histogram histogram) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PrintStream printStream = new PrintStream(out, true, StandardCharsets.UTF_8)) {
+            histogram.outputPercentileDistribution(printStream, 5, OUTPUT_SCALING_RATIO);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static double millis(long micros) {
+        return micros / OUTPUT_SCALING_RATIO;
+    }
+}
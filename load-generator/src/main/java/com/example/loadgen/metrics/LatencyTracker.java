@@ -0,0 +1,239 @@
+package com.example.loadgen.metrics;
+
+import com.example.loadgen.config.LoadGeneratorProperties;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Correlates pipeline events with the orders the generator created and records the latency of
+ * each {@link Stage} in microseconds.
+ * <p>
+ * Latencies are measured from the <em>intended</em> send time of the request rather than the
+ * moment it actually went out, so a stalled pipeline shows up in the histograms instead of
+ * silently lowering the offered rate (coordinated omission). Events can overtake the HTTP
+ * response that tells us the order ID; their arrival time is kept until the order is registered.
+ * <p>
+ * The pipeline topics are shared with any other traffic, so only events carrying a correlation
+ * ID from {@link #nextCorrelationId()} are this run's. An order still missing events after
+ * {@code loadgen.drain-timeout}, or events whose order was never registered, are dropped at the
+ * next {@link #drainInterval()} and the order counted as {@link Outcome#TIMED_OUT}.
+ */
+@Component
+public class LatencyTracker {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    public enum Stage {
+        CREATE,
+        PAYMENT_AUTHORIZED,
+        STOCK_RESERVED,
+        FINAL_STATUS
+    }
+
+    public enum Outcome {
+        CREATE_FAILED,
+        PAYMENT_AUTHORIZED,
+        PAYMENT_FAILED,
+        STOCK_RESERVED,
+        STOCK_REJECTED,
+        CONFIRMED,
+        REJECTED,
+        TIMED_OUT
+    }
+
+    private final Map<Stage, Recorder> recorders = new EnumMap<>(Stage.class);
+    private final Map<Stage, Histogram> totals = new EnumMap<>(Stage.class);
+    private final Map<Outcome, LongAdder> outcomes = new EnumMap<>(Outcome.class);
+    private final ConcurrentHashMap<String, OrderTimeline> timelines = new ConcurrentHashMap<>();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final String runPrefix = "loadgen-" + UUID.randomUUID() + "-";
+    private final AtomicLong correlationSequence = new AtomicLong();
+    private final long timeoutNanos;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public LatencyTracker(LoadGeneratorProperties properties) {
+        this(properties.drainTimeout(), System::nanoTime);
+    }
+
+    LatencyTracker(Duration timeout, LongSupplier nanoClock) {
+        this.timeoutNanos = timeout.toNanos();
+        this.nanoClock = nanoClock;
+        for (Stage stage : Stage.values()) {
+            recorders.put(stage, new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+            totals.put(stage, new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+        }
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, new LongAdder());
+        }
+    }
+
+    public void orderCreated(String orderId, long intendedStartNanos, long respondedNanos) {
+        record(Stage.CREATE, respondedNanos - intendedStartNanos);
+        inFlight.incrementAndGet();
+        OrderTimeline timeline = timelines.computeIfAbsent(orderId, k -> new OrderTimeline(nanoClock.getAsLong()));
+        complete(orderId, timeline, timeline.start(intendedStartNanos));
+    }
+
+    /** Correlation ID to send with the next order; order-service passes it on to its events. */
+    public String nextCorrelationId() {
+        return runPrefix + correlationSequence.incrementAndGet();
+    }
+
+    /** Whether an event with this correlation ID belongs to an order this run sent. */
+    public boolean isOwn(String correlationId) {
+        return correlationId != null && correlationId.startsWith(runPrefix);
+    }
+
+    public void createFailed() {
+        outcomes.get(Outcome.CREATE_FAILED).increment();
+    }
+
+    public void paymentOutcome(String orderId, boolean authorized, long arrivedNanos) {
+        outcomes.get(authorized ? Outcome.PAYMENT_AUTHORIZED : Outcome.PAYMENT_FAILED).increment();
+        if (authorized) {
+            milestone(orderId, Stage.PAYMENT_AUTHORIZED, arrivedNanos);
+        }
+    }
+
+    public void inventoryOutcome(String orderId, boolean reserved, long arrivedNanos) {
+        outcomes.get(reserved ? Outcome.STOCK_RESERVED : Outcome.STOCK_REJECTED).increment();
+        if (reserved) {
+            milestone(orderId, Stage.STOCK_RESERVED, arrivedNanos);
+        }
+    }
+
+    public void finalStatus(String orderId, String finalStatus, long arrivedNanos) {
+        outcomes.get("CONFIRMED".equals(finalStatus) ? Outcome.CONFIRMED : Outcome.REJECTED).increment();
+        milestone(orderId, Stage.FINAL_STATUS, arrivedNanos);
+    }
+
+    /** Orders created by this run that have not reached a final status yet. */
+    public long inFlight() {
+        return inFlight.get();
+    }
+
+    public long count(Outcome outcome) {
+        return outcomes.get(outcome).sum();
+    }
+
+    /**
+     * Moves everything recorded since the previous call into the run totals and returns it
+     * per stage, and drops timelines older than the timeout. Meant to be called from a single
+     * reporting thread.
+     */
+    public synchronized Map<Stage, Histogram> drainInterval() {
+        expire(nanoClock.getAsLong() - timeoutNanos);
+        Map<Stage, Histogram> interval = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            Histogram histogram = recorders.get(stage).getIntervalHistogram();
+            totals.get(stage).add(histogram);
+            interval.put(stage, histogram);
+        }
+        return interval;
+    }
+
+    public synchronized Map<Stage, Histogram> totals() {
+        Map<Stage, Histogram> copy = new EnumMap<>(Stage.class);
+        totals.forEach((stage, histogram) -> copy.put(stage, histogram.copy()));
+        return copy;
+    }
+
+    private void expire(long createdBeforeNanos) {
+        timelines.forEach((orderId, timeline) -> {
+            if (timeline.createdNanos - createdBeforeNanos < 0 && timelines.remove(orderId, timeline)
+                    && timeline.isStarted()) {
+                inFlight.decrementAndGet();
+                outcomes.get(Outcome.TIMED_OUT).increment();
+            }
+        });
+    }
+
+    private void milestone(String orderId, Stage stage, long arrivedNanos) {
+        OrderTimeline timeline = timelines.computeIfAbsent(orderId, k -> new OrderTimeline(nanoClock.getAsLong()));
+        complete(orderId, timeline, timeline.arrive(stage, arrivedNanos));
+    }
+
+    private void complete(String orderId, OrderTimeline timeline, long[] latencies) {
+        if (latencies == null) {
+            return;
+        }
+        for (Stage stage : Stage.values()) {
+            if (latencies[stage.ordinal()] >= 0) {
+                record(stage, latencies[stage.ordinal()]);
+            }
+        }
+        if (latencies[Stage.FINAL_STATUS.ordinal()] >= 0 && timelines.remove(orderId, timeline)) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void record(Stage stage, long nanos) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(Math.max(nanos, 0)), HIGHEST_TRACKABLE_MICROS);
+        recorders.get(stage).recordValue(micros);
+    }
+
+    /**
+     * Arrival times of one order's events. Returns the latencies that became measurable with
+     * each call ({@code -1} for the rest), or {@code null} if nothing new can be recorded.
+     */
+    private static final class OrderTimeline {
+
+        private static final long UNSET = -1;
+
+        private final long createdNanos;
+        private long startNanos = UNSET;
+        private final long[] arrivals = {UNSET, UNSET, UNSET, UNSET};
+
+        OrderTimeline(long createdNanos) {
+            this.createdNanos = createdNanos;
+        }
+
+        synchronized boolean isStarted() {
+            return startNanos != UNSET;
+        }
+
+        synchronized long[] start(long intendedStartNanos) {
+            startNanos = intendedStartNanos;
+            long[] latencies = empty();
+            boolean any = false;
+            for (Stage stage : Stage.values()) {
+                if (stage != Stage.CREATE && arrivals[stage.ordinal()] != UNSET) {
+                    latencies[stage.ordinal()] = arrivals[stage.ordinal()] - startNanos;
+                    any = true;
+                }
+            }
+            return any ? latencies : null;
+        }
+
+        synchronized long[] arrive(Stage stage, long arrivedNanos) {
+            if (arrivals[stage.ordinal()] != UNSET) {
+                return null;
+            }
+            arrivals[stage.ordinal()] = arrivedNanos;
+            if (startNanos == UNSET) {
+                return null;
+            }
+            long[] latencies = empty();
+            latencies[stage.ordinal()] = arrivedNanos - startNanos;
+            return latencies;
+        }
+
+        private static long[] empty() {
+            return new long[]{UNSET, UNSET, UNSET, UNSET};
+        }
+    }
+}
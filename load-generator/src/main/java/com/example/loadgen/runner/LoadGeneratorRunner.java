@@ -0,0 +1,157 @@
+package com.example.loadgen.runner;
+
+import com.example.loadgen.client.CreateOrderRequest;
+import com.example.loadgen.client.OrderServiceClient;
+import com.example.loadgen.client.OrderServiceClient.CreateOrderResponse;
+import com.example.loadgen.client.QueryServiceClient;
+import com.example.loadgen.config.LoadGeneratorProperties;
+import com.example.loadgen.config.LoadGeneratorProperties.FinalStatusMode;
+import com.example.loadgen.generator.OrderRequestFactory;
+import com.example.loadgen.metrics.LatencyReporter;
+import com.example.loadgen.metrics.LatencyTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives open-loop traffic: request {@code i} is due at {@code start + i / rate} regardless of
+ * how long earlier requests take, and each request runs on its own virtual thread so a slow
+ * order-service cannot throttle the offered load.
+ */
+@Component
+public class LoadGeneratorRunner implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadGeneratorRunner.class);
+
+    private final LoadGeneratorProperties properties;
+    private final OrderRequestFactory requestFactory;
+    private final OrderServiceClient orderServiceClient;
+    private final QueryServiceClient queryServiceClient;
+    private final LatencyTracker tracker;
+    private final LatencyReporter reporter;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+
+    public LoadGeneratorRunner(LoadGeneratorProperties properties,
+                               OrderRequestFactory requestFactory,
+                               OrderServiceClient orderServiceClient,
+                               QueryServiceClient queryServiceClient,
+                               LatencyTracker tracker,
+                               LatencyReporter reporter,
+                               KafkaListenerEndpointRegistry listenerRegistry) {
+        this.properties = properties;
+        this.requestFactory = requestFactory;
+        this.orderServiceClient = orderServiceClient;
+        this.queryServiceClient = queryServiceClient;
+        this.tracker = tracker;
+        this.reporter = reporter;
+        this.listenerRegistry = listenerRegistry;
+    }
+
+    @Override
+    public void run(String... args) throws InterruptedException {
+        awaitPartitionAssignment();
+
+        long totalRequests = (long) (properties.ratePerSecond() * properties.duration().toMillis() / 1000.0);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / properties.ratePerSecond());
+        log.info("Sending {} orders at {}/s for {} (create mode {}, final status via {})",
+                totalRequests, properties.ratePerSecond(), properties.duration(),
+                properties.createMode() != null ? properties.createMode() : "default", properties.finalStatusMode());
+
+        ScheduledExecutorService reporting = Executors.newSingleThreadScheduledExecutor();
+        long reportMillis = properties.reportInterval().toMillis();
+        reporting.scheduleAtFixedRate(reporter::reportInterval, reportMillis, reportMillis, TimeUnit.MILLISECONDS);
+
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            for (long i = 0; i < totalRequests; i++) {
+                long intendedStart = start + i * intervalNanos;
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                requests.submit(() -> sendOrder(intendedStart));
+            }
+        }
+
+        awaitDrain();
+        reporting.shutdownNow();
+        reporter.reportTotals();
+    }
+
+    private void sendOrder(long intendedStart) {
+        CreateOrderRequest request = requestFactory.next(ThreadLocalRandom.current());
+        CreateOrderResponse response;
+        try {
+            response = orderServiceClient.createOrder(request, tracker.nextCorrelationId());
+        } catch (RestClientException e) {
+            tracker.createFailed();
+            log.warn("Create order failed: {}", e.getMessage());
+            return;
+        }
+        tracker.orderCreated(response.orderId(), intendedStart, System.nanoTime());
+
+        if (properties.finalStatusMode() == FinalStatusMode.POLL) {
+            pollFinalStatus(response.orderId());
+        }
+    }
+
+    /**
+     * Polling adds up to one {@code poll-interval} of latency to the final-status stage; use
+     * STREAM mode when that granularity matters.
+     */
+    private void pollFinalStatus(String orderId) {
+        long deadline = System.nanoTime() + properties.drainTimeout().toNanos();
+        long pollNanos = properties.pollInterval().toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Optional<String> finalStatus = queryServiceClient.findFinalStatus(orderId);
+                if (finalStatus.isPresent()) {
+                    tracker.finalStatus(orderId, finalStatus.get(), System.nanoTime());
+                    return;
+                }
+            } catch (RestClientException e) {
+                log.debug("Polling order {} failed: {}", orderId, e.getMessage());
+            }
+            LockSupport.parkNanos(pollNanos);
+        }
+    }
+
+    private void awaitPartitionAssignment() throws InterruptedException {
+        long deadline = System.nanoTime() + properties.assignmentTimeout().toNanos();
+        while (System.nanoTime() < deadline) {
+            boolean assigned = listenerRegistry.getListenerContainers().stream()
+                    .filter(MessageListenerContainer::isRunning)
+                    .map(MessageListenerContainer::getAssignedPartitions)
+                    .allMatch(partitions -> partitions != null && !partitions.isEmpty());
+            if (assigned) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        log.warn("Listeners not assigned within {}; early pipeline events may be missed",
+                properties.assignmentTimeout());
+    }
+
+    private void awaitDrain() throws InterruptedException {
+        long deadline = System.nanoTime() + properties.drainTimeout().toNanos();
+        while (tracker.inFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        if (tracker.inFlight() > 0) {
+            log.warn("{} orders did not reach a final status within {}",
+                    tracker.inFlight(), properties.drainTimeout());
+        }
+    }
+}
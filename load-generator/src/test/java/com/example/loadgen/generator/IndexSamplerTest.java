@@ -0,0 +1,53 @@
+package com.example.loadgen.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IndexSamplerTest {
+
+    private static final int SAMPLES = 100_000;
+
+    @Test
+    void uniform_shouldStayInRangeAndSpreadEvenly() {
+        int[] counts = sample(IndexSampler.uniform(4));
+
+        for (int count : counts) {
+            assertThat(count).isBetween(SAMPLES / 4 - 2_000, SAMPLES / 4 + 2_000);
+        }
+    }
+
+    @Test
+    void zipf_shouldFavourLowRanks() {
+        int[] counts = sample(IndexSampler.zipf(100, 1.1));
+
+        assertThat(counts[0]).isGreaterThan(counts[1]);
+        assertThat(counts[1]).isGreaterThan(counts[10]);
+        assertThat(counts[0]).isGreaterThan(SAMPLES / 10);
+    }
+
+    @Test
+    void zipf_singleElement_shouldAlwaysReturnZero() {
+        int[] counts = sample(IndexSampler.zipf(1, 1.1));
+
+        assertThat(counts[0]).isEqualTo(SAMPLES);
+    }
+
+    @Test
+    void create_nonPositiveSize_shouldThrow() {
+        assertThatThrownBy(() -> IndexSampler.uniform(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static int[] sample(IndexSampler sampler) {
+        SplittableRandom random = new SplittableRandom(42);
+        int[] counts = new int[sampler.size()];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[sampler.next(random)]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.loadgen.generator;
+
+import com.example.loadgen.client.CreateOrderRequest;
+import com.example.loadgen.config.LoadGeneratorProperties;
+import com.example.loadgen.config.LoadGeneratorProperties.Customers;
+import com.example.loadgen.config.LoadGeneratorProperties.DistributionType;
+import com.example.loadgen.config.LoadGeneratorProperties.FinalStatusMode;
+import com.example.loadgen.config.LoadGeneratorProperties.Skus;
+import com.example.loadgen.config.LoadGeneratorProperties.Totals;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderRequestFactoryTest {
+
+    private static final BigDecimal THRESHOLD = new BigDecimal("1000");
+
+    private OrderRequestFactory factory(double aboveThresholdRatio) {
+        var properties = new LoadGeneratorProperties(
+                "http://order", "http://query", 10, Duration.ofSeconds(1), Duration.ofSeconds(1),
+                Duration.ofSeconds(1), Duration.ofSeconds(1), FinalStatusMode.STREAM, Duration.ofMillis(100), null,
+                new Customers(50, DistributionType.ZIPF, 1.1),
+                new Skus(List.of("SKU-001", "SKU-002", "SKU-003"), DistributionType.UNIFORM, 1.1, 3, 2),
+                new Totals(THRESHOLD, 0.2, aboveThresholdRatio));
+        return new OrderRequestFactory(properties);
+    }
+
+    @Test
+    void next_shouldProduceValidLinesWithDistinctSkus() {
+        OrderRequestFactory factory = factory(0.5);
+        SplittableRandom random = new SplittableRandom(7);
+
+        for (int i = 0; i < 1_000; i++) {
+            CreateOrderRequest request = factory.next(random);
+
+            assertThat(request.customerId()).startsWith("customer-");
+            assertThat(request.lines()).isNotEmpty().hasSizeLessThanOrEqualTo(3);
+            assertThat(request.lines()).extracting(CreateOrderRequest.OrderLine::sku).doesNotHaveDuplicates();
+            assertThat(request.lines()).allSatisfy(line -> assertThat(line.qty()).isBetween(1, 2));
+            assertThat(request.total().scale()).isEqualTo(2);
+            assertThat(request.total()).isBetween(new BigDecimal("800.00"), new BigDecimal("1200.00"));
+        }
+    }
+
+    @Test
+    void next_shouldSplitTotalsAroundThresholdByRatio() {
+        OrderRequestFactory factory = factory(0.25);
+        SplittableRandom random = new SplittableRandom(7);
+
+        int above = 0;
+        int samples = 10_000;
+        for (int i = 0; i < samples; i++) {
+            if (factory.next(random).total().compareTo(THRESHOLD) >= 0) {
+                above++;
+            }
+        }
+
+        assertThat(above).isBetween(2_250, 2_750);
+    }
+
+    @Test
+    void next_noneAboveThreshold_shouldStayBelowThreshold() {
+        OrderRequestFactory factory = factory(0.0);
+        SplittableRandom random = new SplittableRandom(7);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(factory.next(random).total()).isLessThan(THRESHOLD);
+        }
+    }
+}
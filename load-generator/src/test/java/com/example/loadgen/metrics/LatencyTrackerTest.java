@@ -0,0 +1,135 @@
+package com.example.loadgen.metrics;
+
+import com.example.loadgen.metrics.LatencyTracker.Outcome;
+import com.example.loadgen.metrics.LatencyTracker.Stage;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyTrackerTest {
+
+    private static final long START = TimeUnit.SECONDS.toNanos(100);
+
+    private final AtomicLong clock = new AtomicLong(START);
+    private LatencyTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new LatencyTracker(Duration.ofSeconds(30), clock::get);
+    }
+
+    @Test
+    void events_afterCreate_shouldRecordLatencyFromIntendedStart() {
+        tracker.orderCreated("order-1", START, START + millis(5));
+        tracker.paymentOutcome("order-1", true, START + millis(20));
+        tracker.inventoryOutcome("order-1", true, START + millis(30));
+        tracker.finalStatus("order-1", "CONFIRMED", START + millis(50));
+
+        Map<Stage, Histogram> interval = tracker.drainInterval();
+
+        assertThat(maxMillis(interval, Stage.CREATE)).isEqualTo(5);
+        assertThat(maxMillis(interval, Stage.PAYMENT_AUTHORIZED)).isEqualTo(20);
+        assertThat(maxMillis(interval, Stage.STOCK_RESERVED)).isEqualTo(30);
+        assertThat(maxMillis(interval, Stage.FINAL_STATUS)).isEqualTo(50);
+        assertThat(tracker.inFlight()).isZero();
+        assertThat(tracker.count(Outcome.CONFIRMED)).isEqualTo(1);
+    }
+
+    @Test
+    void events_beforeCreateResponse_shouldBeRecordedOnceOrderIsKnown() {
+        tracker.paymentOutcome("order-1", true, START + millis(8));
+
+        assertThat(tracker.drainInterval().get(Stage.PAYMENT_AUTHORIZED).getTotalCount()).isZero();
+
+        tracker.orderCreated("order-1", START, START + millis(10));
+
+        assertThat(maxMillis(tracker.drainInterval(), Stage.PAYMENT_AUTHORIZED)).isEqualTo(8);
+        assertThat(tracker.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void failedOutcomes_shouldBeCountedButNotTimed() {
+        tracker.orderCreated("order-1", START, START + millis(5));
+        tracker.paymentOutcome("order-1", false, START + millis(20));
+        tracker.inventoryOutcome("order-1", false, START + millis(20));
+        tracker.finalStatus("order-1", "REJECTED", START + millis(40));
+
+        Map<Stage, Histogram> interval = tracker.drainInterval();
+
+        assertThat(interval.get(Stage.PAYMENT_AUTHORIZED).getTotalCount()).isZero();
+        assertThat(interval.get(Stage.STOCK_RESERVED).getTotalCount()).isZero();
+        assertThat(interval.get(Stage.FINAL_STATUS).getTotalCount()).isEqualTo(1);
+        assertThat(tracker.count(Outcome.PAYMENT_FAILED)).isEqualTo(1);
+        assertThat(tracker.count(Outcome.STOCK_REJECTED)).isEqualTo(1);
+        assertThat(tracker.count(Outcome.REJECTED)).isEqualTo(1);
+    }
+
+    @Test
+    void duplicateEvents_shouldBeRecordedOnce() {
+        tracker.orderCreated("order-1", START, START + millis(5));
+        tracker.paymentOutcome("order-1", true, START + millis(20));
+        tracker.paymentOutcome("order-1", true, START + millis(25));
+
+        assertThat(tracker.drainInterval().get(Stage.PAYMENT_AUTHORIZED).getTotalCount()).isEqualTo(1);
+    }
+
+    @Test
+    void drainInterval_shouldAccumulateIntoTotals() {
+        tracker.orderCreated("order-1", START, START + millis(5));
+        tracker.drainInterval();
+        tracker.orderCreated("order-2", START, START + millis(7));
+        tracker.drainInterval();
+
+        assertThat(tracker.totals().get(Stage.CREATE).getTotalCount()).isEqualTo(2);
+    }
+
+    @Test
+    void drainInterval_orderMissingEventsPastTimeout_shouldBeCountedTimedOut() {
+        tracker.orderCreated("order-1", START, START + millis(5));
+        tracker.paymentOutcome("order-1", true, START + millis(20));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        tracker.drainInterval();
+        tracker.finalStatus("order-1", "CONFIRMED", clock.get());
+
+        assertThat(tracker.inFlight()).isZero();
+        assertThat(tracker.count(Outcome.TIMED_OUT)).isEqualTo(1);
+        assertThat(tracker.drainInterval().get(Stage.FINAL_STATUS).getTotalCount()).isZero();
+    }
+
+    @Test
+    void drainInterval_eventsForUnregisteredOrderPastTimeout_shouldBeDropped() {
+        tracker.paymentOutcome("order-1", true, START + millis(8));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        tracker.drainInterval();
+        tracker.orderCreated("order-1", START, clock.get());
+
+        assertThat(tracker.drainInterval().get(Stage.PAYMENT_AUTHORIZED).getTotalCount()).isZero();
+        assertThat(tracker.count(Outcome.TIMED_OUT)).isZero();
+    }
+
+    @Test
+    void isOwn_shouldOnlyAcceptCorrelationIdsFromThisTracker() {
+        LatencyTracker otherRun = new LatencyTracker(Duration.ofSeconds(30), clock::get);
+
+        assertThat(tracker.isOwn(tracker.nextCorrelationId())).isTrue();
+        assertThat(tracker.isOwn(otherRun.nextCorrelationId())).isFalse();
+        assertThat(tracker.isOwn(null)).isFalse();
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static long maxMillis(Map<Stage, Histogram> histograms, Stage stage) {
+        return Math.round(histograms.get(stage).getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.order.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many orders are being created at once, so that when the brokers slow down, excess
+ * requests are turned away straight away instead of queueing behind a full producer buffer.
+ * <p>
+ * With the WAL outbox an order is created once it is in the log, so the producer only backs up
+ * the relay, and the orders it holds back show as the outbox backlog instead. While more than
+ * {@code maxOutboxPending} orders are waiting there, every order is turned away, since a permit
+ * held only for an append caps concurrency rather than the rate the backlog grows at.
+ * <p>
+ * The limit adapts once per {@code sampleInterval}, AIMD style. It is cut by
+ * {@code backoffRatio} when the producer is backed up, i.e. its free buffer is below
+ * {@code minBufferAvailable}, records wait longer than {@code maxQueueTime} or more than
+ * {@code maxRequestsInFlight} requests are outstanding, when the outbox backlog is over its
+ * cap, or when orders took longer than {@code latencyTolerance} times their long-run average
+ * to complete. Otherwise it grows by the square root of itself, but only while at least half
+ * of it is in use, so an idle service does not build up a limit it never tested.
+ */
+public class AdmissionController implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionController.class);
+
+    /** Latency below this is never congestion, so WAL-only creates do not trip on jitter. */
+    private static final long LATENCY_FLOOR_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final double BASELINE_WEIGHT = 0.05;
+
+    private final Supplier<ProducerPressure> producerPressure;
+    private final LongSupplier outboxPending;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double minBufferAvailable;
+    private final double maxQueueTimeMs;
+    private final double maxRequestsInFlight;
+    private final long maxOutboxPending;
+    private final double latencyTolerance;
+    private final Duration sampleInterval;
+    private final Duration retryAfter;
+
+    private final Counter rejectedCounter;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    /** Whether the outbox backlog was over its cap when last sampled. */
+    private volatile boolean backlogged;
+
+    /** Guarded by {@code this}; collected between adjustments. */
+    private long windowLatencyNanos;
+    private int windowSamples;
+    private int windowPeak;
+    /** Long-run average order latency; only touched by {@link #adjust}. */
+    private double baselineNanos = Double.NaN;
+
+    private ScheduledExecutorService sampler;
+
+    public AdmissionController(Supplier<ProducerPressure> producerPressure, LongSupplier outboxPending,
+                               int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                               double minBufferAvailable, Duration maxQueueTime, int maxRequestsInFlight,
+                               long maxOutboxPending, double latencyTolerance, Duration sampleInterval,
+                               Duration retryAfter, MeterRegistry meterRegistry) {
+        this.producerPressure = producerPressure;
+        this.outboxPending = outboxPending;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.minBufferAvailable = minBufferAvailable;
+        this.maxQueueTimeMs = maxQueueTime.toNanos() / 1e6;
+        this.maxRequestsInFlight = maxRequestsInFlight;
+        this.maxOutboxPending = maxOutboxPending;
+        this.latencyTolerance = latencyTolerance;
+        this.sampleInterval = sampleInterval;
+        this.retryAfter = retryAfter;
+        this.rejectedCounter = Counter.builder("orders.admission.rejected")
+                .description("Orders turned away at the admission limit")
+                .register(meterRegistry);
+        Gauge.builder("orders.admission.limit", this, AdmissionController::limit)
+                .description("Orders that may be in creation at once")
+                .register(meterRegistry);
+        Gauge.builder("orders.admission.in-flight", inFlight, AtomicInteger::get)
+                .description("Orders in creation")
+                .register(meterRegistry);
+    }
+
+    /** Admits everything; for {@code orders.admission.enabled=false}. */
+    public static AdmissionController unlimited(MeterRegistry meterRegistry) {
+        return new AdmissionController(() -> ProducerPressure.NONE, () -> 0, Integer.MAX_VALUE, Integer.MAX_VALUE,
+                Integer.MAX_VALUE, 1, 0, Duration.ofDays(1), Integer.MAX_VALUE, Long.MAX_VALUE, Double.MAX_VALUE,
+                Duration.ofDays(1), Duration.ZERO, meterRegistry);
+    }
+
+    /**
+     * @return a permit to release once the order has completed, however it completed
+     * @throws OrderRejectedException if {@link #limit()} orders are already in flight, or the
+     *                                outbox backlog is over its cap
+     */
+    public Permit acquire() {
+        Permit permit = tryAcquire();
+        if (permit == null) {
+            rejectedCounter.increment();
+            throw new OrderRejectedException(limit, retryAfter);
+        }
+        return permit;
+    }
+
+    /**
+     * Waits up to {@code timeout} for an order to complete if {@link #limit()} orders are in
+     * flight, or for the outbox backlog to drop under its cap, for callers that can hold back
+     * their input rather than turn it away.
+     *
+     * @throws OrderRejectedException if none completed in time, or the wait was interrupted
+     */
+    public Permit acquire(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (this) {
+            Permit permit;
+            while ((permit = tryAcquire()) == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    rejectedCounter.increment();
+                    throw new OrderRejectedException(limit, retryAfter);
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OrderRejectedException(limit, retryAfter);
+                }
+            }
+            return permit;
+        }
+    }
+
+    /** @return a permit, or {@code null} without counting a rejection if none is free */
+    public Permit tryAcquire() {
+        if (backlogged) {
+            return null;
+        }
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return null;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        synchronized (this) {
+            windowPeak = Math.max(windowPeak, current + 1);
+        }
+        return new Permit(System.nanoTime());
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /** Applies one AIMD step from the producer's state and the latencies since the last one. */
+    void adjust() {
+        long latencyNanos;
+        int samples;
+        int peak;
+        synchronized (this) {
+            latencyNanos = windowLatencyNanos;
+            samples = windowSamples;
+            peak = Math.max(windowPeak, inFlight.get());
+            windowLatencyNanos = 0;
+            windowSamples = 0;
+            windowPeak = 0;
+        }
+
+        ProducerPressure pressure = producerPressure.get();
+        long pending = outboxPending.getAsLong();
+        boolean wasBacklogged = backlogged;
+        backlogged = pending > maxOutboxPending;
+        if (backlogged != wasBacklogged) {
+            log.info(backlogged ? "Turning orders away, {} waiting in the outbox"
+                    : "Admitting orders again, {} waiting in the outbox", pending);
+        }
+        boolean backedUp = backlogged
+                || pressure.bufferAvailableRatio() < minBufferAvailable
+                || pressure.recordQueueTimeMs() > maxQueueTimeMs
+                || pressure.requestsInFlight() > maxRequestsInFlight;
+        boolean slow = false;
+        if (samples > 0) {
+            double averageNanos = (double) latencyNanos / samples;
+            if (Double.isNaN(baselineNanos)) {
+                baselineNanos = averageNanos;
+            }
+            slow = averageNanos > Math.max(baselineNanos * latencyTolerance, LATENCY_FLOOR_NANOS);
+            baselineNanos += (averageNanos - baselineNanos) * BASELINE_WEIGHT;
+        }
+
+        if (wasBacklogged && !backlogged) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+        int current = limit;
+        if (backedUp || slow) {
+            limit = Math.max(minLimit, (int) (current * backoffRatio));
+            if (limit != current) {
+                log.debug("Admission limit cut to {}: {}, slow={}", limit, pressure, slow);
+            }
+        } else if (peak * 2 >= current) {
+            limit = (int) Math.min(maxLimit, current + Math.max(1, (long) Math.sqrt(current)));
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        sampler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("order-admission").daemon().factory());
+        long intervalNanos = sampleInterval.toNanos();
+        sampler.scheduleAtFixedRate(this::adjustSafely, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+            sampler = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return sampler != null;
+    }
+
+    /** A failure must not cancel the schedule, which would freeze the limit. */
+    private void adjustSafely() {
+        try {
+            adjust();
+        } catch (RuntimeException e) {
+            log.warn("Failed to adjust the admission limit: {}", e.getMessage(), e);
+        }
+    }
+
+    private synchronized void released(long latencyNanos) {
+        inFlight.decrementAndGet();
+        windowLatencyNanos += latencyNanos;
+        windowSamples++;
+        notifyAll();
+    }
+
+    /** One admitted order. */
+    public final class Permit {
+
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /** Releasing again has no effect. */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                released(System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.order.admission;
+
+import java.time.Duration;
+
+/**
+ * The order was turned away before being created, because the service is at its admission
+ * limit. Nothing was created; the client may retry after {@link #getRetryAfter()}.
+ */
+public class OrderRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public OrderRejectedException(int limit, Duration retryAfter) {
+        super("Order rejected: " + limit + " orders already in flight");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
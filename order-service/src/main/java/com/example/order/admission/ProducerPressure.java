@@ -0,0 +1,50 @@
+package com.example.order.admission;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import java.util.Map;
+
+/**
+ * How backed up the Kafka producer is, from its {@code producer-metrics} group.
+ *
+ * @param bufferAvailableRatio share of {@code buffer.memory} still free; sends block once it is 0
+ * @param recordQueueTimeMs    average time records wait in the accumulator before being sent
+ * @param requestsInFlight     produce requests awaiting a broker response
+ */
+public record ProducerPressure(double bufferAvailableRatio, double recordQueueTimeMs, double requestsInFlight) {
+
+    public static final ProducerPressure NONE = new ProducerPressure(1, 0, 0);
+
+    private static final String GROUP = "producer-metrics";
+
+    public static ProducerPressure from(Map<MetricName, ? extends Metric> metrics) {
+        double available = Double.NaN;
+        double total = Double.NaN;
+        double queueTime = 0;
+        double inFlight = 0;
+        for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+            MetricName name = entry.getKey();
+            if (!GROUP.equals(name.group())) {
+                continue;
+            }
+            switch (name.name()) {
+                case "buffer-available-bytes" -> available = value(entry.getValue());
+                case "buffer-total-bytes" -> total = value(entry.getValue());
+                case "record-queue-time-avg" -> queueTime = value(entry.getValue());
+                case "requests-in-flight" -> inFlight = value(entry.getValue());
+                default -> {
+                }
+            }
+        }
+        double ratio = available >= 0 && total > 0 ? available / total : 1;
+        return new ProducerPressure(ratio, queueTime, inFlight);
+    }
+
+    /** Averages over an empty window are NaN; no records means no waiting. */
+    private static double value(Metric metric) {
+        return metric.metricValue() instanceof Number number && !Double.isNaN(number.doubleValue())
+                ? number.doubleValue()
+                : 0;
+    }
+}
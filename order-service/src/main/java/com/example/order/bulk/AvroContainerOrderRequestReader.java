@@ -0,0 +1,68 @@
+package com.example.order.bulk;
+
+import com.example.common.avro.OrderRequest;
+import com.example.order.controller.dto.CreateOrderRequest;
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.specific.SpecificDatumReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An Avro object container file of {@link OrderRequest} records, read a block at a time. The
+ * writer's schema comes from the file header, so files written with an older version of the
+ * schema still resolve.
+ */
+class AvroContainerOrderRequestReader implements OrderRequestReader {
+
+    static final String MEDIA_TYPE_VALUE = "application/vnd.apache.avro.container";
+
+    private final InputStream body;
+    private final DataFileStream<OrderRequest> records;
+    private OrderRequest reuse;
+    private long line;
+
+    AvroContainerOrderRequestReader(InputStream body) throws IOException {
+        this.body = body;
+        this.records = new DataFileStream<>(body, new SpecificDatumReader<>(OrderRequest.class));
+    }
+
+    @Override
+    public CreateOrderRequest next() throws IOException {
+        try {
+            if (!records.hasNext()) {
+                return null;
+            }
+            reuse = records.next(reuse);
+        } catch (AvroRuntimeException e) {
+            // A corrupt block cannot be skipped to the next record.
+            throw new IOException("Unreadable Avro container: " + e.getMessage(), e);
+        }
+        line++;
+        try {
+            return CreateOrderRequest.fromAvro(reuse);
+        } catch (NumberFormatException e) {
+            throw new InvalidOrderRequestException("Malformed total: " + reuse.getTotal());
+        }
+    }
+
+    @Override
+    public long line() {
+        return line;
+    }
+
+    /**
+     * Only knows about bytes not yet taken from the body, so may report a block already in
+     * memory as not ready; that only ends a chunk early.
+     */
+    @Override
+    public boolean ready() throws IOException {
+        return body.available() > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        records.close();
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.order.bulk;
+
+import com.example.common.CorrelationIdUtils;
+import com.example.order.controller.dto.BulkOrderResult;
+import com.example.order.controller.dto.CreateOrderRequest;
+import com.example.order.model.Order;
+import com.example.order.outbox.CreateMode;
+import com.example.order.service.OrderNotAcknowledgedException;
+import com.example.order.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Creates the orders in a streamed request body as it arrives. Requests are decoded one at a
+ * time and handed to {@link OrderService#createOrders} in chunks of up to
+ * {@code orders.bulk.chunk-size}, or fewer when the client has sent nothing more yet, so the
+ * outbox appends and relays them together rather than one by one.
+ * <p>
+ * Each line's result is passed on as soon as its order is confirmed, so results arrive in the
+ * order they are confirmed rather than the order of the body. At most
+ * {@code orders.bulk.max-pending} orders wait for confirmation at once; reading the body stops
+ * until some are confirmed, which pushes back on the client instead of buffering. Each order
+ * also takes an admission permit; at the admission limit a chunk waits for capacity, holding
+ * back the body the same way, rather than being turned away.
+ */
+@Service
+public class BulkOrderService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkOrderService.class);
+
+    public static final String AVRO_CONTAINER_VALUE = AvroContainerOrderRequestReader.MEDIA_TYPE_VALUE;
+
+    private final OrderService orderService;
+    private final JsonMapper jsonMapper;
+    private final Executor bulkExecutor;
+    private final CreateMode defaultMode;
+    private final int chunkSize;
+    private final int maxPending;
+    private final boolean publishV2;
+
+    @Autowired
+    public BulkOrderService(OrderService orderService,
+                            JsonMapper jsonMapper,
+                            @Value("${orders.bulk.mode:BROKER_ACK}") CreateMode defaultMode,
+                            @Value("${orders.bulk.chunk-size:500}") int chunkSize,
+                            @Value("${orders.bulk.max-pending:1000}") int maxPending,
+                            @Value("${orders.publish.v2-enabled:false}") boolean publishV2) {
+        this(orderService, jsonMapper,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("order-bulk-", 0).factory()),
+                defaultMode, chunkSize, maxPending, publishV2);
+    }
+
+    BulkOrderService(OrderService orderService, JsonMapper jsonMapper, Executor bulkExecutor,
+                     CreateMode defaultMode, int chunkSize, int maxPending, boolean publishV2) {
+        this.orderService = orderService;
+        this.jsonMapper = jsonMapper;
+        this.bulkExecutor = bulkExecutor;
+        this.defaultMode = defaultMode;
+        this.chunkSize = chunkSize;
+        this.maxPending = Math.max(maxPending, chunkSize);
+        this.publishV2 = publishV2;
+    }
+
+    /**
+     * Reads {@code body} on a virtual thread, passing each line's result to {@code results} from
+     * one thread at a time. If {@code results} throws, e.g. because the client went away, the
+     * rest of the body is not read.
+     *
+     * @param contentType {@code application/x-ndjson} or {@link #AVRO_CONTAINER_VALUE}
+     * @param mode        how far each order must get before its result is passed on, or
+     *                    {@code orders.bulk.mode} when {@code null}
+     * @return completes once every line read has its result
+     */
+    public CompletableFuture<Void> createOrders(InputStream body, MediaType contentType, CreateMode mode,
+                                                Consumer<BulkOrderResult> results) {
+        CreateMode effectiveMode = mode != null ? mode : defaultMode;
+        String correlationId = CorrelationIdUtils.getFromMdc();
+        return CompletableFuture.runAsync(() -> {
+            CorrelationIdUtils.setInMdc(correlationId);
+            try (var ingestion = new Ingestion(effectiveMode, results)) {
+                ingestion.read(body, contentType);
+            } finally {
+                CorrelationIdUtils.clearMdc();
+            }
+        }, bulkExecutor);
+    }
+
+    private OrderRequestReader open(InputStream body, MediaType contentType) throws IOException {
+        if (MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+            return new NdjsonOrderRequestReader(body, jsonMapper);
+        }
+        if (MediaType.parseMediaType(AVRO_CONTAINER_VALUE).isCompatibleWith(contentType)) {
+            return new AvroContainerOrderRequestReader(body);
+        }
+        throw new IllegalArgumentException("Unsupported bulk content type: " + contentType);
+    }
+
+    private static BulkOrderResult result(long line, Order order, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+        if (cause == null) {
+            return new BulkOrderResult(line, order.getId(), "CREATED", null);
+        }
+        if (cause instanceof OrderNotAcknowledgedException notAcknowledged) {
+            return new BulkOrderResult(line, notAcknowledged.getOrder().getId(), "ACCEPTED", null);
+        }
+        return rejected(line, cause.getMessage());
+    }
+
+    private static BulkOrderResult rejected(long line, String error) {
+        return new BulkOrderResult(line, null, "REJECTED", error);
+    }
+
+    /** State of one bulk request; lives on its reading thread. */
+    private final class Ingestion implements AutoCloseable {
+
+        private final CreateMode mode;
+        private final Consumer<BulkOrderResult> results;
+        /** Passes results on one at a time, off the producer threads that confirm orders. */
+        private final ExecutorService writer =
+                Executors.newSingleThreadExecutor(Thread.ofVirtual().name("order-bulk-results-", 0).factory());
+        private final Semaphore pending = new Semaphore(maxPending);
+        private final List<CreateOrderRequest> chunk = new ArrayList<>(chunkSize);
+        private final List<Long> chunkLines = new ArrayList<>(chunkSize);
+        private volatile boolean cancelled;
+
+        private Ingestion(CreateMode mode, Consumer<BulkOrderResult> results) {
+            this.mode = mode;
+            this.results = results;
+        }
+
+        private void read(InputStream body, MediaType contentType) {
+            long line = 0;
+            try (OrderRequestReader reader = open(body, contentType)) {
+                while (!cancelled) {
+                    CreateOrderRequest request;
+                    try {
+                        request = reader.next();
+                    } catch (InvalidOrderRequestException e) {
+                        emit(rejected(reader.line(), e.getMessage()));
+                        continue;
+                    }
+                    line = reader.line();
+                    if (request == null) {
+                        break;
+                    }
+                    String invalid = request.validate(publishV2);
+                    if (invalid != null) {
+                        emit(rejected(line, invalid));
+                        continue;
+                    }
+                    chunk.add(request);
+                    chunkLines.add(line);
+                    if (chunk.size() >= chunkSize || !reader.ready()) {
+                        submitChunk();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Stopped reading bulk order request after line {}: {}", line, e.getMessage());
+                emit(rejected(line + 1, e.getMessage()));
+            }
+            submitChunk();
+        }
+
+        private void submitChunk() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            pending.acquireUninterruptibly(chunk.size());
+            awaitResultsWritten();
+            if (cancelled) {
+                pending.release(chunk.size());
+                chunk.clear();
+                chunkLines.clear();
+                return;
+            }
+            try {
+                List<CompletableFuture<Order>> created = orderService.createOrders(chunk, mode);
+                for (int i = 0; i < created.size(); i++) {
+                    long line = chunkLines.get(i);
+                    created.get(i).whenCompleteAsync((order, ex) -> {
+                        try {
+                            emitNow(result(line, order, ex));
+                        } finally {
+                            pending.release();
+                        }
+                    }, writer);
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to create a chunk of {} bulk orders: {}", chunk.size(), e.getMessage(), e);
+                pending.release(chunk.size());
+                for (long line : chunkLines) {
+                    emit(rejected(line, e.getMessage()));
+                }
+            } finally {
+                chunk.clear();
+                chunkLines.clear();
+            }
+        }
+
+        /**
+         * Waits for the results already handed to the writer, so that a failed delivery has
+         * cancelled the request before any more of its orders are created.
+         */
+        private void awaitResultsWritten() {
+            CompletableFuture.runAsync(() -> {
+            }, writer).join();
+        }
+
+        private void emit(BulkOrderResult result) {
+            writer.execute(() -> emitNow(result));
+        }
+
+        private void emitNow(BulkOrderResult result) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                results.accept(result);
+            } catch (RuntimeException e) {
+                log.info("Bulk order results can no longer be delivered, stopping: {}", e.getMessage());
+                cancelled = true;
+            }
+        }
+
+        /** Waits for every pending order's result to be passed on. */
+        @Override
+        public void close() {
+            pending.acquireUninterruptibly(maxPending);
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.order.bulk;
+
+/**
+ * One request in a bulk body cannot be decoded or is incomplete. Only that request is
+ * rejected.
+ */
+class InvalidOrderRequestException extends RuntimeException {
+
+    InvalidOrderRequestException(String message) {
+        super(message);
+    }
+
+    InvalidOrderRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
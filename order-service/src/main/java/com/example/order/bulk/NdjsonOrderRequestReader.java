@@ -0,0 +1,58 @@
+package com.example.order.bulk;
+
+import com.example.order.controller.dto.CreateOrderRequest;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/** One JSON {@link CreateOrderRequest} per line; blank lines are skipped. */
+class NdjsonOrderRequestReader implements OrderRequestReader {
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    private final BufferedReader reader;
+    private final JsonMapper jsonMapper;
+    private long line;
+
+    NdjsonOrderRequestReader(InputStream body, JsonMapper jsonMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), BUFFER_CHARS);
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public CreateOrderRequest next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+        try {
+            return jsonMapper.readValue(text, CreateOrderRequest.class);
+        } catch (JacksonException e) {
+            throw new InvalidOrderRequestException("Malformed JSON: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    @Override
+    public long line() {
+        return line;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        return reader.ready();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.order.bulk;
+
+import com.example.order.controller.dto.CreateOrderRequest;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads order requests one at a time from a request body, without holding more of it than the
+ * request being decoded.
+ */
+interface OrderRequestReader extends Closeable {
+
+    /**
+     * @return the next request, or {@code null} at the end of the body
+     * @throws InvalidOrderRequestException if this request cannot be decoded; the reader can
+     *                                      carry on with the next one
+     * @throws IOException                  if the body cannot be read any further
+     */
+    CreateOrderRequest next() throws IOException;
+
+    /** Line, or record, number of the request last returned or rejected, counting from 1. */
+    long line();
+
+    /** Whether {@link #next} can return without waiting for more of the body. */
+    boolean ready() throws IOException;
+}
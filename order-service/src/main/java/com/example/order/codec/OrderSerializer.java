@@ -0,0 +1,210 @@
+package com.example.order.codec;
+
+import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderLine;
+import com.example.order.model.Order;
+import com.example.order.model.OrderLineItem;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import io.confluent.kafka.schemaregistry.testutil.MockSchemaRegistry;
+import io.confluent.kafka.serializers.AbstractKafkaSchemaSerDeConfig;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import org.apache.avro.Schema;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Value serializer for the order service's producer. An {@link Order} is written as an
+ * {@link OrderCreated} in the Confluent wire format, a zero magic byte, the four-byte schema ID
+ * and the Avro binary record, straight from the domain object into a per-thread buffer, without
+ * building the {@code OrderCreated} record graph and walking it with a datum writer. Anything
+ * else, such as {@code OrderCreatedV2}, goes through {@link KafkaAvroSerializer}.
+ * <p>
+ * The schema ID is looked up, or registered when {@code auto.register.schemas} allows, once per
+ * topic under its {@code <topic>-value} subject, matching the {@code TopicNameStrategy} the
+ * producer is configured with.
+ */
+public class OrderSerializer implements Serializer<Object> {
+
+    private static final byte MAGIC_BYTE = 0;
+    private static final int INITIAL_BUFFER_SIZE = 512;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final AvroSchema ORDER_CREATED = new AvroSchema(OrderCreated.getClassSchema());
+
+    private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(Buffer::new);
+
+    static {
+        // Fields are written by hand in this order; fail fast if the schema moves under us.
+        requireFields(OrderCreated.getClassSchema(), "id", "customerId", "lines", "total", "status", "createdAt");
+        requireFields(OrderLine.getClassSchema(), "sku", "qty");
+    }
+
+    private final ConcurrentHashMap<String, Integer> schemaIds = new ConcurrentHashMap<>();
+    private SchemaRegistryClient schemaRegistry;
+    private KafkaAvroSerializer delegate;
+    private boolean autoRegister = true;
+
+    public OrderSerializer() {
+    }
+
+    public OrderSerializer(SchemaRegistryClient schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (schemaRegistry == null) {
+            schemaRegistry = schemaRegistryFor(configs);
+        }
+        Object register = configs.get(AbstractKafkaSchemaSerDeConfig.AUTO_REGISTER_SCHEMAS);
+        autoRegister = register == null || Boolean.parseBoolean(register.toString());
+        delegate = new KafkaAvroSerializer(schemaRegistry);
+        delegate.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (!(data instanceof Order order)) {
+            return delegate.serialize(topic, data);
+        }
+        Buffer buffer = BUFFER.get();
+        buffer.reset();
+        buffer.writeByte(MAGIC_BYTE);
+        buffer.writeFixedInt(schemaId(topic));
+        buffer.writeString(order.getId());
+        buffer.writeString(order.getCustomerId());
+        List<OrderLineItem> lines = order.getLines();
+        if (!lines.isEmpty()) {
+            buffer.writeLong(lines.size());
+            for (OrderLineItem line : lines) {
+                buffer.writeString(line.sku());
+                buffer.writeLong(line.qty());
+            }
+        }
+        buffer.writeLong(0);
+        buffer.writeString(order.getTotal().toPlainString());
+        buffer.writeString(order.getStatus().name());
+        buffer.writeString(order.getCreatedAt().toString());
+        return buffer.copy();
+    }
+
+    @Override
+    public void close() {
+        if (delegate != null) {
+            delegate.close();
+        }
+    }
+
+    private int schemaId(String topic) {
+        Integer id = schemaIds.get(topic);
+        if (id != null) {
+            return id;
+        }
+        String subject = topic + "-value";
+        try {
+            id = autoRegister
+                    ? schemaRegistry.register(subject, ORDER_CREATED)
+                    : schemaRegistry.getId(subject, ORDER_CREATED);
+        } catch (IOException | RestClientException e) {
+            throw new SerializationException("Error retrieving OrderCreated schema ID for subject " + subject, e);
+        }
+        schemaIds.put(topic, id);
+        return id;
+    }
+
+    private static SchemaRegistryClient schemaRegistryFor(Map<String, ?> configs) {
+        String urls = String.valueOf(configs.get(AbstractKafkaSchemaSerDeConfig.SCHEMA_REGISTRY_URL_CONFIG));
+        if (urls.startsWith("mock://")) {
+            return MockSchemaRegistry.getClientForScope(urls.substring("mock://".length()));
+        }
+        return new CachedSchemaRegistryClient(Arrays.asList(urls.split(",")), 1000, configs);
+    }
+
+    private static void requireFields(Schema schema, String... names) {
+        List<String> actual = schema.getFields().stream().map(Schema.Field::name).toList();
+        if (!actual.equals(List.of(names))) {
+            throw new IllegalStateException(schema.getFullName() + " fields changed to " + actual
+                    + "; update " + OrderSerializer.class.getSimpleName());
+        }
+    }
+
+    /** Growable Avro binary writer; one per thread, reused across records. */
+    private static final class Buffer {
+
+        private byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+        private int position;
+
+        /** Drops a buffer an oversized order grew past the cap, so producer threads do not pin it. */
+        private void reset() {
+            if (bytes.length > MAX_RETAINED_BUFFER_SIZE) {
+                bytes = new byte[INITIAL_BUFFER_SIZE];
+            }
+            position = 0;
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[position++] = (byte) value;
+        }
+
+        private void writeFixedInt(int value) {
+            ensureCapacity(4);
+            bytes[position++] = (byte) (value >>> 24);
+            bytes[position++] = (byte) (value >>> 16);
+            bytes[position++] = (byte) (value >>> 8);
+            bytes[position++] = (byte) value;
+        }
+
+        /** Zig-zag varint, as Avro writes both {@code int} and {@code long}. */
+        private void writeLong(long value) {
+            ensureCapacity(10);
+            long n = (value << 1) ^ (value >> 63);
+            while ((n & ~0x7FL) != 0) {
+                bytes[position++] = (byte) ((n & 0x7F) | 0x80);
+                n >>>= 7;
+            }
+            bytes[position++] = (byte) n;
+        }
+
+        /** Length-prefixed UTF-8; ASCII, which IDs, SKUs and timestamps are, is copied without encoding. */
+        private void writeString(String value) {
+            int start = position;
+            int length = value.length();
+            writeLong(length);
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    position = start;
+                    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    writeLong(utf8.length);
+                    ensureCapacity(utf8.length);
+                    System.arraycopy(utf8, 0, bytes, position, utf8.length);
+                    position += utf8.length;
+                    return;
+                }
+                bytes[position++] = (byte) c;
+            }
+        }
+
+        private byte[] copy() {
+            return Arrays.copyOf(bytes, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + extra));
+            }
+        }
+    }
+}
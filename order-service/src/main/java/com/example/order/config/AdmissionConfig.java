@@ -0,0 +1,52 @@
+package com.example.order.config;
+
+import com.example.order.admission.AdmissionController;
+import com.example.order.admission.ProducerPressure;
+import com.example.order.outbox.WriteAheadLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class AdmissionConfig {
+
+    /**
+     * Limits orders in creation, backing off as the order events producer or the outbox behind
+     * it backs up. Without the WAL outbox there is no backlog to watch.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "orders.admission.enabled", havingValue = "true", matchIfMissing = true)
+    public AdmissionController adaptiveAdmissionController(
+            KafkaTemplate<String, Object> kafkaTemplate,
+            ObjectProvider<WriteAheadLog> outboxWriteAheadLog,
+            MeterRegistry meterRegistry,
+            @Value("${orders.admission.initial-limit:200}") int initialLimit,
+            @Value("${orders.admission.min-limit:10}") int minLimit,
+            @Value("${orders.admission.max-limit:2000}") int maxLimit,
+            @Value("${orders.admission.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${orders.admission.min-buffer-available:0.2}") double minBufferAvailable,
+            @Value("${orders.admission.max-queue-time:100ms}") Duration maxQueueTime,
+            @Value("${orders.admission.max-requests-in-flight:20}") int maxRequestsInFlight,
+            @Value("${orders.admission.max-outbox-pending:100000}") long maxOutboxPending,
+            @Value("${orders.admission.latency-tolerance:2.0}") double latencyTolerance,
+            @Value("${orders.admission.sample-interval:100ms}") Duration sampleInterval,
+            @Value("${orders.admission.retry-after:1s}") Duration retryAfter) {
+        WriteAheadLog wal = outboxWriteAheadLog.getIfAvailable();
+        return new AdmissionController(() -> ProducerPressure.from(kafkaTemplate.metrics()),
+                wal != null ? wal::pending : () -> 0,
+                initialLimit, minLimit, maxLimit, backoffRatio, minBufferAvailable, maxQueueTime,
+                maxRequestsInFlight, maxOutboxPending, latencyTolerance, sampleInterval, retryAfter, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "orders.admission.enabled", havingValue = "false")
+    public AdmissionController unlimitedAdmissionController(MeterRegistry meterRegistry) {
+        return AdmissionController.unlimited(meterRegistry);
+    }
+}
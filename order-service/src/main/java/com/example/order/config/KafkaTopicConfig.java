@@ -19,6 +19,14 @@ public class KafkaTopicConfig {
                 .build();
     }
 
+    @Bean
+    public NewTopic ordersV2Topic() {
+        return TopicBuilder.name(TopicNames.ORDERS_V2)
+                .partitions(3)
+                .replicas(3)
+                .build();
+    }
+
     @Bean
     public NewTopic paymentsTopic() {
         return TopicBuilder.name(TopicNames.PAYMENTS)
@@ -0,0 +1,69 @@
+package com.example.order.config;
+
+import com.example.order.outbox.DirectOrderOutbox;
+import com.example.order.outbox.WalOrderOutbox;
+import com.example.order.outbox.WriteAheadLog;
+import com.example.order.service.OrderEventPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "orders.outbox.type", havingValue = "wal", matchIfMissing = true)
+    public WriteAheadLog outboxWriteAheadLog(
+            @Value("${orders.outbox.directory}") Path directory,
+            @Value("${orders.outbox.segment-size:64MB}") DataSize segmentSize) {
+        return new WriteAheadLog(directory, Math.toIntExact(segmentSize.toBytes()));
+    }
+
+    /** Orders are durable once appended to a local log; a relay thread sends them in batches. */
+    @Bean
+    @ConditionalOnProperty(name = "orders.outbox.type", havingValue = "wal", matchIfMissing = true)
+    public WalOrderOutbox walOrderOutbox(
+            WriteAheadLog outboxWriteAheadLog,
+            OrderEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${orders.outbox.batch-size:500}") int batchSize,
+            @Value("${orders.outbox.max-in-flight:4}") int maxInFlight,
+            @Value("${orders.outbox.send-timeout:30s}") Duration sendTimeout,
+            @Value("${orders.outbox.idle-wait:50ms}") Duration idleWait,
+            @Value("${orders.outbox.retry-backoff:1s}") Duration retryBackoff,
+            @Value("${orders.outbox.drain-timeout:20s}") Duration drainTimeout) {
+        return new WalOrderOutbox(outboxWriteAheadLog, eventPublisher, batchSize, maxInFlight,
+                sendTimeout, idleWait, retryBackoff, drainTimeout, meterRegistry);
+    }
+
+    /**
+     * Down once the relay thread has died, while orders are still accepted into the log; part of
+     * the liveness group, so the pod is restarted and the relay with it.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "orders.outbox.type", havingValue = "wal", matchIfMissing = true)
+    public HealthIndicator outboxRelayHealthIndicator(WalOrderOutbox walOrderOutbox,
+                                                     WriteAheadLog outboxWriteAheadLog) {
+        return () -> {
+            Health.Builder health = !walOrderOutbox.isRunning() || walOrderOutbox.isRelayAlive()
+                    ? Health.up()
+                    : Health.down();
+            return health.withDetail("pending", outboxWriteAheadLog.pending()).build();
+        };
+    }
+
+    /** Fire-and-forget from the request thread; a failed send loses the order. */
+    @Bean
+    @ConditionalOnProperty(name = "orders.outbox.type", havingValue = "direct")
+    public DirectOrderOutbox directOrderOutbox(OrderEventPublisher eventPublisher) {
+        return new DirectOrderOutbox(eventPublisher);
+    }
+}
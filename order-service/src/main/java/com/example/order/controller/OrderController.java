@@ -1,35 +1,113 @@
 package com.example.order.controller;
 
+import com.example.order.admission.OrderRejectedException;
+import com.example.order.bulk.BulkOrderService;
+import com.example.order.controller.dto.BulkOrderResult;
 import com.example.order.controller.dto.CreateOrderRequest;
 import com.example.order.controller.dto.CreateOrderResponse;
 import com.example.order.controller.dto.OrderLineDto;
 import com.example.order.controller.dto.OrderResponse;
 import com.example.order.model.Order;
+import com.example.order.outbox.CreateMode;
+import com.example.order.service.OrderNotAcknowledgedException;
 import com.example.order.service.OrderService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/orders")
 public class OrderController {
 
     private final OrderService orderService;
+    private final BulkOrderService bulkOrderService;
+    private final JsonMapper jsonMapper;
+    private final Duration bulkTimeout;
+    private final boolean publishV2;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService,
+                           BulkOrderService bulkOrderService,
+                           JsonMapper jsonMapper,
+                           @Value("${orders.bulk.timeout:10m}") Duration bulkTimeout,
+                           @Value("${orders.publish.v2-enabled:false}") boolean publishV2) {
         this.orderService = orderService;
+        this.bulkOrderService = bulkOrderService;
+        this.jsonMapper = jsonMapper;
+        this.bulkTimeout = bulkTimeout;
+        this.publishV2 = publishV2;
     }
 
+    /**
+     * Responds once the order has got as far as {@code mode} asks, without holding the request
+     * thread meanwhile: 201 when it has, 202 when it is created but was not confirmed in time,
+     * 429 with {@code Retry-After} when it was turned away at the admission limit, 400 when no
+     * order can be created from the request.
+     */
     @PostMapping
-    public ResponseEntity<CreateOrderResponse> createOrder(@RequestBody CreateOrderRequest request) {
-        Order order = orderService.createOrder(request);
-        var response = new CreateOrderResponse(order.getId(), order.getStatus().name());
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    public CompletableFuture<ResponseEntity<CreateOrderResponse>> createOrder(
+            @RequestBody CreateOrderRequest request,
+            @RequestParam(required = false) CreateMode mode) {
+        String invalid = request.validate(publishV2);
+        if (invalid != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, invalid);
+        }
+        return orderService.createOrderAsync(request, mode)
+                .handle((order, ex) -> {
+                    if (ex == null) {
+                        return created(HttpStatus.CREATED, order);
+                    }
+                    Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                    if (cause instanceof OrderNotAcknowledgedException notAcknowledged) {
+                        return created(HttpStatus.ACCEPTED, notAcknowledged.getOrder());
+                    }
+                    if (cause instanceof OrderRejectedException rejected) {
+                        return tooManyRequests(rejected);
+                    }
+                    throw new CompletionException(cause);
+                });
+    }
+
+    /**
+     * Creates one order per line of an NDJSON body, or per record of an Avro container, reading
+     * the body as it arrives. Responds with one NDJSON {@link BulkOrderResult} per line, each
+     * written as soon as that order is confirmed.
+     */
+    @PostMapping(path = "/bulk",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, BulkOrderService.AVRO_CONTAINER_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> createOrders(HttpServletRequest request,
+                                                            @RequestParam(required = false) CreateMode mode)
+            throws IOException {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(bulkTimeout.toMillis());
+        bulkOrderService.createOrders(request.getInputStream(), MediaType.parseMediaType(request.getContentType()),
+                        mode, result -> send(emitter, result))
+                .whenComplete((result, ex) -> {
+                    if (ex == null) {
+                        emitter.complete();
+                    } else {
+                        emitter.completeWithError(ex);
+                    }
+                });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
     }
 
     @GetMapping("/{id}")
@@ -40,6 +118,25 @@ public class OrderController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    private static ResponseEntity<CreateOrderResponse> tooManyRequests(OrderRejectedException rejected) {
+        long retryAfterSeconds = Math.max(1, rejected.getRetryAfter().toSeconds());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .build();
+    }
+
+    private static ResponseEntity<CreateOrderResponse> created(HttpStatus status, Order order) {
+        return ResponseEntity.status(status).body(new CreateOrderResponse(order.getId(), order.getStatus().name()));
+    }
+
+    private void send(ResponseBodyEmitter emitter, BulkOrderResult result) {
+        try {
+            emitter.send(jsonMapper.writeValueAsString(result) + "\n", MediaType.APPLICATION_NDJSON);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private OrderResponse toOrderResponse(Order order) {
         var lines = order.getLines().stream()
                 .map(l -> new OrderLineDto(l.sku(), l.qty()))
@@ -0,0 +1,11 @@
+package com.example.order.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one line of a bulk request: {@code CREATED} once confirmed, {@code ACCEPTED} when
+ * created but not confirmed in time, or {@code REJECTED} with the reason.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkOrderResult(long line, String orderId, String status, String error) {
+}
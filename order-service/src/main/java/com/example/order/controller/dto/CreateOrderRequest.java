@@ -1,6 +1,10 @@
 package com.example.order.controller.dto;
 
+import com.example.common.avro.OrderLine;
+import com.example.common.avro.OrderRequest;
+
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
 
 public record CreateOrderRequest(
@@ -8,4 +12,55 @@ public record CreateOrderRequest(
         List<OrderLineDto> lines,
         BigDecimal total
 ) {
+
+    /** The scale and precision of {@code OrderCreatedV2.total}, which totals published to v2 must fit. */
+    public static final int TOTAL_SCALE = 2;
+    public static final int TOTAL_PRECISION = 18;
+
+    /**
+     * Checked when the request arrives, so an order is only created if every event published for
+     * it can carry it. {@code orders.v1} carries the total as a string, so only v2 limits it.
+     *
+     * @param publishV2 whether {@code orders.publish.v2-enabled} is set
+     * @return why no order can be created from this request, or {@code null} if one can
+     */
+    public String validate(boolean publishV2) {
+        if (customerId == null || customerId.isBlank()) {
+            return "Missing customerId";
+        }
+        if (lines == null || lines.isEmpty()) {
+            return "Missing lines";
+        }
+        if (total == null) {
+            return "Missing total";
+        }
+        if (!publishV2) {
+            return null;
+        }
+        if (total.stripTrailingZeros().scale() > TOTAL_SCALE) {
+            return "Total has more than " + TOTAL_SCALE + " fractional digits";
+        }
+        if (total.setScale(TOTAL_SCALE, RoundingMode.UNNECESSARY).precision() > TOTAL_PRECISION) {
+            return "Total has more than " + TOTAL_PRECISION + " digits";
+        }
+        return null;
+    }
+
+    /**
+     * @throws NumberFormatException if the total is not a decimal
+     */
+    public static CreateOrderRequest fromAvro(OrderRequest request) {
+        var lines = request.getLines().stream()
+                .map(l -> new OrderLineDto(l.getSku().toString(), l.getQty()))
+                .toList();
+        return new CreateOrderRequest(request.getCustomerId().toString(), lines,
+                new BigDecimal(request.getTotal().toString()));
+    }
+
+    public OrderRequest toAvro() {
+        var avroLines = lines.stream()
+                .map(l -> new OrderLine(l.sku(), l.qty()))
+                .toList();
+        return new OrderRequest(customerId, avroLines, total.toPlainString());
+    }
 }
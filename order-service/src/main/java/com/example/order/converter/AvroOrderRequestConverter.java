@@ -0,0 +1,54 @@
+package com.example.order.converter;
+
+import com.example.common.avro.OrderRequest;
+import com.example.order.controller.dto.CreateOrderRequest;
+import org.apache.avro.AvroRuntimeException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link CreateOrderRequest} as {@code application/avro}: the Avro single-object
+ * encoding of {@link OrderRequest}, i.e. a two-byte marker, the schema's 64-bit fingerprint and
+ * the binary record. Callers sending many orders can skip JSON altogether.
+ * <p>
+ * Only bodies written with the current {@link OrderRequest} schema are accepted; any other
+ * fingerprint is rejected as unreadable, since the service has no registry to resolve it from.
+ */
+@Component
+public class AvroOrderRequestConverter extends AbstractHttpMessageConverter<CreateOrderRequest> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/avro";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    public AvroOrderRequestConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return CreateOrderRequest.class == clazz;
+    }
+
+    @Override
+    protected CreateOrderRequest readInternal(Class<? extends CreateOrderRequest> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        try {
+            return CreateOrderRequest.fromAvro(OrderRequest.getDecoder().decode(inputMessage.getBody()));
+        } catch (AvroRuntimeException | EOFException | NumberFormatException e) {
+            throw new HttpMessageNotReadableException("Unreadable Avro order request: " + e.getMessage(), e,
+                    inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(CreateOrderRequest request, HttpOutputMessage outputMessage) throws IOException {
+        OrderRequest.getEncoder().encode(request.toAvro(), outputMessage.getBody());
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.order.outbox;
+
+/** How far an order must get before its creation is reported to the client. */
+public enum CreateMode {
+
+    /** Appended to the outbox; on the WAL outbox, written to the page cache. */
+    IMMEDIATE,
+
+    /** Forced to disk in the outbox write-ahead log. */
+    WAL_FSYNC,
+
+    /** Acknowledged by the broker on every topic the order is published to. */
+    BROKER_ACK
+}
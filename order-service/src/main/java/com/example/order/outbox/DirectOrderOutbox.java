@@ -0,0 +1,27 @@
+package com.example.order.outbox;
+
+import com.example.common.CorrelationIdUtils;
+import com.example.order.model.Order;
+import com.example.order.service.OrderEventPublisher;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends straight from the calling thread. A failed send is only logged, so the order is never
+ * processed; kept for comparison with {@link WalOrderOutbox}. There is no local log, so
+ * {@link CreateMode#WAL_FSYNC} waits for the broker like {@link CreateMode#BROKER_ACK}.
+ */
+public class DirectOrderOutbox implements OrderOutbox {
+
+    private final OrderEventPublisher eventPublisher;
+
+    public DirectOrderOutbox(OrderEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public CompletableFuture<Void> append(Order order, CreateMode mode) {
+        CompletableFuture<Void> acknowledged = eventPublisher.publish(order, CorrelationIdUtils.getFromMdc());
+        return mode == CreateMode.IMMEDIATE ? CompletableFuture.completedFuture(null) : acknowledged;
+    }
+}
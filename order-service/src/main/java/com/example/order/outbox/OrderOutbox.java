@@ -0,0 +1,31 @@
+package com.example.order.outbox;
+
+import com.example.order.model.Order;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Takes responsibility for getting a created order's events to Kafka. Once {@link #append}
+ * returns the order must not be lost, short of a host crash, whether or not it was sent yet.
+ */
+public interface OrderOutbox {
+
+    /**
+     * Called on the thread creating the order, so the correlation ID in the MDC belongs to it.
+     * May block on local I/O, so should not be called from a request thread.
+     *
+     * @return completes once the order has got as far as {@code mode} asks
+     */
+    CompletableFuture<Void> append(Order order, CreateMode mode);
+
+    /**
+     * Appends a chunk of orders, letting the outbox share the work of confirming them, such as
+     * one flush for the whole chunk.
+     *
+     * @return one future per order, in the same order
+     */
+    default List<CompletableFuture<Void>> appendAll(List<Order> orders, CreateMode mode) {
+        return orders.stream().map(order -> append(order, mode)).toList();
+    }
+}
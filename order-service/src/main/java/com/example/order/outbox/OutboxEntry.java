@@ -0,0 +1,81 @@
+package com.example.order.outbox;
+
+import com.example.order.model.Order;
+import com.example.order.model.OrderLineItem;
+import com.example.order.model.OrderStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An order as written to the outbox, with the correlation ID of the request that created it so
+ * the relay can send it on that request's behalf.
+ * <p>
+ * Layout: a version byte, then the order fields and correlation ID as
+ * {@link DataOutputStream} values; the correlation ID is preceded by a presence flag.
+ */
+record OutboxEntry(Order order, String correlationId) {
+
+    private static final int VERSION = 1;
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(order.getId());
+            out.writeUTF(order.getCustomerId());
+            out.writeInt(order.getLines().size());
+            for (OrderLineItem line : order.getLines()) {
+                out.writeUTF(line.sku());
+                out.writeInt(line.qty());
+            }
+            out.writeUTF(order.getTotal().toString());
+            out.writeUTF(order.getStatus().name());
+            out.writeLong(order.getCreatedAt().getEpochSecond());
+            out.writeInt(order.getCreatedAt().getNano());
+            out.writeBoolean(correlationId != null);
+            if (correlationId != null) {
+                out.writeUTF(correlationId);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static OutboxEntry decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown outbox entry version " + version);
+            }
+            String id = in.readUTF();
+            String customerId = in.readUTF();
+            int lineCount = in.readInt();
+            List<OrderLineItem> lines = new ArrayList<>(lineCount);
+            for (int i = 0; i < lineCount; i++) {
+                lines.add(new OrderLineItem(in.readUTF(), in.readInt()));
+            }
+            Order order = Order.builder()
+                    .id(id)
+                    .customerId(customerId)
+                    .lines(lines)
+                    .total(new BigDecimal(in.readUTF()))
+                    .status(OrderStatus.valueOf(in.readUTF()))
+                    .createdAt(Instant.ofEpochSecond(in.readLong(), in.readInt()))
+                    .build();
+            String correlationId = in.readBoolean() ? in.readUTF() : null;
+            return new OutboxEntry(order, correlationId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
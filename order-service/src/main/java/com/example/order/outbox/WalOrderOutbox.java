@@ -0,0 +1,345 @@
+package com.example.order.outbox;
+
+import com.example.common.CorrelationIdUtils;
+import com.example.order.model.Order;
+import com.example.order.service.OrderEventPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.KafkaException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appends each order to a {@link WriteAheadLog} on the request thread, and relays the log to
+ * Kafka from a single background thread. The relay hands whole batches to the producer without
+ * waiting, keeping up to {@code maxInFlight} of them unacknowledged, and checkpoints each batch
+ * in log order once every send in it is acknowledged.
+ * <p>
+ * A batch that fails or times out is sent again from the checkpoint, along with the batches
+ * sent after it, as is whatever was appended but not checkpointed when the service stopped, so
+ * delivery is at least once and consumers rely on their idempotency stores. An order whose events cannot be built at all is
+ * logged and skipped rather than blocking the log. Any other failure in the relay is logged and
+ * retried from the checkpoint; only an {@link Error} stops it, which {@link #isRelayAlive()}
+ * then reports.
+ */
+public class WalOrderOutbox implements OrderOutbox, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(WalOrderOutbox.class);
+
+    private final WriteAheadLog wal;
+    private final OrderEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final Duration sendTimeout;
+    private final Duration idleWait;
+    private final Duration retryBackoff;
+    private final Duration drainTimeout;
+
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter skippedCounter;
+    private final Counter relayFailureCounter;
+
+    /** Orders created with {@link CreateMode#BROKER_ACK} whose sends are not acknowledged yet. */
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> waiters = new ConcurrentHashMap<>();
+
+    private volatile Thread relay;
+    private volatile boolean running;
+    private volatile boolean draining;
+
+    public WalOrderOutbox(WriteAheadLog wal, OrderEventPublisher eventPublisher, int batchSize,
+                          int maxInFlight, Duration sendTimeout, Duration idleWait, Duration retryBackoff,
+                          Duration drainTimeout, MeterRegistry meterRegistry) {
+        this.wal = wal;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.sendTimeout = sendTimeout;
+        this.idleWait = idleWait;
+        this.retryBackoff = retryBackoff;
+        this.drainTimeout = drainTimeout;
+        this.sentCounter = Counter.builder("orders.outbox.relayed")
+                .tag("result", "sent")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("orders.outbox.relayed")
+                .tag("result", "retried")
+                .register(meterRegistry);
+        this.skippedCounter = Counter.builder("orders.outbox.relayed")
+                .tag("result", "skipped")
+                .register(meterRegistry);
+        this.relayFailureCounter = Counter.builder("orders.outbox.relay.failures")
+                .description("Failures in the outbox relay, each retried from the checkpoint")
+                .register(meterRegistry);
+        Gauge.builder("orders.outbox.pending", wal, WriteAheadLog::pending)
+                .description("Orders appended to the outbox and not yet acknowledged by Kafka")
+                .register(meterRegistry);
+        Gauge.builder("orders.outbox.segments", wal, WriteAheadLog::segmentCount)
+                .description("Segment files in the outbox write-ahead log")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@link CreateMode#WAL_FSYNC} forces the log on the calling thread before returning;
+     * {@link CreateMode#BROKER_ACK} returns a future the relay completes once the order's sends
+     * are acknowledged, or fails if the order cannot be published at all.
+     */
+    @Override
+    public CompletableFuture<Void> append(Order order, CreateMode mode) {
+        return appendAll(List.of(order), mode).getFirst();
+    }
+
+    /** Wakes the relay, and forces the log for {@link CreateMode#WAL_FSYNC}, once per chunk. */
+    @Override
+    public List<CompletableFuture<Void>> appendAll(List<Order> orders, CreateMode mode) {
+        String correlationId = CorrelationIdUtils.getFromMdc();
+        List<CompletableFuture<Void>> confirmations = new ArrayList<>(orders.size());
+        long position = 0;
+        for (Order order : orders) {
+            CompletableFuture<Void> acknowledged = null;
+            if (mode == CreateMode.BROKER_ACK) {
+                // Registered first, so a relay that is quicker than this thread still finds it.
+                CompletableFuture<Void> waiter = new CompletableFuture<>();
+                waiters.put(order.getId(), waiter);
+                waiter.whenComplete((result, ex) -> waiters.remove(order.getId(), waiter));
+                acknowledged = waiter;
+            }
+            try {
+                position = wal.append(new OutboxEntry(order, correlationId).encode());
+            } catch (RuntimeException e) {
+                if (acknowledged != null) {
+                    acknowledged.completeExceptionally(e);
+                }
+                if (confirmations.isEmpty()) {
+                    throw e;
+                }
+                // Those already appended stand; the rest of the chunk fails with this one.
+                confirmations.add(CompletableFuture.failedFuture(e));
+                while (confirmations.size() < orders.size()) {
+                    confirmations.add(CompletableFuture.failedFuture(e));
+                }
+                break;
+            }
+            confirmations.add(acknowledged != null ? acknowledged : CompletableFuture.completedFuture(null));
+        }
+        Thread waiting = relay;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+        if (mode == CreateMode.WAL_FSYNC && position != 0) {
+            wal.sync(position);
+        }
+        return confirmations;
+    }
+
+    @Override
+    public void start() {
+        draining = false;
+        running = true;
+        relay = Thread.ofPlatform().name("order-outbox-relay").start(this::relayLoop);
+    }
+
+    /**
+     * Keeps relaying until every appended order has been sent, for up to {@code drainTimeout},
+     * so that a pod scaled away does not leave orders behind in its volume. Whatever is still
+     * unsent then, including batches in flight, is sent again on the next start from this log.
+     */
+    @Override
+    public void stop() {
+        Thread stopping = relay;
+        if (stopping == null) {
+            running = false;
+            return;
+        }
+        draining = true;
+        LockSupport.unpark(stopping);
+        join(stopping, drainTimeout);
+        long pending = wal.pending();
+        if (pending > 0) {
+            log.warn("Outbox not drained within {}, {} orders left in the log", drainTimeout, pending);
+        }
+        running = false;
+        LockSupport.unpark(stopping);
+        join(stopping, sendTimeout.plus(idleWait));
+        relay = null;
+    }
+
+    /** Below the web server's phases, so the relay starts before requests arrive and stops after the last. */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** @return whether the relay is sending, or will resume once it has backed off */
+    public boolean isRelayAlive() {
+        Thread current = relay;
+        return current != null && current.isAlive();
+    }
+
+    private void relayLoop() {
+        try {
+            long position = wal.checkpoint();
+            ArrayDeque<Batch> inFlight = new ArrayDeque<>(maxInFlight);
+            List<byte[]> entries = new ArrayList<>(batchSize);
+            while (running) {
+                if (draining && inFlight.isEmpty() && wal.pending() == 0) {
+                    log.info("Outbox drained");
+                    return;
+                }
+                try {
+                    position = relayOnce(position, inFlight, entries);
+                } catch (RuntimeException e) {
+                    log.error("Outbox relay failed, resending from the checkpoint: {}", e.getMessage(), e);
+                    relayFailureCounter.increment();
+                    retriedCounter.increment(settle(inFlight));
+                    position = wal.checkpoint();
+                    LockSupport.parkNanos(retryBackoff.toNanos());
+                }
+            }
+        } catch (Error e) {
+            log.error("Outbox relay stopped, orders are no longer sent: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    private static void join(Thread thread, Duration timeout) {
+        try {
+            thread.join(timeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Checkpoints, resends or sends one batch, or waits for something to do. */
+    private long relayOnce(long position, ArrayDeque<Batch> inFlight, List<byte[]> entries) {
+        Batch head = inFlight.peekFirst();
+        if (head != null && (head.acked.isDone() || head.expired(sendTimeout))) {
+            inFlight.pollFirst();
+            if (head.succeeded()) {
+                wal.checkpoint(head.end, head.entries);
+                sentCounter.increment(head.entries);
+                return position;
+            }
+            long checkpoint = rewind(head, inFlight);
+            LockSupport.parkNanos(retryBackoff.toNanos());
+            return checkpoint;
+        }
+        if (inFlight.size() < maxInFlight) {
+            entries.clear();
+            long next = wal.read(position, batchSize, entries);
+            if (!entries.isEmpty()) {
+                inFlight.addLast(send(entries, next));
+                return next;
+            }
+        }
+        LockSupport.parkNanos(idleWait.toNanos());
+        return position;
+    }
+
+    /**
+     * Abandons the failed batch and those sent after it, once they have settled, and returns the
+     * checkpoint to read from again. Batches are acknowledged in any order but checkpointed in
+     * log order, so nothing after the failure was checkpointed.
+     */
+    private long rewind(Batch failed, ArrayDeque<Batch> inFlight) {
+        log.warn("Outbox batch of {} orders was not acknowledged, resending from the checkpoint: {}",
+                failed.entries, failed.cause());
+        retriedCounter.increment(failed.entries + settle(inFlight));
+        return wal.checkpoint();
+    }
+
+    /** Waits for the batches in flight to settle and drops them; returns how many orders they held. */
+    private int settle(ArrayDeque<Batch> inFlight) {
+        int resent = 0;
+        for (Batch batch : inFlight) {
+            resent += batch.entries;
+            try {
+                batch.acked.get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                // Resent either way.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        inFlight.clear();
+        return resent;
+    }
+
+    /** Hands every order in the batch to the producer without waiting for any of them. */
+    private Batch send(List<byte[]> entries, long end) {
+        List<CompletableFuture<Void>> sends = new ArrayList<>(entries.size());
+        for (byte[] bytes : entries) {
+            String orderId = null;
+            try {
+                OutboxEntry entry = OutboxEntry.decode(bytes);
+                orderId = entry.order().getId();
+                CompletableFuture<Void> sent = eventPublisher.publish(entry.order(), entry.correlationId());
+                if (!waiters.isEmpty()) {
+                    // A failed send is retried, so only success is passed on.
+                    String acknowledged = orderId;
+                    sent.thenRun(() -> complete(acknowledged, null));
+                }
+                sends.add(sent);
+            } catch (KafkaException e) {
+                // Thrown before the record is queued, e.g. the schema registry is unreachable.
+                sends.add(CompletableFuture.failedFuture(e));
+                break;
+            } catch (RuntimeException e) {
+                log.error("Skipping outbox entry that cannot be published: {}", e.getMessage(), e);
+                skippedCounter.increment();
+                complete(orderId, e);
+            }
+        }
+        Thread waiting = Thread.currentThread();
+        CompletableFuture<Void> acked = CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new));
+        acked.whenComplete((result, ex) -> LockSupport.unpark(waiting));
+        return new Batch(acked, end, entries.size(), System.nanoTime());
+    }
+
+    private void complete(String orderId, Throwable failure) {
+        CompletableFuture<Void> waiter = orderId != null ? waiters.get(orderId) : null;
+        if (waiter == null) {
+            return;
+        }
+        if (failure == null) {
+            waiter.complete(null);
+        } else {
+            waiter.completeExceptionally(failure);
+        }
+    }
+
+    private record Batch(CompletableFuture<Void> acked, long end, int entries, long sentNanos) {
+
+        private boolean expired(Duration timeout) {
+            return System.nanoTime() - sentNanos >= timeout.toNanos();
+        }
+
+        private boolean succeeded() {
+            return acked.isDone() && !acked.isCompletedExceptionally();
+        }
+
+        private String cause() {
+            if (!acked.isDone()) {
+                return "timed out";
+            }
+            return acked.exceptionNow().toString();
+        }
+    }
+}
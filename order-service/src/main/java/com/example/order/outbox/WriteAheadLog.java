@@ -0,0 +1,365 @@
+package com.example.order.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of opaque entries in memory-mapped segment files, read back by a single
+ * consumer that checkpoints how far it has got. Segments wholly behind the checkpoint are
+ * deleted; on startup the segments and checkpoint are reopened and reading resumes from the
+ * checkpoint, so an entry is read at least once for every time it is appended.
+ * <p>
+ * Entries are written to the mapping before their length, so an entry cut short by a crash is
+ * never read back. Writes sit in the page cache until the kernel flushes them, which is enough
+ * to survive the process dying; segments are forced to disk when they roll, on
+ * {@link #close()}, and up to a position on {@link #sync}, so a host crash can lose entries
+ * appended since.
+ * <p>
+ * A position packs the segment sequence into the high 32 bits and the offset within the
+ * segment into the low 32, so positions compare in log order.
+ * <p>
+ * Layout: each segment starts with a magic number, followed by {@code [int length][bytes]}
+ * entries; a zero length marks the end. The checkpoint file holds one position.
+ */
+public class WriteAheadLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    static final String SEGMENT_SUFFIX = ".wal";
+    static final int HEADER_BYTES = 8;
+
+    private static final int MAGIC = 0x57414C31;
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String LOCK_FILE = "wal.lock";
+
+    private final Path directory;
+    private final int segmentBytes;
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    /** Guarded by {@link #appendLock}. */
+    private Segment head;
+    /** End of the last complete entry; written after the entry so readers never see it partly. */
+    private volatile long writePosition;
+    private volatile long checkpoint;
+    private final ReentrantLock syncLock = new ReentrantLock();
+    /** Everything before this position has been forced to disk. */
+    private volatile long durablePosition;
+    private final AtomicLong pending = new AtomicLong();
+
+    private final MappedByteBuffer checkpointBuffer;
+    private final FileChannel lockChannel;
+    private final FileLock directoryLock;
+
+    private static final class Segment {
+
+        private final long sequence;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int position = HEADER_BYTES;
+
+        private Segment(long sequence, Path path, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        /** @return the length of the entry at {@code offset}, or 0 past the last complete one */
+        private int lengthAt(int offset) {
+            if (offset + Integer.BYTES > buffer.limit()) {
+                return 0;
+            }
+            int length = buffer.getInt(offset);
+            return length <= 0 || length > buffer.limit() - offset - Integer.BYTES ? 0 : length;
+        }
+
+        private boolean fits(int entryBytes) {
+            return position + entryBytes <= buffer.limit();
+        }
+
+        private void append(byte[] bytes) {
+            buffer.put(position + Integer.BYTES, bytes);
+            buffer.putInt(position, bytes.length);
+            position += Integer.BYTES + bytes.length;
+        }
+    }
+
+    public WriteAheadLog(Path directory, int segmentBytes) {
+        if (segmentBytes <= HEADER_BYTES + Integer.BYTES) {
+            throw new IllegalArgumentException("segmentBytes must be greater than "
+                    + (HEADER_BYTES + Integer.BYTES) + ": " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            directoryLock = tryLock(lockChannel);
+            if (directoryLock == null) {
+                lockChannel.close();
+                throw new IllegalStateException("Write-ahead log " + directory + " is in use by another process");
+            }
+            try (FileChannel channel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                checkpointBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+            }
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-ahead log " + directory, e);
+        }
+        log.info("Opened write-ahead log {} with {} segments and {} unacknowledged entries",
+                directory, segments.size(), pending.get());
+    }
+
+    /**
+     * Appends an entry; it is visible to {@link #read} once this returns.
+     *
+     * @return the position just past the entry
+     */
+    public long append(byte[] entry) {
+        int entryBytes = Integer.BYTES + entry.length;
+        if (entryBytes > segmentBytes - HEADER_BYTES) {
+            throw new IllegalArgumentException("Entry of " + entry.length + " bytes does not fit a segment");
+        }
+        appendLock.lock();
+        try {
+            if (!head.fits(entryBytes)) {
+                head.buffer.force();
+                head = create(head.sequence + 1);
+            }
+            head.append(entry);
+            pending.incrementAndGet();
+            writePosition = position(head.sequence, head.position);
+            return writePosition;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot roll write-ahead log " + directory, e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until everything before {@code position} is on disk. Callers that arrive while a
+     * force is running wait for it and are then usually covered by the next one, which forces
+     * everything appended in the meantime, so concurrent appenders share the cost.
+     */
+    public void sync(long position) {
+        if (durablePosition >= position) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (durablePosition >= position) {
+                return;
+            }
+            long target = writePosition;
+            long from = durablePosition;
+            Segment segment = segments.get(sequence(target));
+            // Earlier segments were forced when they rolled.
+            int start = sequence(from) == segment.sequence ? offset(from) : HEADER_BYTES;
+            segment.buffer.force(start, offset(target) - start);
+            durablePosition = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Copies up to {@code maxEntries} entries starting at {@code from} into {@code entries}.
+     * Only one thread may read.
+     *
+     * @return the position after the last entry read, {@code from} if there was none
+     */
+    public long read(long from, int maxEntries, List<byte[]> entries) {
+        long position = from;
+        long end = writePosition;
+        int read = 0;
+        while (read < maxEntries && position < end) {
+            Segment segment = segments.get(sequence(position));
+            if (segment == null) {
+                throw new IllegalStateException("Write-ahead log position " + position + " is not in a segment");
+            }
+            int offset = offset(position);
+            int length = segment.lengthAt(offset);
+            if (length == 0) {
+                position = position(segment.sequence + 1, HEADER_BYTES);
+                continue;
+            }
+            byte[] bytes = new byte[length];
+            segment.buffer.get(offset + Integer.BYTES, bytes);
+            entries.add(bytes);
+            position = position(segment.sequence, offset + Integer.BYTES + length);
+            read++;
+        }
+        return position;
+    }
+
+    /**
+     * Records that everything before {@code position}, {@code entries} entries since the last
+     * checkpoint, has been consumed, and deletes the segments that leaves behind.
+     */
+    public void checkpoint(long position, int entries) {
+        checkpointBuffer.putLong(0, position);
+        checkpoint = position;
+        pending.addAndGet(-entries);
+        long current = sequence(position);
+        for (Map.Entry<Long, Segment> retired : segments.headMap(current).entrySet()) {
+            segments.remove(retired.getKey());
+            try {
+                Files.deleteIfExists(retired.getValue().path);
+            } catch (IOException e) {
+                log.warn("Cannot delete write-ahead log segment {}: {}", retired.getValue().path, e.getMessage());
+            }
+        }
+    }
+
+    /** Position reading should resume from. */
+    public long checkpoint() {
+        return checkpoint;
+    }
+
+    /** Entries appended but not yet checkpointed. */
+    public long pending() {
+        return pending.get();
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /** Forces the current segment and checkpoint to disk and releases the directory lock. */
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            head.buffer.force();
+            checkpointBuffer.force();
+            directoryLock.release();
+            lockChannel.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    static long position(long sequence, int offset) {
+        return sequence << 32 | offset;
+    }
+
+    private static long sequence(long position) {
+        return position >>> 32;
+    }
+
+    private static int offset(long position) {
+        return (int) position;
+    }
+
+    /**
+     * Maps the existing segments, finds the end of the newest one and counts the entries after
+     * the checkpoint. A missing or stale checkpoint falls back to the oldest segment, so nothing
+     * that was appended is skipped.
+     */
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            long sequence;
+            try {
+                sequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring unexpected file {} in write-ahead log", path);
+                continue;
+            }
+            Segment segment = map(sequence, path);
+            if (segment != null) {
+                segments.put(sequence, segment);
+            }
+        }
+        if (segments.isEmpty()) {
+            head = create(0);
+        } else {
+            head = segments.lastEntry().getValue();
+            int offset = HEADER_BYTES;
+            for (int length; (length = head.lengthAt(offset)) > 0; ) {
+                offset += Integer.BYTES + length;
+            }
+            head.position = offset;
+        }
+        writePosition = position(head.sequence, head.position);
+        durablePosition = writePosition;
+
+        long stored = checkpointBuffer.getLong(0);
+        long oldest = position(segments.firstKey(), HEADER_BYTES);
+        checkpoint = stored < oldest || stored > writePosition ? oldest : stored;
+
+        List<byte[]> entries = new ArrayList<>();
+        for (long position = checkpoint; position < writePosition; entries.clear()) {
+            position = read(position, 1024, entries);
+            pending.addAndGet(entries.size());
+        }
+    }
+
+    private Segment create(long sequence) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        buffer.putInt(0, MAGIC);
+        Segment segment = new Segment(sequence, path, buffer);
+        segments.put(sequence, segment);
+        return segment;
+    }
+
+    /** Another log in this JVM holding the lock is reported the same way as another process. */
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    /** @return the mapped segment, or {@code null} if the file is not a log segment */
+    private Segment map(long sequence, Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_BYTES) {
+                log.warn("Ignoring truncated write-ahead log segment {}", path);
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            log.warn("Ignoring write-ahead log segment {} with unknown format", path);
+            return null;
+        }
+        return new Segment(sequence, path, buffer);
+    }
+}
@@ -1,64 +1,117 @@
 package com.example.order.service;
 
 import com.example.common.CorrelationIdUtils;
+import com.example.common.EventTypeUtils;
 import com.example.common.TopicNames;
+import com.example.common.latency.LatencyHeaders;
 import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderCreatedV2;
 import com.example.common.avro.OrderLine;
+import com.example.order.controller.dto.CreateOrderRequest;
 import com.example.order.model.Order;
+import org.apache.avro.Schema;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Publishes {@code OrderCreated} to {@code orders.v1}, the compact {@code OrderCreatedV2} to
+ * {@code orders.v2}, or both while consumers migrate. Controlled by
+ * {@code orders.publish.v1-enabled} and {@code orders.publish.v2-enabled}.
+ */
 @Component
 public class OrderEventPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(OrderEventPublisher.class);
 
-    private final KafkaTemplate<String, OrderCreated> kafkaTemplate;
+    private static final String HOP = "order-service";
 
-    public OrderEventPublisher(KafkaTemplate<String, OrderCreated> kafkaTemplate) {
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final boolean publishV1;
+    private final boolean publishV2;
+
+    public OrderEventPublisher(KafkaTemplate<String, Object> kafkaTemplate,
+                               @Value("${orders.publish.v1-enabled:true}") boolean publishV1,
+                               @Value("${orders.publish.v2-enabled:false}") boolean publishV2) {
         this.kafkaTemplate = kafkaTemplate;
+        this.publishV1 = publishV1;
+        this.publishV2 = publishV2;
     }
 
     public void publishOrderCreated(Order order) {
-        OrderCreated event = buildOrderCreatedEvent(order);
+        publish(order, CorrelationIdUtils.getFromMdc());
+    }
 
-        ProducerRecord<String, OrderCreated> record =
-                new ProducerRecord<>(TopicNames.ORDERS, order.getId(), event);
+    /**
+     * Sends the events for an order on the caller's behalf, e.g. a relay replaying it from the
+     * outbox after the request that created it has gone.
+     *
+     * @return completes once every enabled topic has acknowledged its event
+     */
+    public CompletableFuture<Void> publish(Order order, String correlationId) {
+        List<CompletableFuture<?>> sends = new ArrayList<>(2);
+        // The order may have waited in the outbox, so its own creation time is the origin.
+        long origin = order.getCreatedAt().toEpochMilli();
+        if (publishV1) {
+            // OrderSerializer writes the order as OrderCreated without building the record.
+            sends.add(send(TopicNames.ORDERS, order.getId(), order, OrderCreated.getClassSchema(), correlationId,
+                    origin));
+        }
+        if (publishV2) {
+            OrderCreatedV2 event = buildOrderCreatedV2Event(order);
+            sends.add(send(TopicNames.ORDERS_V2, order.getId(), event, event.getSchema(), correlationId, origin));
+        }
+        return CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new));
+    }
 
-        String correlationId = CorrelationIdUtils.getFromMdc();
+    private CompletableFuture<?> send(String topic, String orderId, Object value, Schema schema,
+                                      String correlationId, long origin) {
+        ProducerRecord<String, Object> record = new ProducerRecord<>(topic, orderId, value);
         CorrelationIdUtils.setToHeaders(record, correlationId);
+        EventTypeUtils.setToHeaders(record, schema);
+        LatencyHeaders.stamp(record, HOP, origin);
 
-        kafkaTemplate.send(record)
+        return kafkaTemplate.send(record)
                 .whenComplete((result, ex) -> {
                     if (ex != null) {
-                        log.error("Failed to publish OrderCreated for order {}: {}",
-                                order.getId(), ex.getMessage(), ex);
+                        log.error("Failed to publish {} for order {}: {}",
+                                schema.getName(), orderId, ex.getMessage(), ex);
                     } else {
-                        log.info("Published OrderCreated for order {} to partition {} offset {}",
-                                order.getId(),
+                        log.info("Published {} for order {} to {} partition {} offset {}",
+                                schema.getName(),
+                                orderId,
+                                topic,
                                 result.getRecordMetadata().partition(),
                                 result.getRecordMetadata().offset());
                     }
                 });
     }
 
-    private OrderCreated buildOrderCreatedEvent(Order order) {
-        List<OrderLine> avroLines = order.getLines().stream()
-                .map(l -> new OrderLine(l.sku(), l.qty()))
-                .toList();
-
-        return OrderCreated.newBuilder()
-                .setId(order.getId())
+    private OrderCreatedV2 buildOrderCreatedV2Event(Order order) {
+        // The decimal logical type has a fixed scale. While v2 is published, totals finer than cents
+        // never get this far: the request is rejected on arrival, before anything is published.
+        return OrderCreatedV2.newBuilder()
+                .setId(UUID.fromString(order.getId()))
                 .setCustomerId(order.getCustomerId())
-                .setLines(avroLines)
-                .setTotal(order.getTotal().toPlainString())
+                .setLines(toAvroLines(order))
+                .setTotal(order.getTotal().setScale(CreateOrderRequest.TOTAL_SCALE, RoundingMode.UNNECESSARY))
                 .setStatus(order.getStatus().name())
-                .setCreatedAt(order.getCreatedAt().toString())
+                .setCreatedAt(order.getCreatedAt())
                 .build();
     }
+
+    private static List<OrderLine> toAvroLines(Order order) {
+        return order.getLines().stream()
+                .map(l -> new OrderLine(l.sku(), l.qty()))
+                .toList();
+    }
 }
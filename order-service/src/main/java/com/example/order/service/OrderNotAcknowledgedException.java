@@ -0,0 +1,24 @@
+package com.example.order.service;
+
+import com.example.order.model.Order;
+import com.example.order.outbox.CreateMode;
+
+import java.time.Duration;
+
+/**
+ * The order was created and taken by the outbox, but not confirmed as far as its
+ * {@link CreateMode} asks in time. It will still be sent.
+ */
+public class OrderNotAcknowledgedException extends RuntimeException {
+
+    private final transient Order order;
+
+    public OrderNotAcknowledgedException(Order order, CreateMode mode, Duration timeout) {
+        super("Order " + order.getId() + " not confirmed as " + mode + " within " + timeout);
+        this.order = order;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+}
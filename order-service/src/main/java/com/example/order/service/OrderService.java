@@ -1,18 +1,34 @@
 package com.example.order.service;
 
+import com.example.common.CorrelationIdUtils;
+import com.example.common.id.TimeOrderedIdGenerator;
+import com.example.order.admission.AdmissionController;
+import com.example.order.admission.OrderRejectedException;
 import com.example.order.controller.dto.CreateOrderRequest;
 import com.example.order.model.Order;
 import com.example.order.model.OrderLineItem;
 import com.example.order.model.OrderStatus;
+import com.example.order.outbox.CreateMode;
+import com.example.order.outbox.OrderOutbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class OrderService {
@@ -20,38 +36,181 @@ public class OrderService {
     private static final Logger log = LoggerFactory.getLogger(OrderService.class);
 
     private final Map<String, Order> orderStore = new ConcurrentHashMap<>();
-    private final OrderEventPublisher eventPublisher;
+    private final OrderOutbox outbox;
+    private final AdmissionController admission;
+    private final Executor createExecutor;
+    private final CreateMode defaultMode;
+    private final Duration ackTimeout;
 
-    public OrderService(OrderEventPublisher eventPublisher) {
-        this.eventPublisher = eventPublisher;
+    @Autowired
+    public OrderService(OrderOutbox outbox,
+                        AdmissionController admission,
+                        @Value("${orders.create.mode:IMMEDIATE}") CreateMode defaultMode,
+                        @Value("${orders.create.ack-timeout:10s}") Duration ackTimeout) {
+        this(outbox, admission, Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("order-create-", 0).factory()),
+                defaultMode, ackTimeout);
     }
 
+    OrderService(OrderOutbox outbox, AdmissionController admission, Executor createExecutor,
+                 CreateMode defaultMode, Duration ackTimeout) {
+        this.outbox = outbox;
+        this.admission = admission;
+        this.createExecutor = createExecutor;
+        this.defaultMode = defaultMode;
+        this.ackTimeout = ackTimeout;
+    }
+
+    /**
+     * @throws OrderRejectedException if the service is at its admission limit
+     */
     public Order createOrder(CreateOrderRequest request) {
-        String orderId = UUID.randomUUID().toString();
-        Instant now = Instant.now();
+        AdmissionController.Permit permit = admission.acquire();
+        try {
+            Order order = newOrder(request);
+            outbox.append(order, CreateMode.IMMEDIATE);
+            store(order);
+            return order;
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * Creates the order on a virtual thread, so the caller's thread is never held on the
+     * outbox, and completes once the order has got as far as {@code mode} asks, or
+     * {@code orders.create.mode} when it is {@code null}.
+     * <p>
+     * An order the outbox has taken but not confirmed within {@code orders.create.ack-timeout}
+     * completes with {@link OrderNotAcknowledgedException}; it is still created and will be sent,
+     * and holds its admission permit until it has been. When the service is at its admission limit the order is not created, and the future has
+     * already failed with {@link OrderRejectedException}.
+     */
+    public CompletableFuture<Order> createOrderAsync(CreateOrderRequest request, CreateMode mode) {
+        CreateMode effectiveMode = mode != null ? mode : defaultMode;
+        AdmissionController.Permit permit;
+        try {
+            permit = admission.acquire();
+        } catch (OrderRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String correlationId = CorrelationIdUtils.getFromMdc();
+        return CompletableFuture.supplyAsync(() -> {
+            CorrelationIdUtils.setInMdc(correlationId);
+            try {
+                Order order = newOrder(request);
+                CompletableFuture<Void> confirmed = outbox.append(order, effectiveMode);
+                confirmed.whenComplete((result, ex) -> permit.release());
+                store(order);
+                return confirm(order, confirmed, effectiveMode);
+            } finally {
+                CorrelationIdUtils.clearMdc();
+            }
+        }, createExecutor).thenCompose(confirmed -> confirmed)
+                .whenComplete((order, ex) -> {
+                    if (ex != null && !(unwrap(ex) instanceof OrderNotAcknowledgedException)) {
+                        permit.release();
+                    }
+                });
+    }
+
+    /**
+     * Creates a chunk of orders on the calling thread, appending them to the outbox together.
+     * Each future completes as {@link #createOrderAsync} describes for its order.
+     * <p>
+     * Each order takes an admission permit. Rather than turning orders away at the limit, this
+     * creates those admitted so far and waits up to {@code orders.create.ack-timeout} for
+     * capacity, since the caller can stop reading its input meanwhile; orders still not admitted
+     * then fail with {@link OrderRejectedException}.
+     */
+    public List<CompletableFuture<Order>> createOrders(List<CreateOrderRequest> requests, CreateMode mode) {
+        CreateMode effectiveMode = mode != null ? mode : defaultMode;
+        List<CompletableFuture<Order>> created = new ArrayList<>(requests.size());
+        while (created.size() < requests.size()) {
+            int from = created.size();
+            List<AdmissionController.Permit> permits = new ArrayList<>();
+            AdmissionController.Permit permit;
+            while (from + permits.size() < requests.size() && (permit = admission.tryAcquire()) != null) {
+                permits.add(permit);
+            }
+            if (permits.isEmpty()) {
+                try {
+                    permits.add(admission.acquire(ackTimeout));
+                } catch (OrderRejectedException e) {
+                    while (created.size() < requests.size()) {
+                        created.add(CompletableFuture.failedFuture(e));
+                    }
+                    break;
+                }
+            }
+            created.addAll(createAdmitted(requests.subList(from, from + permits.size()), permits, effectiveMode));
+        }
+        return created;
+    }
+
+    public Optional<Order> getOrder(String id) {
+        return Optional.ofNullable(orderStore.get(id));
+    }
 
+    private static Order newOrder(CreateOrderRequest request) {
         var lines = request.lines().stream()
                 .map(l -> new OrderLineItem(l.sku(), l.qty()))
                 .toList();
 
-        Order order = Order.builder()
-                .id(orderId)
+        return Order.builder()
+                .id(TimeOrderedIdGenerator.nextId())
                 .customerId(request.customerId())
                 .lines(lines)
                 .total(request.total())
                 .status(OrderStatus.CREATED)
-                .createdAt(now)
+                .createdAt(Instant.now())
                 .build();
+    }
 
-        orderStore.put(orderId, order);
-        log.info("Order created: {}", orderId);
+    /** Appends orders that each hold a permit, released once the outbox has sent the order. */
+    private List<CompletableFuture<Order>> createAdmitted(List<CreateOrderRequest> requests,
+                                                          List<AdmissionController.Permit> permits,
+                                                          CreateMode mode) {
+        List<Order> orders;
+        List<CompletableFuture<Void>> confirmations;
+        try {
+            orders = requests.stream().map(OrderService::newOrder).toList();
+            confirmations = outbox.appendAll(orders, mode);
+        } catch (RuntimeException e) {
+            permits.forEach(AdmissionController.Permit::release);
+            return requests.stream().map(r -> CompletableFuture.<Order>failedFuture(e)).toList();
+        }
+        List<CompletableFuture<Order>> created = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            AdmissionController.Permit permit = permits.get(i);
+            confirmations.get(i).whenComplete((result, ex) -> permit.release());
+            store(orders.get(i));
+            created.add(confirm(orders.get(i), confirmations.get(i), mode));
+        }
+        return created;
+    }
 
-        eventPublisher.publishOrderCreated(order);
+    private CompletableFuture<Order> confirm(Order order, CompletableFuture<Void> confirmed, CreateMode mode) {
+        // orTimeout completes the future it is called on, which must stay the outbox's own
+        return confirmed.copy()
+                .orTimeout(ackTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((result, ex) -> {
+                    Throwable cause = unwrap(ex);
+                    if (cause instanceof TimeoutException) {
+                        throw new OrderNotAcknowledgedException(order, mode, ackTimeout);
+                    }
+                    if (cause != null) {
+                        throw new CompletionException(cause);
+                    }
+                    return order;
+                });
+    }
 
-        return order;
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException ? ex.getCause() : ex;
     }
 
-    public Optional<Order> getOrder(String id) {
-        return Optional.ofNullable(orderStore.get(id));
+    private void store(Order order) {
+        orderStore.put(order.getId(), order);
+        log.info("Order created: {}", order.getId());
     }
 }
@@ -14,6 +14,7 @@ import org.apache.kafka.common.serialization.StringDeserializer;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.resttestclient.TestRestTemplate;
@@ -34,6 +35,7 @@ import org.testcontainers.utility.DockerImageName;
 
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
@@ -57,6 +59,9 @@ class OrderServiceIT {
 
     static GenericContainer<?> schemaRegistry;
 
+    @TempDir
+    static Path outboxDirectory;
+
     @Autowired
     TestRestTemplate restTemplate;
 
@@ -85,6 +90,7 @@ class OrderServiceIT {
         registry.add("spring.kafka.bootstrap-servers", kafka::getBootstrapServers);
         registry.add("spring.kafka.producer.properties.schema.registry.url",
                 () -> schemaRegistryUrl());
+        registry.add("orders.outbox.directory", () -> outboxDirectory.toString());
     }
 
     static String schemaRegistryUrl() {
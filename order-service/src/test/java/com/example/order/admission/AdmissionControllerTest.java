@@ -0,0 +1,209 @@
+package com.example.order.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControllerTest {
+
+    private final AtomicReference<ProducerPressure> pressure = new AtomicReference<>(ProducerPressure.NONE);
+    private final AtomicLong outboxPending = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AdmissionController admission;
+
+    @BeforeEach
+    void setUp() {
+        admission = new AdmissionController(pressure::get, outboxPending::get, 100, 10, 200, 0.5, 0.2,
+                Duration.ofMillis(100), 20, 1000, 2.0, Duration.ofMillis(100), Duration.ofSeconds(1), meterRegistry);
+    }
+
+    @Test
+    void acquire_atTheLimit_shouldRejectUntilAPermitIsReleased() {
+        admission = new AdmissionController(pressure::get, outboxPending::get, 2, 1, 2, 0.5, 0.2,
+                Duration.ofMillis(100), 20, 1000, 2.0, Duration.ofMillis(100), Duration.ofSeconds(1), meterRegistry);
+        AdmissionController.Permit first = admission.acquire();
+        admission.acquire();
+
+        assertThatThrownBy(admission::acquire).isInstanceOf(OrderRejectedException.class);
+        assertThat(meterRegistry.get("orders.admission.rejected").counter().count()).isEqualTo(1);
+
+        first.release();
+        admission.acquire();
+        assertThat(admission.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void acquireWithTimeout_atTheLimit_shouldWaitForAPermitToBeReleased() throws InterruptedException {
+        admission = new AdmissionController(pressure::get, outboxPending::get, 1, 1, 1, 0.5, 0.2,
+                Duration.ofMillis(100), 20, 1000, 2.0, Duration.ofMillis(100), Duration.ofSeconds(1), meterRegistry);
+        AdmissionController.Permit held = admission.acquire();
+        Thread releaser = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            held.release();
+        });
+
+        AdmissionController.Permit permit = admission.acquire(Duration.ofSeconds(5));
+
+        releaser.join();
+        assertThat(permit).isNotNull();
+        assertThat(admission.inFlight()).isEqualTo(1);
+        assertThat(meterRegistry.get("orders.admission.rejected").counter().count()).isZero();
+    }
+
+    @Test
+    void acquireWithTimeout_nothingReleased_shouldRejectAfterTheTimeout() {
+        admission = new AdmissionController(pressure::get, outboxPending::get, 1, 1, 1, 0.5, 0.2,
+                Duration.ofMillis(100), 20, 1000, 2.0, Duration.ofMillis(100), Duration.ofSeconds(1), meterRegistry);
+        admission.acquire();
+
+        assertThatThrownBy(() -> admission.acquire(Duration.ofMillis(20)))
+                .isInstanceOf(OrderRejectedException.class);
+        assertThat(meterRegistry.get("orders.admission.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void release_calledTwice_shouldFreeOnePermit() {
+        AdmissionController.Permit permit = admission.acquire();
+        admission.acquire();
+
+        permit.release();
+        permit.release();
+
+        assertThat(admission.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void adjust_producerBufferNearlyFull_shouldCutTheLimitDownToTheMinimum() {
+        pressure.set(new ProducerPressure(0.1, 0, 0));
+
+        admission.adjust();
+        assertThat(admission.limit()).isEqualTo(50);
+
+        for (int i = 0; i < 5; i++) {
+            admission.adjust();
+        }
+        assertThat(admission.limit()).isEqualTo(10);
+    }
+
+    @Test
+    void adjust_recordsQueueingOrTooManyRequestsInFlight_shouldCutTheLimit() {
+        pressure.set(new ProducerPressure(1, 150, 0));
+        admission.adjust();
+        assertThat(admission.limit()).isEqualTo(50);
+
+        pressure.set(new ProducerPressure(1, 0, 25));
+        admission.adjust();
+        assertThat(admission.limit()).isEqualTo(25);
+    }
+
+    @Test
+    void adjust_outboxBacklogOverItsCap_shouldCutTheLimitAndRejectUntilItClears() {
+        outboxPending.set(1001);
+
+        admission.adjust();
+
+        assertThat(admission.limit()).isEqualTo(50);
+        assertThatThrownBy(admission::acquire).isInstanceOf(OrderRejectedException.class);
+        assertThat(admission.tryAcquire()).isNull();
+        assertThat(admission.inFlight()).isZero();
+
+        outboxPending.set(1000);
+        admission.adjust();
+
+        assertThat(admission.acquire()).isNotNull();
+    }
+
+    @Test
+    void acquireWithTimeout_outboxBacklogged_shouldWaitForItToClear() throws InterruptedException {
+        outboxPending.set(5000);
+        admission.adjust();
+        Thread clearer = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            outboxPending.set(0);
+            admission.adjust();
+        });
+
+        AdmissionController.Permit permit = admission.acquire(Duration.ofSeconds(5));
+
+        clearer.join();
+        assertThat(permit).isNotNull();
+    }
+
+    @Test
+    void adjust_healthyProducer_shouldGrowTheLimitOnlyWhileItIsInUse() {
+        admission.adjust();
+        assertThat(admission.limit()).isEqualTo(100);
+
+        List<AdmissionController.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            permits.add(admission.acquire());
+        }
+        permits.forEach(AdmissionController.Permit::release);
+        admission.adjust();
+        assertThat(admission.limit()).isEqualTo(110);
+    }
+
+    @Test
+    void adjust_ordersSlowerThanUsual_shouldCutTheLimit() throws InterruptedException {
+        admission.acquire().release();
+        admission.adjust();
+
+        AdmissionController.Permit permit = admission.acquire();
+        Thread.sleep(20);
+        permit.release();
+        admission.adjust();
+
+        assertThat(admission.limit()).isEqualTo(50);
+    }
+
+    @Test
+    void producerPressure_shouldReadTheProducerMetricsGroup() {
+        Map<MetricName, Metric> metrics = Map.of(
+                name("buffer-available-bytes", "producer-metrics"), metric(8_000_000.0),
+                name("buffer-total-bytes", "producer-metrics"), metric(32_000_000.0),
+                name("record-queue-time-avg", "producer-metrics"), metric(Double.NaN),
+                name("requests-in-flight", "producer-metrics"), metric(3.0),
+                name("requests-in-flight", "producer-node-metrics"), metric(99.0));
+
+        assertThat(ProducerPressure.from(metrics)).isEqualTo(new ProducerPressure(0.25, 0, 3));
+    }
+
+    private static MetricName name(String name, String group) {
+        return new MetricName(name, group, "", Map.of());
+    }
+
+    private static Metric metric(double value) {
+        return new Metric() {
+            @Override
+            public MetricName metricName() {
+                return null;
+            }
+
+            @Override
+            public Object metricValue() {
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.order.bulk;
+
+import com.example.common.avro.OrderLine;
+import com.example.common.avro.OrderRequest;
+import com.example.order.controller.dto.BulkOrderResult;
+import com.example.order.controller.dto.CreateOrderRequest;
+import com.example.order.model.Order;
+import com.example.order.model.OrderLineItem;
+import com.example.order.model.OrderStatus;
+import com.example.order.outbox.CreateMode;
+import com.example.order.service.OrderNotAcknowledgedException;
+import com.example.order.service.OrderService;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.assertj.core.groups.Tuple;
+import org.springframework.http.MediaType;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BulkOrderServiceTest {
+
+    private static final MediaType AVRO_CONTAINER = MediaType.parseMediaType(BulkOrderService.AVRO_CONTAINER_VALUE);
+
+    @Mock
+    private OrderService orderService;
+
+    private final List<BulkOrderResult> results = Collections.synchronizedList(new ArrayList<>());
+
+    private BulkOrderService bulkOrderService;
+
+    @BeforeEach
+    void setUp() {
+        bulkOrderService = new BulkOrderService(orderService, JsonMapper.builder().build(), Runnable::run,
+                CreateMode.BROKER_ACK, 2, 10, false);
+    }
+
+    @Test
+    void createOrders_ndjson_shouldCreateInChunksAndReportEachLine() {
+        when(orderService.createOrders(anyList(), eq(CreateMode.BROKER_ACK))).thenAnswer(invocation -> created(invocation.getArgument(0)));
+
+        bulkOrderService.createOrders(ndjson("""
+                {"customerId":"cust-1","lines":[{"sku":"SKU-001","qty":1}],"total":10}
+                {"customerId":"cust-2","lines":[{"sku":"SKU-002","qty":2}],"total":20}
+
+                {"customerId":"cust-3","lines":[{"sku":"SKU-003","qty":3}],"total":30}
+                """), MediaType.APPLICATION_NDJSON, null, results::add).join();
+
+        verify(orderService, times(2)).createOrders(anyList(), eq(CreateMode.BROKER_ACK));
+        assertThat(results).extracting(BulkOrderResult::line).containsExactly(1L, 2L, 4L);
+        assertThat(results).extracting(BulkOrderResult::status).containsOnly("CREATED");
+        assertThat(results).extracting(BulkOrderResult::orderId).containsExactly("order-cust-1", "order-cust-2", "order-cust-3");
+    }
+
+    @Test
+    void createOrders_ndjson_badLines_shouldBeRejectedAndTheRestCreated() {
+        when(orderService.createOrders(anyList(), any())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+
+        bulkOrderService.createOrders(ndjson("""
+                {"customerId":"cust-1","lines":[{"sku":"SKU-001","qty":1}],"total":10}
+                {"customerId":
+                {"customerId":"cust-3","total":30}
+                {"customerId":"cust-4","lines":[{"sku":"SKU-004","qty":4}],"total":40}
+                """), MediaType.APPLICATION_NDJSON, CreateMode.IMMEDIATE, results::add).join();
+
+        assertThat(results).filteredOn(r -> r.status().equals("REJECTED"))
+                .extracting(BulkOrderResult::line).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(results).filteredOn(r -> r.status().equals("CREATED"))
+                .extracting(BulkOrderResult::line).containsExactlyInAnyOrder(1L, 4L);
+        verify(orderService).createOrders(anyList(), eq(CreateMode.IMMEDIATE));
+    }
+
+    @Test
+    void createOrders_totalFinerThanCents_shouldBeRejectedBeforeCreatingWhilePublishingV2() {
+        when(orderService.createOrders(anyList(), any())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        bulkOrderService = new BulkOrderService(orderService, JsonMapper.builder().build(), Runnable::run,
+                CreateMode.BROKER_ACK, 2, 10, true);
+
+        bulkOrderService.createOrders(ndjson("""
+                {"customerId":"cust-1","lines":[{"sku":"SKU-001","qty":1}],"total":10.005}
+                {"customerId":"cust-2","lines":[{"sku":"SKU-002","qty":2}],"total":20.500}
+                """), MediaType.APPLICATION_NDJSON, CreateMode.IMMEDIATE, results::add).join();
+
+        assertThat(results).extracting(BulkOrderResult::line, BulkOrderResult::status)
+                .containsExactlyInAnyOrder(Tuple.tuple(1L, "REJECTED"), Tuple.tuple(2L, "CREATED"));
+    }
+
+    @Test
+    void createOrders_totalFinerThanCents_shouldBeCreatedWhilePublishingOnlyV1() {
+        when(orderService.createOrders(anyList(), any())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+
+        bulkOrderService.createOrders(ndjson("""
+                {"customerId":"cust-1","lines":[{"sku":"SKU-001","qty":1}],"total":10.005}
+                """), MediaType.APPLICATION_NDJSON, CreateMode.IMMEDIATE, results::add).join();
+
+        assertThat(results).extracting(BulkOrderResult::line, BulkOrderResult::status)
+                .containsExactly(Tuple.tuple(1L, "CREATED"));
+    }
+
+    @Test
+    void createOrders_notConfirmedInTime_shouldReportAccepted() {
+        when(orderService.createOrders(anyList(), any())).thenAnswer(invocation -> {
+            Order order = order("cust-1");
+            return List.of(CompletableFuture.failedFuture(
+                    new OrderNotAcknowledgedException(order, CreateMode.BROKER_ACK, Duration.ofSeconds(10))));
+        });
+
+        bulkOrderService.createOrders(ndjson("""
+                {"customerId":"cust-1","lines":[{"sku":"SKU-001","qty":1}],"total":10}
+                """), MediaType.APPLICATION_NDJSON, null, results::add).join();
+
+        assertThat(results).containsExactly(new BulkOrderResult(1, "order-cust-1", "ACCEPTED", null));
+    }
+
+    @Test
+    void createOrders_resultsNoLongerDelivered_shouldStopCreating() throws Exception {
+        when(orderService.createOrders(anyList(), any())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        bulkOrderService = new BulkOrderService(orderService, JsonMapper.builder().build(),
+                task -> Thread.ofVirtual().start(task), CreateMode.BROKER_ACK, 2, 10, false);
+        var client = new PipedOutputStream();
+        var body = new PipedInputStream(client);
+        var delivered = new CountDownLatch(1);
+
+        client.write(line("cust-1"));
+        CompletableFuture<Void> done = bulkOrderService.createOrders(body, MediaType.APPLICATION_NDJSON, null,
+                result -> {
+                    delivered.countDown();
+                    throw new IllegalStateException("client went away");
+                });
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        client.write(line("cust-2"));
+        client.write(line("cust-3"));
+        client.close();
+
+        assertThat(done).succeedsWithin(Duration.ofSeconds(5));
+        verify(orderService, times(1)).createOrders(anyList(), any());
+    }
+
+    @Test
+    void createOrders_avroContainer_shouldCreateEachRecord() throws IOException {
+        when(orderService.createOrders(anyList(), any())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+
+        bulkOrderService.createOrders(avroContainer(
+                        new OrderRequest("cust-1", List.of(new OrderLine("SKU-001", 1)), "10.50"),
+                        new OrderRequest("cust-2", List.of(new OrderLine("SKU-002", 2)), "ten"),
+                        new OrderRequest("cust-3", List.of(new OrderLine("SKU-003", 3)), "30")),
+                AVRO_CONTAINER, null, results::add).join();
+
+        assertThat(results).extracting(BulkOrderResult::line, BulkOrderResult::status)
+                .containsExactlyInAnyOrder(
+                        Tuple.tuple(1L, "CREATED"),
+                        Tuple.tuple(2L, "REJECTED"),
+                        Tuple.tuple(3L, "CREATED"));
+    }
+
+    @Test
+    void createOrders_unreadableAvroContainer_shouldRejectTheBodyWithoutCreating() {
+        bulkOrderService.createOrders(ndjson("not an avro file"), AVRO_CONTAINER, null, results::add).join();
+
+        assertThat(results).singleElement()
+                .satisfies(result -> {
+                    assertThat(result.line()).isEqualTo(1);
+                    assertThat(result.status()).isEqualTo("REJECTED");
+                });
+        verify(orderService, never()).createOrders(anyList(), any());
+    }
+
+    private static List<CompletableFuture<Order>> created(List<CreateOrderRequest> requests) {
+        return requests.stream()
+                .map(request -> CompletableFuture.completedFuture(order(request.customerId())))
+                .toList();
+    }
+
+    private static Order order(String customerId) {
+        return Order.builder()
+                .id("order-" + customerId)
+                .customerId(customerId)
+                .lines(List.of(new OrderLineItem("SKU-001", 1)))
+                .total(new BigDecimal("10"))
+                .status(OrderStatus.CREATED)
+                .createdAt(Instant.parse("2025-01-01T00:00:00Z"))
+                .build();
+    }
+
+    private static byte[] line(String customerId) {
+        return ("{\"customerId\":\"" + customerId + "\",\"lines\":[{\"sku\":\"SKU-001\",\"qty\":1}],\"total\":10}\n")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static InputStream ndjson(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream avroContainer(OrderRequest... requests) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var writer = new DataFileWriter<>(new SpecificDatumWriter<>(OrderRequest.class))) {
+            writer.create(OrderRequest.getClassSchema(), out);
+            for (OrderRequest request : requests) {
+                writer.append(request);
+            }
+        }
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.order.codec;
+
+import com.example.common.TopicNames;
+import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderCreatedV2;
+import com.example.common.avro.OrderLine;
+import com.example.order.model.Order;
+import com.example.order.model.OrderLineItem;
+import com.example.order.model.OrderStatus;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.AbstractKafkaSchemaSerDeConfig;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderSerializerTest {
+
+    private MockSchemaRegistryClient schemaRegistry;
+    private OrderSerializer serializer;
+
+    @BeforeEach
+    void setUp() {
+        schemaRegistry = new MockSchemaRegistryClient();
+        serializer = new OrderSerializer(schemaRegistry);
+        serializer.configure(Map.of(AbstractKafkaSchemaSerDeConfig.SCHEMA_REGISTRY_URL_CONFIG, "mock://unused"), false);
+    }
+
+    @Test
+    void serialize_order_shouldWriteTheSameBytesAsTheOrderCreatedRecord() throws Exception {
+        Order order = order("cust-1", List.of(new OrderLineItem("SKU-001", 2), new OrderLineItem("SKU-002", 150)));
+
+        byte[] bytes = serializer.serialize(TopicNames.ORDERS, order);
+
+        ByteBuffer wire = ByteBuffer.wrap(bytes);
+        assertThat(wire.get()).isZero();
+        assertThat(wire.getInt()).isEqualTo(schemaRegistry.getId(TopicNames.ORDERS + "-value",
+                new AvroSchema(OrderCreated.getClassSchema())));
+        assertThat(decode(bytes)).isEqualTo(OrderCreated.newBuilder()
+                .setId(order.getId())
+                .setCustomerId("cust-1")
+                .setLines(List.of(new OrderLine("SKU-001", 2), new OrderLine("SKU-002", 150)))
+                .setTotal("99.90")
+                .setStatus("CREATED")
+                .setCreatedAt("2025-01-01T00:00:00.123Z")
+                .build());
+    }
+
+    @Test
+    void serialize_nonAsciiAndNoLines_shouldRoundTrip() throws IOException {
+        Order order = order("Zoë-Łukasz-客户", List.of());
+
+        OrderCreated event = decode(serializer.serialize(TopicNames.ORDERS, order));
+
+        assertThat(event.getCustomerId()).isEqualTo("Zoë-Łukasz-客户");
+        assertThat(event.getLines()).isEmpty();
+        assertThat(event.getTotal()).isEqualTo("99.90");
+    }
+
+    @Test
+    void serialize_otherRecords_shouldUseTheAvroSerializer() {
+        var event = OrderCreatedV2.newBuilder()
+                .setId(UUID.randomUUID())
+                .setCustomerId("cust-1")
+                .setLines(List.of(new OrderLine("SKU-001", 2)))
+                .setTotal(new BigDecimal("99.90"))
+                .setStatus("CREATED")
+                .setCreatedAt(Instant.parse("2025-01-01T00:00:00.123Z"))
+                .build();
+
+        byte[] bytes = serializer.serialize(TopicNames.ORDERS_V2, event);
+
+        assertThat(bytes[0]).isZero();
+        assertThat(bytes.length).isGreaterThan(5);
+    }
+
+    @Test
+    void serialize_withoutAutoRegisterAndUnknownSchema_shouldFail() {
+        serializer = new OrderSerializer(schemaRegistry);
+        serializer.configure(Map.of(
+                AbstractKafkaSchemaSerDeConfig.SCHEMA_REGISTRY_URL_CONFIG, "mock://unused",
+                AbstractKafkaSchemaSerDeConfig.AUTO_REGISTER_SCHEMAS, false), false);
+
+        assertThatThrownBy(() -> serializer.serialize(TopicNames.ORDERS, order("cust-1", List.of())))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private static OrderCreated decode(byte[] bytes) throws IOException {
+        var decoder = DecoderFactory.get().binaryDecoder(bytes, 5, bytes.length - 5, null);
+        OrderCreated event = new SpecificDatumReader<>(OrderCreated.class).read(null, decoder);
+        assertThat(decoder.isEnd()).isTrue();
+        return event;
+    }
+
+    private static Order order(String customerId, List<OrderLineItem> lines) {
+        return Order.builder()
+                .id(UUID.randomUUID().toString())
+                .customerId(customerId)
+                .lines(lines)
+                .total(new BigDecimal("99.90"))
+                .status(OrderStatus.CREATED)
+                .createdAt(Instant.parse("2025-01-01T00:00:00.123Z"))
+                .build();
+    }
+}
@@ -1,26 +1,50 @@
 package com.example.order.controller;
 
+import com.example.order.admission.OrderRejectedException;
+import com.example.order.bulk.BulkOrderService;
+import com.example.order.controller.dto.BulkOrderResult;
+import com.example.order.controller.dto.CreateOrderRequest;
+import com.example.order.controller.dto.OrderLineDto;
+import com.example.order.converter.AvroOrderRequestConverter;
 import com.example.order.model.Order;
 import com.example.order.model.OrderLineItem;
 import com.example.order.model.OrderStatus;
+import com.example.order.outbox.CreateMode;
+import com.example.order.service.OrderNotAcknowledgedException;
 import com.example.order.service.OrderService;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(OrderController.class)
@@ -32,6 +56,9 @@ class OrderControllerTest {
     @MockitoBean
     private OrderService orderService;
 
+    @MockitoBean
+    private BulkOrderService bulkOrderService;
+
     @Test
     void postOrders_shouldReturn201WithOrderIdAndStatus() throws Exception {
         Order order = Order.builder()
@@ -43,20 +70,190 @@ class OrderControllerTest {
                 .createdAt(Instant.parse("2025-01-01T00:00:00Z"))
                 .build();
 
-        when(orderService.createOrder(any())).thenReturn(order);
+        when(orderService.createOrderAsync(any(), isNull())).thenReturn(CompletableFuture.completedFuture(order));
 
         String body = """
                 {"customerId":"cust-1","lines":[{"sku":"SKU-001","qty":2}],"total":99.99}
                 """;
 
-        mockMvc.perform(post("/orders")
+        MvcResult result = mockMvc.perform(post("/orders")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.orderId").value("order-123"))
                 .andExpect(jsonPath("$.status").value("CREATED"));
     }
 
+    @Test
+    void postOrders_avroBody_shouldDecodeWithoutJson() throws Exception {
+        Order order = Order.builder()
+                .id("order-123")
+                .customerId("cust-1")
+                .lines(List.of(new OrderLineItem("SKU-001", 2)))
+                .total(new BigDecimal("99.99"))
+                .status(OrderStatus.CREATED)
+                .createdAt(Instant.parse("2025-01-01T00:00:00Z"))
+                .build();
+        var request = new CreateOrderRequest("cust-1", List.of(new OrderLineDto("SKU-001", 2)), new BigDecimal("99.99"));
+        ByteBuffer body = request.toAvro().toByteBuffer();
+
+        when(orderService.createOrderAsync(eq(request), isNull())).thenReturn(CompletableFuture.completedFuture(order));
+
+        MvcResult result = mockMvc.perform(post("/orders")
+                        .contentType(AvroOrderRequestConverter.MEDIA_TYPE)
+                        .content(Arrays.copyOfRange(body.array(), body.position(), body.limit())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.orderId").value("order-123"));
+    }
+
+    @Test
+    void postOrders_unreadableAvroBody_shouldReturn400() throws Exception {
+        mockMvc.perform(post("/orders")
+                        .contentType(AvroOrderRequestConverter.MEDIA_TYPE)
+                        .content(new byte[]{(byte) 0xC3, 0x01, 1, 2, 3}))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void postOrders_notAcknowledgedInTime_shouldReturn202() throws Exception {
+        Order order = Order.builder()
+                .id("order-123")
+                .customerId("cust-1")
+                .lines(List.of(new OrderLineItem("SKU-001", 2)))
+                .total(new BigDecimal("99.99"))
+                .status(OrderStatus.CREATED)
+                .createdAt(Instant.parse("2025-01-01T00:00:00Z"))
+                .build();
+
+        when(orderService.createOrderAsync(any(), eq(CreateMode.BROKER_ACK))).thenReturn(CompletableFuture.failedFuture(
+                new OrderNotAcknowledgedException(order, CreateMode.BROKER_ACK, Duration.ofSeconds(10))));
+
+        String body = """
+                {"customerId":"cust-1","lines":[{"sku":"SKU-001","qty":2}],"total":99.99}
+                """;
+
+        MvcResult result = mockMvc.perform(post("/orders")
+                        .param("mode", "BROKER_ACK")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.orderId").value("order-123"));
+    }
+
+    @Test
+    void postOrders_atTheAdmissionLimit_shouldReturn429WithRetryAfter() throws Exception {
+        when(orderService.createOrderAsync(any(), isNull())).thenReturn(CompletableFuture.failedFuture(
+                new OrderRejectedException(200, Duration.ofSeconds(2))));
+
+        String body = """
+                {"customerId":"cust-1","lines":[{"sku":"SKU-001","qty":2}],"total":99.99}
+                """;
+
+        MvcResult result = mockMvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"));
+    }
+
+    @Test
+    void postOrders_totalFinerThanCentsWhilePublishingOnlyV1_shouldCreateTheOrder() throws Exception {
+        when(orderService.createOrderAsync(any(), isNull())).thenAnswer(invocation -> {
+            CreateOrderRequest request = invocation.getArgument(0);
+            return CompletableFuture.completedFuture(Order.builder()
+                    .id("order-123")
+                    .customerId(request.customerId())
+                    .lines(List.of(new OrderLineItem("SKU-001", 2)))
+                    .total(request.total())
+                    .status(OrderStatus.CREATED)
+                    .createdAt(Instant.parse("2025-01-01T00:00:00Z"))
+                    .build());
+        });
+
+        MvcResult result = mockMvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"customerId":"cust-1","lines":[{"sku":"SKU-001","qty":2}],"total":99.999}
+                                """))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated());
+    }
+
+    @Nested
+    @TestPropertySource(properties = "orders.publish.v2-enabled=true")
+    class PublishingV2 {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Test
+        void postOrders_totalBeyondTheEventSchema_shouldReturn400WithoutCreating() throws Exception {
+            for (String total : List.of("99.999", "12345678901234567.00")) {
+                mockMvc.perform(post("/orders")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("""
+                                        {"customerId":"cust-1","lines":[{"sku":"SKU-001","qty":2}],"total":%s}
+                                        """.formatted(total)))
+                        .andExpect(status().isBadRequest());
+            }
+
+            verify(orderService, never()).createOrderAsync(any(), any());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void postOrdersBulk_shouldStreamOneResultPerLine() throws Exception {
+        when(bulkOrderService.createOrders(any(), eq(MediaType.APPLICATION_NDJSON), isNull(), any()))
+                .thenAnswer(invocation -> {
+                    Consumer<BulkOrderResult> results = invocation.getArgument(3);
+                    results.accept(new BulkOrderResult(2, "order-2", "CREATED", null));
+                    results.accept(new BulkOrderResult(1, null, "REJECTED", "Missing lines"));
+                    return CompletableFuture.completedFuture(null);
+                });
+
+        MvcResult result = mockMvc.perform(post("/orders/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"customerId\":\"cust-1\"}\n{\"customerId\":\"cust-1\",\"lines\":[]}\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("""
+                        {"line":2,"orderId":"order-2","status":"CREATED"}
+                        {"line":1,"status":"REJECTED","error":"Missing lines"}
+                        """));
+    }
+
+    @Test
+    void postOrdersBulk_unsupportedContentType_shouldReturn415() throws Exception {
+        mockMvc.perform(post("/orders/bulk")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("order"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
     @Test
     void getOrder_shouldReturn200WithFullDto() throws Exception {
         Order order = Order.builder()
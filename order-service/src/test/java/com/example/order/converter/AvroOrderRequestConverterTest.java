@@ -0,0 +1,88 @@
+package com.example.order.converter;
+
+import com.example.common.avro.OrderLine;
+import com.example.common.avro.OrderRequest;
+import com.example.order.controller.dto.CreateOrderRequest;
+import com.example.order.controller.dto.OrderLineDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AvroOrderRequestConverterTest {
+
+    private final AvroOrderRequestConverter converter = new AvroOrderRequestConverter();
+
+    @Test
+    void read_singleObjectEncoding_shouldDecodeTheRequest() throws IOException {
+        byte[] body = encode(new OrderRequest("cust-1",
+                List.of(new OrderLine("SKU-001", 2), new OrderLine("SKU-002", 1)), "99.90"));
+
+        CreateOrderRequest request = converter.read(CreateOrderRequest.class, new MockHttpInputMessage(body));
+
+        assertThat(request).isEqualTo(new CreateOrderRequest("cust-1",
+                List.of(new OrderLineDto("SKU-001", 2), new OrderLineDto("SKU-002", 1)), new BigDecimal("99.90")));
+    }
+
+    @Test
+    void write_shouldRoundTrip() throws IOException {
+        var request = new CreateOrderRequest("cust-1", List.of(new OrderLineDto("SKU-001", 2)), new BigDecimal("10.5"));
+        var output = new MockHttpOutputMessage();
+
+        converter.write(request, AvroOrderRequestConverter.MEDIA_TYPE, output);
+
+        assertThat(output.getHeaders().getContentType()).isEqualTo(AvroOrderRequestConverter.MEDIA_TYPE);
+        assertThat(converter.read(CreateOrderRequest.class, new MockHttpInputMessage(output.getBodyAsBytes())))
+                .isEqualTo(request);
+    }
+
+    @Test
+    void canRead_shouldOnlyAcceptOrderRequestsAsAvro() {
+        assertThat(converter.canRead(CreateOrderRequest.class, AvroOrderRequestConverter.MEDIA_TYPE)).isTrue();
+        assertThat(converter.canRead(CreateOrderRequest.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canRead(String.class, AvroOrderRequestConverter.MEDIA_TYPE)).isFalse();
+    }
+
+    @Test
+    void read_unknownFingerprint_shouldBeUnreadable() throws IOException {
+        byte[] body = encode(new OrderRequest("cust-1", List.of(new OrderLine("SKU-001", 2)), "99.90"));
+        body[2] ^= 0x7F;
+
+        assertThatThrownBy(() -> converter.read(CreateOrderRequest.class, new MockHttpInputMessage(body)))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+    }
+
+    @Test
+    void read_truncatedBody_shouldBeUnreadable() throws IOException {
+        byte[] body = encode(new OrderRequest("cust-1", List.of(new OrderLine("SKU-001", 2)), "99.90"));
+
+        assertThatThrownBy(() -> converter.read(CreateOrderRequest.class,
+                new MockHttpInputMessage(Arrays.copyOf(body, body.length - 4))))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+    }
+
+    @Test
+    void read_malformedTotal_shouldBeUnreadable() throws IOException {
+        byte[] body = encode(new OrderRequest("cust-1", List.of(new OrderLine("SKU-001", 2)), "ten"));
+
+        assertThatThrownBy(() -> converter.read(CreateOrderRequest.class, new MockHttpInputMessage(body)))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+    }
+
+    private static byte[] encode(OrderRequest request) throws IOException {
+        ByteBuffer buffer = request.toByteBuffer();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
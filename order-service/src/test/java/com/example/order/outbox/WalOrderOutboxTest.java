@@ -0,0 +1,284 @@
+package com.example.order.outbox;
+
+import com.example.common.CorrelationIdUtils;
+import com.example.order.model.Order;
+import com.example.order.model.OrderLineItem;
+import com.example.order.model.OrderStatus;
+import com.example.order.service.OrderEventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WalOrderOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private OrderEventPublisher eventPublisher;
+
+    private WriteAheadLog wal;
+    private WalOrderOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        wal = new WriteAheadLog(directory, 4096);
+        outbox = new WalOrderOutbox(wal, eventPublisher, 100, 2, Duration.ofSeconds(5),
+                Duration.ofMillis(10), Duration.ofMillis(10), Duration.ofSeconds(2), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        outbox.stop();
+        wal.close();
+        MDC.clear();
+    }
+
+    @Test
+    void append_shouldRelayTheOrderWithItsCorrelationIdAndCheckpoint() throws InterruptedException {
+        when(eventPublisher.publish(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        Order order = order("order-1");
+        MDC.put(CorrelationIdUtils.MDC_KEY, "corr-1");
+
+        outbox.start();
+        outbox.append(order, CreateMode.IMMEDIATE);
+
+        ArgumentCaptor<Order> relayed = ArgumentCaptor.forClass(Order.class);
+        verify(eventPublisher, timeout(5000)).publish(relayed.capture(), eq("corr-1"));
+        assertThat(relayed.getValue()).isEqualTo(order);
+        awaitPending(0);
+    }
+
+    @Test
+    void append_beforeStart_shouldBeRelayedOnStart() throws InterruptedException {
+        when(eventPublisher.publish(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        outbox.append(order("order-1"), CreateMode.IMMEDIATE);
+        outbox.append(order("order-2"), CreateMode.IMMEDIATE);
+
+        outbox.start();
+
+        verify(eventPublisher, timeout(5000).times(2)).publish(any(), any());
+        awaitPending(0);
+    }
+
+    @Test
+    void relay_failedSend_shouldResendFromCheckpoint() throws InterruptedException {
+        when(eventPublisher.publish(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        outbox.append(order("order-1"), CreateMode.IMMEDIATE);
+        outbox.start();
+
+        verify(eventPublisher, timeout(5000).times(2)).publish(any(), any());
+        awaitPending(0);
+    }
+
+    @Test
+    void relay_failedBatch_shouldResendTheBatchesSentAfterIt() throws InterruptedException {
+        outbox = new WalOrderOutbox(wal, eventPublisher, 1, 2, Duration.ofSeconds(5),
+                Duration.ofMillis(10), Duration.ofMillis(10), Duration.ofSeconds(2), new SimpleMeterRegistry());
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        when(eventPublisher.publish(any(), any()))
+                .thenReturn(first)
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        outbox.append(order("order-1"), CreateMode.IMMEDIATE);
+        outbox.append(order("order-2"), CreateMode.IMMEDIATE);
+        outbox.start();
+        verify(eventPublisher, timeout(5000).times(2)).publish(any(), any());
+        first.completeExceptionally(new IllegalStateException("broker down"));
+
+        awaitPending(0);
+        ArgumentCaptor<Order> relayed = ArgumentCaptor.forClass(Order.class);
+        verify(eventPublisher, times(4)).publish(relayed.capture(), any());
+        assertThat(relayed.getAllValues()).extracting(Order::getId)
+                .containsExactly("order-1", "order-2", "order-1", "order-2");
+    }
+
+    @Test
+    void relay_unpublishableOrder_shouldBeSkipped() throws InterruptedException {
+        when(eventPublisher.publish(any(), any()))
+                .thenThrow(new IllegalArgumentException("Unpublishable order"))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        outbox.append(order("order-1"), CreateMode.IMMEDIATE);
+        outbox.append(order("order-2"), CreateMode.IMMEDIATE);
+        outbox.start();
+
+        awaitPending(0);
+        verify(eventPublisher, times(2)).publish(any(), any());
+    }
+
+    @Test
+    void relay_failedRead_shouldBackOffAndResume() throws InterruptedException {
+        WriteAheadLog failingWal = spy(wal);
+        doThrow(new IllegalStateException("Position is not in a segment"))
+                .doCallRealMethod()
+                .when(failingWal).read(anyLong(), anyInt(), any());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        outbox = new WalOrderOutbox(failingWal, eventPublisher, 100, 2, Duration.ofSeconds(5),
+                Duration.ofMillis(10), Duration.ofMillis(10), Duration.ofSeconds(2), meterRegistry);
+        when(eventPublisher.publish(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        outbox.append(order("order-1"), CreateMode.IMMEDIATE);
+        outbox.start();
+
+        verify(eventPublisher, timeout(5000)).publish(any(), any());
+        awaitPending(0);
+        assertThat(outbox.isRelayAlive()).isTrue();
+        assertThat(meterRegistry.get("orders.outbox.relay.failures").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void relay_error_shouldReportTheRelayDead() throws InterruptedException {
+        when(eventPublisher.publish(any(), any())).thenThrow(new LinkageError("Broken classpath"));
+
+        outbox.start();
+        assertThat(outbox.isRelayAlive()).isTrue();
+        outbox.append(order("order-1"), CreateMode.IMMEDIATE);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (outbox.isRelayAlive() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(outbox.isRelayAlive()).isFalse();
+        assertThat(outbox.isRunning()).isTrue();
+        assertThat(wal.pending()).isEqualTo(1);
+    }
+
+    @Test
+    void stop_shouldSendEveryAppendedOrderFirst() {
+        when(eventPublisher.publish(any(), any())).thenAnswer(invocation -> CompletableFuture.runAsync(() -> { },
+                CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS)));
+        outbox.append(order("order-1"), CreateMode.IMMEDIATE);
+        outbox.append(order("order-2"), CreateMode.IMMEDIATE);
+
+        outbox.start();
+        outbox.stop();
+
+        assertThat(wal.pending()).isZero();
+        assertThat(outbox.isRunning()).isFalse();
+    }
+
+    @Test
+    void stop_notAcknowledgedWithinTheDrainTimeout_shouldLeaveTheOrdersInTheLog() {
+        outbox = new WalOrderOutbox(wal, eventPublisher, 100, 2, Duration.ofSeconds(5),
+                Duration.ofMillis(10), Duration.ofMillis(10), Duration.ofMillis(100), new SimpleMeterRegistry());
+        when(eventPublisher.publish(any(), any())).thenReturn(new CompletableFuture<>());
+        outbox.append(order("order-1"), CreateMode.IMMEDIATE);
+
+        outbox.start();
+        long started = System.nanoTime();
+        outbox.stop();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        assertThat(wal.pending()).isEqualTo(1);
+        assertThat(outbox.isRelayAlive()).isFalse();
+    }
+
+    @Test
+    void append_brokerAck_shouldCompleteOnceTheSendIsAcknowledged() {
+        CompletableFuture<Void> sent = new CompletableFuture<>();
+        when(eventPublisher.publish(any(), any())).thenReturn(sent);
+        outbox.start();
+
+        CompletableFuture<Void> acknowledged = outbox.append(order("order-1"), CreateMode.BROKER_ACK);
+
+        verify(eventPublisher, timeout(5000)).publish(any(), any());
+        assertThat(acknowledged).isNotDone();
+        sent.complete(null);
+        assertThat(acknowledged).succeedsWithin(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void append_brokerAck_unpublishableOrder_shouldFail() {
+        when(eventPublisher.publish(any(), any())).thenThrow(new IllegalArgumentException("Unpublishable order"));
+        outbox.start();
+
+        CompletableFuture<Void> acknowledged = outbox.append(order("order-1"), CreateMode.BROKER_ACK);
+
+        assertThat(acknowledged).failsWithin(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void append_walFsync_shouldReturnCompleted() {
+        assertThat(outbox.append(order("order-1"), CreateMode.WAL_FSYNC)).isCompleted();
+        assertThat(wal.pending()).isEqualTo(1);
+    }
+
+    @Test
+    void appendAll_brokerAck_shouldConfirmEachOrderOnItsOwnSend() {
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        when(eventPublisher.publish(any(), any()))
+                .thenReturn(first)
+                .thenReturn(CompletableFuture.completedFuture(null));
+        outbox.start();
+
+        List<CompletableFuture<Void>> acknowledged =
+                outbox.appendAll(List.of(order("order-1"), order("order-2")), CreateMode.BROKER_ACK);
+
+        assertThat(acknowledged).hasSize(2);
+        assertThat(acknowledged.get(1)).succeedsWithin(Duration.ofSeconds(5));
+        assertThat(acknowledged.get(0)).isNotDone();
+        first.complete(null);
+        assertThat(acknowledged.get(0)).succeedsWithin(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void appendAll_walFsync_shouldReturnCompleted() {
+        List<CompletableFuture<Void>> synced =
+                outbox.appendAll(List.of(order("order-1"), order("order-2")), CreateMode.WAL_FSYNC);
+
+        assertThat(synced).allSatisfy(future -> assertThat(future).isCompleted());
+        assertThat(wal.pending()).isEqualTo(2);
+    }
+
+    private void awaitPending(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (wal.pending() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(wal.pending()).isEqualTo(expected);
+    }
+
+    private static Order order(String id) {
+        return Order.builder()
+                .id(id)
+                .customerId("cust-1")
+                .lines(List.of(new OrderLineItem("SKU-001", 2), new OrderLineItem("SKU-002", 1)))
+                .total(new BigDecimal("99.90"))
+                .status(OrderStatus.CREATED)
+                .createdAt(Instant.parse("2025-01-01T00:00:00.123456789Z"))
+                .build();
+    }
+}
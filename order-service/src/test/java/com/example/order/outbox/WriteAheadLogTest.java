@@ -0,0 +1,180 @@
+package com.example.order.outbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteAheadLogTest {
+
+    private static final int ENTRY_BYTES = Integer.BYTES + "order-0".length();
+
+    @TempDir
+    Path directory;
+
+    private final List<WriteAheadLog> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (WriteAheadLog wal : opened) {
+            wal.close();
+        }
+    }
+
+    @Test
+    void read_shouldReturnAppendedEntriesInOrder() {
+        WriteAheadLog wal = open(4096);
+        wal.append(bytes("order-1"));
+        long end = wal.append(bytes("order-2"));
+
+        List<byte[]> entries = new ArrayList<>();
+        long next = wal.read(wal.checkpoint(), 10, entries);
+
+        assertThat(entries).extracting(WriteAheadLogTest::string).containsExactly("order-1", "order-2");
+        assertThat(next).isEqualTo(end);
+        assertThat(wal.read(next, 10, entries)).isEqualTo(next);
+        assertThat(wal.pending()).isEqualTo(2);
+    }
+
+    @Test
+    void read_shouldStopAtMaxEntries() {
+        WriteAheadLog wal = open(4096);
+        wal.append(bytes("order-1"));
+        wal.append(bytes("order-2"));
+
+        List<byte[]> entries = new ArrayList<>();
+        long next = wal.read(wal.checkpoint(), 1, entries);
+        wal.read(next, 1, entries);
+
+        assertThat(entries).extracting(WriteAheadLogTest::string).containsExactly("order-1", "order-2");
+    }
+
+    @Test
+    void read_acrossSegments_shouldFollowTheRoll() {
+        WriteAheadLog wal = open(WriteAheadLog.HEADER_BYTES + 2 * ENTRY_BYTES);
+        for (int i = 0; i < 5; i++) {
+            wal.append(bytes("order-" + i));
+        }
+
+        List<byte[]> entries = new ArrayList<>();
+        wal.read(wal.checkpoint(), 10, entries);
+
+        assertThat(wal.segmentCount()).isEqualTo(3);
+        assertThat(entries).extracting(WriteAheadLogTest::string)
+                .containsExactly("order-0", "order-1", "order-2", "order-3", "order-4");
+    }
+
+    @Test
+    void checkpoint_shouldDeleteSegmentsBehindIt() throws IOException {
+        WriteAheadLog wal = open(WriteAheadLog.HEADER_BYTES + 2 * ENTRY_BYTES);
+        for (int i = 0; i < 5; i++) {
+            wal.append(bytes("order-" + i));
+        }
+        List<byte[]> entries = new ArrayList<>();
+        long next = wal.read(wal.checkpoint(), 3, entries);
+
+        wal.checkpoint(next, entries.size());
+
+        assertThat(wal.segmentCount()).isEqualTo(2);
+        assertThat(segmentFiles()).isEqualTo(2);
+        assertThat(wal.pending()).isEqualTo(2);
+    }
+
+    @Test
+    void open_afterClose_shouldResumeFromCheckpoint() throws IOException {
+        WriteAheadLog wal = open(4096);
+        wal.append(bytes("order-1"));
+        wal.append(bytes("order-2"));
+        List<byte[]> entries = new ArrayList<>();
+        wal.checkpoint(wal.read(wal.checkpoint(), 1, entries), 1);
+        close(wal);
+
+        WriteAheadLog reopened = open(4096);
+        reopened.append(bytes("order-3"));
+
+        entries.clear();
+        reopened.read(reopened.checkpoint(), 10, entries);
+        assertThat(entries).extracting(WriteAheadLogTest::string).containsExactly("order-2", "order-3");
+        assertThat(reopened.pending()).isEqualTo(2);
+    }
+
+    @Test
+    void open_withoutCheckpoint_shouldReadFromTheStart() throws IOException {
+        WriteAheadLog wal = open(4096);
+        wal.append(bytes("order-1"));
+        close(wal);
+        Files.delete(directory.resolve("checkpoint"));
+
+        WriteAheadLog reopened = open(4096);
+
+        List<byte[]> entries = new ArrayList<>();
+        reopened.read(reopened.checkpoint(), 10, entries);
+        assertThat(entries).extracting(WriteAheadLogTest::string).containsExactly("order-1");
+    }
+
+    @Test
+    void sync_shouldCoverEverythingAppendedSoFar() {
+        WriteAheadLog wal = open(4096);
+        wal.append(bytes("order-1"));
+        long end = wal.append(bytes("order-2"));
+
+        wal.sync(end);
+        wal.sync(end);
+
+        List<byte[]> entries = new ArrayList<>();
+        wal.read(wal.checkpoint(), 10, entries);
+        assertThat(entries).hasSize(2);
+    }
+
+    @Test
+    void open_whileOpen_shouldThrow() {
+        open(4096);
+
+        assertThatThrownBy(() -> new WriteAheadLog(directory, 4096))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("in use");
+    }
+
+    @Test
+    void append_entryLargerThanSegment_shouldThrow() {
+        WriteAheadLog wal = open(64);
+
+        assertThatThrownBy(() -> wal.append(new byte[64]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private WriteAheadLog open(int segmentBytes) {
+        WriteAheadLog wal = new WriteAheadLog(directory, segmentBytes);
+        opened.add(wal);
+        return wal;
+    }
+
+    private void close(WriteAheadLog wal) throws IOException {
+        wal.close();
+        opened.remove(wal);
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(WriteAheadLog.SEGMENT_SUFFIX)).count();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.order.service;
 
+import com.example.common.EventTypeUtils;
 import com.example.common.TopicNames;
 import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderCreatedV2;
+import com.example.common.latency.LatencyHeaders;
 import com.example.order.model.Order;
 import com.example.order.model.OrderLineItem;
 import com.example.order.model.OrderStatus;
@@ -16,12 +19,16 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -29,16 +36,16 @@ import static org.mockito.Mockito.when;
 class OrderEventPublisherTest {
 
     @Mock
-    private KafkaTemplate<String, OrderCreated> kafkaTemplate;
+    private KafkaTemplate<String, Object> kafkaTemplate;
 
     @Captor
-    private ArgumentCaptor<ProducerRecord<String, OrderCreated>> recordCaptor;
+    private ArgumentCaptor<ProducerRecord<String, Object>> recordCaptor;
 
     private OrderEventPublisher publisher;
 
     @BeforeEach
     void setUp() {
-        publisher = new OrderEventPublisher(kafkaTemplate);
+        publisher = new OrderEventPublisher(kafkaTemplate, true, false);
     }
 
     @Test
@@ -59,18 +66,78 @@ class OrderEventPublisherTest {
         publisher.publishOrderCreated(order);
 
         verify(kafkaTemplate).send(recordCaptor.capture());
-        ProducerRecord<String, OrderCreated> record = recordCaptor.getValue();
+        ProducerRecord<String, Object> record = recordCaptor.getValue();
 
         assertThat(record.topic()).isEqualTo(TopicNames.ORDERS);
         assertThat(record.key()).isEqualTo("order-123");
 
-        OrderCreated event = record.value();
-        assertThat(event.getId()).isEqualTo("order-123");
-        assertThat(event.getCustomerId()).isEqualTo("cust-1");
-        assertThat(event.getTotal()).isEqualTo("99.99");
-        assertThat(event.getStatus()).isEqualTo("CREATED");
+        // Written as OrderCreated by OrderSerializer.
+        assertThat(record.value()).isSameAs(order);
+        assertThat(new String(record.headers().lastHeader(EventTypeUtils.HEADER_NAME).value(), StandardCharsets.UTF_8))
+                .isEqualTo(OrderCreated.getClassSchema().getFullName());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishOrderCreated_dualMode_shouldSendV1AndCompactV2() {
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(new CompletableFuture<>());
+        publisher = new OrderEventPublisher(kafkaTemplate, true, true);
+
+        UUID orderId = UUID.randomUUID();
+        Instant createdAt = Instant.parse("2025-01-01T00:00:00.123Z");
+        Order order = Order.builder()
+                .id(orderId.toString())
+                .customerId("cust-1")
+                .lines(List.of(new OrderLineItem("SKU-001", 2)))
+                .total(new BigDecimal("99.9"))
+                .status(OrderStatus.CREATED)
+                .createdAt(createdAt)
+                .build();
+
+        publisher.publishOrderCreated(order);
+
+        verify(kafkaTemplate, times(2)).send(recordCaptor.capture());
+        List<ProducerRecord<String, Object>> records = recordCaptor.getAllValues();
+
+        assertThat(records).extracting(ProducerRecord::topic)
+                .containsExactly(TopicNames.ORDERS, TopicNames.ORDERS_V2);
+        assertThat(records).extracting(ProducerRecord::key)
+                .containsOnly(orderId.toString());
+
+        OrderCreatedV2 event = (OrderCreatedV2) records.get(1).value();
+        assertThat(event.getId()).isEqualTo(orderId);
+        assertThat(event.getTotal()).isEqualTo(new BigDecimal("99.90"));
+        assertThat(event.getCreatedAt()).isEqualTo(createdAt);
         assertThat(event.getLines()).hasSize(1);
-        assertThat(event.getLines().getFirst().getSku()).isEqualTo("SKU-001");
-        assertThat(event.getLines().getFirst().getQty()).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishOrderCreated_shouldStampTheOrderCreationAsOriginAndHopHeaders() {
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(new CompletableFuture<>());
+
+        Order order = Order.builder()
+                .id("order-123")
+                .customerId("cust-1")
+                .lines(List.of(new OrderLineItem("SKU-001", 2)))
+                .total(new BigDecimal("99.99"))
+                .status(OrderStatus.CREATED)
+                .createdAt(Instant.parse("2025-01-01T00:00:00Z"))
+                .build();
+
+        long before = System.currentTimeMillis();
+        publisher.publishOrderCreated(order);
+
+        verify(kafkaTemplate).send(recordCaptor.capture());
+        ProducerRecord<String, Object> record = recordCaptor.getValue();
+
+        assertThat(new String(record.headers().lastHeader(LatencyHeaders.HOP_HEADER).value(), StandardCharsets.UTF_8))
+                .isEqualTo("order-service");
+        long origin = ByteBuffer.wrap(record.headers().lastHeader(LatencyHeaders.ORIGIN_TIMESTAMP_HEADER).value()).getLong();
+        assertThat(origin).isEqualTo(order.getCreatedAt().toEpochMilli());
+        long hop = ByteBuffer.wrap(record.headers().lastHeader(LatencyHeaders.HOP_TIMESTAMP_HEADER).value()).getLong();
+        assertThat(hop).isBetween(before, System.currentTimeMillis());
     }
 }
@@ -1,9 +1,15 @@
 package com.example.order.service;
 
+import com.example.order.admission.AdmissionController;
+import com.example.order.admission.OrderRejectedException;
+import com.example.order.admission.ProducerPressure;
 import com.example.order.controller.dto.CreateOrderRequest;
 import com.example.order.controller.dto.OrderLineDto;
 import com.example.order.model.Order;
 import com.example.order.model.OrderStatus;
+import com.example.order.outbox.CreateMode;
+import com.example.order.outbox.OrderOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,24 +17,32 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class OrderServiceTest {
 
     @Mock
-    private OrderEventPublisher eventPublisher;
+    private OrderOutbox outbox;
 
     private OrderService orderService;
 
     @BeforeEach
     void setUp() {
-        orderService = new OrderService(eventPublisher);
+        orderService = new OrderService(outbox, AdmissionController.unlimited(new SimpleMeterRegistry()),
+                Runnable::run, CreateMode.IMMEDIATE, Duration.ofMillis(200));
     }
 
     @Test
@@ -51,7 +65,7 @@ class OrderServiceTest {
     }
 
     @Test
-    void createOrder_shouldPublishEvent() {
+    void createOrder_shouldAppendToOutbox() {
         var request = new CreateOrderRequest(
                 "customer-1",
                 List.of(new OrderLineDto("SKU-001", 1)),
@@ -59,7 +73,7 @@ class OrderServiceTest {
 
         orderService.createOrder(request);
 
-        verify(eventPublisher).publishOrderCreated(any(Order.class));
+        verify(outbox).append(any(Order.class), eq(CreateMode.IMMEDIATE));
     }
 
     @Test
@@ -94,4 +108,138 @@ class OrderServiceTest {
 
         assertThat(found).isEmpty();
     }
+
+    @Test
+    void createOrderAsync_shouldCompleteWhenTheOutboxConfirms() {
+        CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+        when(outbox.append(any(Order.class), eq(CreateMode.BROKER_ACK))).thenReturn(acknowledged);
+
+        CompletableFuture<Order> created = orderService.createOrderAsync(request(), CreateMode.BROKER_ACK);
+
+        assertThat(created).isNotDone();
+        acknowledged.complete(null);
+        assertThat(created).isCompleted();
+        assertThat(orderService.getOrder(created.join().getId())).isPresent();
+    }
+
+    @Test
+    void createOrderAsync_withoutMode_shouldUseTheDefault() {
+        when(outbox.append(any(Order.class), eq(CreateMode.IMMEDIATE)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(orderService.createOrderAsync(request(), null)).isCompleted();
+    }
+
+    @Test
+    void createOrderAsync_notConfirmedInTime_shouldFailWithTheCreatedOrder() {
+        when(outbox.append(any(Order.class), eq(CreateMode.WAL_FSYNC))).thenReturn(new CompletableFuture<>());
+
+        CompletableFuture<Order> created = orderService.createOrderAsync(request(), CreateMode.WAL_FSYNC);
+
+        assertThatThrownBy(created::join)
+                .hasCauseInstanceOf(OrderNotAcknowledgedException.class)
+                .satisfies(e -> assertThat(((OrderNotAcknowledgedException) e.getCause()).getOrder().getCustomerId())
+                        .isEqualTo("customer-1"));
+    }
+
+    @Test
+    void createOrders_shouldAppendTheChunkTogetherAndConfirmEachOrder() {
+        CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+        when(outbox.appendAll(any(), eq(CreateMode.BROKER_ACK)))
+                .thenReturn(List.of(CompletableFuture.completedFuture(null), acknowledged));
+
+        List<CompletableFuture<Order>> created =
+                orderService.createOrders(List.of(request(), request()), CreateMode.BROKER_ACK);
+
+        assertThat(created).hasSize(2);
+        assertThat(created.get(0)).isCompleted();
+        assertThat(created.get(1)).isNotDone();
+        acknowledged.complete(null);
+        assertThat(created.get(1)).isCompleted();
+        assertThat(orderService.getOrder(created.get(1).join().getId())).isPresent();
+    }
+
+    @Test
+    void createOrderAsync_atTheAdmissionLimit_shouldRejectWithoutCreating() {
+        AdmissionController admission = singleOrderAdmission();
+        orderService = new OrderService(outbox, admission, Runnable::run, CreateMode.IMMEDIATE,
+                Duration.ofMillis(200));
+        CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+        when(outbox.append(any(Order.class), eq(CreateMode.BROKER_ACK))).thenReturn(acknowledged);
+
+        CompletableFuture<Order> admitted = orderService.createOrderAsync(request(), CreateMode.BROKER_ACK);
+        CompletableFuture<Order> rejected = orderService.createOrderAsync(request(), CreateMode.BROKER_ACK);
+
+        assertThatThrownBy(rejected::join)
+                .hasCauseInstanceOf(OrderRejectedException.class)
+                .satisfies(e -> assertThat(((OrderRejectedException) e.getCause()).getRetryAfter())
+                        .isEqualTo(Duration.ofSeconds(3)));
+        verify(outbox, times(1)).append(any(Order.class), any());
+
+        acknowledged.complete(null);
+        assertThat(admitted).isCompleted();
+        assertThat(admission.inFlight()).isZero();
+    }
+
+    @Test
+    void createOrderAsync_notConfirmedInTime_shouldHoldThePermitUntilTheOrderIsSent() {
+        AdmissionController admission = singleOrderAdmission();
+        orderService = new OrderService(outbox, admission, Runnable::run, CreateMode.IMMEDIATE,
+                Duration.ofMillis(50));
+        CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+        when(outbox.append(any(Order.class), eq(CreateMode.BROKER_ACK))).thenReturn(acknowledged);
+
+        CompletableFuture<Order> created = orderService.createOrderAsync(request(), CreateMode.BROKER_ACK);
+
+        assertThatThrownBy(created::join).hasCauseInstanceOf(OrderNotAcknowledgedException.class);
+        assertThat(acknowledged).isNotDone();
+        assertThat(admission.inFlight()).isEqualTo(1);
+
+        acknowledged.complete(null);
+        assertThat(admission.inFlight()).isZero();
+    }
+
+    @Test
+    void createOrders_beyondTheAdmissionLimit_shouldCreateEachOrderOnceAdmitted() {
+        AdmissionController admission = singleOrderAdmission();
+        orderService = new OrderService(outbox, admission, Runnable::run, CreateMode.IMMEDIATE,
+                Duration.ofMillis(200));
+        when(outbox.appendAll(any(), eq(CreateMode.IMMEDIATE)))
+                .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).stream()
+                        .map(order -> CompletableFuture.<Void>completedFuture(null))
+                        .toList());
+
+        List<CompletableFuture<Order>> created =
+                orderService.createOrders(List.of(request(), request(), request()), CreateMode.IMMEDIATE);
+
+        assertThat(created).hasSize(3).allSatisfy(order -> assertThat(order).isCompleted());
+        verify(outbox, times(3)).appendAll(any(), eq(CreateMode.IMMEDIATE));
+        assertThat(admission.inFlight()).isZero();
+    }
+
+    @Test
+    void createOrders_admissionStaysFull_shouldRejectTheOrdersAfterTheTimeout() {
+        AdmissionController admission = singleOrderAdmission();
+        orderService = new OrderService(outbox, admission, Runnable::run, CreateMode.IMMEDIATE,
+                Duration.ofMillis(50));
+        admission.acquire();
+
+        List<CompletableFuture<Order>> created =
+                orderService.createOrders(List.of(request(), request()), CreateMode.IMMEDIATE);
+
+        assertThat(created).hasSize(2).allSatisfy(order -> assertThatThrownBy(order::join)
+                .hasCauseInstanceOf(OrderRejectedException.class));
+        verify(outbox, never()).appendAll(any(), any());
+        assertThat(admission.inFlight()).isEqualTo(1);
+    }
+
+    private static AdmissionController singleOrderAdmission() {
+        return new AdmissionController(() -> ProducerPressure.NONE, () -> 0, 1, 1, 1, 0.9, 0.2,
+                Duration.ofMillis(100), 20, Long.MAX_VALUE, 2.0, Duration.ofMillis(100), Duration.ofSeconds(3),
+                new SimpleMeterRegistry());
+    }
+
+    private static CreateOrderRequest request() {
+        return new CreateOrderRequest("customer-1", List.of(new OrderLineDto("SKU-001", 1)), new BigDecimal("50"));
+    }
 }
@@ -1,9 +1,12 @@
 package com.example.payment;
 
+import com.example.common.idempotency.IdempotencyConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 
 @SpringBootApplication
+@Import(IdempotencyConfiguration.class)
 public class PaymentServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,22 @@
+package com.example.payment.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class AuthorizationConfig {
+
+    /**
+     * Evaluates the orders of a batch in parallel when the batch listener is enabled. Sized for
+     * authorization that waits on something, such as a payment provider, rather than for cores.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService authorizationExecutor(@Value("${payment.batch.parallelism:8}") int parallelism) {
+        return Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("payment-authorization-", 0).daemon(true).factory());
+    }
+}
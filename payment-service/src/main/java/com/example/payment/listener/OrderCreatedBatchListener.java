@@ -0,0 +1,133 @@
+package com.example.payment.listener;
+
+import com.example.common.TopicNames;
+import com.example.common.avro.OrderCreated;
+import com.example.common.idempotency.IdempotencyClaims;
+import com.example.payment.service.PaymentAuthorizationService;
+import com.example.payment.service.PaymentEventPublisher;
+import com.example.payment.service.PaymentEventPublisher.Publication;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.KafkaUtils;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Batch alternative to {@link OrderCreatedListener#onOrderCreated}, enabled with
+ * {@code payment.batch.enabled}. A separate bean that only exists in batch mode, since retry
+ * topics cannot be set up for a batch listener and are left out for {@code orders.v1} then.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.batch.enabled", havingValue = "true")
+public class OrderCreatedBatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderCreatedBatchListener.class);
+    private static final LogAccessor logAccessor = new LogAccessor(OrderCreatedBatchListener.class);
+
+    private final PaymentAuthorizationService authorizationService;
+    private final PaymentEventPublisher eventPublisher;
+    private final IdempotencyClaims idempotencyClaims;
+
+    public OrderCreatedBatchListener(PaymentAuthorizationService authorizationService,
+                                     PaymentEventPublisher eventPublisher,
+                                     IdempotencyClaims idempotencyClaims) {
+        this.authorizationService = authorizationService;
+        this.eventPublisher = eventPublisher;
+        this.idempotencyClaims = idempotencyClaims;
+    }
+
+    /**
+     * The whole poll is authorized in parallel across orders, the outcomes are published in one
+     * burst, and offsets are committed once for the batch.
+     * <p>
+     * New records are claimed up front, so {@code orders.v2} copies consumed meanwhile are skipped,
+     * and marked in the idempotency store as their outcome is acknowledged. If a record
+     * cannot be deserialized, authorized or published, everything before it is still published
+     * and marked, and the failure is reported for that record so the error handler commits up to
+     * it and retries it in place before dead-lettering it. Repeats of an event within the
+     * batch are skipped and marked along with the first occurrence. Claims on records left
+     * unmarked are released for the retry.
+     */
+    @KafkaListener(topics = TopicNames.ORDERS, groupId = "payment-service",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${orders.consume.v1-enabled:true}")
+    public void onOrderCreatedBatch(List<ConsumerRecord<String, OrderCreated>> records) {
+        List<ConsumerRecord<String, OrderCreated>> accepted = new ArrayList<>(records.size());
+        Map<String, List<ConsumerRecord<String, OrderCreated>>> repeats = new HashMap<>();
+        ConsumerRecord<?, ?> failedRecord = null;
+        Throwable failure = null;
+        for (ConsumerRecord<String, OrderCreated> record : records) {
+            if (record.value() == null) {
+                failedRecord = record;
+                failure = SerializationUtils.getExceptionFromHeader(record,
+                        KafkaUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, logAccessor);
+                break;
+            }
+            String eventId = record.value().getId();
+            List<ConsumerRecord<String, OrderCreated>> earlier = repeats.get(eventId);
+            if (earlier != null) {
+                earlier.add(record);
+            } else if (idempotencyClaims.tryClaim(record, eventId)) {
+                repeats.put(eventId, new ArrayList<>());
+                accepted.add(record);
+            }
+        }
+        log.info("Processing batch of {} OrderCreated events, {} new", records.size(), accepted.size());
+
+        int completed = 0;
+        try {
+            List<CompletableFuture<SpecificRecordBase>> authorizations = authorizationService.authorizeAll(
+                    accepted.stream().map(ConsumerRecord::value).toList());
+            List<Publication> publications = new ArrayList<>(accepted.size());
+            for (int i = 0; i < accepted.size(); i++) {
+                ConsumerRecord<String, OrderCreated> record = accepted.get(i);
+                try {
+                    publications.add(new Publication(
+                            record.value().getId(), authorizations.get(i).join(), record));
+                } catch (CompletionException e) {
+                    failedRecord = record;
+                    failure = e.getCause();
+                    break;
+                }
+            }
+
+            List<CompletableFuture<SendResult<String, SpecificRecordBase>>> sends =
+                    eventPublisher.publishAll(publications);
+            for (int i = 0; i < sends.size(); i++) {
+                Publication publication = publications.get(i);
+                try {
+                    sends.get(i).join();
+                } catch (CompletionException e) {
+                    failedRecord = publication.cause();
+                    failure = e.getCause();
+                    break;
+                }
+                idempotencyClaims.complete(publication.cause(), publication.orderId());
+                repeats.get(publication.orderId())
+                        .forEach(repeat -> idempotencyClaims.mark(repeat, publication.orderId()));
+                completed++;
+            }
+        } finally {
+            accepted.subList(completed, accepted.size())
+                    .forEach(record -> idempotencyClaims.release(record.value().getId()));
+        }
+
+        if (failedRecord != null) {
+            throw new BatchListenerFailedException("Failed to process OrderCreated event", failure, failedRecord);
+        }
+    }
+}
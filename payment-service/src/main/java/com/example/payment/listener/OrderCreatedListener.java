@@ -3,7 +3,8 @@ package com.example.payment.listener;
 import com.example.common.CorrelationIdUtils;
 import com.example.common.TopicNames;
 import com.example.common.avro.OrderCreated;
-import com.example.payment.service.IdempotencyCache;
+import com.example.common.avro.OrderCreatedV2;
+import com.example.common.idempotency.IdempotencyClaims;
 import com.example.payment.service.PaymentAuthorizationService;
 import com.example.payment.service.PaymentEventPublisher;
 import org.apache.avro.specific.SpecificRecordBase;
@@ -13,6 +14,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.function.Supplier;
+
 @Component
 public class OrderCreatedListener {
 
@@ -20,36 +23,50 @@ public class OrderCreatedListener {
 
     private final PaymentAuthorizationService authorizationService;
     private final PaymentEventPublisher eventPublisher;
-    private final IdempotencyCache idempotencyCache;
+    private final IdempotencyClaims idempotencyClaims;
 
     public OrderCreatedListener(PaymentAuthorizationService authorizationService,
                                 PaymentEventPublisher eventPublisher,
-                                IdempotencyCache idempotencyCache) {
+                                IdempotencyClaims idempotencyClaims) {
         this.authorizationService = authorizationService;
         this.eventPublisher = eventPublisher;
-        this.idempotencyCache = idempotencyCache;
+        this.idempotencyClaims = idempotencyClaims;
     }
 
-    @KafkaListener(topics = TopicNames.ORDERS, groupId = "payment-service")
+    /** Replaced by {@link OrderCreatedBatchListener} when {@code payment.batch.enabled} is set. */
+    @KafkaListener(topics = TopicNames.ORDERS, groupId = "payment-service",
+            autoStartup = "#{${orders.consume.v1-enabled:true} and !${payment.batch.enabled:false}}")
     public void onOrderCreated(ConsumerRecord<String, OrderCreated> record) {
         OrderCreated event = record.value();
-        String eventId = event.getId();
+        process(record, event.getId(), () -> authorizationService.authorize(event));
+    }
+
+    /**
+     * Same handling for the compact {@code orders.v2} schema. Both listeners key idempotency on
+     * the order ID, so an order dual-published to v1 and v2 is only authorized once.
+     */
+    @KafkaListener(topics = TopicNames.ORDERS_V2, groupId = "payment-service",
+            autoStartup = "${orders.consume.v2-enabled:false}")
+    public void onOrderCreatedV2(ConsumerRecord<String, OrderCreatedV2> record) {
+        OrderCreatedV2 event = record.value();
+        process(record, event.getId().toString(), () -> authorizationService.authorize(event));
+    }
 
+    private void process(ConsumerRecord<String, ?> record, String eventId,
+                         Supplier<SpecificRecordBase> authorization) {
         try {
             String correlationId = CorrelationIdUtils.getFromHeaders(record);
             CorrelationIdUtils.setInMdc(correlationId);
 
-            if (idempotencyCache.contains(eventId)) {
+            boolean processed = idempotencyClaims.runOnce(record, eventId, () -> {
+                log.info("Processing OrderCreated event for order {}", eventId);
+
+                SpecificRecordBase result = authorization.get();
+                eventPublisher.publish(eventId, result);
+            });
+            if (!processed) {
                 log.info("Skipping duplicate event: {}", eventId);
-                return;
             }
-
-            log.info("Processing OrderCreated event for order {}", eventId);
-
-            SpecificRecordBase result = authorizationService.authorize(event);
-            eventPublisher.publish(eventId, result);
-
-            idempotencyCache.mark(eventId);
         } finally {
             CorrelationIdUtils.clearMdc();
         }
@@ -1,6 +1,7 @@
 package com.example.payment.service;
 
 import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderCreatedV2;
 import com.example.common.avro.PaymentAuthorized;
 import com.example.common.avro.PaymentFailed;
 import org.apache.avro.specific.SpecificRecordBase;
@@ -10,6 +11,12 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class PaymentAuthorizationService {
@@ -17,10 +24,43 @@ public class PaymentAuthorizationService {
     private static final Logger log = LoggerFactory.getLogger(PaymentAuthorizationService.class);
     private static final BigDecimal APPROVAL_THRESHOLD = new BigDecimal("1000");
 
+    private final Executor authorizationExecutor;
+
+    public PaymentAuthorizationService(Executor authorizationExecutor) {
+        this.authorizationExecutor = authorizationExecutor;
+    }
+
     public SpecificRecordBase authorize(OrderCreated event) {
-        BigDecimal total = new BigDecimal(event.getTotal());
-        String orderId = event.getId();
+        return authorize(event.getId(), new BigDecimal(event.getTotal()));
+    }
+
+    /**
+     * Authorizes a batch of orders on the authorization executor. Events for different orders
+     * run in parallel; events for the same order run one after another, in batch order, so a
+     * redelivered order is never evaluated concurrently with its original.
+     *
+     * @return one future per event, in the order given; a failed authorization completes its
+     * future exceptionally without affecting the others
+     */
+    public List<CompletableFuture<SpecificRecordBase>> authorizeAll(List<OrderCreated> events) {
+        List<CompletableFuture<SpecificRecordBase>> results = new ArrayList<>(events.size());
+        Map<String, CompletableFuture<SpecificRecordBase>> lastByOrder = new HashMap<>();
+        for (OrderCreated event : events) {
+            CompletableFuture<SpecificRecordBase> previous = lastByOrder.get(event.getId());
+            CompletableFuture<SpecificRecordBase> result = previous == null
+                    ? CompletableFuture.supplyAsync(() -> authorize(event), authorizationExecutor)
+                    : previous.handleAsync((ignored, failure) -> authorize(event), authorizationExecutor);
+            lastByOrder.put(event.getId(), result);
+            results.add(result);
+        }
+        return results;
+    }
+
+    public SpecificRecordBase authorize(OrderCreatedV2 event) {
+        return authorize(event.getId().toString(), event.getTotal());
+    }
 
+    private SpecificRecordBase authorize(String orderId, BigDecimal total) {
         if (total.compareTo(APPROVAL_THRESHOLD) < 0) {
             log.info("Payment authorized for order {}: amount={}", orderId, total);
             return PaymentAuthorized.newBuilder()
@@ -1,21 +1,38 @@
 package com.example.payment.service;
 
 import com.example.common.CorrelationIdUtils;
+import com.example.common.EventTypeUtils;
 import com.example.common.TopicNames;
+import com.example.common.latency.LatencyHeaders;
 import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Component
 public class PaymentEventPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(PaymentEventPublisher.class);
 
+    private static final String HOP = "payment-service";
+
     private final KafkaTemplate<String, SpecificRecordBase> kafkaTemplate;
 
+    /**
+     * A payment outcome to publish in a batch, with the consumed record it answers; the
+     * published record carries that record's correlation ID and origin time.
+     */
+    public record Publication(String orderId, SpecificRecordBase event, ConsumerRecord<?, ?> cause) {
+    }
+
     public PaymentEventPublisher(KafkaTemplate<String, SpecificRecordBase> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
     }
@@ -26,8 +43,38 @@ public class PaymentEventPublisher {
 
         String correlationId = CorrelationIdUtils.getFromMdc();
         CorrelationIdUtils.setToHeaders(record, correlationId);
+        EventTypeUtils.setToHeaders(record, event);
+        LatencyHeaders.stamp(record, HOP);
+
+        send(record, orderId, event);
+    }
+
+    /**
+     * Sends every publication without waiting in between, then flushes, so the whole batch goes
+     * out in as few produce requests as the producer can pack it into instead of one linger
+     * period per record. Records for the same order keep their relative order.
+     *
+     * @return one future per publication, in the order given
+     */
+    public List<CompletableFuture<SendResult<String, SpecificRecordBase>>> publishAll(List<Publication> publications) {
+        List<CompletableFuture<SendResult<String, SpecificRecordBase>>> results = new ArrayList<>(publications.size());
+        for (Publication publication : publications) {
+            ProducerRecord<String, SpecificRecordBase> record =
+                    new ProducerRecord<>(TopicNames.PAYMENTS, publication.orderId(), publication.event());
+            CorrelationIdUtils.setToHeaders(record, CorrelationIdUtils.getFromHeaders(publication.cause()));
+            EventTypeUtils.setToHeaders(record, publication.event());
+            LatencyHeaders.stamp(record, HOP, LatencyHeaders.getOrigin(publication.cause()));
+            results.add(send(record, publication.orderId(), publication.event()));
+        }
+        if (!publications.isEmpty()) {
+            kafkaTemplate.flush();
+        }
+        return results;
+    }
 
-        kafkaTemplate.send(record)
+    private CompletableFuture<SendResult<String, SpecificRecordBase>> send(
+            ProducerRecord<String, SpecificRecordBase> record, String orderId, SpecificRecordBase event) {
+        return kafkaTemplate.send(record)
                 .whenComplete((result, ex) -> {
                     if (ex != null) {
                         log.error("Failed to publish {} for order {}: {}",
@@ -5,6 +5,7 @@ import com.example.common.avro.OrderCreated;
 import com.example.common.avro.OrderLine;
 import com.example.common.avro.PaymentAuthorized;
 import com.example.common.avro.PaymentFailed;
+import com.example.common.codec.RawValueRetainingDeserializer;
 import io.confluent.kafka.serializers.KafkaAvroDeserializer;
 import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
 import io.confluent.kafka.serializers.KafkaAvroSerializer;
@@ -118,6 +119,15 @@ class PaymentServiceIT {
         return new KafkaProducer<>(props);
     }
 
+    private KafkaProducer<String, byte[]> createBytesProducer() {
+        Map<String, Object> props = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class
+        );
+        return new KafkaProducer<>(props);
+    }
+
     private KafkaConsumer<String, SpecificRecordBase> createAvroConsumer(String topic) {
         Map<String, Object> props = Map.of(
                 ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers(),
@@ -202,23 +212,39 @@ class PaymentServiceIT {
     @Test
     @Order(3)
     void shouldSendToDlqOnDeserializationError() throws Exception {
-        String dlqTopic = TopicNames.ORDERS + "-dlt";
-
-        try (KafkaConsumer<String, byte[]> dlqConsumer = createBytesConsumer(dlqTopic)) {
+        try (KafkaConsumer<String, byte[]> dlqConsumer = createBytesConsumer(TopicNames.DEAD_LETTER)) {
             // Send invalid Avro bytes to orders topic
-            Map<String, Object> props = Map.of(
-                    ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers(),
-                    ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
-                    ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class
-            );
-            try (KafkaProducer<String, byte[]> rawProducer = new KafkaProducer<>(props)) {
+            try (KafkaProducer<String, byte[]> rawProducer = createBytesProducer()) {
                 rawProducer.send(new ProducerRecord<>(TopicNames.ORDERS,
                         "bad-order", "invalid-avro-data".getBytes())).get();
             }
 
-            // DLQ message should arrive after retries
+            // Deserialization failures skip the retry topics
             ConsumerRecord<String, byte[]> dlqRecord = pollForRecordByKey(dlqConsumer, "bad-order", 30_000);
             assertThat(dlqRecord).isNotNull();
+            assertThat(dlqRecord.value()).isEqualTo("invalid-avro-data".getBytes());
+        }
+    }
+
+    @Test
+    @Order(4)
+    void shouldForwardOriginalBytesToDlqOnProcessingError() throws Exception {
+        String orderId = "order-malformed-" + UUID.randomUUID();
+        byte[] original;
+        try (KafkaAvroSerializer serializer = new KafkaAvroSerializer()) {
+            serializer.configure(Map.of(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG, schemaRegistryUrl()), false);
+            original = serializer.serialize(TopicNames.ORDERS, buildOrderCreated(orderId, "not-a-number"));
+        }
+
+        try (KafkaConsumer<String, byte[]> dlqConsumer = createBytesConsumer(TopicNames.DEAD_LETTER);
+             KafkaProducer<String, byte[]> rawProducer = createBytesProducer()) {
+            rawProducer.send(new ProducerRecord<>(TopicNames.ORDERS, orderId, original)).get();
+
+            // A malformed total cannot succeed on retry; the decoded event is not encoded again
+            ConsumerRecord<String, byte[]> dlqRecord = pollForRecordByKey(dlqConsumer, orderId, 30_000);
+            assertThat(dlqRecord).isNotNull();
+            assertThat(dlqRecord.value()).isEqualTo(original);
+            assertThat(dlqRecord.headers().lastHeader(RawValueRetainingDeserializer.RAW_VALUE_HEADER)).isNull();
         }
     }
 
@@ -0,0 +1,127 @@
+package com.example.payment.listener;
+
+import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderLine;
+import com.example.common.avro.PaymentAuthorized;
+import com.example.common.idempotency.IdempotencyClaims;
+import com.example.common.idempotency.IdempotencyStore;
+import com.example.payment.service.PaymentAuthorizationService;
+import com.example.payment.service.PaymentEventPublisher;
+import com.example.payment.service.PaymentEventPublisher.Publication;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderCreatedBatchListenerTest {
+
+    @Mock
+    private PaymentAuthorizationService authorizationService;
+    @Mock
+    private PaymentEventPublisher eventPublisher;
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    private OrderCreatedBatchListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new OrderCreatedBatchListener(authorizationService, eventPublisher, new IdempotencyClaims(idempotencyStore));
+    }
+
+    private ConsumerRecord<String, OrderCreated> buildRecord(String orderId) {
+        OrderCreated event = OrderCreated.newBuilder()
+                .setId(orderId)
+                .setCustomerId("cust-1")
+                .setLines(List.of(new OrderLine("SKU-001", 1)))
+                .setTotal("100")
+                .setStatus("CREATED")
+                .setCreatedAt("2025-01-01T00:00:00Z")
+                .build();
+
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("correlationId", "corr-123".getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>("orders.v1", 0, 0, 0L,
+                null, 0, 0, orderId, event, headers, null);
+    }
+
+    @Test
+    void onOrderCreatedBatch_shouldAuthorizeAllAndPublishInOneBurst() {
+        ConsumerRecord<String, OrderCreated> first = buildRecord("order-1");
+        ConsumerRecord<String, OrderCreated> second = buildRecord("order-2");
+        SpecificRecordBase firstResult = authorized("order-1");
+        SpecificRecordBase secondResult = authorized("order-2");
+
+        when(authorizationService.authorizeAll(List.of(first.value(), second.value()))).thenReturn(List.of(
+                CompletableFuture.completedFuture(firstResult), CompletableFuture.completedFuture(secondResult)));
+        when(eventPublisher.publishAll(any())).thenReturn(List.of(sent(), sent()));
+
+        listener.onOrderCreatedBatch(List.of(first, second));
+
+        verify(eventPublisher).publishAll(List.of(new Publication("order-1", firstResult, first),
+                new Publication("order-2", secondResult, second)));
+        verify(idempotencyStore).mark(first, "order-1");
+        verify(idempotencyStore).mark(second, "order-2");
+    }
+
+    @Test
+    void onOrderCreatedBatch_repeatedEvent_shouldAuthorizeOnceAndMarkBoth() {
+        ConsumerRecord<String, OrderCreated> first = buildRecord("order-1");
+        ConsumerRecord<String, OrderCreated> repeat = buildRecord("order-1");
+
+        when(authorizationService.authorizeAll(List.of(first.value())))
+                .thenReturn(List.of(CompletableFuture.completedFuture(authorized("order-1"))));
+        when(eventPublisher.publishAll(any())).thenReturn(List.of(sent()));
+
+        listener.onOrderCreatedBatch(List.of(first, repeat));
+
+        verify(idempotencyStore).mark(first, "order-1");
+        verify(idempotencyStore).mark(repeat, "order-1");
+    }
+
+    @Test
+    void onOrderCreatedBatch_failedAuthorization_shouldPublishEarlierAndReportFailedRecord() {
+        ConsumerRecord<String, OrderCreated> first = buildRecord("order-1");
+        ConsumerRecord<String, OrderCreated> failing = buildRecord("order-2");
+        SpecificRecordBase firstResult = authorized("order-1");
+
+        when(authorizationService.authorizeAll(List.of(first.value(), failing.value()))).thenReturn(List.of(
+                CompletableFuture.completedFuture(firstResult),
+                CompletableFuture.failedFuture(new NumberFormatException("bad total"))));
+        when(eventPublisher.publishAll(any())).thenReturn(List.of(sent()));
+
+        assertThatThrownBy(() -> listener.onOrderCreatedBatch(List.of(first, failing)))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class,
+                        e -> assertThat(e.getRecord()).isSameAs(failing))
+                .hasCauseInstanceOf(NumberFormatException.class);
+
+        verify(eventPublisher).publishAll(List.of(new Publication("order-1", firstResult, first)));
+        verify(idempotencyStore).mark(first, "order-1");
+        verify(idempotencyStore, never()).mark(failing, "order-2");
+    }
+
+    private static PaymentAuthorized authorized(String orderId) {
+        return PaymentAuthorized.newBuilder()
+                .setOrderId(orderId).setAmount("100").setAuthorizedAt("now").build();
+    }
+
+    private static CompletableFuture<SendResult<String, SpecificRecordBase>> sent() {
+        return CompletableFuture.completedFuture(null);
+    }
+}
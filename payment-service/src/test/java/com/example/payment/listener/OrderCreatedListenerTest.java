@@ -1,9 +1,11 @@
 package com.example.payment.listener;
 
 import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderCreatedV2;
 import com.example.common.avro.OrderLine;
 import com.example.common.avro.PaymentAuthorized;
-import com.example.payment.service.IdempotencyCache;
+import com.example.common.idempotency.IdempotencyClaims;
+import com.example.common.idempotency.IdempotencyStore;
 import com.example.payment.service.PaymentAuthorizationService;
 import com.example.payment.service.PaymentEventPublisher;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -15,10 +17,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.MDC;
 
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -31,13 +37,13 @@ class OrderCreatedListenerTest {
     @Mock
     private PaymentEventPublisher eventPublisher;
     @Mock
-    private IdempotencyCache idempotencyCache;
+    private IdempotencyStore idempotencyStore;
 
     private OrderCreatedListener listener;
 
     @BeforeEach
     void setUp() {
-        listener = new OrderCreatedListener(authorizationService, eventPublisher, idempotencyCache);
+        listener = new OrderCreatedListener(authorizationService, eventPublisher, new IdempotencyClaims(idempotencyStore));
     }
 
     private ConsumerRecord<String, OrderCreated> buildRecord(String orderId) {
@@ -62,32 +68,32 @@ class OrderCreatedListenerTest {
         PaymentAuthorized result = PaymentAuthorized.newBuilder()
                 .setOrderId("order-1").setAmount("100").setAuthorizedAt("now").build();
 
-        when(idempotencyCache.contains("order-1")).thenReturn(false);
-        when(authorizationService.authorize(any())).thenReturn(result);
+        when(idempotencyStore.contains(record, "order-1")).thenReturn(false);
+        when(authorizationService.authorize(any(OrderCreated.class))).thenReturn(result);
 
         listener.onOrderCreated(record);
 
         verify(authorizationService).authorize(any(OrderCreated.class));
         verify(eventPublisher).publish(eq("order-1"), eq(result));
-        verify(idempotencyCache).mark("order-1");
+        verify(idempotencyStore).mark(record, "order-1");
     }
 
     @Test
     void onOrderCreated_duplicate_shouldSkip() {
         ConsumerRecord<String, OrderCreated> record = buildRecord("order-1");
-        when(idempotencyCache.contains("order-1")).thenReturn(true);
+        when(idempotencyStore.contains(record, "order-1")).thenReturn(true);
 
         listener.onOrderCreated(record);
 
-        verify(authorizationService, never()).authorize(any());
+        verify(authorizationService, never()).authorize(any(OrderCreated.class));
         verify(eventPublisher, never()).publish(any(), any());
     }
 
     @Test
     void onOrderCreated_shouldClearMdc() {
         ConsumerRecord<String, OrderCreated> record = buildRecord("order-1");
-        when(idempotencyCache.contains("order-1")).thenReturn(false);
-        when(authorizationService.authorize(any())).thenReturn(
+        when(idempotencyStore.contains(record, "order-1")).thenReturn(false);
+        when(authorizationService.authorize(any(OrderCreated.class))).thenReturn(
                 PaymentAuthorized.newBuilder()
                         .setOrderId("order-1").setAmount("100").setAuthorizedAt("now").build());
 
@@ -95,4 +101,77 @@ class OrderCreatedListenerTest {
 
         assertThat(MDC.get("correlationId")).isNull();
     }
+
+    @Test
+    void onOrderCreatedV2_shouldAuthorizeAndPublishKeyedOnOrderId() {
+        UUID orderId = UUID.randomUUID();
+        OrderCreatedV2 event = OrderCreatedV2.newBuilder()
+                .setId(orderId)
+                .setCustomerId("cust-1")
+                .setLines(List.of(new OrderLine("SKU-001", 1)))
+                .setTotal(new BigDecimal("100.00"))
+                .setStatus("CREATED")
+                .setCreatedAt(Instant.parse("2025-01-01T00:00:00Z"))
+                .build();
+        ConsumerRecord<String, OrderCreatedV2> record = new ConsumerRecord<>("orders.v2", 0, 0L,
+                orderId.toString(), event);
+        PaymentAuthorized result = PaymentAuthorized.newBuilder()
+                .setOrderId(orderId.toString()).setAmount("100.00").setAuthorizedAt("now").build();
+
+        when(idempotencyStore.contains(record, orderId.toString())).thenReturn(false);
+        when(authorizationService.authorize(any(OrderCreatedV2.class))).thenReturn(result);
+
+        listener.onOrderCreatedV2(record);
+
+        verify(eventPublisher).publish(eq(orderId.toString()), eq(result));
+        verify(idempotencyStore).mark(record, orderId.toString());
+    }
+
+    @Test
+    void onOrderCreatedV2_copyArrivingWhileV1InProgress_shouldSkip() {
+        UUID orderId = UUID.randomUUID();
+        ConsumerRecord<String, OrderCreated> v1 = buildRecord(orderId.toString());
+        OrderCreatedV2 v2Event = OrderCreatedV2.newBuilder()
+                .setId(orderId)
+                .setCustomerId("cust-1")
+                .setLines(List.of(new OrderLine("SKU-001", 1)))
+                .setTotal(new BigDecimal("100.00"))
+                .setStatus("CREATED")
+                .setCreatedAt(Instant.parse("2025-01-01T00:00:00Z"))
+                .build();
+        ConsumerRecord<String, OrderCreatedV2> v2 = new ConsumerRecord<>("orders.v2", 0, 0L,
+                orderId.toString(), v2Event);
+        PaymentAuthorized result = PaymentAuthorized.newBuilder()
+                .setOrderId(orderId.toString()).setAmount("100").setAuthorizedAt("now").build();
+
+        when(idempotencyStore.contains(v1, orderId.toString())).thenReturn(false);
+        when(authorizationService.authorize(any(OrderCreated.class))).thenAnswer(invocation -> {
+            listener.onOrderCreatedV2(v2);
+            return result;
+        });
+
+        listener.onOrderCreated(v1);
+
+        verify(authorizationService, never()).authorize(any(OrderCreatedV2.class));
+        verify(eventPublisher).publish(eq(orderId.toString()), eq(result));
+        verify(idempotencyStore, never()).mark(eq(v2), any());
+    }
+
+    @Test
+    void onOrderCreated_authorizationFails_shouldLeaveOrderForRetry() {
+        ConsumerRecord<String, OrderCreated> record = buildRecord("order-1");
+        PaymentAuthorized result = PaymentAuthorized.newBuilder()
+                .setOrderId("order-1").setAmount("100").setAuthorizedAt("now").build();
+
+        when(idempotencyStore.contains(record, "order-1")).thenReturn(false);
+        when(authorizationService.authorize(any(OrderCreated.class)))
+                .thenThrow(new IllegalStateException("down"))
+                .thenReturn(result);
+
+        assertThatThrownBy(() -> listener.onOrderCreated(record)).isInstanceOf(IllegalStateException.class);
+        listener.onOrderCreated(record);
+
+        verify(eventPublisher).publish(eq("order-1"), eq(result));
+        verify(idempotencyStore).mark(record, "order-1");
+    }
 }
@@ -1,6 +1,7 @@
 package com.example.payment.service;
 
 import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderCreatedV2;
 import com.example.common.avro.OrderLine;
 import com.example.common.avro.PaymentAuthorized;
 import com.example.common.avro.PaymentFailed;
@@ -8,9 +9,16 @@ import org.apache.avro.specific.SpecificRecordBase;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class PaymentAuthorizationServiceTest {
 
@@ -18,7 +26,7 @@ class PaymentAuthorizationServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new PaymentAuthorizationService();
+        service = new PaymentAuthorizationService(Runnable::run);
     }
 
     private OrderCreated buildOrder(String id, String total) {
@@ -73,4 +81,50 @@ class PaymentAuthorizationServiceTest {
 
         assertThat(result).isInstanceOf(PaymentAuthorized.class);
     }
+
+    @Test
+    void authorize_v2BelowThreshold_shouldReturnPaymentAuthorizedWithStringIds() {
+        UUID orderId = UUID.randomUUID();
+        OrderCreatedV2 event = OrderCreatedV2.newBuilder()
+                .setId(orderId)
+                .setCustomerId("cust-1")
+                .setLines(List.of(new OrderLine("SKU-001", 1)))
+                .setTotal(new BigDecimal("999.99"))
+                .setStatus("CREATED")
+                .setCreatedAt(Instant.parse("2025-01-01T00:00:00Z"))
+                .build();
+
+        SpecificRecordBase result = service.authorize(event);
+
+        assertThat(result).isInstanceOf(PaymentAuthorized.class);
+        PaymentAuthorized authorized = (PaymentAuthorized) result;
+        assertThat(authorized.getOrderId()).isEqualTo(orderId.toString());
+        assertThat(authorized.getAmount()).isEqualTo("999.99");
+    }
+
+    @Test
+    void authorizeAll_shouldReturnResultsInBatchOrder() {
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            PaymentAuthorizationService parallel = new PaymentAuthorizationService(executor);
+            List<OrderCreated> events = List.of(buildOrder("order-1", "100"), buildOrder("order-2", "5000"),
+                    buildOrder("order-3", "200"), buildOrder("order-1", "100"));
+
+            List<SpecificRecordBase> results = parallel.authorizeAll(events).stream()
+                    .map(CompletableFuture::join)
+                    .toList();
+
+            assertThat(results).extracting(result -> result.get("orderId").toString())
+                    .containsExactly("order-1", "order-2", "order-3", "order-1");
+            assertThat(results.get(1)).isInstanceOf(PaymentFailed.class);
+        }
+    }
+
+    @Test
+    void authorizeAll_failedEvent_shouldNotFailOthersForSameOrder() {
+        List<CompletableFuture<SpecificRecordBase>> results = service.authorizeAll(List.of(
+                buildOrder("order-1", "not-a-number"), buildOrder("order-1", "100")));
+
+        assertThatThrownBy(results.get(0)::join).hasCauseInstanceOf(NumberFormatException.class);
+        assertThat(results.get(1).join()).isInstanceOf(PaymentAuthorized.class);
+    }
 }
@@ -0,0 +1,36 @@
+package com.example.harness;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the pipeline once per listener ack mode and prints end-to-end throughput and latency,
+ * to compare per-record commits with the count/time-batched commits the services use.
+ * <p>
+ * Usage: {@code AckModeComparison [orders] [ackMode...]}, by default 2000 orders for
+ * {@code RECORD} and {@code COUNT_TIME}. Each mode gets a fresh broker and a warm-up run.
+ */
+public final class AckModeComparison {
+
+    private static final int WARM_UP_ORDERS = 300;
+    private static final Duration TIMEOUT = Duration.ofMinutes(5);
+
+    private AckModeComparison() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        List<String> ackModes = args.length > 1 ? List.of(args).subList(1, args.length) : List.of("RECORD", "COUNT_TIME");
+
+        Map<String, PipelineRunResult> results = new LinkedHashMap<>();
+        for (String ackMode : ackModes) {
+            try (PipelineHarness harness = PipelineHarness.start(Map.of("spring.kafka.listener.ack-mode", ackMode))) {
+                harness.run(WARM_UP_ORDERS, TIMEOUT);
+                results.put(ackMode, harness.run(orders, TIMEOUT));
+            }
+        }
+        results.forEach((ackMode, result) -> System.out.printf("%-10s %s%n", ackMode, result));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.harness;
+
+import com.example.order.controller.dto.CreateOrderRequest;
+import com.example.order.controller.dto.OrderLineDto;
+import com.example.order.outbox.CreateMode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the pipeline once per order-service create mode and prints how long creation took to
+ * be confirmed, and how many creations per second were confirmed, with a fixed number of
+ * requests outstanding, as concurrent HTTP clients would have.
+ * <p>
+ * Usage: {@code CreateModeComparison [orders] [concurrency] [mode...]}, by default 2000 orders,
+ * 64 outstanding, for every {@link CreateMode}. Each mode gets a fresh broker and a warm-up run,
+ * and the run waits for every order's final status so the modes leave nothing in flight.
+ */
+public final class CreateModeComparison {
+
+    private static final int WARM_UP_ORDERS = 300;
+    private static final Duration TIMEOUT = Duration.ofMinutes(5);
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private CreateModeComparison() {
+    }
+
+    record CreateRunResult(int submitted, int confirmed, int completed, Duration elapsed, Histogram latency) {
+
+        double throughputPerSecond() {
+            long nanos = elapsed.toNanos();
+            return nanos == 0 ? 0 : confirmed * 1_000_000_000.0 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "submitted=%d confirmed=%d completed=%d elapsed=%dms throughput=%.1f/s p50=%.2fms p99=%.2fms max=%.2fms",
+                    submitted, confirmed, completed, elapsed.toMillis(), throughputPerSecond(),
+                    latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+                    latency.getMaxValue() / 1000.0);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        List<CreateMode> modes = args.length > 2
+                ? Arrays.stream(args, 2, args.length).map(CreateMode::valueOf).toList()
+                : List.of(CreateMode.values());
+
+        Map<CreateMode, CreateRunResult> results = new LinkedHashMap<>();
+        for (CreateMode mode : modes) {
+            try (PipelineHarness harness = PipelineHarness.start()) {
+                create(harness, mode, WARM_UP_ORDERS, concurrency);
+                results.put(mode, create(harness, mode, orders, concurrency));
+            }
+        }
+        results.forEach((mode, result) -> System.out.printf("%-10s %s%n", mode, result));
+    }
+
+    static CreateRunResult create(PipelineHarness harness, CreateMode mode, int orders, int concurrency)
+            throws InterruptedException {
+        Semaphore outstanding = new Semaphore(concurrency);
+        Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        Queue<String> orderIds = new ConcurrentLinkedQueue<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            outstanding.acquire();
+            long requested = System.nanoTime();
+            CreateOrderRequest request = new CreateOrderRequest("customer-" + i,
+                    List.of(new OrderLineDto("SKU-003", 1)), new BigDecimal("50.00"));
+            harness.submitAsync(request, mode).whenComplete((orderId, ex) -> {
+                if (ex == null) {
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requested);
+                    latency.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                    orderIds.add(orderId);
+                }
+                outstanding.release();
+            });
+        }
+        outstanding.acquire(concurrency);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        harness.awaitFinalStatuses(orderIds, TIMEOUT);
+        int completed = (int) orderIds.stream().filter(id -> harness.finalStatus(id).isPresent()).count();
+        return new CreateRunResult(orders, orderIds.size(), completed, elapsed, latency);
+    }
+}
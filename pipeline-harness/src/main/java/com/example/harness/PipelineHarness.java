@@ -0,0 +1,288 @@
+package com.example.harness;
+
+import com.example.common.TopicNames;
+import com.example.common.avro.OrderStatusChanged;
+import com.example.inventory.InventoryServiceApplication;
+import com.example.order.OrderServiceApplication;
+import com.example.order.controller.dto.CreateOrderRequest;
+import com.example.order.controller.dto.OrderLineDto;
+import com.example.order.outbox.CreateMode;
+import com.example.order.service.OrderService;
+import com.example.payment.PaymentServiceApplication;
+import com.example.query.QueryServiceApplication;
+import com.example.query.model.OrderView;
+import com.example.query.service.OrderViewStore;
+import com.example.status.StatusServiceApplication;
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Boots order, payment, inventory, status and query services in this JVM against an embedded
+ * KRaft broker and an in-memory schema registry ({@code mock://}), so end-to-end throughput and
+ * latency can be measured from a plain test run without Docker.
+ * <p>
+ * The services run without web servers; orders are submitted through the order-service
+ * {@link OrderService} bean. Completion is observed on {@code order-status.v1} by a consumer
+ * owned by the harness, the same signal any downstream reader would see.
+ */
+public class PipelineHarness implements AutoCloseable {
+
+    public static final int PARTITIONS = 3;
+
+    private static final String SCHEMA_REGISTRY_URL = "mock://pipeline-harness";
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final Duration ASSIGNMENT_TIMEOUT = Duration.ofSeconds(30);
+
+    private final EmbeddedKafkaKraftBroker broker;
+    /** Fresh per run, so orders left unsent by an earlier run are not relayed into this one. */
+    private final Path outboxDirectory;
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private final KafkaMessageListenerContainer<String, Object> statusObserver;
+    private final ConcurrentHashMap<String, Long> submittedAt = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, FinalStatus> finalStatuses = new ConcurrentHashMap<>();
+
+    private final OrderService orderService;
+    private final OrderViewStore orderViewStore;
+
+    private record FinalStatus(String status, long arrivedNanos) {
+    }
+
+    private PipelineHarness(Map<String, Object> overrides) throws InterruptedException {
+        broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, TopicNames.ORDERS, TopicNames.ORDERS_V2,
+                TopicNames.PAYMENTS, TopicNames.INVENTORY, TopicNames.ORDER_STATUS, TopicNames.DEAD_LETTER);
+        broker.afterPropertiesSet();
+        try {
+            outboxDirectory = Files.createTempDirectory("pipeline-harness-outbox");
+        } catch (IOException e) {
+            broker.destroy();
+            throw new UncheckedIOException(e);
+        }
+        try {
+            boot(PaymentServiceApplication.class, "payment-service", overrides);
+            boot(InventoryServiceApplication.class, "inventory-service", overrides);
+            boot(StatusServiceApplication.class, "status-service", overrides);
+            orderViewStore = boot(QueryServiceApplication.class, "query-service", overrides)
+                    .getBean(OrderViewStore.class);
+            orderService = boot(OrderServiceApplication.class, "order-service", overrides)
+                    .getBean(OrderService.class);
+
+            statusObserver = statusObserver();
+            statusObserver.start();
+            awaitPartitionAssignment();
+        } catch (RuntimeException | InterruptedException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public static PipelineHarness start() throws InterruptedException {
+        return start(Map.of());
+    }
+
+    /**
+     * @param overrides extra properties applied to every service, e.g.
+     *                  {@code orders.publish.v2-enabled=true}
+     */
+    public static PipelineHarness start(Map<String, Object> overrides) throws InterruptedException {
+        return new PipelineHarness(overrides);
+    }
+
+    public String bootstrapServers() {
+        return broker.getBrokersAsString();
+    }
+
+    /** Creates the order and returns its ID; the latency clock starts just before the call. */
+    public String submit(CreateOrderRequest request) {
+        long start = System.nanoTime();
+        String orderId = orderService.createOrder(request).getId();
+        submittedAt.put(orderId, start);
+        return orderId;
+    }
+
+    /**
+     * Creates the order through the asynchronous path, completing with its ID once it has got as
+     * far as {@code mode} asks; the latency clock starts just before the call.
+     */
+    public CompletableFuture<String> submitAsync(CreateOrderRequest request, CreateMode mode) {
+        long start = System.nanoTime();
+        return orderService.createOrderAsync(request, mode).thenApply(order -> {
+            submittedAt.put(order.getId(), start);
+            return order.getId();
+        });
+    }
+
+    /** Final status observed on {@code order-status.v1}, if it has arrived yet. */
+    public Optional<String> finalStatus(String orderId) {
+        return Optional.ofNullable(finalStatuses.get(orderId)).map(FinalStatus::status);
+    }
+
+    /** The query-service view of the order, to check what readers of the pipeline would see. */
+    public Optional<OrderView> orderView(String orderId) {
+        return orderViewStore.findById(orderId);
+    }
+
+    /** @return {@code true} if every order reached a final status before the timeout */
+    public boolean awaitFinalStatuses(Collection<String> orderIds, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (finalStatuses.keySet().containsAll(orderIds)) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return finalStatuses.keySet().containsAll(orderIds);
+    }
+
+    /**
+     * Pushes {@code orders} single-line orders for an in-stock SKU as fast as the order
+     * service accepts them and waits for their final statuses. Stock is not replenished, so
+     * long runs drift towards REJECTED; both outcomes count as completed.
+     */
+    public PipelineRunResult run(int orders, Duration timeout) throws InterruptedException {
+        return run(orders, i -> new CreateOrderRequest("customer-" + i,
+                List.of(new OrderLineDto("SKU-003", 1)), new BigDecimal("50.00")), timeout);
+    }
+
+    public PipelineRunResult run(int orders, IntFunction<CreateOrderRequest> requests, Duration timeout)
+            throws InterruptedException {
+        List<String> orderIds = new ArrayList<>(orders);
+        long start = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            orderIds.add(submit(requests.apply(i)));
+        }
+        awaitFinalStatuses(orderIds, timeout);
+
+        Histogram latency = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        Map<String, Long> statusCounts = new TreeMap<>();
+        long lastArrival = start;
+        int completed = 0;
+        for (String orderId : orderIds) {
+            FinalStatus status = finalStatuses.get(orderId);
+            if (status == null) {
+                continue;
+            }
+            completed++;
+            statusCounts.merge(status.status(), 1L, Long::sum);
+            lastArrival = Math.max(lastArrival, status.arrivedNanos());
+            long micros = TimeUnit.NANOSECONDS.toMicros(status.arrivedNanos() - submittedAt.get(orderId));
+            latency.recordValue(Math.min(Math.max(micros, 0), HIGHEST_TRACKABLE_MICROS));
+        }
+        return new PipelineRunResult(orders, completed, Duration.ofNanos(lastArrival - start),
+                statusCounts, latency);
+    }
+
+    @Override
+    public void close() {
+        if (statusObserver != null) {
+            statusObserver.stop();
+        }
+        for (int i = contexts.size() - 1; i >= 0; i--) {
+            contexts.get(i).close();
+        }
+        broker.destroy();
+        try {
+            FileSystemUtils.deleteRecursively(outboxDirectory);
+        } catch (IOException e) {
+            // Left for the OS to clean up with the rest of the temp directory.
+        }
+    }
+
+    /**
+     * Uses {@code pipeline-harness} as the config name so each service's own application.yml,
+     * with its broker addresses and dev profile, is never loaded.
+     */
+    private ConfigurableApplicationContext boot(Class<?> application, String name, Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.config.name", "pipeline-harness");
+        properties.put("spring.application.name", name);
+        properties.put("spring.main.web-application-type", "none");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("spring.kafka.bootstrap-servers", broker.getBrokersAsString());
+        properties.put("spring.kafka.producer.properties.schema.registry.url", SCHEMA_REGISTRY_URL);
+        properties.put("spring.kafka.consumer.properties.schema.registry.url", SCHEMA_REGISTRY_URL);
+        properties.put("logging.level.root", "WARN");
+        properties.put("orders.outbox.directory", outboxDirectory.toString());
+        properties.putAll(overrides);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(application)
+                .properties(properties)
+                .run();
+        contexts.add(context);
+        return context;
+    }
+
+    private KafkaMessageListenerContainer<String, Object> statusObserver() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, "pipeline-harness");
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, KafkaAvroDeserializer.class);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(KafkaAvroDeserializerConfig.SCHEMA_REGISTRY_URL_CONFIG, SCHEMA_REGISTRY_URL);
+        config.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, true);
+
+        ContainerProperties containerProperties = new ContainerProperties(TopicNames.ORDER_STATUS);
+        containerProperties.setMessageListener((MessageListener<String, Object>) record -> {
+            long arrived = System.nanoTime();
+            if (record.value() instanceof OrderStatusChanged event) {
+                finalStatuses.putIfAbsent(event.getOrderId(), new FinalStatus(event.getFinalStatus(), arrived));
+            }
+        });
+        return new KafkaMessageListenerContainer<>(new DefaultKafkaConsumerFactory<>(config), containerProperties);
+    }
+
+    /** Orders submitted before every consumer owns its partitions would sit out a rebalance. */
+    private void awaitPartitionAssignment() throws InterruptedException {
+        List<MessageListenerContainer> containers = new ArrayList<>();
+        containers.add(statusObserver);
+        for (ConfigurableApplicationContext context : contexts) {
+            context.getBeanProvider(KafkaListenerEndpointRegistry.class).ifAvailable(registry ->
+                    registry.getListenerContainers().stream()
+                            .filter(MessageListenerContainer::isRunning)
+                            .forEach(containers::add));
+        }
+
+        long deadline = System.nanoTime() + ASSIGNMENT_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            boolean assigned = containers.stream()
+                    .map(MessageListenerContainer::getAssignedPartitions)
+                    .allMatch(partitions -> partitions != null && !partitions.isEmpty());
+            if (assigned) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new IllegalStateException("Pipeline consumers were not assigned partitions within " + ASSIGNMENT_TIMEOUT);
+    }
+}
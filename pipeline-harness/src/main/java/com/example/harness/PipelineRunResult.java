@@ -0,0 +1,37 @@
+package com.example.harness;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Outcome of one {@link PipelineHarness#run} call. {@code latency} holds submit-to-final-status
+ * times in microseconds for the orders that completed.
+ */
+public record PipelineRunResult(
+        int submitted,
+        int completed,
+        Duration elapsed,
+        Map<String, Long> finalStatuses,
+        Histogram latency
+) {
+
+    public boolean allCompleted() {
+        return completed == submitted;
+    }
+
+    public double throughputPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : completed * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "submitted=%d completed=%d elapsed=%dms throughput=%.1f/s p50=%.2fms p99=%.2fms max=%.2fms statuses=%s",
+                submitted, completed, elapsed.toMillis(), throughputPerSecond(),
+                latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+                latency.getMaxValue() / 1000.0, finalStatuses);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.harness;
+
+import com.example.order.controller.dto.CreateOrderRequest;
+import com.example.order.controller.dto.OrderLineDto;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineHarnessTest {
+
+    private static PipelineHarness harness;
+
+    @BeforeAll
+    static void startPipeline() throws InterruptedException {
+        harness = PipelineHarness.start();
+    }
+
+    @AfterAll
+    static void stopPipeline() {
+        if (harness != null) {
+            harness.close();
+        }
+    }
+
+    @Test
+    void run_withBatchOfOrders_shouldReachFinalStatusForEveryOrder() throws InterruptedException {
+        PipelineRunResult result = harness.run(200, Duration.ofSeconds(60));
+
+        assertThat(result.allCompleted()).as(result.toString()).isTrue();
+        assertThat(result.latency().getTotalCount()).isEqualTo(200);
+        assertThat(result.finalStatuses().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(200);
+        assertThat(result.throughputPerSecond()).isPositive();
+    }
+
+    @Test
+    void submit_withApprovableOrder_shouldConfirmAndUpdateQueryView() throws InterruptedException {
+        String orderId = harness.submit(new CreateOrderRequest("customer-view",
+                List.of(new OrderLineDto("SKU-001", 1)), new BigDecimal("20.00")));
+
+        assertThat(harness.awaitFinalStatuses(List.of(orderId), Duration.ofSeconds(30))).isTrue();
+        assertThat(harness.finalStatus(orderId)).contains("CONFIRMED");
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (harness.orderView(orderId).map(view -> view.getFinalStatus() == null).orElse(true)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(harness.orderView(orderId)).hasValueSatisfying(
+                view -> assertThat(view.getFinalStatus()).isEqualTo("CONFIRMED"));
+    }
+}
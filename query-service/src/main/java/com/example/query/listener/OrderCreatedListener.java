@@ -3,7 +3,8 @@ package com.example.query.listener;
 import com.example.common.CorrelationIdUtils;
 import com.example.common.TopicNames;
 import com.example.common.avro.OrderCreated;
-import com.example.query.service.IdempotencyCache;
+import com.example.common.avro.OrderCreatedV2;
+import com.example.common.idempotency.IdempotencyClaims;
 import com.example.query.service.OrderViewStore;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
@@ -17,32 +18,46 @@ public class OrderCreatedListener {
     private static final Logger log = LoggerFactory.getLogger(OrderCreatedListener.class);
 
     private final OrderViewStore orderViewStore;
-    private final IdempotencyCache idempotencyCache;
+    private final IdempotencyClaims idempotencyClaims;
 
     public OrderCreatedListener(OrderViewStore orderViewStore,
-                                IdempotencyCache idempotencyCache) {
+                                IdempotencyClaims idempotencyClaims) {
         this.orderViewStore = orderViewStore;
-        this.idempotencyCache = idempotencyCache;
+        this.idempotencyClaims = idempotencyClaims;
     }
 
-    @KafkaListener(topics = TopicNames.ORDERS, groupId = "query-service")
+    @KafkaListener(topics = TopicNames.ORDERS, groupId = "query-service",
+            autoStartup = "${orders.consume.v1-enabled:true}")
     public void onOrderCreated(ConsumerRecord<String, OrderCreated> record) {
         OrderCreated event = record.value();
-        String eventId = event.getId() + "-order";
+        process(record, event.getId(), () -> orderViewStore.createFromOrderCreated(event));
+    }
+
+    /**
+     * Same handling for the compact {@code orders.v2} schema; both listeners share the
+     * {@code <orderId>-order} idempotency key, so a dual-published order is materialized once.
+     */
+    @KafkaListener(topics = TopicNames.ORDERS_V2, groupId = "query-service",
+            autoStartup = "${orders.consume.v2-enabled:false}")
+    public void onOrderCreatedV2(ConsumerRecord<String, OrderCreatedV2> record) {
+        OrderCreatedV2 event = record.value();
+        process(record, event.getId().toString(), () -> orderViewStore.createFromOrderCreated(event));
+    }
+
+    private void process(ConsumerRecord<String, ?> record, String orderId, Runnable materialization) {
+        String eventId = orderId + "-order";
 
         try {
             String correlationId = CorrelationIdUtils.getFromHeaders(record);
             CorrelationIdUtils.setInMdc(correlationId);
 
-            if (idempotencyCache.contains(eventId)) {
-                log.info("Skipping duplicate OrderCreated event for order {}", event.getId());
-                return;
+            boolean processed = idempotencyClaims.runOnce(record, eventId, () -> {
+                log.info("Materializing OrderCreated for order {}", orderId);
+                materialization.run();
+            });
+            if (!processed) {
+                log.info("Skipping duplicate OrderCreated event for order {}", orderId);
             }
-
-            log.info("Materializing OrderCreated for order {}", event.getId());
-            orderViewStore.createFromOrderCreated(event);
-
-            idempotencyCache.mark(eventId);
         } finally {
             CorrelationIdUtils.clearMdc();
         }
@@ -3,7 +3,7 @@ package com.example.query.listener;
 import com.example.common.CorrelationIdUtils;
 import com.example.common.TopicNames;
 import com.example.common.avro.OrderStatusChanged;
-import com.example.query.service.IdempotencyCache;
+import com.example.common.idempotency.IdempotencyStore;
 import com.example.query.service.OrderViewStore;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
@@ -17,12 +17,12 @@ public class OrderStatusChangedListener {
     private static final Logger log = LoggerFactory.getLogger(OrderStatusChangedListener.class);
 
     private final OrderViewStore orderViewStore;
-    private final IdempotencyCache idempotencyCache;
+    private final IdempotencyStore idempotencyStore;
 
     public OrderStatusChangedListener(OrderViewStore orderViewStore,
-                                      IdempotencyCache idempotencyCache) {
+                                      IdempotencyStore idempotencyStore) {
         this.orderViewStore = orderViewStore;
-        this.idempotencyCache = idempotencyCache;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @KafkaListener(topics = TopicNames.ORDER_STATUS, groupId = "query-service")
@@ -34,7 +34,7 @@ public class OrderStatusChangedListener {
             String correlationId = CorrelationIdUtils.getFromHeaders(record);
             CorrelationIdUtils.setInMdc(correlationId);
 
-            if (idempotencyCache.contains(eventId)) {
+            if (idempotencyStore.contains(record, eventId)) {
                 log.info("Skipping duplicate OrderStatusChanged event for order {}", event.getOrderId());
                 return;
             }
@@ -43,7 +43,7 @@ public class OrderStatusChangedListener {
                     event.getOrderId(), event.getFinalStatus());
             orderViewStore.updateFromStatusChanged(event);
 
-            idempotencyCache.mark(eventId);
+            idempotencyStore.mark(record, eventId);
         } finally {
             CorrelationIdUtils.clearMdc();
         }
@@ -1,12 +1,15 @@
 package com.example.query.service;
 
 import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderCreatedV2;
+import com.example.common.avro.OrderLine;
 import com.example.common.avro.OrderStatusChanged;
 import com.example.query.model.OrderView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -18,18 +21,29 @@ public class OrderViewStore {
     private final ConcurrentHashMap<String, OrderView> store = new ConcurrentHashMap<>();
 
     public void createFromOrderCreated(OrderCreated event) {
+        create(event.getId(), event.getCustomerId(), event.getLines(), event.getTotal(),
+                event.getStatus(), event.getCreatedAt());
+    }
+
+    public void createFromOrderCreated(OrderCreatedV2 event) {
+        create(event.getId().toString(), event.getCustomerId(), event.getLines(),
+                event.getTotal().toPlainString(), event.getStatus(), event.getCreatedAt().toString());
+    }
+
+    private void create(String id, String customerId, List<OrderLine> lines, String total,
+                        String status, String createdAt) {
         OrderView view = new OrderView();
-        view.setId(event.getId());
-        view.setCustomerId(event.getCustomerId());
-        view.setLines(event.getLines().stream()
+        view.setId(id);
+        view.setCustomerId(customerId);
+        view.setLines(lines.stream()
                 .map(l -> new OrderView.OrderViewLine(l.getSku(), l.getQty()))
                 .toList());
-        view.setTotal(event.getTotal());
-        view.setStatus(event.getStatus());
-        view.setCreatedAt(event.getCreatedAt());
+        view.setTotal(total);
+        view.setStatus(status);
+        view.setCreatedAt(createdAt);
 
-        store.put(event.getId(), view);
-        log.info("Materialized view created for order {}", event.getId());
+        store.put(id, view);
+        log.info("Materialized view created for order {}", id);
     }
 
     public void updateFromStatusChanged(OrderStatusChanged event) {
@@ -1,14 +1,18 @@
 package com.example.query.service;
 
 import com.example.common.avro.OrderCreated;
+import com.example.common.avro.OrderCreatedV2;
 import com.example.common.avro.OrderLine;
 import com.example.common.avro.OrderStatusChanged;
 import com.example.query.model.OrderView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -49,6 +53,27 @@ class OrderViewStoreTest {
         assertThat(view.getLines().get(1).qty()).isEqualTo(3);
     }
 
+    @Test
+    void createFromOrderCreatedV2_shouldMapToSameStringView() {
+        UUID orderId = UUID.randomUUID();
+        OrderCreatedV2 event = OrderCreatedV2.newBuilder()
+                .setId(orderId)
+                .setCustomerId("cust-1")
+                .setLines(List.of(new OrderLine("SKU-001", 2)))
+                .setTotal(new BigDecimal("250.00"))
+                .setStatus("CREATED")
+                .setCreatedAt(Instant.parse("2025-01-01T00:00:00Z"))
+                .build();
+
+        store.createFromOrderCreated(event);
+
+        OrderView view = store.findById(orderId.toString()).orElseThrow();
+        assertThat(view.getId()).isEqualTo(orderId.toString());
+        assertThat(view.getTotal()).isEqualTo("250.00");
+        assertThat(view.getCreatedAt()).isEqualTo("2025-01-01T00:00:00Z");
+        assertThat(view.getLines()).hasSize(1);
+    }
+
     @Test
     void updateFromStatusChanged_shouldUpdateExistingView() {
         OrderCreated created = OrderCreated.newBuilder()
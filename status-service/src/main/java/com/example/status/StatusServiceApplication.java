@@ -1,9 +1,12 @@
 package com.example.status;
 
+import com.example.common.idempotency.IdempotencyConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 
 @SpringBootApplication
+@Import(IdempotencyConfiguration.class)
 public class StatusServiceApplication {
 
     public static void main(String[] args) {
@@ -5,7 +5,8 @@ import com.example.common.TopicNames;
 import com.example.common.avro.OrderStatusChanged;
 import com.example.common.avro.StockRejected;
 import com.example.common.avro.StockReserved;
-import com.example.status.service.IdempotencyCache;
+import com.example.common.codec.LazyAvroValue;
+import com.example.common.idempotency.IdempotencyStore;
 import com.example.status.service.OrderStatusAggregator;
 import com.example.status.service.StatusEventPublisher;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -21,40 +22,40 @@ public class InventoryOutcomeListener {
 
     private final OrderStatusAggregator aggregator;
     private final StatusEventPublisher eventPublisher;
-    private final IdempotencyCache idempotencyCache;
+    private final IdempotencyStore idempotencyStore;
 
     public InventoryOutcomeListener(OrderStatusAggregator aggregator,
                                     StatusEventPublisher eventPublisher,
-                                    IdempotencyCache idempotencyCache) {
+                                    IdempotencyStore idempotencyStore) {
         this.aggregator = aggregator;
         this.eventPublisher = eventPublisher;
-        this.idempotencyCache = idempotencyCache;
+        this.idempotencyStore = idempotencyStore;
     }
 
-    @KafkaListener(topics = TopicNames.INVENTORY, groupId = "status-service")
+    @KafkaListener(topics = TopicNames.INVENTORY, groupId = "status-service", filter = "inventoryEventFilter")
     public void onInventoryOutcome(ConsumerRecord<String, Object> record) {
         String orderId = record.key();
-        Object value = record.value();
+        Class<?> type = LazyAvroValue.typeOf(record.value());
 
         try {
             String correlationId = CorrelationIdUtils.getFromHeaders(record);
             CorrelationIdUtils.setInMdc(correlationId);
 
             String eventId = orderId + "-inventory";
-            if (idempotencyCache.contains(eventId)) {
+            if (idempotencyStore.contains(record, eventId)) {
                 log.info("Skipping duplicate inventory event for order {}", orderId);
                 return;
             }
 
             String inventoryStatus;
-            if (value instanceof StockReserved) {
+            if (type == StockReserved.class) {
                 inventoryStatus = "RESERVED";
                 log.info("Received StockReserved for order {}", orderId);
-            } else if (value instanceof StockRejected) {
+            } else if (type == StockRejected.class) {
                 inventoryStatus = "REJECTED";
                 log.info("Received StockRejected for order {}", orderId);
             } else {
-                log.warn("Unknown event type on inventory topic: {}", value.getClass().getName());
+                log.warn("Unknown event type on inventory topic: {}", type);
                 return;
             }
 
@@ -63,7 +64,7 @@ public class InventoryOutcomeListener {
                 eventPublisher.publish(orderId, result);
             }
 
-            idempotencyCache.mark(eventId);
+            idempotencyStore.mark(record, eventId);
         } finally {
             CorrelationIdUtils.clearMdc();
         }
@@ -5,7 +5,8 @@ import com.example.common.TopicNames;
 import com.example.common.avro.OrderStatusChanged;
 import com.example.common.avro.PaymentAuthorized;
 import com.example.common.avro.PaymentFailed;
-import com.example.status.service.IdempotencyCache;
+import com.example.common.codec.LazyAvroValue;
+import com.example.common.idempotency.IdempotencyStore;
 import com.example.status.service.OrderStatusAggregator;
 import com.example.status.service.StatusEventPublisher;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -21,40 +22,40 @@ public class PaymentOutcomeListener {
 
     private final OrderStatusAggregator aggregator;
     private final StatusEventPublisher eventPublisher;
-    private final IdempotencyCache idempotencyCache;
+    private final IdempotencyStore idempotencyStore;
 
     public PaymentOutcomeListener(OrderStatusAggregator aggregator,
                                   StatusEventPublisher eventPublisher,
-                                  IdempotencyCache idempotencyCache) {
+                                  IdempotencyStore idempotencyStore) {
         this.aggregator = aggregator;
         this.eventPublisher = eventPublisher;
-        this.idempotencyCache = idempotencyCache;
+        this.idempotencyStore = idempotencyStore;
     }
 
-    @KafkaListener(topics = TopicNames.PAYMENTS, groupId = "status-service")
+    @KafkaListener(topics = TopicNames.PAYMENTS, groupId = "status-service", filter = "paymentEventFilter")
     public void onPaymentOutcome(ConsumerRecord<String, Object> record) {
         String orderId = record.key();
-        Object value = record.value();
+        Class<?> type = LazyAvroValue.typeOf(record.value());
 
         try {
             String correlationId = CorrelationIdUtils.getFromHeaders(record);
             CorrelationIdUtils.setInMdc(correlationId);
 
             String eventId = orderId + "-payment";
-            if (idempotencyCache.contains(eventId)) {
+            if (idempotencyStore.contains(record, eventId)) {
                 log.info("Skipping duplicate payment event for order {}", orderId);
                 return;
             }
 
             String paymentStatus;
-            if (value instanceof PaymentAuthorized) {
+            if (type == PaymentAuthorized.class) {
                 paymentStatus = "AUTHORIZED";
                 log.info("Received PaymentAuthorized for order {}", orderId);
-            } else if (value instanceof PaymentFailed) {
+            } else if (type == PaymentFailed.class) {
                 paymentStatus = "FAILED";
                 log.info("Received PaymentFailed for order {}", orderId);
             } else {
-                log.warn("Unknown event type on payments topic: {}", value.getClass().getName());
+                log.warn("Unknown event type on payments topic: {}", type);
                 return;
             }
 
@@ -63,7 +64,7 @@ public class PaymentOutcomeListener {
                 eventPublisher.publish(orderId, result);
             }
 
-            idempotencyCache.mark(eventId);
+            idempotencyStore.mark(record, eventId);
         } finally {
             CorrelationIdUtils.clearMdc();
         }
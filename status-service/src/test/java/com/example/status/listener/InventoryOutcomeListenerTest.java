@@ -1,10 +1,11 @@
 package com.example.status.listener;
 
+import com.example.common.avro.OrderLine;
 import com.example.common.avro.OrderStatusChanged;
 import com.example.common.avro.StockRejected;
 import com.example.common.avro.StockReserved;
-import com.example.common.avro.OrderLine;
-import com.example.status.service.IdempotencyCache;
+import com.example.common.codec.LazyAvroValue;
+import com.example.common.idempotency.IdempotencyStore;
 import com.example.status.service.OrderStatusAggregator;
 import com.example.status.service.StatusEventPublisher;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -32,13 +33,13 @@ class InventoryOutcomeListenerTest {
     @Mock
     private StatusEventPublisher eventPublisher;
     @Mock
-    private IdempotencyCache idempotencyCache;
+    private IdempotencyStore idempotencyStore;
 
     private InventoryOutcomeListener listener;
 
     @BeforeEach
     void setUp() {
-        listener = new InventoryOutcomeListener(aggregator, eventPublisher, idempotencyCache);
+        listener = new InventoryOutcomeListener(aggregator, eventPublisher, idempotencyStore);
     }
 
     private ConsumerRecord<String, Object> buildRecord(String orderId, Object value) {
@@ -55,12 +56,12 @@ class InventoryOutcomeListenerTest {
                 .setLines(List.of(new OrderLine("SKU-001", 1)))
                 .setReservedAt("now").build();
         ConsumerRecord<String, Object> record = buildRecord("order-1", event);
-        when(idempotencyCache.contains("order-1-inventory")).thenReturn(false);
+        when(idempotencyStore.contains(record, "order-1-inventory")).thenReturn(false);
 
         listener.onInventoryOutcome(record);
 
         verify(aggregator).handleInventoryOutcome(eq("order-1"), eq("RESERVED"), any());
-        verify(idempotencyCache).mark("order-1-inventory");
+        verify(idempotencyStore).mark(record, "order-1-inventory");
     }
 
     @Test
@@ -68,7 +69,7 @@ class InventoryOutcomeListenerTest {
         StockRejected event = StockRejected.newBuilder()
                 .setOrderId("order-1").setReason("Out of stock").setRejectedAt("now").build();
         ConsumerRecord<String, Object> record = buildRecord("order-1", event);
-        when(idempotencyCache.contains("order-1-inventory")).thenReturn(false);
+        when(idempotencyStore.contains(record, "order-1-inventory")).thenReturn(false);
 
         listener.onInventoryOutcome(record);
 
@@ -88,7 +89,7 @@ class InventoryOutcomeListenerTest {
                 .setInventoryStatus("RESERVED").setFinalStatus("CONFIRMED")
                 .setUpdatedAt("now").build();
 
-        when(idempotencyCache.contains("order-1-inventory")).thenReturn(false);
+        when(idempotencyStore.contains(record, "order-1-inventory")).thenReturn(false);
         when(aggregator.handleInventoryOutcome(any(), any(), any())).thenReturn(statusChanged);
 
         listener.onInventoryOutcome(record);
@@ -104,7 +105,7 @@ class InventoryOutcomeListenerTest {
                 .setReservedAt("now").build();
         ConsumerRecord<String, Object> record = buildRecord("order-1", event);
 
-        when(idempotencyCache.contains("order-1-inventory")).thenReturn(false);
+        when(idempotencyStore.contains(record, "order-1-inventory")).thenReturn(false);
         when(aggregator.handleInventoryOutcome(any(), any(), any())).thenReturn(null);
 
         listener.onInventoryOutcome(record);
@@ -119,7 +120,7 @@ class InventoryOutcomeListenerTest {
                 .setLines(List.of(new OrderLine("SKU-001", 1)))
                 .setReservedAt("now").build();
         ConsumerRecord<String, Object> record = buildRecord("order-1", event);
-        when(idempotencyCache.contains("order-1-inventory")).thenReturn(true);
+        when(idempotencyStore.contains(record, "order-1-inventory")).thenReturn(true);
 
         listener.onInventoryOutcome(record);
 
@@ -134,11 +135,23 @@ class InventoryOutcomeListenerTest {
                 .setLines(List.of(new OrderLine("SKU-001", 1)))
                 .setReservedAt("now").build();
         ConsumerRecord<String, Object> record = buildRecord("order-1", event);
-        when(idempotencyCache.contains("order-1-inventory")).thenReturn(false);
+        when(idempotencyStore.contains(record, "order-1-inventory")).thenReturn(false);
         when(aggregator.handleInventoryOutcome(any(), any(), any())).thenReturn(null);
 
         listener.onInventoryOutcome(record);
 
         assertThat(MDC.get("correlationId")).isNull();
     }
+
+    @Test
+    void onInventoryOutcome_lazyValue_shouldRouteByTypeWithoutDecoding() {
+        StockRejected event = StockRejected.newBuilder()
+                .setOrderId("order-1").setReason("Out of stock").setRejectedAt("now").build();
+        ConsumerRecord<String, Object> record = buildRecord("order-1", LazyAvroValue.of(event));
+        when(idempotencyStore.contains(record, "order-1-inventory")).thenReturn(false);
+
+        listener.onInventoryOutcome(record);
+
+        verify(aggregator).handleInventoryOutcome(eq("order-1"), eq("REJECTED"), any());
+    }
 }
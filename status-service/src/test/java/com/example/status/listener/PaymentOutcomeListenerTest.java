@@ -3,7 +3,8 @@ package com.example.status.listener;
 import com.example.common.avro.OrderStatusChanged;
 import com.example.common.avro.PaymentAuthorized;
 import com.example.common.avro.PaymentFailed;
-import com.example.status.service.IdempotencyCache;
+import com.example.common.codec.LazyAvroValue;
+import com.example.common.idempotency.IdempotencyStore;
 import com.example.status.service.OrderStatusAggregator;
 import com.example.status.service.StatusEventPublisher;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -30,13 +31,13 @@ class PaymentOutcomeListenerTest {
     @Mock
     private StatusEventPublisher eventPublisher;
     @Mock
-    private IdempotencyCache idempotencyCache;
+    private IdempotencyStore idempotencyStore;
 
     private PaymentOutcomeListener listener;
 
     @BeforeEach
     void setUp() {
-        listener = new PaymentOutcomeListener(aggregator, eventPublisher, idempotencyCache);
+        listener = new PaymentOutcomeListener(aggregator, eventPublisher, idempotencyStore);
     }
 
     private ConsumerRecord<String, Object> buildRecord(String orderId, Object value) {
@@ -51,12 +52,12 @@ class PaymentOutcomeListenerTest {
         PaymentAuthorized event = PaymentAuthorized.newBuilder()
                 .setOrderId("order-1").setAmount("100").setAuthorizedAt("now").build();
         ConsumerRecord<String, Object> record = buildRecord("order-1", event);
-        when(idempotencyCache.contains("order-1-payment")).thenReturn(false);
+        when(idempotencyStore.contains(record, "order-1-payment")).thenReturn(false);
 
         listener.onPaymentOutcome(record);
 
         verify(aggregator).handlePaymentOutcome(eq("order-1"), eq("AUTHORIZED"), any());
-        verify(idempotencyCache).mark("order-1-payment");
+        verify(idempotencyStore).mark(record, "order-1-payment");
     }
 
     @Test
@@ -64,7 +65,7 @@ class PaymentOutcomeListenerTest {
         PaymentFailed event = PaymentFailed.newBuilder()
                 .setOrderId("order-1").setReason("Too high").setFailedAt("now").build();
         ConsumerRecord<String, Object> record = buildRecord("order-1", event);
-        when(idempotencyCache.contains("order-1-payment")).thenReturn(false);
+        when(idempotencyStore.contains(record, "order-1-payment")).thenReturn(false);
 
         listener.onPaymentOutcome(record);
 
@@ -82,7 +83,7 @@ class PaymentOutcomeListenerTest {
                 .setInventoryStatus("RESERVED").setFinalStatus("CONFIRMED")
                 .setUpdatedAt("now").build();
 
-        when(idempotencyCache.contains("order-1-payment")).thenReturn(false);
+        when(idempotencyStore.contains(record, "order-1-payment")).thenReturn(false);
         when(aggregator.handlePaymentOutcome(any(), any(), any())).thenReturn(statusChanged);
 
         listener.onPaymentOutcome(record);
@@ -96,7 +97,7 @@ class PaymentOutcomeListenerTest {
                 .setOrderId("order-1").setAmount("100").setAuthorizedAt("now").build();
         ConsumerRecord<String, Object> record = buildRecord("order-1", event);
 
-        when(idempotencyCache.contains("order-1-payment")).thenReturn(false);
+        when(idempotencyStore.contains(record, "order-1-payment")).thenReturn(false);
         when(aggregator.handlePaymentOutcome(any(), any(), any())).thenReturn(null);
 
         listener.onPaymentOutcome(record);
@@ -109,7 +110,7 @@ class PaymentOutcomeListenerTest {
         PaymentAuthorized event = PaymentAuthorized.newBuilder()
                 .setOrderId("order-1").setAmount("100").setAuthorizedAt("now").build();
         ConsumerRecord<String, Object> record = buildRecord("order-1", event);
-        when(idempotencyCache.contains("order-1-payment")).thenReturn(true);
+        when(idempotencyStore.contains(record, "order-1-payment")).thenReturn(true);
 
         listener.onPaymentOutcome(record);
 
@@ -122,11 +123,23 @@ class PaymentOutcomeListenerTest {
         PaymentAuthorized event = PaymentAuthorized.newBuilder()
                 .setOrderId("order-1").setAmount("100").setAuthorizedAt("now").build();
         ConsumerRecord<String, Object> record = buildRecord("order-1", event);
-        when(idempotencyCache.contains("order-1-payment")).thenReturn(false);
+        when(idempotencyStore.contains(record, "order-1-payment")).thenReturn(false);
         when(aggregator.handlePaymentOutcome(any(), any(), any())).thenReturn(null);
 
         listener.onPaymentOutcome(record);
 
         assertThat(MDC.get("correlationId")).isNull();
     }
+
+    @Test
+    void onPaymentOutcome_lazyValue_shouldRouteByTypeWithoutDecoding() {
+        PaymentFailed event = PaymentFailed.newBuilder()
+                .setOrderId("order-1").setReason("Too high").setFailedAt("now").build();
+        ConsumerRecord<String, Object> record = buildRecord("order-1", LazyAvroValue.of(event));
+        when(idempotencyStore.contains(record, "order-1-payment")).thenReturn(false);
+
+        listener.onPaymentOutcome(record);
+
+        verify(aggregator).handlePaymentOutcome(eq("order-1"), eq("FAILED"), any());
+    }
 }